@@ -0,0 +1,136 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.pidima.chatmicroservice.config.ChatMicroserviceApplication;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.InMemoryChatStore;
+import com.pidima.chatmicroservice.repositories.JpaChatStore;
+import com.pidima.chatmicroservice.repositories.LogChatStore;
+import com.pidima.chatmicroservice.services.ChatService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service-level hot paths on each storage engine (JPA over in-memory H2, the in-memory store
+ * and the memory-mapped log in a temporary directory): session creation, a single send, and
+ * history reads at several history sizes.
+ *
+ * <p>The application runs without the web layer and with service logging at WARN, so the
+ * numbers cover the service, repositories and database only.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChatServiceBenchmark {
+
+    private static final Map<String, Class<? extends ChatStore>> ENGINES =
+            Map.of("jpa", JpaChatStore.class, "memory", InMemoryChatStore.class, "log", LogChatStore.class);
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        @Param({"jpa", "memory", "log"})
+        public String engine;
+
+        Path logDirectory;
+        ConfigurableApplicationContext context;
+        ChatService chatService;
+        String writeSessionId;
+
+        @Setup(Level.Trial)
+        public void start() throws IOException {
+            logDirectory = Files.createTempDirectory("jmh-chat-log");
+            // Default properties would lose to application.yml, which selects the jpa engine
+            context = new SpringApplicationBuilder(ChatMicroserviceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--chat.storage.engine=" + engine,
+                         "--chat.storage.log.directory=" + logDirectory,
+                         "--spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                         "--logging.level.root=WARN",
+                         "--logging.level.com.pidima.chatmicroservice=WARN");
+            Class<?> store = AopUtils.getTargetClass(context.getBean(ChatStore.class));
+            if (store != ENGINES.get(engine)) {
+                throw new IllegalStateException("Engine " + engine + " started " + store.getSimpleName());
+            }
+            chatService = context.getBean(ChatService.class);
+            writeSessionId = chatService.createSession(null).getSessionId().toString();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() throws IOException {
+            // The log store flushes and closes its segments with the context, so delete them after
+            context.close();
+            FileSystemUtils.deleteRecursively(logDirectory);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class History {
+        @Param({"10", "100", "1000"})
+        public int historySize;
+
+        String sessionId;
+
+        @Setup(Level.Trial)
+        public void seed(Application application) {
+            sessionId = application.chatService.createSession(null).getSessionId().toString();
+            List<SendMessageRequest> batch = new ArrayList<>();
+            for (int i = 0; i < historySize; i++) {
+                batch.add(new SendMessageRequest(sessionId, "history message " + i, i % 2 == 0 ? "user" : "bot"));
+                if (batch.size() == 1000 || i == historySize - 1) {
+                    application.chatService.sendMessages(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public ChatSession createSession(Application application) {
+        return application.chatService.createSession("Hello, I need help");
+    }
+
+    @Benchmark
+    public ChatMessage sendMessage(Application application) {
+        return application.chatService.sendMessage(application.writeSessionId, "benchmark message", "user");
+    }
+
+    @Benchmark
+    public List<ChatMessage> getChatHistory(Application application, History history) {
+        return application.chatService.getChatHistory(history.sessionId);
+    }
+
+    @Benchmark
+    public ChatHistoryPage getLatestPage(Application application, History history) {
+        return application.chatService.getChatHistoryPage(history.sessionId, null, null, null, true);
+    }
+}
@@ -0,0 +1,102 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.pidima.chatmicroservice.config.ChatMicroserviceApplication;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.ChatService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * History reads on the JPA engine through managed entities ({@code readPath=entity}) and through
+ * the JDBC row projection ({@code readPath=projection}), at large history sizes. Run with
+ * {@code -prof gc} for the bytes allocated per read ({@code gc.alloc.rate.norm}).
+ *
+ * <p>The application runs without the web layer and with service logging at WARN, as in
+ * {@link ChatServiceBenchmark}, and without the history tail cache so that every read reaches the
+ * database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HistoryReadPathBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Application {
+        @Param({"entity", "projection"})
+        public String readPath;
+
+        @Param({"1000", "10000", "50000"})
+        public int historySize;
+
+        ConfigurableApplicationContext context;
+        ChatService chatService;
+        String sessionId;
+
+        @Setup(Level.Trial)
+        public void start() {
+            // Arguments, as application.yml outranks default properties and turns projection reads on.
+            // The tail cache is off so that latest pages are read from the database as well.
+            boolean projectionReads = readPath.equals("projection");
+            context = new SpringApplicationBuilder(ChatMicroserviceApplication.class)
+                    .web(WebApplicationType.NONE)
+                    .run("--chat.storage.engine=jpa",
+                         "--chat.storage.jpa.projection-reads=" + projectionReads,
+                         "--chat.history.tail-cache.enabled=false",
+                         "--spring.datasource.url=jdbc:h2:mem:jmh-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                         "--logging.level.root=WARN",
+                         "--logging.level.com.pidima.chatmicroservice=WARN");
+            if (context.getEnvironment().getProperty("chat.storage.jpa.projection-reads", Boolean.class)
+                    != projectionReads) {
+                throw new IllegalStateException("Read path " + readPath + " was not applied");
+            }
+            chatService = context.getBean(ChatService.class);
+            sessionId = chatService.createSession(null).getSessionId().toString();
+            List<SendMessageRequest> batch = new ArrayList<>();
+            for (int i = 0; i < historySize; i++) {
+                batch.add(new SendMessageRequest(sessionId, "history message " + i, i % 2 == 0 ? "user" : "bot"));
+                if (batch.size() == 1000 || i == historySize - 1) {
+                    chatService.sendMessages(batch);
+                    batch = new ArrayList<>();
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            context.close();
+        }
+    }
+
+    @Benchmark
+    public List<ChatMessage> getChatHistory(Application application) {
+        return application.chatService.getChatHistory(application.sessionId);
+    }
+
+    @Benchmark
+    public ChatHistoryPage getLatestPage(Application application) {
+        return application.chatService.getChatHistoryPage(application.sessionId, null, null, null, true);
+    }
+}
@@ -0,0 +1,63 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.pidima.chatmicroservice.services.IdGenerator;
+import com.pidima.chatmicroservice.services.RandomIdGenerator;
+import com.pidima.chatmicroservice.services.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of both ID strategies, single-threaded and with four threads sharing one generator,
+ * plus parsing of client-supplied IDs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IdGenerationBenchmark {
+
+    private final IdGenerator random = new RandomIdGenerator();
+    private final IdGenerator timeOrdered = new TimeOrderedIdGenerator();
+    private final String encoded = timeOrdered.newId().toString();
+
+    @Benchmark
+    public UUID random() {
+        return random.newId();
+    }
+
+    @Benchmark
+    public UUID timeOrdered() {
+        return timeOrdered.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID randomContended() {
+        return random.newId();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public UUID timeOrderedContended() {
+        return timeOrdered.newId();
+    }
+
+    @Benchmark
+    public Optional<UUID> parse() {
+        return IdGenerator.parse(encoded);
+    }
+}
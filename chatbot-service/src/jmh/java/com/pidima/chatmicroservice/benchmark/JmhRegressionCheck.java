@@ -0,0 +1,83 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares two JMH JSON result files and exits non-zero when a benchmark in the current run is
+ * slower than the baseline by more than the threshold percentage and by more than the combined
+ * score error of both runs.
+ *
+ * <pre>
+ * JmhRegressionCheck &lt;baseline.json&gt; &lt;current.json&gt; [threshold-percent]
+ * </pre>
+ */
+public final class JmhRegressionCheck {
+
+    private JmhRegressionCheck() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: JmhRegressionCheck <baseline.json> <current.json> [threshold-percent]");
+            System.exit(2);
+        }
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10.0;
+        Map<String, JsonNode> baseline = load(Path.of(args[0]));
+        Map<String, JsonNode> current = load(Path.of(args[1]));
+
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : current.entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("[jmh] %-50s new%n", entry.getKey());
+                continue;
+            }
+            JsonNode after = entry.getValue();
+            double oldScore = before.path("primaryMetric").path("score").asDouble();
+            double newScore = after.path("primaryMetric").path("score").asDouble();
+            double noise = errorOf(before) + errorOf(after);
+            // Throughput modes are better when higher, time-per-operation modes when lower
+            boolean higherIsBetter = "thrpt".equals(after.path("mode").asText());
+            double slowdown = higherIsBetter ? oldScore - newScore : newScore - oldScore;
+            double percent = oldScore == 0 ? 0 : 100.0 * slowdown / oldScore;
+            boolean regressed = percent > threshold && slowdown > noise;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("[jmh] %-50s %12.3f -> %12.3f %s %+7.1f%% slower%s%n", entry.getKey(), oldScore, newScore,
+                    after.path("primaryMetric").path("scoreUnit").asText(), percent, regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("[jmh] %d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+        System.out.println("[jmh] no regressions");
+    }
+
+    // Keyed by benchmark method and parameter values so parameterised runs compare like for like
+    private static Map<String, JsonNode> load(Path file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file.toFile())) {
+            String benchmark = result.path("benchmark").asText();
+            // Class.method without the package
+            StringBuilder key = new StringBuilder(
+                    benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1));
+            result.path("params").fields().forEachRemaining(param ->
+                    key.append(' ').append(param.getKey()).append('=').append(param.getValue().asText()));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double errorOf(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+}
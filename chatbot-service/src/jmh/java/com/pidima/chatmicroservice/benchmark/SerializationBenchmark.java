@@ -0,0 +1,106 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson encoding of the response bodies, using an ObjectMapper configured like the application's
+ * (snake_case, non-null inclusion, ISO dates).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final TypeReference<List<ChatMessage>> MESSAGE_LIST = new TypeReference<>() {
+    };
+
+    @State(Scope.Benchmark)
+    public static class Mapper {
+        ObjectMapper objectMapper;
+        SendMessageResponse response;
+
+        @Setup
+        public void setUp() {
+            objectMapper = Jackson2ObjectMapperBuilder.json()
+                    .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .serializationInclusion(JsonInclude.Include.NON_NULL)
+                    .build();
+            TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+            ChatMessage message = message(ids.newId(), ids, LocalDateTime.now(), 0);
+            response = new SendMessageResponse(message.getMessageId().toString(), message.getSessionId().toString(),
+                    message.getContent(), message.getSender(), message.getTimestamp());
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Messages {
+        @Param({"1", "50", "500"})
+        public int messageCount;
+
+        List<ChatMessage> messages;
+        byte[] json;
+
+        @Setup
+        public void setUp(Mapper mapper) throws JsonProcessingException {
+            TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+            UUID sessionId = ids.newId();
+            LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            messages = new ArrayList<>();
+            for (int i = 0; i < messageCount; i++) {
+                messages.add(message(sessionId, ids, base, i));
+            }
+            json = mapper.objectMapper.writeValueAsBytes(messages);
+        }
+    }
+
+    @Benchmark
+    public byte[] writeMessageList(Mapper mapper, Messages messages) throws JsonProcessingException {
+        return mapper.objectMapper.writeValueAsBytes(messages.messages);
+    }
+
+    @Benchmark
+    public List<ChatMessage> readMessageList(Mapper mapper, Messages messages) throws Exception {
+        return mapper.objectMapper.readValue(messages.json, MESSAGE_LIST);
+    }
+
+    @Benchmark
+    public byte[] writeSendMessageResponse(Mapper mapper) throws JsonProcessingException {
+        return mapper.objectMapper.writeValueAsBytes(mapper.response);
+    }
+
+    private static ChatMessage message(UUID sessionId, TimeOrderedIdGenerator ids, LocalDateTime base, int i) {
+        ChatMessage message = new ChatMessage(sessionId,
+                "Message " + i + ": a typical chat line of a few dozen characters", i % 2 == 0 ? "user" : "bot");
+        message.setMessageId(ids.newId());
+        message.setTimestamp(base.plus(i, ChronoUnit.MICROS));
+        return message;
+    }
+}
@@ -0,0 +1,167 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pidima.chatmicroservice.api.ChatProtobufHttpMessageConverter;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding of the chat API bodies in each negotiable wire format, with mappers and
+ * the protobuf converter set up as {@code WireFormatConfiguration} sets them up. The encoded
+ * sizes are printed once per trial; {@code WireFormatSizeBenchmarkTest} reports them with gzip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    private static final Type MESSAGE_LIST = ResolvableType.forClassWithGenerics(List.class, ChatMessage.class)
+            .getType();
+
+    @State(Scope.Benchmark)
+    public static class Format {
+        @Param({"json", "cbor", "smile", "protobuf"})
+        public String format;
+
+        @Param({"1", "50", "500"})
+        public int messageCount;
+
+        Codec codec;
+        List<ChatMessage> messages;
+        SendMessageResponse response;
+        byte[] encodedMessages;
+        byte[] encodedResponse;
+
+        @Setup
+        public void setUp() throws IOException {
+            codec = switch (format) {
+                case "json" -> new JacksonCodec(new JsonFactory());
+                case "cbor" -> new JacksonCodec(new CBORFactory());
+                case "smile" -> new JacksonCodec(new SmileFactory());
+                case "protobuf" -> new ProtobufCodec();
+                default -> throw new IllegalArgumentException("Unknown format: " + format);
+            };
+            TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+            UUID sessionId = ids.newId();
+            LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            messages = new ArrayList<>();
+            for (int i = 0; i < messageCount; i++) {
+                messages.add(message(sessionId, ids, base, i));
+            }
+            ChatMessage first = messages.get(0);
+            response = new SendMessageResponse(first.getMessageId().toString(), first.getSessionId().toString(),
+                    first.getContent(), first.getSender(), first.getTimestamp());
+            encodedMessages = codec.encode(messages);
+            encodedResponse = codec.encode(response);
+            System.out.printf("%n[wire-format] %s: %d messages = %d bytes, SendMessageResponse = %d bytes%n",
+                              format, messageCount, encodedMessages.length, encodedResponse.length);
+        }
+    }
+
+    @Benchmark
+    public byte[] encodeMessageList(Format format) throws IOException {
+        return format.codec.encode(format.messages);
+    }
+
+    @Benchmark
+    public Object decodeMessageList(Format format) throws IOException {
+        return format.codec.decode(format.encodedMessages, MESSAGE_LIST);
+    }
+
+    @Benchmark
+    public byte[] encodeSendMessageResponse(Format format) throws IOException {
+        return format.codec.encode(format.response);
+    }
+
+    @Benchmark
+    public Object decodeSendMessageResponse(Format format) throws IOException {
+        return format.codec.decode(format.encodedResponse, SendMessageResponse.class);
+    }
+
+    interface Codec {
+        byte[] encode(Object value) throws IOException;
+
+        Object decode(byte[] bytes, Type type) throws IOException;
+    }
+
+    static final class JacksonCodec implements Codec {
+        private final ObjectMapper objectMapper;
+
+        JacksonCodec(JsonFactory factory) {
+            this.objectMapper = Jackson2ObjectMapperBuilder.json()
+                    .factory(factory)
+                    .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                    .serializationInclusion(JsonInclude.Include.NON_NULL)
+                    .build();
+        }
+
+        @Override
+        public byte[] encode(Object value) throws IOException {
+            return objectMapper.writeValueAsBytes(value);
+        }
+
+        @Override
+        public Object decode(byte[] bytes, Type type) throws IOException {
+            JavaType javaType = objectMapper.constructType(type);
+            return objectMapper.readValue(bytes, javaType);
+        }
+    }
+
+    static final class ProtobufCodec implements Codec {
+        private final ChatProtobufHttpMessageConverter converter = new ChatProtobufHttpMessageConverter();
+
+        @Override
+        public byte[] encode(Object value) throws IOException {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            converter.encode(value, out);
+            return out.toByteArray();
+        }
+
+        @Override
+        public Object decode(byte[] bytes, Type type) throws IOException {
+            return converter.decode(type, new ByteArrayInputStream(bytes));
+        }
+    }
+
+    private static ChatMessage message(UUID sessionId, TimeOrderedIdGenerator ids, LocalDateTime base, int i) {
+        ChatMessage message = new ChatMessage(sessionId,
+                "Message " + i + ": a typical chat line of a few dozen characters", i % 2 == 0 ? "user" : "bot");
+        message.setMessageId(ids.newId());
+        message.setSeq(i + 1L);
+        message.setTimestamp(base.plus(i, ChronoUnit.MICROS));
+        return message;
+    }
+}
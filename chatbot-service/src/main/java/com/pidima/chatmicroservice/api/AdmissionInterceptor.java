@@ -0,0 +1,55 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.services.AdaptiveConcurrencyLimiter;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Admits each chat request through the {@link AdaptiveConcurrencyLimiter} before it reaches the
+ * controller, so an overloaded instance turns requests away with a 503 instead of queueing them.
+ *
+ * <p>Streams (the SSE subscription and NDJSON exports) hand off to an async dispatch; their permit
+ * is released once the handler returns, without a latency sample, since a stream's lifetime says
+ * nothing about the service's load.
+ */
+public class AdmissionInterceptor implements AsyncHandlerInterceptor {
+    private static final String ADMITTED_AT = AdmissionInterceptor.class.getName() + ".admittedAt";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdmissionInterceptor(AdaptiveConcurrencyLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async and error dispatches belong to a request that was already admitted
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        limiter.acquire();
+        request.setAttribute(ADMITTED_AT, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (request.getAttribute(ADMITTED_AT) != null) {
+            request.removeAttribute(ADMITTED_AT);
+            limiter.release();
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        Object admittedAt = request.getAttribute(ADMITTED_AT);
+        if (admittedAt != null) {
+            request.removeAttribute(ADMITTED_AT);
+            limiter.onCompleted(System.nanoTime() - (Long) admittedAt, ex != null || response.getStatus() >= 500);
+        }
+    }
+}
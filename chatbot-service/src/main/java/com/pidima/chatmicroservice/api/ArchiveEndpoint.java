@@ -0,0 +1,38 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.repositories.SessionArchive;
+import com.pidima.chatmicroservice.services.SessionArchiver;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/archive} reports what the archive holds; {@code POST /actuator/archive}
+ * runs the archiver right away.
+ */
+@Component
+@Endpoint(id = "archive")
+@ConditionalOnProperty(prefix = "chat.archive", name = "enabled", havingValue = "true")
+public class ArchiveEndpoint {
+
+    @Autowired
+    private SessionArchive sessionArchive;
+
+    @Autowired
+    private SessionArchiver sessionArchiver;
+
+    @ReadOperation
+    public Map<String, Long> archive() {
+        return Map.of("sessions", sessionArchive.sessionCount(), "bytes", sessionArchive.sizeInBytes());
+    }
+
+    @WriteOperation
+    public SessionArchiver.Result run() {
+        return sessionArchiver.archive();
+    }
+}
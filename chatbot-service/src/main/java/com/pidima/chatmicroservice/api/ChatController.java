@@ -1,5 +1,7 @@
 package com.pidima.chatmicroservice.api;
 
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
 import com.pidima.chatmicroservice.dto.CreateSessionRequest;
 import com.pidima.chatmicroservice.dto.CreateSessionResponse;
 import com.pidima.chatmicroservice.dto.SendMessageRequest;
@@ -7,24 +9,63 @@ import com.pidima.chatmicroservice.dto.SendMessageResponse;
 import com.pidima.chatmicroservice.models.ChatMessage;
 import com.pidima.chatmicroservice.models.ChatSession;
 import com.pidima.chatmicroservice.services.ChatService;
+import com.pidima.chatmicroservice.services.HistoryTailCache;
+import com.pidima.chatmicroservice.services.MessageSubscription;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.MimeTypeUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ChatController {
     private static final Logger logger = LoggerFactory.getLogger(ChatController.class);
 
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final String PREV_CURSOR_HEADER = "X-Prev-Cursor";
+    static final String HAS_MORE_HEADER = "X-Has-More";
+    static final String NDJSON_VALUE = "application/x-ndjson";
+    static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    // The encodings besides JSON that WireFormatConfiguration registers
+    private static final List<MediaType> BINARY_TYPES = List.of(
+            MediaType.APPLICATION_CBOR, new MediaType("application", "x-jackson-smile"),
+            ChatProtobufHttpMessageConverter.PROTOBUF, ChatProtobufHttpMessageConverter.PROTOBUF_STANDARD);
+
     @Autowired
     private ChatService chatService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${chat.subscriptions.timeout:30m}")
+    private Duration subscriptionTimeout;
+
+    @Value("${chat.subscriptions.reconnect-delay:2s}")
+    private Duration reconnectDelay;
+
     @PostMapping("/session")
     public ResponseEntity<CreateSessionResponse> createSession(@Valid @RequestBody CreateSessionRequest request) {
         logger.info("Received request to create new chat session");
@@ -32,7 +73,7 @@ public class ChatController {
         ChatSession session = chatService.createSession(request.getInitialMessage());
         
         CreateSessionResponse response = new CreateSessionResponse(
-                session.getSessionId(),
+                session.getSessionId().toString(),
                 session.getCreatedAt()
         );
         
@@ -51,8 +92,8 @@ public class ChatController {
         );
         
         SendMessageResponse response = new SendMessageResponse(
-                message.getMessageId(),
-                message.getSessionId(),
+                message.getMessageId().toString(),
+                message.getSessionId().toString(),
                 message.getContent(),
                 message.getSender(),
                 message.getTimestamp()
@@ -62,13 +103,168 @@ public class ChatController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    @PostMapping("/messages")
+    public ResponseEntity<BulkSendMessageResponse> sendMessages(@RequestBody List<SendMessageRequest> requests) {
+        logger.info("Received request to send {} messages in bulk", requests.size());
+
+        BulkSendMessageResponse response = chatService.sendMessages(requests);
+
+        logger.info("Bulk send finished: {} created, {} rejected", response.getCreated(), response.getRejected());
+        HttpStatus status = response.getRejected() == 0 ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS;
+        return new ResponseEntity<>(response, status);
+    }
+
     @GetMapping("/history/{sessionId}")
-    public ResponseEntity<List<ChatMessage>> getChatHistory(@PathVariable String sessionId) {
+    public ResponseEntity<?> getChatHistory(@PathVariable String sessionId,
+                                            @RequestParam(required = false) Integer limit,
+                                            @RequestParam(required = false) String after,
+                                            @RequestParam(required = false) String before,
+                                            @RequestParam(defaultValue = "false") boolean latest,
+                                            @RequestParam(required = false) Long sinceSeq,
+                                            WebRequest request) {
         logger.info("Received request to get chat history for session: {}", sessionId);
-        
-        List<ChatMessage> messages = chatService.getChatHistory(sessionId);
-        
-        logger.info("Successfully retrieved {} messages for session: {}", messages.size(), sessionId);
-        return new ResponseEntity<>(messages, HttpStatus.OK);
+
+        if (sinceSeq != null) {
+            if (after != null || before != null || latest) {
+                throw new IllegalArgumentException("'sinceSeq' cannot be combined with a cursor or 'latest'");
+            }
+            ChatHistoryPage page = chatService.getMessagesSince(sessionId, sinceSeq, limit);
+
+            logger.info("Successfully retrieved {} new messages for session: {}", page.getMessages().size(), sessionId);
+            return ResponseEntity.ok()
+                    .headers(cursorHeaders(null, null, page.isHasMore()))
+                    .body(page.getMessages());
+        }
+
+        boolean fullHistory = limit == null && after == null && before == null && !latest;
+
+        // The full history and the latest page are answered from the tail cache when possible:
+        // a matching If-None-Match costs no query at all, a cached tail no serialization. The
+        // cache holds JSON, so clients asking for a binary format are served from the store
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if ((fullHistory || (latest && after == null && before == null)) && prefersJson(request)) {
+            Optional<HistoryTailCache.Snapshot> cached = chatService.getCachedHistory(sessionId, latest, limit);
+            if (cached.isPresent()) {
+                HistoryTailCache.Snapshot snapshot = cached.get();
+                if (request.checkNotModified(snapshot.etag())) {
+                    logger.info("Chat history of session {} not modified", sessionId);
+                    return null;
+                }
+                // Tagged whether the cache or the store answers, so the next request can be a 304
+                response.eTag(snapshot.etag()).varyBy(HttpHeaders.ACCEPT);
+                if (snapshot.body() != null) {
+                    response.contentType(MediaType.APPLICATION_JSON);
+                    if (latest) {
+                        response.headers(cursorHeaders(snapshot.nextCursor(), snapshot.prevCursor(),
+                                                       snapshot.hasMore()));
+                    }
+                    logger.info("Served chat history for session {} from the tail cache", sessionId);
+                    return response.body(snapshot.body());
+                }
+            }
+        }
+
+        if (fullHistory) {
+            List<ChatMessage> messages = chatService.getChatHistory(sessionId);
+
+            logger.info("Successfully retrieved {} messages for session: {}", messages.size(), sessionId);
+            return response.body(messages);
+        }
+
+        ChatHistoryPage page = chatService.getChatHistoryPage(sessionId, limit, after, before, latest);
+
+        logger.info("Successfully retrieved page of {} messages for session: {}", page.getMessages().size(), sessionId);
+        return response
+                .headers(cursorHeaders(page.getNextCursor(), page.getPrevCursor(), page.isHasMore()))
+                .body(page.getMessages());
+    }
+
+    @GetMapping(value = {"/history/{sessionId}/export", "/history/{sessionId}"}, produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportChatHistory(@PathVariable String sessionId) {
+        logger.info("Received request to export chat history for session: {}", sessionId);
+
+        // Resolve the session before the response is committed so an unknown ID still maps to a 400
+        if (chatService.getSession(sessionId).isEmpty()) {
+            throw new IllegalArgumentException("Session not found: " + sessionId);
+        }
+
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // One document per line; suppress the default space between root values
+                generator.setRootValueSeparator(null);
+                long exported = chatService.exportChatHistory(sessionId, message -> {
+                    try {
+                        objectMapper.writeValue(generator, message);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                logger.info("Successfully exported {} messages for session: {}", exported, sessionId);
+            }
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON_VALUE))
+                .body(body);
+    }
+
+    @GetMapping(value = "/subscribe/{sessionId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable String sessionId,
+                                @RequestHeader(value = LAST_EVENT_ID_HEADER, required = false) String lastEventId,
+                                @RequestParam(value = "last_event_id", required = false) String lastEventIdParam) {
+        logger.info("Received request to subscribe to session: {}", sessionId);
+
+        SseEmitter emitter = new SseEmitter(subscriptionTimeout.toMillis());
+        // EventSource sends the header on automatic reconnects; the query parameter covers manual resumes
+        MessageSubscription subscription = chatService.subscribe(sessionId,
+                lastEventId != null ? lastEventId : lastEventIdParam,
+                new SseMessageSubscriber(emitter, reconnectDelay.toMillis()));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(subscription::cancel);
+        emitter.onError(error -> subscription.cancel());
+        return emitter;
+    }
+
+    // Accept is taken in order of preference (quality, then specificity), like Spring's own
+    // negotiation; the first type that names an encoding the API produces decides whether the
+    // cached JSON can be served
+    private static boolean prefersJson(WebRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        try {
+            List<MediaType> types = new ArrayList<>(MediaType.parseMediaTypes(accept));
+            MimeTypeUtils.sortBySpecificity(types);
+            for (MediaType type : types) {
+                if (type.getQualityValue() == 0) {
+                    continue;
+                }
+                if (type.includes(MediaType.APPLICATION_JSON)) {
+                    return true;
+                }
+                if (BINARY_TYPES.stream().anyMatch(type::includes)) {
+                    return false;
+                }
+            }
+            return types.isEmpty();
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+    }
+
+    // The body stays a plain array so paged and unpaged responses share one shape;
+    // cursors travel in headers
+    static HttpHeaders cursorHeaders(String nextCursor, String prevCursor, boolean hasMore) {
+        HttpHeaders headers = new HttpHeaders();
+        if (nextCursor != null) {
+            headers.set(NEXT_CURSOR_HEADER, nextCursor);
+        }
+        if (prevCursor != null) {
+            headers.set(PREV_CURSOR_HEADER, prevCursor);
+        }
+        headers.set(HAS_MORE_HEADER, Boolean.toString(hasMore));
+        return headers;
     }
 }
\ No newline at end of file
@@ -0,0 +1,433 @@
+package com.pidima.chatmicroservice.api;
+
+import com.google.protobuf.CodedInputStream;
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.WireFormat;
+import com.pidima.chatmicroservice.dto.CreateSessionRequest;
+import com.pidima.chatmicroservice.dto.CreateSessionResponse;
+import com.pidima.chatmicroservice.dto.ErrorResponse;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Reads and writes the chat API's DTOs in the protobuf encoding described by
+ * {@code src/main/proto/chat.proto}.
+ *
+ * <p>The messages are encoded field by field on protobuf's coded streams rather than through
+ * generated classes, so no copy is made between the DTOs the controller already uses and a
+ * generated message, and the build needs no protoc step. A {@code List<ChatMessage>} (history) is
+ * written as a {@code ChatHistory}. Fields that are null are left out, as proto3 leaves out
+ * defaults.
+ *
+ * <p>Not a component: {@link com.pidima.chatmicroservice.config.WireFormatConfiguration} adds it
+ * after the JSON converter so that clients which accept anything still get JSON.
+ */
+public class ChatProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+    public static final MediaType PROTOBUF = new MediaType("application", "x-protobuf");
+    public static final MediaType PROTOBUF_STANDARD = new MediaType("application", "protobuf");
+
+    private static final Set<Class<?>> MESSAGE_TYPES = Set.of(
+            CreateSessionRequest.class, CreateSessionResponse.class, SendMessageRequest.class,
+            SendMessageResponse.class, ChatMessage.class, ErrorResponse.class);
+
+    private static final int UUID_BYTES = 16;
+    private static final int LENGTH_DELIMITED = WireFormat.WIRETYPE_LENGTH_DELIMITED;
+
+    public ChatProtobufHttpMessageConverter() {
+        super(PROTOBUF, PROTOBUF_STANDARD);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return MESSAGE_TYPES.contains(clazz) || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return (isHistory(type) || MESSAGE_TYPES.contains(ResolvableType.forType(type).toClass()))
+                && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz != null && MESSAGE_TYPES.contains(clazz) && canRead(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return decode(type, inputMessage.getBody(), inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return decode(clazz, inputMessage.getBody(), inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        encode(value, outputMessage.getBody());
+    }
+
+    private Object decode(Type type, InputStream body, HttpInputMessage inputMessage) throws IOException {
+        try {
+            return decode(type, body);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid protobuf message: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    /**
+     * Decodes one message of the given type, or a {@code ChatHistory} for {@code List<ChatMessage>}.
+     */
+    public Object decode(Type type, InputStream stream) throws IOException {
+        CodedInputStream in = CodedInputStream.newInstance(stream);
+        if (isHistory(type)) {
+            return readHistory(in);
+        }
+        Class<?> clazz = ResolvableType.forType(type).toClass();
+        if (clazz == CreateSessionRequest.class) {
+            return readCreateSessionRequest(in);
+        } else if (clazz == CreateSessionResponse.class) {
+            return readCreateSessionResponse(in);
+        } else if (clazz == SendMessageRequest.class) {
+            return readSendMessageRequest(in);
+        } else if (clazz == SendMessageResponse.class) {
+            return readSendMessageResponse(in);
+        } else if (clazz == ChatMessage.class) {
+            return readChatMessage(in);
+        } else if (clazz == ErrorResponse.class) {
+            return readErrorResponse(in);
+        }
+        throw new IllegalArgumentException("No protobuf encoding for " + type);
+    }
+
+    /**
+     * Encodes one message, or a {@code ChatHistory} for a list of {@link ChatMessage}.
+     */
+    public void encode(Object value, OutputStream stream) throws IOException {
+        CodedOutputStream out = CodedOutputStream.newInstance(stream);
+        byte[] scratch = new byte[UUID_BYTES];
+        if (value instanceof List<?> messages) {
+            writeHistory(out, messages, scratch);
+        } else if (value instanceof CreateSessionRequest request) {
+            writeString(out, 1, request.getInitialMessage());
+        } else if (value instanceof CreateSessionResponse response) {
+            writeId(out, 1, response.getSessionId(), scratch);
+            writeTimestamp(out, 2, response.getCreatedAt());
+        } else if (value instanceof SendMessageRequest request) {
+            writeId(out, 1, request.getSessionId(), scratch);
+            writeString(out, 2, request.getContent());
+            writeString(out, 3, request.getSender());
+        } else if (value instanceof SendMessageResponse response) {
+            writeId(out, 1, response.getMessageId(), scratch);
+            writeId(out, 2, response.getSessionId(), scratch);
+            writeString(out, 3, response.getContent());
+            writeString(out, 4, response.getSender());
+            writeTimestamp(out, 5, response.getTimestamp());
+        } else if (value instanceof ChatMessage message) {
+            writeChatMessage(out, message, scratch);
+        } else if (value instanceof ErrorResponse error) {
+            writeErrorResponse(out, error);
+        } else {
+            throw new HttpMessageNotWritableException("No protobuf encoding for " + value.getClass().getName());
+        }
+        out.flush();
+    }
+
+    private static boolean isHistory(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.getGeneric(0).toClass() == ChatMessage.class;
+    }
+
+    // ChatHistory: repeated ChatMessage messages = 1
+
+    private static void writeHistory(CodedOutputStream out, List<?> messages, byte[] scratch) throws IOException {
+        for (Object element : messages) {
+            if (!(element instanceof ChatMessage message)) {
+                throw new HttpMessageNotWritableException("No protobuf encoding for a list of "
+                        + (element == null ? "null" : element.getClass().getName()));
+            }
+            out.writeTag(1, LENGTH_DELIMITED);
+            out.writeUInt32NoTag(chatMessageSize(message));
+            writeChatMessage(out, message, scratch);
+        }
+    }
+
+    private static List<ChatMessage> readHistory(CodedInputStream in) throws IOException {
+        List<ChatMessage> messages = new ArrayList<>();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> {
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    messages.add(readChatMessage(in));
+                    in.popLimit(limit);
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        return messages;
+    }
+
+    // ChatMessage: message_id = 1, session_id = 2, content = 3, sender = 4, timestamp = 5, seq = 6
+
+    private static void writeChatMessage(CodedOutputStream out, ChatMessage message, byte[] scratch)
+            throws IOException {
+        writeId(out, 1, message.getMessageId(), scratch);
+        writeId(out, 2, message.getSessionId(), scratch);
+        writeString(out, 3, message.getContent());
+        writeString(out, 4, message.getSender());
+        writeTimestamp(out, 5, message.getTimestamp());
+        if (message.getSeq() != null) {
+            out.writeInt64(6, message.getSeq());
+        }
+    }
+
+    private static int chatMessageSize(ChatMessage message) {
+        int size = idSize(1, message.getMessageId()) + idSize(2, message.getSessionId())
+                + stringSize(3, message.getContent()) + stringSize(4, message.getSender())
+                + timestampSize(5, message.getTimestamp());
+        if (message.getSeq() != null) {
+            size += CodedOutputStream.computeInt64Size(6, message.getSeq());
+        }
+        return size;
+    }
+
+    private static ChatMessage readChatMessage(CodedInputStream in) throws IOException {
+        ChatMessage message = new ChatMessage();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> message.setMessageId(readUuid(in));
+                case (2 << 3) | LENGTH_DELIMITED -> message.setSessionId(readUuid(in));
+                case (3 << 3) | LENGTH_DELIMITED -> message.setContent(in.readStringRequireUtf8());
+                case (4 << 3) | LENGTH_DELIMITED -> message.setSender(in.readStringRequireUtf8());
+                case 5 << 3 -> message.setTimestamp(toTimestamp(in.readInt64()));
+                case 6 << 3 -> message.setSeq(in.readInt64());
+                default -> in.skipField(tag);
+            }
+        }
+        return message;
+    }
+
+    private static CreateSessionRequest readCreateSessionRequest(CodedInputStream in) throws IOException {
+        CreateSessionRequest request = new CreateSessionRequest();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> request.setInitialMessage(in.readStringRequireUtf8());
+                default -> in.skipField(tag);
+            }
+        }
+        return request;
+    }
+
+    private static CreateSessionResponse readCreateSessionResponse(CodedInputStream in) throws IOException {
+        CreateSessionResponse response = new CreateSessionResponse();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> response.setSessionId(readId(in));
+                case 2 << 3 -> response.setCreatedAt(toTimestamp(in.readInt64()));
+                default -> in.skipField(tag);
+            }
+        }
+        return response;
+    }
+
+    private static SendMessageRequest readSendMessageRequest(CodedInputStream in) throws IOException {
+        SendMessageRequest request = new SendMessageRequest();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> request.setSessionId(readId(in));
+                case (2 << 3) | LENGTH_DELIMITED -> request.setContent(in.readStringRequireUtf8());
+                case (3 << 3) | LENGTH_DELIMITED -> request.setSender(in.readStringRequireUtf8());
+                default -> in.skipField(tag);
+            }
+        }
+        return request;
+    }
+
+    private static SendMessageResponse readSendMessageResponse(CodedInputStream in) throws IOException {
+        SendMessageResponse response = new SendMessageResponse();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case (1 << 3) | LENGTH_DELIMITED -> response.setMessageId(readId(in));
+                case (2 << 3) | LENGTH_DELIMITED -> response.setSessionId(readId(in));
+                case (3 << 3) | LENGTH_DELIMITED -> response.setContent(in.readStringRequireUtf8());
+                case (4 << 3) | LENGTH_DELIMITED -> response.setSender(in.readStringRequireUtf8());
+                case 5 << 3 -> response.setTimestamp(toTimestamp(in.readInt64()));
+                default -> in.skipField(tag);
+            }
+        }
+        return response;
+    }
+
+    // ErrorResponse: status = 1, message = 2, timestamp = 3, map<string, string> validation_errors = 4
+
+    private static void writeErrorResponse(CodedOutputStream out, ErrorResponse error) throws IOException {
+        if (error.getStatus() != 0) {
+            out.writeInt32(1, error.getStatus());
+        }
+        writeString(out, 2, error.getMessage());
+        writeTimestamp(out, 3, error.getTimestamp());
+        if (error.getValidationErrors() != null) {
+            for (Map.Entry<String, String> entry : error.getValidationErrors().entrySet()) {
+                out.writeTag(4, LENGTH_DELIMITED);
+                out.writeUInt32NoTag(stringSize(1, entry.getKey()) + stringSize(2, entry.getValue()));
+                writeString(out, 1, entry.getKey());
+                writeString(out, 2, entry.getValue());
+            }
+        }
+    }
+
+    private static ErrorResponse readErrorResponse(CodedInputStream in) throws IOException {
+        ErrorResponse error = new ErrorResponse();
+        int tag;
+        while ((tag = in.readTag()) != 0) {
+            switch (tag) {
+                case 1 << 3 -> error.setStatus(in.readInt32());
+                case (2 << 3) | LENGTH_DELIMITED -> error.setMessage(in.readStringRequireUtf8());
+                case 3 << 3 -> error.setTimestamp(toTimestamp(in.readInt64()));
+                case (4 << 3) | LENGTH_DELIMITED -> {
+                    if (error.getValidationErrors() == null) {
+                        error.setValidationErrors(new LinkedHashMap<>());
+                    }
+                    int limit = in.pushLimit(in.readRawVarint32());
+                    String key = "";
+                    String value = "";
+                    int entryTag;
+                    while ((entryTag = in.readTag()) != 0) {
+                        switch (entryTag) {
+                            case (1 << 3) | LENGTH_DELIMITED -> key = in.readStringRequireUtf8();
+                            case (2 << 3) | LENGTH_DELIMITED -> value = in.readStringRequireUtf8();
+                            default -> in.skipField(entryTag);
+                        }
+                    }
+                    in.popLimit(limit);
+                    error.getValidationErrors().put(key, value);
+                }
+                default -> in.skipField(tag);
+            }
+        }
+        return error;
+    }
+
+    // Field helpers. IDs are 16 bytes, most significant first; timestamps are microseconds of the
+    // local date-time since 1970-01-01T00:00, since LocalDateTime carries no zone
+
+    private static void writeString(CodedOutputStream out, int field, String value) throws IOException {
+        if (value != null) {
+            out.writeString(field, value);
+        }
+    }
+
+    private static int stringSize(int field, String value) {
+        return value == null ? 0 : CodedOutputStream.computeStringSize(field, value);
+    }
+
+    private static void writeId(CodedOutputStream out, int field, String id, byte[] scratch) throws IOException {
+        if (id == null) {
+            return;
+        }
+        try {
+            writeId(out, field, UUID.fromString(id), scratch);
+        } catch (IllegalArgumentException e) {
+            // Not a UUID: sent as text, the way readId takes it back
+            out.writeString(field, id);
+        }
+    }
+
+    private static void writeId(CodedOutputStream out, int field, UUID id, byte[] scratch) throws IOException {
+        if (id == null) {
+            return;
+        }
+        putLong(scratch, 0, id.getMostSignificantBits());
+        putLong(scratch, 8, id.getLeastSignificantBits());
+        out.writeByteArray(field, scratch);
+    }
+
+    private static int idSize(int field, UUID id) {
+        return id == null ? 0 : CodedOutputStream.computeTagSize(field) + 1 + UUID_BYTES;
+    }
+
+    /**
+     * Reads an ID as its string form. Sixteen bytes are a UUID; anything else is taken as text, so
+     * that a malformed ID reaches the service and gets the same answer as in JSON.
+     */
+    private static String readId(CodedInputStream in) throws IOException {
+        byte[] bytes = in.readByteArray();
+        return bytes.length == UUID_BYTES ? toUuid(bytes).toString() : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static UUID readUuid(CodedInputStream in) throws IOException {
+        byte[] bytes = in.readByteArray();
+        if (bytes.length != UUID_BYTES) {
+            throw new IOException("UUID must be " + UUID_BYTES + " bytes, was " + bytes.length);
+        }
+        return toUuid(bytes);
+    }
+
+    private static UUID toUuid(byte[] bytes) {
+        return new UUID(getLong(bytes, 0), getLong(bytes, 8));
+    }
+
+    private static void writeTimestamp(CodedOutputStream out, int field, LocalDateTime timestamp) throws IOException {
+        if (timestamp != null) {
+            out.writeInt64(field, toMicros(timestamp));
+        }
+    }
+
+    private static int timestampSize(int field, LocalDateTime timestamp) {
+        return timestamp == null ? 0 : CodedOutputStream.computeInt64Size(field, toMicros(timestamp));
+    }
+
+    private static long toMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNano() / 1_000;
+    }
+
+    private static LocalDateTime toTimestamp(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                                           (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static void putLong(byte[] bytes, int offset, long value) {
+        for (int i = 7; i >= 0; i--) {
+            bytes[offset + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
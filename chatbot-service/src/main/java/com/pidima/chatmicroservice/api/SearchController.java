@@ -0,0 +1,38 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.dto.SearchResponse;
+import com.pidima.chatmicroservice.services.MessageSearch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/chat")
+@ConditionalOnProperty(prefix = "chat.search", name = "enabled", havingValue = "true")
+public class SearchController {
+    private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
+    @Autowired
+    private MessageSearch messageSearch;
+
+    @GetMapping("/search")
+    public SearchResponse search(@RequestParam(required = false) String q,
+                                 @RequestParam(required = false) String sessionId,
+                                 @RequestParam(required = false) String sender,
+                                 @RequestParam(required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                 @RequestParam(required = false)
+                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                 @RequestParam(required = false) Integer limit) {
+        logger.info("Received search request");
+        return messageSearch.search(q, sessionId, sender, from, to, limit);
+    }
+}
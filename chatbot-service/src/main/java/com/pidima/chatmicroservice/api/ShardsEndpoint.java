@@ -0,0 +1,34 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.repositories.ShardRebalancer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/shards} reports sessions per shard; {@code POST /actuator/shards} moves
+ * sessions to the shards they belong to after the shard list changed.
+ */
+@Component
+@Endpoint(id = "shards")
+@ConditionalOnProperty(prefix = "chat.storage.sharding", name = "enabled", havingValue = "true")
+public class ShardsEndpoint {
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @ReadOperation
+    public Map<String, Long> sessionsPerShard() {
+        return rebalancer.sessionsPerShard();
+    }
+
+    @WriteOperation
+    public ShardRebalancer.Result rebalance() {
+        return rebalancer.rebalance();
+    }
+}
@@ -0,0 +1,52 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.MessageSubscriber;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+
+/**
+ * Writes a subscription to a Server-Sent Events stream: one {@code message} event per message,
+ * with the message ID as the event ID, and comments for the greeting and keepalives.
+ */
+final class SseMessageSubscriber implements MessageSubscriber {
+    private static final String EVENT_NAME = "message";
+
+    private final SseEmitter emitter;
+    private final long reconnectDelayMillis;
+
+    SseMessageSubscriber(SseEmitter emitter, long reconnectDelayMillis) {
+        this.emitter = emitter;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+    }
+
+    @Override
+    public void opened() throws IOException {
+        emitter.send(SseEmitter.event().reconnectTime(reconnectDelayMillis).comment("subscribed"));
+    }
+
+    @Override
+    public void message(ChatMessage message) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(message.getMessageId().toString())
+                .name(EVENT_NAME)
+                .data(message, MediaType.APPLICATION_JSON));
+    }
+
+    @Override
+    public void heartbeat() throws IOException {
+        emitter.send(SseEmitter.event().comment("keepalive"));
+    }
+
+    @Override
+    public void completed() {
+        emitter.complete();
+    }
+
+    @Override
+    public void failed(Exception error) {
+        emitter.completeWithError(error);
+    }
+}
@@ -0,0 +1,46 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.api.AdmissionInterceptor;
+import com.pidima.chatmicroservice.services.AdaptiveConcurrencyLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+/**
+ * Puts an {@link AdaptiveConcurrencyLimiter} in front of the chat API. Health checks and actuator
+ * endpoints stay outside it, so an instance shedding load still reports in.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.admission.concurrency", name = "enabled", havingValue = "true")
+public class AdmissionConfiguration implements WebMvcConfigurer {
+
+    private final AdaptiveConcurrencyLimiter limiter;
+
+    public AdmissionConfiguration(
+            MeterRegistry meterRegistry,
+            @Value("${chat.admission.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${chat.admission.concurrency.min-limit:4}") int minLimit,
+            @Value("${chat.admission.concurrency.max-limit:200}") int maxLimit,
+            @Value("${chat.admission.concurrency.latency-threshold:250ms}") Duration latencyThreshold,
+            @Value("${chat.admission.concurrency.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${chat.admission.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.limiter = new AdaptiveConcurrencyLimiter(meterRegistry, initialLimit, minLimit, maxLimit,
+                                                      latencyThreshold, backoffRatio, retryAfter);
+    }
+
+    @Bean
+    public AdaptiveConcurrencyLimiter adaptiveConcurrencyLimiter() {
+        return limiter;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissionInterceptor(limiter)).addPathPatterns("/chat/**");
+    }
+}
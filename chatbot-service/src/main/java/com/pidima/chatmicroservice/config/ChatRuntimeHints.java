@@ -0,0 +1,51 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.dto.BulkMessageResult;
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.CreateSessionRequest;
+import com.pidima.chatmicroservice.dto.CreateSessionResponse;
+import com.pidima.chatmicroservice.dto.ErrorResponse;
+import com.pidima.chatmicroservice.dto.SearchResponse;
+import com.pidima.chatmicroservice.dto.SearchResult;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+import java.util.List;
+
+/**
+ * Reflection a native image needs beyond what Spring AOT infers from the controllers: handler
+ * signatures like {@code ResponseEntity<?>} hide the types Jackson binds, and Hibernate reads and
+ * writes entity fields and calls their lifecycle callbacks reflectively.
+ */
+public class ChatRuntimeHints implements RuntimeHintsRegistrar {
+
+    // Everything that crosses the API as JSON, CBOR or Smile; protobuf is encoded by hand
+    private static final List<Class<?>> BOUND_TYPES = List.of(
+            ChatMessage.class, ChatSession.class, ChatHistoryPage.class,
+            CreateSessionRequest.class, CreateSessionResponse.class,
+            SendMessageRequest.class, SendMessageResponse.class,
+            BulkMessageResult.class, BulkSendMessageResponse.class,
+            SearchResponse.class, SearchResult.class, ErrorResponse.class);
+
+    private static final List<Class<?>> ENTITY_TYPES = List.of(ChatSession.class, ChatMessage.class);
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(), BOUND_TYPES.toArray(Class<?>[]::new));
+        for (Class<?> entity : ENTITY_TYPES) {
+            hints.reflection().registerType(entity,
+                    MemberCategory.DECLARED_FIELDS,
+                    MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.diagnostics.ChatFlightRecorder;
+import com.pidima.chatmicroservice.diagnostics.ConnectionWaitDataSource;
+import com.pidima.chatmicroservice.diagnostics.RequestEventInterceptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * Hooks the JFR events into the web layer and the connection pools. The events are emitted
+ * whether or not the continuous recording is enabled, so a recording started with
+ * {@code jcmd <pid> JFR.start} sees them as well; with none running they cost a clock read.
+ */
+@Configuration
+public class DiagnosticsConfiguration implements WebMvcConfigurer {
+
+    // Present only when chat.diagnostics.jfr.enabled=true
+    @Autowired(required = false)
+    private ChatFlightRecorder flightRecorder;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestEventInterceptor(flightRecorder)).addPathPatterns("/chat/**");
+    }
+
+    @Bean
+    public static BeanPostProcessor connectionWaitEvents() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConnectionWaitDataSource)) {
+                    return new ConnectionWaitDataSource(dataSource, beanName);
+                }
+                return bean;
+            }
+        };
+    }
+}
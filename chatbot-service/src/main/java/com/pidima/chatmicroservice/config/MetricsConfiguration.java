@@ -0,0 +1,18 @@
+package com.pidima.chatmicroservice.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfiguration {
+
+    // Enables @Timed on Spring beans (ChatService, and JpaChatStore's JDBC statements); controllers
+    // and repositories are timed by Spring Boot's http.server.requests and
+    // spring.data.repository.invocations metrics
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry registry) {
+        return new TimedAspect(registry);
+    }
+}
@@ -0,0 +1,61 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.repositories.ShardRouter;
+import com.pidima.chatmicroservice.repositories.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single {@code spring.datasource} with one pool per configured shard behind a
+ * {@link ShardRoutingDataSource}. JPA, transactions and the repositories are unchanged; the
+ * sharded {@code ChatStore} picks the shard before each operation. The pools are closed with the
+ * routing data source when the context shuts down.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "chat.storage.sharding", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfiguration {
+
+    @Bean
+    public ShardRouter shardRouter(ShardingProperties properties) {
+        List<String> names = properties.getShards().stream().map(ShardingProperties.Shard::getName).toList();
+        return new ShardRouter(names, properties.getVirtualNodes());
+    }
+
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(ShardingProperties properties) {
+        if (properties.getShards().isEmpty()) {
+            throw new IllegalStateException("chat.storage.sharding.shards must list at least one shard");
+        }
+        Map<Object, Object> targets = new LinkedHashMap<>();
+        for (ShardingProperties.Shard shard : properties.getShards()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(shard.getUrl())
+                    .username(shard.getUsername())
+                    .password(shard.getPassword())
+                    .build();
+            pool.setPoolName("chat-" + shard.getName());
+            pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+            if (targets.put(shard.getName(), pool) != null) {
+                throw new IllegalStateException("Duplicate shard name: " + shard.getName());
+            }
+        }
+
+        ShardRoutingDataSource routing = new ShardRoutingDataSource();
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(targets.values().iterator().next());
+        // An unknown shard name is a routing bug, not a reason to fall back to the default shard
+        routing.setLenientFallback(false);
+        return routing;
+    }
+}
@@ -0,0 +1,28 @@
+package com.pidima.chatmicroservice.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "chat.storage.sharding")
+public class ShardingProperties {
+    private boolean enabled;
+
+    // Points per shard on the consistent-hash ring
+    private int virtualNodes = 128;
+
+    // The first shard is the default one; order matters only for that
+    private List<Shard> shards = new ArrayList<>();
+
+    @Data
+    public static class Shard {
+        private String name;
+        private String url;
+        private String username;
+        private String password;
+        private int maximumPoolSize = 10;
+    }
+}
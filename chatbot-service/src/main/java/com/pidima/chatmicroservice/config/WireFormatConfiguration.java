@@ -0,0 +1,67 @@
+package com.pidima.chatmicroservice.config;
+
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pidima.chatmicroservice.api.ChatProtobufHttpMessageConverter;
+import com.pidima.chatmicroservice.diagnostics.TimedHttpMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Lets clients pick a binary encoding of the chat API with {@code Accept} and
+ * {@code Content-Type}: CBOR ({@code application/cbor}), Smile ({@code application/x-jackson-smile})
+ * and protobuf ({@code application/x-protobuf}, see {@code src/main/proto/chat.proto}).
+ *
+ * <p>CBOR and Smile are the JSON documents in another encoding, so their converters are built from
+ * Boot's {@link Jackson2ObjectMapperBuilder} and use the same field names and inclusion as JSON.
+ * Spring MVC would otherwise register them with a default mapper. All of them come after the JSON
+ * converter, so a client that accepts anything still gets JSON.
+ */
+@Configuration
+public class WireFormatConfiguration implements WebMvcConfigurer {
+
+    private final Jackson2ObjectMapperBuilder objectMapperBuilder;
+
+    public WireFormatConfiguration(Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.objectMapperBuilder = objectMapperBuilder;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.removeIf(isA(MappingJackson2CborHttpMessageConverter.class)
+                                    .or(isA(MappingJackson2SmileHttpMessageConverter.class))
+                                    .or(isA(ChatProtobufHttpMessageConverter.class)));
+
+        int afterJson = converters.size();
+        for (int i = 0; i < converters.size(); i++) {
+            if (converters.get(i) instanceof MappingJackson2HttpMessageConverter) {
+                afterJson = i + 1;
+                break;
+            }
+        }
+        // Both formats can hold raw bytes, and Jackson would write UUIDs as 16 of them; ids stay
+        // the canonical strings that JSON and protobuf carry
+        objectMapperBuilder.serializerByType(UUID.class, ToStringSerializer.instance);
+        converters.addAll(afterJson, List.of(
+                new MappingJackson2CborHttpMessageConverter(objectMapperBuilder.factory(new CBORFactory()).build()),
+                new MappingJackson2SmileHttpMessageConverter(objectMapperBuilder.factory(new SmileFactory()).build())));
+        // Last, behind the string and resource converters too: it only ever matches its own type
+        converters.add(new ChatProtobufHttpMessageConverter());
+        // Every body is read and written under a ChatSerializationEvent
+        converters.replaceAll(TimedHttpMessageConverter::timed);
+    }
+
+    private static Predicate<HttpMessageConverter<?>> isA(Class<?> type) {
+        return type::isInstance;
+    }
+}
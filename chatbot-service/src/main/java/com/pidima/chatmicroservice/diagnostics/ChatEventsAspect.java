@@ -0,0 +1,50 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+/**
+ * Times every public call into {@code ChatService} and {@code JpaChatStore} as a
+ * {@link ChatServiceEvent} or {@link ChatQueryEvent}. Field extraction happens only for calls
+ * slow enough to be recorded, so with no recording running the advice costs two clock reads.
+ */
+@Aspect
+@Component
+public class ChatEventsAspect {
+
+    @Around("execution(public * com.pidima.chatmicroservice.services.ChatService.*(..))")
+    public Object serviceCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(new ChatServiceEvent(), joinPoint);
+    }
+
+    @Around("execution(public * com.pidima.chatmicroservice.repositories.JpaChatStore.*(..))")
+    public Object storeCall(ProceedingJoinPoint joinPoint) throws Throwable {
+        return record(new ChatQueryEvent(), joinPoint);
+    }
+
+    private static Object record(ChatOperationEvent event, ProceedingJoinPoint joinPoint) throws Throwable {
+        event.begin();
+        Object result = null;
+        Throwable failure = null;
+        try {
+            result = joinPoint.proceed();
+            return result;
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            event.end();
+            if (event.shouldCommit()) {
+                MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+                event.operation = signature.getName();
+                event.sessionId = EventFields.sessionId(signature.getParameterNames(), joinPoint.getArgs(), result);
+                event.rows = EventFields.rows(result);
+                event.error = failure == null ? null : failure.getClass().getSimpleName();
+                event.commit();
+            }
+        }
+    }
+}
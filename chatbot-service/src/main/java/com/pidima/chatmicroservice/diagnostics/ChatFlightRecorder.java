@@ -0,0 +1,193 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a continuous, size- and age-bounded flight recording of the JDK's default profile plus
+ * the chat events, and dumps it to {@code chat.diagnostics.jfr.directory} when a request is slower
+ * than the slow-request threshold, so the minutes leading up to a latency spike can be read after
+ * the fact.
+ *
+ * <p>Automatic dumps are rate limited and only the newest {@code max-dumps} files are kept, so a
+ * sustained slowdown costs one dump per interval rather than one per request.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.diagnostics.jfr", name = "enabled", havingValue = "true")
+public class ChatFlightRecorder {
+    private static final Logger logger = LoggerFactory.getLogger(ChatFlightRecorder.class);
+
+    private static final DateTimeFormatter FILE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final String SUFFIX = ".jfr";
+
+    static final List<Class<? extends Event>> CHAT_EVENTS = List.of(
+            ChatRequestEvent.class, ChatServiceEvent.class, ChatQueryEvent.class, ChatTransactionEvent.class,
+            ChatSerializationEvent.class, ConnectionWaitEvent.class);
+
+    private final Recording recording;
+    private final Path directory;
+    private final long slowRequestNanos;
+    private final long minDumpIntervalNanos;
+    private final int maxDumps;
+    private final LongSupplier nanoClock;
+    private final ExecutorService dumper;
+    private final AtomicLong lastAutomaticDump;
+
+    @Autowired
+    public ChatFlightRecorder(@Value("${chat.diagnostics.jfr.directory:data/jfr}") String directory,
+                              @Value("${chat.diagnostics.jfr.settings:default}") String settings,
+                              @Value("${chat.diagnostics.jfr.max-age:10m}") Duration maxAge,
+                              @Value("${chat.diagnostics.jfr.max-size:100MB}") DataSize maxSize,
+                              @Value("${chat.diagnostics.jfr.event-threshold:1ms}") Duration eventThreshold,
+                              @Value("${chat.diagnostics.jfr.slow-request-threshold:2s}") Duration slowRequestThreshold,
+                              @Value("${chat.diagnostics.jfr.min-dump-interval:5m}") Duration minDumpInterval,
+                              @Value("${chat.diagnostics.jfr.max-dumps:10}") int maxDumps) {
+        this(Paths.get(directory), settings, maxAge, maxSize, eventThreshold, slowRequestThreshold, minDumpInterval,
+             maxDumps, System::nanoTime, Executors.newSingleThreadExecutor(runnable -> {
+                 Thread thread = new Thread(runnable, "chat-jfr-dump");
+                 thread.setDaemon(true);
+                 return thread;
+             }));
+    }
+
+    ChatFlightRecorder(Path directory, String settings, Duration maxAge, DataSize maxSize, Duration eventThreshold,
+                       Duration slowRequestThreshold, Duration minDumpInterval, int maxDumps,
+                       LongSupplier nanoClock, ExecutorService dumper) {
+        if (maxDumps < 1) {
+            throw new IllegalArgumentException("chat.diagnostics.jfr.max-dumps must be positive");
+        }
+        this.directory = directory;
+        this.slowRequestNanos = slowRequestThreshold.toNanos();
+        this.minDumpIntervalNanos = minDumpInterval.toNanos();
+        this.maxDumps = maxDumps;
+        this.nanoClock = nanoClock;
+        this.dumper = dumper;
+        // The first slow request may dump right away
+        this.lastAutomaticDump = new AtomicLong(nanoClock.getAsLong() - minDumpIntervalNanos);
+
+        try {
+            // A predefined configuration name (default, profile) or the path of a .jfc file
+            Configuration configuration = settings.endsWith(".jfc")
+                    ? Configuration.create(Paths.get(settings))
+                    : Configuration.getConfiguration(settings);
+            this.recording = new Recording(configuration);
+        } catch (IOException | ParseException e) {
+            throw new IllegalArgumentException("Unknown JFR settings: " + settings, e);
+        }
+        recording.setName("chat-continuous");
+        recording.setToDisk(true);
+        recording.setMaxAge(maxAge);
+        recording.setMaxSize(maxSize.toBytes());
+        for (Class<? extends Event> event : CHAT_EVENTS) {
+            recording.enable(event).withThreshold(eventThreshold);
+        }
+        recording.start();
+        logger.info("Continuous flight recording started (settings: {}, max age: {}, max size: {})",
+                    settings, maxAge, maxSize);
+    }
+
+    /**
+     * Called once per completed chat request; dumps the recording in the background when the
+     * request was slow and no automatic dump happened within the minimum interval.
+     */
+    public void onRequestCompleted(long durationNanos, String request) {
+        if (durationNanos < slowRequestNanos) {
+            return;
+        }
+        long now = nanoClock.getAsLong();
+        long last = lastAutomaticDump.get();
+        if (now - last < minDumpIntervalNanos || !lastAutomaticDump.compareAndSet(last, now)) {
+            return;
+        }
+        dumper.execute(() -> {
+            try {
+                Path file = dump("slow");
+                logger.warn("Slow request {} took {} ms; flight recording dumped to {}",
+                            request, Duration.ofNanos(durationNanos).toMillis(), file);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Could not dump flight recording after slow request {}", request, e);
+            }
+        });
+    }
+
+    /**
+     * Writes what the continuous recording currently holds to a new file and prunes the oldest
+     * dumps beyond the limit.
+     */
+    public synchronized Path dump(String reason) throws IOException {
+        Files.createDirectories(directory);
+        LocalDateTime time = LocalDateTime.now();
+        Path file = directory.resolve(reason + "-" + FILE_TIME.format(time) + SUFFIX);
+        // Names sort by time, so two dumps within a millisecond take consecutive ones
+        while (Files.exists(file)) {
+            time = time.plusNanos(1_000_000);
+            file = directory.resolve(reason + "-" + FILE_TIME.format(time) + SUFFIX);
+        }
+        recording.dump(file);
+        List<Path> dumps = dumps();
+        for (Path old : dumps.subList(Math.min(maxDumps, dumps.size()), dumps.size())) {
+            Files.deleteIfExists(old);
+        }
+        return file;
+    }
+
+    /**
+     * Dump files, newest first.
+     */
+    public List<Path> dumps() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                    .sorted(Comparator.comparing(ChatFlightRecorder::timestamp).reversed())
+                    .toList();
+        }
+    }
+
+    /**
+     * Looks a dump up by file name. Only names {@link #dumps()} lists resolve, so a name cannot
+     * reach outside the dump directory.
+     */
+    public Optional<Path> findDump(String name) throws IOException {
+        return dumps().stream().filter(file -> file.getFileName().toString().equals(name)).findFirst();
+    }
+
+    // The part of a dump's name after its reason
+    private static String timestamp(Path file) {
+        String name = file.getFileName().toString();
+        return name.substring(name.indexOf('-') + 1);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dumper.shutdownNow();
+        recording.close();
+    }
+}
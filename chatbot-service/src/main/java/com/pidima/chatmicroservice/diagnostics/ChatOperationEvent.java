@@ -0,0 +1,24 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+
+/**
+ * Fields shared by the events timing a call into the service or the store.
+ */
+abstract class ChatOperationEvent extends jdk.jfr.Event {
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Rows")
+    @Description("Messages (or sessions) returned, written or exported")
+    long rows;
+
+    @Label("Error")
+    @Description("Class of the exception the call ended with, if any")
+    String error;
+}
@@ -0,0 +1,15 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.Query")
+@Label("Chat Store Query")
+@Category({"Chat", "Storage"})
+@Description("A call into the JPA store, including the transaction it opens if any")
+@StackTrace(false)
+class ChatQueryEvent extends ChatOperationEvent {
+}
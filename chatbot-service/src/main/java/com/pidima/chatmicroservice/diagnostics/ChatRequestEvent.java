@@ -0,0 +1,32 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.Request")
+@Label("Chat Request")
+@Category({"Chat", "Web"})
+@Description("A chat API request from dispatch to the written response; streams only up to the hand-off")
+@StackTrace(false)
+class ChatRequestEvent extends jdk.jfr.Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Path")
+    @Description("The matched URI template")
+    String path;
+
+    @Label("Session ID")
+    String sessionId;
+
+    @Label("Status")
+    int status;
+
+    @Label("Streamed")
+    @Description("Handed off to an async stream; the duration ends at the hand-off")
+    boolean streamed;
+}
@@ -0,0 +1,25 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.Serialization")
+@Label("Chat Serialization")
+@Category({"Chat", "Web"})
+@StackTrace(false)
+class ChatSerializationEvent extends jdk.jfr.Event {
+
+    @Label("Direction")
+    String direction;
+
+    @Label("Type")
+    String type;
+
+    @Label("Media Type")
+    String mediaType;
+
+    @Label("Items")
+    long items;
+}
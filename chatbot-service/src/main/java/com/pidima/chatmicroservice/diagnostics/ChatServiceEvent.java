@@ -0,0 +1,13 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.Service")
+@Label("Chat Service Call")
+@Category({"Chat", "Service"})
+@StackTrace(false)
+class ChatServiceEvent extends ChatOperationEvent {
+}
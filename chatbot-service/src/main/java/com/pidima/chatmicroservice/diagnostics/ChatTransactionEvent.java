@@ -0,0 +1,26 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.Transaction")
+@Label("Chat Transaction")
+@Category({"Chat", "Storage"})
+@Description("A database transaction from begin to commit or rollback")
+@StackTrace(false)
+class ChatTransactionEvent extends jdk.jfr.Event {
+
+    @Label("Name")
+    @Description("The transactional method")
+    String name;
+
+    @Label("Read Only")
+    boolean readOnly;
+
+    @Label("Outcome")
+    @Description("commit, rollback, or the phase that failed")
+    String outcome;
+}
@@ -0,0 +1,65 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Records a {@link ChatTransactionEvent} per physical transaction. Spring Boot registers the
+ * listener with every transaction manager it configures; participating (inner) transactions are
+ * ignored, suspended ones nest on a per-thread stack.
+ */
+@Component
+public class ChatTransactionListener implements TransactionExecutionListener {
+
+    private final ThreadLocal<Deque<ChatTransactionEvent>> open = ThreadLocal.withInitial(ArrayDeque::new);
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        ChatTransactionEvent event = new ChatTransactionEvent();
+        event.begin();
+        open.get().push(event);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null) {
+            finish(transaction, "begin-failed");
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (transaction.isNewTransaction()) {
+            finish(transaction, commitFailure == null ? "commit" : "commit-failed");
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        if (transaction.isNewTransaction()) {
+            finish(transaction, rollbackFailure == null ? "rollback" : "rollback-failed");
+        }
+    }
+
+    private void finish(TransactionExecution transaction, String outcome) {
+        Deque<ChatTransactionEvent> events = open.get();
+        ChatTransactionEvent event = events.poll();
+        if (events.isEmpty()) {
+            open.remove();
+        }
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.name = transaction.getTransactionName();
+            event.readOnly = transaction.isReadOnly();
+            event.outcome = outcome;
+            event.commit();
+        }
+    }
+}
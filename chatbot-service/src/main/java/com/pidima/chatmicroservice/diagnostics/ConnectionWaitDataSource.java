@@ -0,0 +1,61 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Times {@code getConnection} on a pooled data source as a {@link ConnectionWaitEvent}: with a
+ * warm pool that is a queue poll, so anything visible in a recording is time spent waiting for a
+ * connection to be returned.
+ *
+ * <p>Closing it closes the target, so a wrapped pool is still shut down with the context.
+ */
+public class ConnectionWaitDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final String pool;
+
+    public ConnectionWaitDataSource(DataSource target, String pool) {
+        super(target);
+        this.pool = pool;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ConnectionWaitEvent event = new ConnectionWaitEvent();
+        event.begin();
+        try {
+            return super.getConnection();
+        } finally {
+            commit(event);
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        ConnectionWaitEvent event = new ConnectionWaitEvent();
+        event.begin();
+        try {
+            return super.getConnection(username, password);
+        } finally {
+            commit(event);
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (getTargetDataSource() instanceof AutoCloseable target) {
+            target.close();
+        }
+    }
+
+    private void commit(ConnectionWaitEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.pool = pool;
+            event.commit();
+        }
+    }
+}
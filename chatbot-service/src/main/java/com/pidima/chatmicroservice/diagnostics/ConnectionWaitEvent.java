@@ -0,0 +1,18 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.pidima.chat.ConnectionWait")
+@Label("Connection Wait")
+@Category({"Chat", "Storage"})
+@Description("Time spent obtaining a JDBC connection, i.e. waiting for the pool")
+@StackTrace(false)
+class ConnectionWaitEvent extends jdk.jfr.Event {
+
+    @Label("Pool")
+    String pool;
+}
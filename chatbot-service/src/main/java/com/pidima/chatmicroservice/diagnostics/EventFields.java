@@ -0,0 +1,77 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Derives the session ID and row count an event carries from the arguments and result of the
+ * call it times, so the events need no cooperation from the code they observe.
+ */
+final class EventFields {
+
+    private EventFields() {
+    }
+
+    /**
+     * The argument named {@code sessionId}, else the session of a message or session argument,
+     * else that of the result; {@code null} for calls not tied to one session.
+     */
+    static String sessionId(String[] parameterNames, Object[] args, Object result) {
+        if (parameterNames != null) {
+            for (int i = 0; i < parameterNames.length; i++) {
+                if ("sessionId".equals(parameterNames[i]) && (args[i] instanceof String || args[i] instanceof UUID)) {
+                    return args[i].toString();
+                }
+            }
+        }
+        for (Object arg : args) {
+            String sessionId = sessionOf(arg);
+            if (sessionId != null) {
+                return sessionId;
+            }
+        }
+        return sessionOf(result instanceof Optional<?> optional ? optional.orElse(null) : result);
+    }
+
+    private static String sessionOf(Object value) {
+        if (value instanceof ChatMessage message && message.getSessionId() != null) {
+            return message.getSessionId().toString();
+        }
+        if (value instanceof ChatSession session && session.getSessionId() != null) {
+            return session.getSessionId().toString();
+        }
+        return null;
+    }
+
+    /**
+     * Rows a call returned or wrote: the size of a collection or page, the count a bulk or export
+     * call reports, one for a single message or session and zero when there is nothing to count.
+     */
+    static long rows(Object result) {
+        if (result instanceof Optional<?> optional) {
+            return optional.map(EventFields::rows).orElse(0L);
+        }
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof ChatHistoryPage page) {
+            return page.getMessages() == null ? 0 : page.getMessages().size();
+        }
+        if (result instanceof BulkSendMessageResponse bulk) {
+            return bulk.getCreated();
+        }
+        if (result instanceof Long || result instanceof Integer) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof ChatMessage || result instanceof ChatSession) {
+            return 1;
+        }
+        return 0;
+    }
+}
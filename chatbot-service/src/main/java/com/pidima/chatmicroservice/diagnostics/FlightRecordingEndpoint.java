@@ -0,0 +1,60 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/jfr} lists the flight recording dumps; {@code POST /actuator/jfr} dumps the
+ * continuous recording right away and {@code GET /actuator/jfr/{name}} downloads a dump for JDK
+ * Mission Control or {@code jfr print}.
+ */
+@Component
+@WebEndpoint(id = "jfr")
+@ConditionalOnProperty(prefix = "chat.diagnostics.jfr", name = "enabled", havingValue = "true")
+public class FlightRecordingEndpoint {
+
+    @Autowired
+    private ChatFlightRecorder flightRecorder;
+
+    @ReadOperation
+    public List<Map<String, Object>> recordings() throws IOException {
+        List<Map<String, Object>> recordings = new ArrayList<>();
+        for (Path file : flightRecorder.dumps()) {
+            recordings.add(describe(file));
+        }
+        return recordings;
+    }
+
+    @WriteOperation
+    public Map<String, Object> dump() throws IOException {
+        return describe(flightRecorder.dump("manual"));
+    }
+
+    @ReadOperation(produces = "application/octet-stream")
+    public WebEndpointResponse<Resource> recording(@Selector String name) throws IOException {
+        return flightRecorder.findDump(name)
+                .map(file -> new WebEndpointResponse<Resource>(new FileSystemResource(file)))
+                .orElseGet(() -> new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND));
+    }
+
+    private static Map<String, Object> describe(Path file) throws IOException {
+        return Map.of("name", file.getFileName().toString(),
+                      "bytes", Files.size(file),
+                      "modified", Files.getLastModifiedTime(file).toInstant().toString());
+    }
+}
@@ -0,0 +1,81 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+
+/**
+ * Records a {@link ChatRequestEvent} per chat API request and reports its duration to the
+ * {@link ChatFlightRecorder}, when there is one, for the slow-request dump.
+ *
+ * <p>Streams (the SSE subscription and NDJSON exports) are recorded up to the hand-off to the
+ * async dispatch and never count as slow, since a stream's lifetime is the client's choice.
+ */
+public class RequestEventInterceptor implements AsyncHandlerInterceptor {
+    private static final String IN_FLIGHT = RequestEventInterceptor.class.getName() + ".inFlight";
+
+    // Null unless chat.diagnostics.jfr.enabled=true
+    private final ChatFlightRecorder flightRecorder;
+
+    public RequestEventInterceptor(ChatFlightRecorder flightRecorder) {
+        this.flightRecorder = flightRecorder;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // Async and error dispatches belong to a request that is already being recorded
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            return true;
+        }
+        ChatRequestEvent event = new ChatRequestEvent();
+        event.begin();
+        request.setAttribute(IN_FLIGHT, new InFlight(event, System.nanoTime()));
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        if (request.getAttribute(IN_FLIGHT) instanceof InFlight inFlight) {
+            request.removeAttribute(IN_FLIGHT);
+            commit(inFlight.event(), request, response, true);
+        }
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.getAttribute(IN_FLIGHT) instanceof InFlight inFlight) {
+            request.removeAttribute(IN_FLIGHT);
+            commit(inFlight.event(), request, response, false);
+            if (flightRecorder != null) {
+                flightRecorder.onRequestCompleted(System.nanoTime() - inFlight.startedAt(),
+                                                  request.getMethod() + " " + request.getRequestURI());
+            }
+        }
+    }
+
+    private static void commit(ChatRequestEvent event, HttpServletRequest request, HttpServletResponse response,
+                               boolean streamed) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = request.getMethod();
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            event.path = pattern != null ? pattern.toString() : request.getRequestURI();
+            if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof Map<?, ?> variables
+                    && variables.get("sessionId") != null) {
+                event.sessionId = variables.get("sessionId").toString();
+            }
+            event.status = response.getStatus();
+            event.streamed = streamed;
+            event.commit();
+        }
+    }
+
+    private record InFlight(ChatRequestEvent event, long startedAt) {
+    }
+}
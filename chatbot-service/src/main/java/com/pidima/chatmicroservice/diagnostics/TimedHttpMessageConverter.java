@@ -0,0 +1,139 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.GenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Wraps a message converter so that every body it reads or writes is timed as a
+ * {@link ChatSerializationEvent}. The wrapper only delegates, so content negotiation is unchanged.
+ */
+public class TimedHttpMessageConverter implements GenericHttpMessageConverter<Object> {
+
+    private final GenericHttpMessageConverter<Object> delegate;
+
+    private TimedHttpMessageConverter(GenericHttpMessageConverter<Object> delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Returns the converter wrapped, or unchanged if it is not a {@link GenericHttpMessageConverter}
+     * (byte arrays, strings and resources, which need no timing) or is already wrapped.
+     */
+    @SuppressWarnings("unchecked")
+    public static HttpMessageConverter<?> timed(HttpMessageConverter<?> converter) {
+        if (converter instanceof GenericHttpMessageConverter<?> generic && !(converter instanceof TimedHttpMessageConverter)) {
+            return new TimedHttpMessageConverter((GenericHttpMessageConverter<Object>) generic);
+        }
+        return converter;
+    }
+
+    public HttpMessageConverter<?> getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return delegate.canRead(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return delegate.canRead(type, contextClass, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return delegate.canWrite(clazz, mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return delegate.canWrite(type, clazz, mediaType);
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes() {
+        return delegate.getSupportedMediaTypes();
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        return delegate.getSupportedMediaTypes(clazz);
+    }
+
+    @Override
+    public Object read(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        ChatSerializationEvent event = begin();
+        Object body = null;
+        try {
+            body = delegate.read(clazz, inputMessage);
+            return body;
+        } finally {
+            end(event, "read", clazz.getSimpleName(), inputMessage.getHeaders().getContentType(), body);
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        ChatSerializationEvent event = begin();
+        Object body = null;
+        try {
+            body = delegate.read(type, contextClass, inputMessage);
+            return body;
+        } finally {
+            end(event, "read", type.getTypeName(), inputMessage.getHeaders().getContentType(), body);
+        }
+    }
+
+    @Override
+    public void write(Object body, MediaType contentType, HttpOutputMessage outputMessage)
+            throws IOException {
+        ChatSerializationEvent event = begin();
+        try {
+            delegate.write(body, contentType, outputMessage);
+        } finally {
+            end(event, "write", body.getClass().getSimpleName(), contentType, body);
+        }
+    }
+
+    @Override
+    public void write(Object body, Type type, MediaType contentType,
+                      HttpOutputMessage outputMessage) throws IOException {
+        ChatSerializationEvent event = begin();
+        try {
+            delegate.write(body, type, contentType, outputMessage);
+        } finally {
+            end(event, "write", body.getClass().getSimpleName(), contentType, body);
+        }
+    }
+
+    private static ChatSerializationEvent begin() {
+        ChatSerializationEvent event = new ChatSerializationEvent();
+        event.begin();
+        return event;
+    }
+
+    private static void end(ChatSerializationEvent event, String direction, String type,
+                            MediaType mediaType, Object body) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.direction = direction;
+            event.type = type;
+            event.mediaType = mediaType == null ? null : mediaType.toString();
+            event.items = body == null ? 0 : Math.max(1, EventFields.rows(body));
+            event.commit();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Timed(" + delegate + ")";
+    }
+}
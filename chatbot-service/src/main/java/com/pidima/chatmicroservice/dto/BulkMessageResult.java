@@ -0,0 +1,38 @@
+package com.pidima.chatmicroservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkMessageResult {
+    private int index;
+    private int status;
+    private String messageId;
+    private String sessionId;
+    private LocalDateTime timestamp;
+    private String error;
+    private Map<String, String> validationErrors;
+
+    public static BulkMessageResult created(int index, String messageId, String sessionId, LocalDateTime timestamp) {
+        return new BulkMessageResult(index, 201, messageId, sessionId, timestamp, null, null);
+    }
+
+    public static BulkMessageResult rejected(int index, String sessionId, String error,
+                                             Map<String, String> validationErrors) {
+        return new BulkMessageResult(index, 400, null, sessionId, null, error, validationErrors);
+    }
+
+    public static BulkMessageResult rateLimited(int index, String sessionId, String error) {
+        return new BulkMessageResult(index, 429, null, sessionId, null, error, null);
+    }
+
+    public static BulkMessageResult failed(int index, String sessionId, String error) {
+        return new BulkMessageResult(index, 503, null, sessionId, null, error, null);
+    }
+}
@@ -0,0 +1,16 @@
+package com.pidima.chatmicroservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkSendMessageResponse {
+    private int created;
+    private int rejected;
+    private List<BulkMessageResult> results;
+}
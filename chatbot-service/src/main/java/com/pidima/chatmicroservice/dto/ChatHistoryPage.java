@@ -0,0 +1,18 @@
+package com.pidima.chatmicroservice.dto;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatHistoryPage {
+    private List<ChatMessage> messages;
+    private String nextCursor;
+    private String prevCursor;
+    private boolean hasMore;
+}
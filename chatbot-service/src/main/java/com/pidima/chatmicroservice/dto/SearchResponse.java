@@ -0,0 +1,17 @@
+package com.pidima.chatmicroservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResponse {
+    private String query;
+    // Messages matching the query and filters; results holds only the best of them
+    private long totalHits;
+    private List<SearchResult> results;
+}
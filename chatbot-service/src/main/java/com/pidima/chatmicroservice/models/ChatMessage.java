@@ -1,21 +1,43 @@
 package com.pidima.chatmicroservice.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
 
 @Entity
-@Table(name = "chat_messages")
+@Table(name = "chat_messages", indexes = {
+        @Index(name = "idx_chat_messages_session_timestamp", columnList = "session_id, timestamp, message_id"),
+        @Index(name = "idx_chat_messages_session_seq", columnList = "session_id, seq", unique = true)
+})
 @Data
 @NoArgsConstructor
-public class ChatMessage {
+public class ChatMessage implements Persistable<UUID> {
     @Id
-    private String messageId;
+    private UUID messageId;
     
     @Column(name = "session_id", nullable = false)
-    private String sessionId;
+    private UUID sessionId;
+
+    // Read-only association that exists to give chat_messages.session_id a foreign key, so a
+    // message insert can rely on the database to reject unknown sessions
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "session_id", insertable = false, updatable = false,
+                foreignKey = @ForeignKey(name = "fk_chat_messages_session"))
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private ChatSession session;
     
     @Column(name = "content", nullable = false, length = 1000)
     private String content;
@@ -26,17 +48,74 @@ public class ChatMessage {
     @Column(name = "timestamp", nullable = false)
     private LocalDateTime timestamp;
 
-    public ChatMessage(String sessionId, String content, String sender) {
+    // Position within the session (1, 2, 3, ... without gaps), assigned by the ChatStore as the
+    // message is written
+    @Column(name = "seq", nullable = false)
+    private Long seq;
+
+    // IDs are assigned by the application, so Spring Data cannot tell new entities apart by a
+    // null ID; without this flag every save() would issue a SELECT (merge) before the INSERT
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    public ChatMessage(UUID sessionId, String content, String sender) {
         this.sessionId = sessionId;
         this.content = content;
         this.sender = sender;
-        this.timestamp = LocalDateTime.now();
+        this.timestamp = now();
+    }
+
+    /**
+     * A message as stored, for read paths that map rows without going through the persistence
+     * context. It counts as not new, like one Hibernate has loaded.
+     */
+    public static ChatMessage stored(UUID messageId, UUID sessionId, String content, String sender,
+                                     LocalDateTime timestamp, long seq) {
+        ChatMessage message = new ChatMessage();
+        message.messageId = messageId;
+        message.sessionId = sessionId;
+        message.content = content;
+        message.sender = sender;
+        message.timestamp = timestamp;
+        message.seq = seq;
+        message.newEntity = false;
+        return message;
+    }
+
+    @Override
+    @JsonIgnore
+    public UUID getId() {
+        return messageId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
     }
     
     @PrePersist
     protected void onCreate() {
         if (timestamp == null) {
-            timestamp = LocalDateTime.now();
+            timestamp = now();
         }
     }
+
+    // The column keeps microseconds and the database rounds anything finer, so a timestamp kept in
+    // memory (by the tail cache, say) would differ from the stored one and make a cursor that
+    // points between rows
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        newEntity = false;
+    }
 }
\ No newline at end of file
@@ -1,8 +1,15 @@
 package com.pidima.chatmicroservice.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -10,36 +17,74 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "chat_sessions")
+@Table(name = "chat_sessions", indexes = {
+        @Index(name = "idx_chat_sessions_last_activity", columnList = "last_activity_at")
+})
 @Data
 @NoArgsConstructor
-public class ChatSession {
+public class ChatSession implements Persistable<UUID> {
     @Id
-    private String sessionId;
+    private UUID sessionId;
     
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
+
+    // Timestamp of the latest message, or createdAt while there is none; maintained by the ChatStore
+    @Column(name = "last_activity_at", nullable = false)
+    private LocalDateTime lastActivityAt;
+
+    // Highest sequence number handed out to the session's messages so far
+    @Column(name = "last_seq", nullable = false)
+    @JsonIgnore
+    private long lastSeq;
     
-    @OneToMany(mappedBy = "sessionId", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @OneToMany(mappedBy = "session", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @OrderBy("timestamp ASC")
     private List<ChatMessage> messages;
 
-    public ChatSession(String sessionId) {
+    // IDs are assigned by the application; see ChatMessage#newEntity
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean newEntity = true;
+
+    public ChatSession(UUID sessionId) {
         this.sessionId = sessionId;
         this.createdAt = LocalDateTime.now();
         this.messages = new ArrayList<>();
     }
     
+    @Override
+    @JsonIgnore
+    public UUID getId() {
+        return sessionId;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return newEntity;
+    }
+    
     @PrePersist
     protected void onCreate() {
-        if (sessionId == null) {
-            sessionId = UUID.randomUUID().toString();
-        }
         if (createdAt == null) {
             createdAt = LocalDateTime.now();
         }
+        if (lastActivityAt == null) {
+            lastActivityAt = createdAt;
+        }
         if (messages == null) {
             messages = new ArrayList<>();
         }
     }
+
+    @PostPersist
+    @PostLoad
+    protected void markNotNew() {
+        newEntity = false;
+    }
 }
\ No newline at end of file
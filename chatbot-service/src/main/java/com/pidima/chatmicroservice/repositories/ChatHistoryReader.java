@@ -0,0 +1,52 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * The read side of a session's history, served by the {@link ChatStore} for live sessions and by
+ * the {@link SessionArchive} for sessions retention has moved out of it. Messages are ordered by
+ * (timestamp, messageId) and stored entities must not be modified by callers.
+ */
+public interface ChatHistoryReader {
+
+    /**
+     * The whole history of a session, oldest first.
+     */
+    List<ChatMessage> findMessages(UUID sessionId);
+
+    List<ChatMessage> findFirstPage(UUID sessionId, int limit);
+
+    /**
+     * The newest {@code limit} messages, newest first.
+     */
+    List<ChatMessage> findLatestPage(UUID sessionId, int limit);
+
+    /**
+     * Messages strictly after the given position, oldest first.
+     */
+    List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit);
+
+    /**
+     * Messages strictly before the given position, newest first.
+     */
+    List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit);
+
+    /**
+     * Up to {@code limit} messages with a sequence number greater than {@code seq}, in sequence
+     * order.
+     */
+    List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit);
+
+    /**
+     * Passes every message of the session to {@code sink}, oldest first, without holding the
+     * whole history in memory at once.
+     *
+     * @return the number of messages exported
+     */
+    long exportMessages(UUID sessionId, Consumer<ChatMessage> sink);
+}
@@ -1,15 +1,82 @@
 package com.pidima.chatmicroservice.repositories;
 
 import com.pidima.chatmicroservice.models.ChatMessage;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
-public interface ChatMessageRepository extends JpaRepository<ChatMessage, String> {
-    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp ASC")
-    List<ChatMessage> findBySessionIdOrderByTimestampAsc(@Param("sessionId") String sessionId);
+public interface ChatMessageRepository extends JpaRepository<ChatMessage, UUID> {
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId ORDER BY cm.timestamp ASC, cm.messageId ASC")
+    List<ChatMessage> findBySessionIdOrderByTimestampAsc(@Param("sessionId") UUID sessionId);
+
+    // Keyset pagination queries. All of them resolve to a range scan on
+    // idx_chat_messages_session_timestamp (session_id, timestamp, message_id).
+    // The redundant "timestamp >=" / "timestamp <=" predicate keeps the range sargable.
+
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId " +
+           "ORDER BY cm.timestamp ASC, cm.messageId ASC")
+    List<ChatMessage> findFirstPage(@Param("sessionId") UUID sessionId, Pageable pageable);
+
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId " +
+           "ORDER BY cm.timestamp DESC, cm.messageId DESC")
+    List<ChatMessage> findLatestPage(@Param("sessionId") UUID sessionId, Pageable pageable);
+
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId " +
+           "AND cm.timestamp >= :timestamp " +
+           "AND (cm.timestamp > :timestamp OR cm.messageId > :messageId) " +
+           "ORDER BY cm.timestamp ASC, cm.messageId ASC")
+    List<ChatMessage> findPageAfter(@Param("sessionId") UUID sessionId,
+                                    @Param("timestamp") LocalDateTime timestamp,
+                                    @Param("messageId") UUID messageId,
+                                    Pageable pageable);
+
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId " +
+           "AND cm.timestamp <= :timestamp " +
+           "AND (cm.timestamp < :timestamp OR cm.messageId < :messageId) " +
+           "ORDER BY cm.timestamp DESC, cm.messageId DESC")
+    List<ChatMessage> findPageBefore(@Param("sessionId") UUID sessionId,
+                                     @Param("timestamp") LocalDateTime timestamp,
+                                     @Param("messageId") UUID messageId,
+                                     Pageable pageable);
+
+    // Range scan on idx_chat_messages_session_seq (session_id, seq)
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId AND cm.seq > :seq " +
+           "ORDER BY cm.seq ASC")
+    List<ChatMessage> findPageSinceSeq(@Param("sessionId") UUID sessionId,
+                                       @Param("seq") long seq,
+                                       Pageable pageable);
+
+    // Forward-only cursor over a whole session for exports. Rows are fetched from the
+    // driver in chunks and loaded read-only so Hibernate keeps no dirty-checking snapshots.
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT cm FROM ChatMessage cm WHERE cm.sessionId = :sessionId " +
+           "ORDER BY cm.timestamp ASC, cm.messageId ASC")
+    Stream<ChatMessage> streamBySessionId(@Param("sessionId") UUID sessionId);
+
+    @Query("SELECT cm.messageId FROM ChatMessage cm WHERE cm.messageId IN :messageIds")
+    List<UUID> findExistingMessageIds(@Param("messageIds") Collection<UUID> messageIds);
+
+    @Modifying
+    @Query("DELETE FROM ChatMessage cm WHERE cm.sessionId = :sessionId")
+    int deleteBySessionId(@Param("sessionId") UUID sessionId);
+
+    @Modifying
+    @Query("DELETE FROM ChatMessage cm WHERE cm.sessionId IN :sessionIds")
+    int deleteBySessionIds(@Param("sessionIds") Collection<UUID> sessionIds);
 }
\ No newline at end of file
@@ -1,9 +1,54 @@
 package com.pidima.chatmicroservice.repositories;
 
 import com.pidima.chatmicroservice.models.ChatSession;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
 @Repository
-public interface ChatSessionRepository extends JpaRepository<ChatSession, String> {
+public interface ChatSessionRepository extends JpaRepository<ChatSession, UUID> {
+    @Query("SELECT s.sessionId FROM ChatSession s WHERE s.sessionId IN :sessionIds")
+    List<UUID> findExistingSessionIds(@Param("sessionIds") Collection<UUID> sessionIds);
+
+    // Keyset walk over all session IDs, used when rebalancing shards
+
+    @Query("SELECT s.sessionId FROM ChatSession s ORDER BY s.sessionId")
+    List<UUID> findSessionIds(Pageable pageable);
+
+    @Query("SELECT s.sessionId FROM ChatSession s WHERE s.sessionId > :after ORDER BY s.sessionId")
+    List<UUID> findSessionIdsAfter(@Param("after") UUID after, Pageable pageable);
+
+    // Retention scans; the idle one is a range scan on idx_chat_sessions_last_activity
+
+    @Query("SELECT new com.pidima.chatmicroservice.repositories.RetentionCandidate(s.sessionId, s.lastSeq) " +
+           "FROM ChatSession s WHERE s.lastActivityAt < :cutoff ORDER BY s.lastActivityAt")
+    List<RetentionCandidate> findIdleSince(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    @Query("SELECT new com.pidima.chatmicroservice.repositories.RetentionCandidate(s.sessionId, s.lastSeq) " +
+           "FROM ChatSession s WHERE s.createdAt < :cutoff")
+    List<RetentionCandidate> findCreatedBefore(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Locked in ID order, like saveMessages, so the two never deadlock on each other
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChatSession s WHERE s.sessionId IN :sessionIds ORDER BY s.sessionId")
+    List<ChatSession> lockSessions(@Param("sessionIds") Collection<UUID> sessionIds);
+
+    @Modifying
+    @Query("DELETE FROM ChatSession s WHERE s.sessionId IN :sessionIds")
+    int deleteSessions(@Param("sessionIds") Collection<UUID> sessionIds);
+
+    // Bulk delete that skips loading the session and cascading to its messages one by one
+    @Modifying
+    @Query("DELETE FROM ChatSession s WHERE s.sessionId = :sessionId")
+    int deleteSession(@Param("sessionId") UUID sessionId);
 }
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Storage engine behind {@code ChatService}, selected with {@code chat.storage.engine}.
+ *
+ * <p>Every method is atomic on its own, so callers never need a surrounding transaction. Within a
+ * session messages are ordered by (timestamp, messageId). Every stored message is also given the
+ * session's next sequence number ({@code 1, 2, 3, ...}), atomically with the write and without
+ * gaps, which clients use to fetch only what is new. Writing a message for a session that does not
+ * exist fails with a {@link org.springframework.dao.DataIntegrityViolationException}, as does
+ * reusing an existing ID.
+ *
+ * <p>Sessions are only ever removed as a whole, by retention, so sequence numbers stay gap-free.
+ */
+public interface ChatStore extends ChatHistoryReader {
+
+    /**
+     * Stores a new session together with its optional first message.
+     */
+    ChatSession createSession(ChatSession session, ChatMessage initialMessage);
+
+    Optional<ChatSession> findSession(UUID sessionId);
+
+    boolean sessionExists(UUID sessionId);
+
+    /**
+     * Returns the subset of the given IDs that belong to existing sessions.
+     */
+    Set<UUID> findExistingSessionIds(Collection<UUID> sessionIds);
+
+    long countSessions();
+
+    /**
+     * Passes the ID of every stored session to {@code sink}, without holding all of them in
+     * memory at once. Sessions created or deleted meanwhile may or may not be included.
+     *
+     * @return the number of sessions passed
+     */
+    long forEachSessionId(Consumer<UUID> sink);
+
+    ChatMessage saveMessage(ChatMessage message);
+
+    /**
+     * Stores all messages or none of them. Every message must belong to the same write group
+     * (see {@link #writeGroups}).
+     */
+    List<ChatMessage> saveMessages(List<ChatMessage> messages);
+
+    /**
+     * Splits the items of a bulk write into groups that {@link #saveMessages} can store
+     * atomically, keeping their order within each group. An engine that writes every session in
+     * one transaction returns a single group.
+     */
+    default <T> Collection<List<T>> writeGroups(List<T> items, Function<T, UUID> sessionId) {
+        return List.of(items);
+    }
+
+    Optional<ChatMessage> findMessage(UUID messageId);
+
+    long countMessages();
+
+    /**
+     * Up to {@code limit} sessions that retention may remove: those without a message since
+     * {@code idleSince} (a session without messages counts from its creation) and those created
+     * before {@code createdBefore}. Either bound may be null to disable it.
+     */
+    List<RetentionCandidate> findRetentionCandidates(LocalDateTime idleSince, LocalDateTime createdBefore, int limit);
+
+    /**
+     * Deletes the given sessions together with all of their messages. A session whose last
+     * sequence number no longer matches the candidate's was written to in the meantime and is
+     * kept.
+     *
+     * @return the IDs of the sessions that were deleted
+     */
+    Set<UUID> deleteSessions(Collection<RetentionCandidate> sessions);
+}
@@ -0,0 +1,430 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * {@link ChatStore} held entirely in the JVM heap; nothing survives a restart.
+ *
+ * <p>Sessions live in a concurrent map. Each session keeps its messages in an append-only log of
+ * fixed-size segments: appends to one session are serialised on that session's lock, while reads
+ * never lock and see every message appended before they started. Appends to different sessions
+ * never contend. Retention removes a session under its lock, and appends check for that under the
+ * same lock.
+ *
+ * <p>A session's log is kept in (timestamp, messageId) order by assigning each appended message a
+ * timestamp no earlier than one microsecond after its predecessor's, so a message's sequence number
+ * is simply its position in the log. Stored entities are returned as-is and must not be modified
+ * by callers.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "chat.storage", name = "engine", havingValue = "memory")
+public class InMemoryChatStore implements ChatStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryChatStore.class);
+
+    private final Map<UUID, SessionLog> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, ChatMessage> messagesById = new ConcurrentHashMap<>();
+    private final LongAdder messageCount = new LongAdder();
+
+    public InMemoryChatStore() {
+        logger.info("Using in-memory chat storage; data is lost on restart");
+    }
+
+    @Override
+    public ChatSession createSession(ChatSession session, ChatMessage initialMessage) {
+        if (session.getCreatedAt() == null) {
+            session.setCreatedAt(LocalDateTime.now());
+        }
+        session.setLastActivityAt(session.getCreatedAt());
+        if (initialMessage != null && messagesById.containsKey(initialMessage.getMessageId())) {
+            throw new DataIntegrityViolationException("Duplicate message ID: " + initialMessage.getMessageId());
+        }
+        SessionLog log = new SessionLog(session);
+        if (sessions.putIfAbsent(session.getSessionId(), log) != null) {
+            throw new DataIntegrityViolationException("Duplicate session ID: " + session.getSessionId());
+        }
+        if (initialMessage != null) {
+            append(log, List.of(initialMessage));
+        }
+        return session;
+    }
+
+    @Override
+    public Optional<ChatSession> findSession(UUID sessionId) {
+        SessionLog log = sessions.get(sessionId);
+        return log != null ? Optional.of(log.session) : Optional.empty();
+    }
+
+    @Override
+    public boolean sessionExists(UUID sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    @Override
+    public Set<UUID> findExistingSessionIds(Collection<UUID> sessionIds) {
+        Set<UUID> existing = new HashSet<>();
+        for (UUID sessionId : sessionIds) {
+            if (sessions.containsKey(sessionId)) {
+                existing.add(sessionId);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public long countSessions() {
+        return sessions.size();
+    }
+
+    @Override
+    public long forEachSessionId(Consumer<UUID> sink) {
+        long count = 0;
+        for (UUID sessionId : sessions.keySet()) {
+            sink.accept(sessionId);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public ChatMessage saveMessage(ChatMessage message) {
+        append(requireLog(message.getSessionId()), List.of(message));
+        return message;
+    }
+
+    @Override
+    public List<ChatMessage> saveMessages(List<ChatMessage> messages) {
+        // Validate everything up front; the sessions are then locked in ID order and checked again,
+        // so a session deleted or an ID taken in the meantime cannot leave the batch half written
+        Map<UUID, List<ChatMessage>> bySession = new TreeMap<>();
+        Map<UUID, SessionLog> logs = new HashMap<>();
+        Set<UUID> ids = new HashSet<>();
+        for (ChatMessage message : messages) {
+            if (!ids.add(message.getMessageId()) || messagesById.containsKey(message.getMessageId())) {
+                throw new DataIntegrityViolationException("Duplicate message ID: " + message.getMessageId());
+            }
+            logs.put(message.getSessionId(), requireLog(message.getSessionId()));
+            bySession.computeIfAbsent(message.getSessionId(), sessionId -> new ArrayList<>()).add(message);
+        }
+        List<Map.Entry<SessionLog, List<ChatMessage>>> batches = new ArrayList<>();
+        bySession.forEach((sessionId, batch) -> batches.add(Map.entry(logs.get(sessionId), batch)));
+        appendAll(batches, messages);
+        messageCount.add(messages.size());
+        return messages;
+    }
+
+    @Override
+    public Optional<ChatMessage> findMessage(UUID messageId) {
+        return Optional.ofNullable(messagesById.get(messageId));
+    }
+
+    @Override
+    public long countMessages() {
+        return messageCount.sum();
+    }
+
+    @Override
+    public List<ChatMessage> findMessages(UUID sessionId) {
+        SessionLog log = sessions.get(sessionId);
+        return log != null ? log.range(0, log.size) : List.of();
+    }
+
+    @Override
+    public List<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return List.of();
+        }
+        return log.range(0, Math.min(log.size, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return List.of();
+        }
+        int size = log.size;
+        return reversed(log.range(Math.max(0, size - limit), size));
+    }
+
+    @Override
+    public List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return List.of();
+        }
+        int size = log.size;
+        int from = log.firstAfter(timestamp, messageId, size);
+        return log.range(from, Math.min(size, from + limit));
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return List.of();
+        }
+        int to = log.firstAtOrAfter(timestamp, messageId, log.size);
+        return reversed(log.range(Math.max(0, to - limit), to));
+    }
+
+    @Override
+    public List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return List.of();
+        }
+        int size = log.size;
+        int from = (int) Math.min(Math.max(seq, 0), size);
+        return log.range(from, (int) Math.min(size, (long) from + limit));
+    }
+
+    @Override
+    public long exportMessages(UUID sessionId, Consumer<ChatMessage> sink) {
+        SessionLog log = sessions.get(sessionId);
+        if (log == null) {
+            return 0;
+        }
+        int size = log.size;
+        for (int i = 0; i < size; i++) {
+            sink.accept(log.get(i));
+        }
+        return size;
+    }
+
+    @Override
+    public List<RetentionCandidate> findRetentionCandidates(LocalDateTime idleSince, LocalDateTime createdBefore,
+                                                            int limit) {
+        List<RetentionCandidate> candidates = new ArrayList<>();
+        for (SessionLog log : sessions.values()) {
+            if (candidates.size() == limit) {
+                break;
+            }
+            int size = log.size;
+            LocalDateTime createdAt = log.session.getCreatedAt();
+            LocalDateTime lastActivity = log.session.getLastActivityAt();
+            if ((idleSince != null && lastActivity.isBefore(idleSince))
+                    || (createdBefore != null && createdAt.isBefore(createdBefore))) {
+                candidates.add(new RetentionCandidate(log.session.getSessionId(), size));
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public Set<UUID> deleteSessions(Collection<RetentionCandidate> candidates) {
+        Set<UUID> deleted = new HashSet<>();
+        for (RetentionCandidate candidate : candidates) {
+            SessionLog log = sessions.get(candidate.sessionId());
+            if (log == null) {
+                continue;
+            }
+            int size;
+            log.lock.lock();
+            try {
+                if (log.size != candidate.lastSeq()) {
+                    continue;
+                }
+                log.deleted = true;
+                sessions.remove(candidate.sessionId(), log);
+                size = log.size;
+            } finally {
+                log.lock.unlock();
+            }
+            // Readers that already hold the log keep reading it; the message IDs become reusable
+            for (int i = 0; i < size; i++) {
+                messagesById.remove(log.get(i).getMessageId());
+            }
+            messageCount.add(-size);
+            deleted.add(candidate.sessionId());
+        }
+        return deleted;
+    }
+
+    private SessionLog requireLog(UUID sessionId) {
+        SessionLog log = sessionId != null ? sessions.get(sessionId) : null;
+        if (log == null) {
+            throw new DataIntegrityViolationException("Session does not exist: " + sessionId);
+        }
+        return log;
+    }
+
+    private void append(SessionLog log, List<ChatMessage> messages) {
+        log.lock.lock();
+        try {
+            requireLive(log);
+            claimIds(messages);
+            messages.forEach(log::append);
+        } finally {
+            log.lock.unlock();
+        }
+        messageCount.add(messages.size());
+    }
+
+    // Takes the locks of the batches' sessions one after another and appends once all are held.
+    // Every check that can fail runs before the first append, so a batch is written whole or not at all.
+    private void appendAll(List<Map.Entry<SessionLog, List<ChatMessage>>> batches, List<ChatMessage> messages) {
+        int locked = 0;
+        try {
+            for (Map.Entry<SessionLog, List<ChatMessage>> batch : batches) {
+                batch.getKey().lock.lock();
+                locked++;
+            }
+            batches.forEach(batch -> requireLive(batch.getKey()));
+            claimIds(messages);
+            batches.forEach(batch -> batch.getValue().forEach(batch.getKey()::append));
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                batches.get(i).getKey().lock.unlock();
+            }
+        }
+    }
+
+    // Indexes the messages by ID, or none of them if one of the IDs is taken
+    private void claimIds(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            if (messagesById.putIfAbsent(message.getMessageId(), message) != null) {
+                for (ChatMessage claimed : messages.subList(0, i)) {
+                    messagesById.remove(claimed.getMessageId(), claimed);
+                }
+                throw new DataIntegrityViolationException("Duplicate message ID: " + message.getMessageId());
+            }
+        }
+    }
+
+    // Caller holds the log's lock
+    private static void requireLive(SessionLog log) {
+        if (log.deleted) {
+            throw new DataIntegrityViolationException("Session does not exist: " + log.session.getSessionId());
+        }
+    }
+
+    private static List<ChatMessage> reversed(List<ChatMessage> messages) {
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    /**
+     * Append-only message log of one session. Writers hold the log's lock; readers take a
+     * snapshot of {@code size} and may read every index below it without locking, because the
+     * volatile write of {@code size} publishes the segments and elements written before it.
+     */
+    static final class SessionLog {
+        private static final int SEGMENT_SHIFT = 8;
+        private static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+        private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+        final ChatSession session;
+        private volatile ChatMessage[][] segments = new ChatMessage[1][];
+        volatile int size;
+        final ReentrantLock lock = new ReentrantLock();
+        // Set under the lock when retention removes the session; later appends are rejected
+        boolean deleted;
+
+        SessionLog(ChatSession session) {
+            this.session = session;
+        }
+
+        // Caller holds the lock
+        void append(ChatMessage message) {
+            int index = size;
+            LocalDateTime timestamp = message.getTimestamp() != null
+                    ? message.getTimestamp().truncatedTo(ChronoUnit.MICROS)
+                    : LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (index > 0) {
+                LocalDateTime previous = get(index - 1).getTimestamp();
+                if (!timestamp.isAfter(previous)) {
+                    timestamp = previous.plus(1, ChronoUnit.MICROS);
+                }
+            }
+            message.setTimestamp(timestamp);
+            message.setSeq(index + 1L);
+
+            int segment = index >>> SEGMENT_SHIFT;
+            ChatMessage[][] current = segments;
+            if (segment == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            if (current[segment] == null) {
+                current[segment] = new ChatMessage[SEGMENT_SIZE];
+            }
+            current[segment][index & SEGMENT_MASK] = message;
+            segments = current;
+            session.setLastActivityAt(timestamp);
+            size = index + 1;
+        }
+
+        ChatMessage get(int index) {
+            return segments[index >>> SEGMENT_SHIFT][index & SEGMENT_MASK];
+        }
+
+        List<ChatMessage> range(int from, int to) {
+            List<ChatMessage> messages = new ArrayList<>(Math.max(0, to - from));
+            ChatMessage[][] snapshot = segments;
+            for (int i = from; i < to; i++) {
+                messages.add(snapshot[i >>> SEGMENT_SHIFT][i & SEGMENT_MASK]);
+            }
+            return messages;
+        }
+
+        // Index of the first message after (timestamp, messageId) among the first size messages
+        int firstAfter(LocalDateTime timestamp, UUID messageId, int size) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(get(mid), timestamp, messageId) <= 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // Index of the first message at or after (timestamp, messageId) among the first size messages
+        int firstAtOrAfter(LocalDateTime timestamp, UUID messageId, int size) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (compare(get(mid), timestamp, messageId) < 0) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        private static int compare(ChatMessage message, LocalDateTime timestamp, UUID messageId) {
+            return MessageOrder.compare(message.getTimestamp(), message.getMessageId(), timestamp, messageId);
+        }
+    }
+}
@@ -0,0 +1,408 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link ChatStore} on Spring Data JPA. Single-statement operations run in the repository's own
+ * transaction; writes and exports open one here.
+ *
+ * <p>Sequence numbers come from a counter on the session row that a write increments in its own
+ * transaction. The row stays locked until commit, so concurrent writes to one session queue up
+ * behind each other and a rolled-back write gives its numbers back. A single send increments the
+ * counter and inserts the message in one statement that is its whole transaction, which keeps it
+ * one round trip and the lock no longer than that statement: the updated row feeds the insert
+ * through a {@code FINAL TABLE}. Only H2 and DB2 have that, so on any other database, and with
+ * {@code chat.storage.jpa.final-table=false}, the counter is incremented and read back by two
+ * statements and the message inserted by a third, all in the write's transaction.
+ *
+ * <p>History reads select the message columns over JDBC and map each row straight to a detached
+ * {@link ChatMessage}, so Hibernate builds no managed entity, loaded-state snapshot or
+ * persistence-context entry per row. {@code chat.storage.jpa.projection-reads=false} reads
+ * through the repository's entity queries instead.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "chat.storage", name = "engine", havingValue = "jpa", matchIfMissing = true)
+public class JpaChatStore implements ChatStore {
+    private static final int SESSION_PAGE_SIZE = 1000;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    // Statements run over JDBC bypass the repositories and their spring.data.repository.invocations
+    // timer, so the methods that may run them are timed on their own, whichever read path is set
+    static final String STORE_TIMER = "chat.store";
+
+    // The same range scans on idx_chat_messages_session_timestamp and idx_chat_messages_session_seq
+    // as the repository's queries
+    private static final String SELECT_MESSAGES =
+            "SELECT message_id, session_id, content, sender, timestamp, seq FROM chat_messages WHERE session_id = ? ";
+    private static final String AFTER = "AND timestamp >= ? AND (timestamp > ? OR message_id > ?) ";
+    private static final String BEFORE = "AND timestamp <= ? AND (timestamp < ? OR message_id < ?) ";
+    private static final String ASCENDING = "ORDER BY timestamp ASC, message_id ASC";
+    private static final String DESCENDING = "ORDER BY timestamp DESC, message_id DESC";
+    private static final String LIMIT = " FETCH FIRST ? ROWS ONLY";
+    // The update doubles as the check that the session exists: no row, no sequence numbers
+    private static final String RESERVE_SEQS =
+            "UPDATE chat_sessions SET last_seq = last_seq + ?, " +
+            "last_activity_at = CASE WHEN last_activity_at < ? THEN ? ELSE last_activity_at END " +
+            "WHERE session_id = ?";
+    private static final String SELECT_RESERVED = "SELECT last_seq FROM FINAL TABLE (" + RESERVE_SEQS + ")";
+    private static final String INSERT_MESSAGE =
+            "SELECT seq FROM FINAL TABLE (" +
+            "INSERT INTO chat_messages (message_id, session_id, content, sender, timestamp, seq) " +
+            "SELECT ?, session_id, ?, ?, ?, last_seq FROM FINAL TABLE (" + RESERVE_SEQS + "))";
+    // The portable forms: read the counter back after the update, insert with the known seq
+    private static final String SELECT_LAST_SEQ = "SELECT last_seq FROM chat_sessions WHERE session_id = ?";
+    private static final String INSERT_STORED_MESSAGE =
+            "INSERT INTO chat_messages (message_id, session_id, content, sender, timestamp, seq) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+    private static final RowMapper<ChatMessage> MESSAGE_ROW = (row, rowNumber) -> toMessage(row);
+
+    @Autowired
+    private ChatSessionRepository sessionRepository;
+
+    @Autowired
+    private ChatMessageRepository messageRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${chat.storage.jpa.projection-reads:true}")
+    private boolean projectionReads;
+
+    @Value("${chat.storage.jpa.final-table:true}")
+    private boolean finalTableEnabled;
+
+    // Whether the database takes FINAL TABLE, looked up on first write
+    private volatile Boolean finalTable;
+
+    @Override
+    @Transactional
+    public ChatSession createSession(ChatSession session, ChatMessage initialMessage) {
+        if (session.getCreatedAt() == null) {
+            session.setCreatedAt(LocalDateTime.now());
+        }
+        session.setLastActivityAt(session.getCreatedAt());
+        if (initialMessage != null) {
+            initialMessage.setSeq(1L);
+            session.setLastSeq(1);
+            if (initialMessage.getTimestamp() != null) {
+                session.setLastActivityAt(initialMessage.getTimestamp());
+            }
+        }
+        ChatSession saved = sessionRepository.save(session);
+        if (initialMessage != null) {
+            messageRepository.save(initialMessage);
+        }
+        // Flush through the repository so constraint violations surface as DataAccessExceptions
+        sessionRepository.flush();
+        return saved;
+    }
+
+    @Override
+    public Optional<ChatSession> findSession(UUID sessionId) {
+        return sessionRepository.findById(sessionId);
+    }
+
+    @Override
+    public boolean sessionExists(UUID sessionId) {
+        return sessionRepository.existsById(sessionId);
+    }
+
+    @Override
+    public Set<UUID> findExistingSessionIds(Collection<UUID> sessionIds) {
+        return sessionIds.isEmpty() ? Set.of() : new HashSet<>(sessionRepository.findExistingSessionIds(sessionIds));
+    }
+
+    @Override
+    public long countSessions() {
+        return sessionRepository.count();
+    }
+
+    // Keyset pages over the primary key, each its own query
+    @Override
+    public long forEachSessionId(Consumer<UUID> sink) {
+        long count = 0;
+        UUID after = null;
+        List<UUID> page;
+        do {
+            page = after == null
+                    ? sessionRepository.findSessionIds(PageRequest.of(0, SESSION_PAGE_SIZE))
+                    : sessionRepository.findSessionIdsAfter(after, PageRequest.of(0, SESSION_PAGE_SIZE));
+            page.forEach(sink);
+            count += page.size();
+            after = page.isEmpty() ? null : page.get(page.size() - 1);
+        } while (page.size() == SESSION_PAGE_SIZE);
+        return count;
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    @Transactional
+    public ChatMessage saveMessage(ChatMessage message) {
+        if (message.getTimestamp() == null) {
+            message.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.MICROS));
+        }
+        UUID sessionId = message.getSessionId();
+        if (sessionId == null) {
+            throw new DataIntegrityViolationException("Session does not exist: null");
+        }
+        long seq;
+        if (finalTable()) {
+            LocalDateTime activityAt = activityAt(List.of(message));
+            List<Long> inserted = jdbcTemplate.queryForList(INSERT_MESSAGE, Long.class, message.getMessageId(),
+                    message.getContent(), message.getSender(), message.getTimestamp(), 1, activityAt, activityAt,
+                    sessionId);
+            if (inserted.isEmpty()) {
+                throw new DataIntegrityViolationException("Session does not exist: " + sessionId);
+            }
+            seq = inserted.get(0);
+        } else {
+            seq = reserveSeqs(sessionId, List.of(message));
+            jdbcTemplate.update(INSERT_STORED_MESSAGE, message.getMessageId(), sessionId, message.getContent(),
+                                message.getSender(), message.getTimestamp(), seq);
+        }
+        return ChatMessage.stored(message.getMessageId(), sessionId, message.getContent(), message.getSender(),
+                                  message.getTimestamp(), seq);
+    }
+
+    // One transaction, flushed as JDBC batches of hibernate.jdbc.batch_size
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    @Transactional
+    public List<ChatMessage> saveMessages(List<ChatMessage> messages) {
+        // Session rows are locked in ID order so two batches can never deadlock on each other
+        Map<UUID, List<ChatMessage>> bySession = new TreeMap<>();
+        for (ChatMessage message : messages) {
+            if (message.getSessionId() == null) {
+                throw new DataIntegrityViolationException("Session does not exist: null");
+            }
+            bySession.computeIfAbsent(message.getSessionId(), sessionId -> new ArrayList<>()).add(message);
+        }
+        bySession.forEach((sessionId, batch) -> {
+            long seq = reserveSeqs(sessionId, batch);
+            for (ChatMessage message : batch) {
+                message.setSeq(seq++);
+            }
+        });
+        return messageRepository.saveAllAndFlush(messages);
+    }
+
+    @Override
+    public Optional<ChatMessage> findMessage(UUID messageId) {
+        return messageRepository.findById(messageId);
+    }
+
+    @Override
+    public long countMessages() {
+        return messageRepository.count();
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findMessages(UUID sessionId) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + ASCENDING, MESSAGE_ROW, sessionId);
+        }
+        return messageRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + ASCENDING + LIMIT, MESSAGE_ROW, sessionId, limit);
+        }
+        return messageRepository.findFirstPage(sessionId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + DESCENDING + LIMIT, MESSAGE_ROW, sessionId, limit);
+        }
+        return messageRepository.findLatestPage(sessionId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + AFTER + ASCENDING + LIMIT, MESSAGE_ROW,
+                                      sessionId, timestamp, timestamp, messageId, limit);
+        }
+        return messageRepository.findPageAfter(sessionId, timestamp, messageId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + BEFORE + DESCENDING + LIMIT, MESSAGE_ROW,
+                                      sessionId, timestamp, timestamp, messageId, limit);
+        }
+        return messageRepository.findPageBefore(sessionId, timestamp, messageId, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    public List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        if (projectionReads) {
+            return jdbcTemplate.query(SELECT_MESSAGES + "AND seq > ? ORDER BY seq ASC" + LIMIT, MESSAGE_ROW,
+                                      sessionId, seq, limit);
+        }
+        return messageRepository.findPageSinceSeq(sessionId, seq, PageRequest.of(0, limit));
+    }
+
+    // Read-only transaction either way, so drivers that only stream inside one (PostgreSQL) honour
+    // the fetch size
+    @Override
+    @Timed(value = STORE_TIMER, histogram = true)
+    @Transactional(readOnly = true)
+    public long exportMessages(UUID sessionId, Consumer<ChatMessage> sink) {
+        if (projectionReads) {
+            long[] exported = {0};
+            jdbcTemplate.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(SELECT_MESSAGES + ASCENDING);
+                statement.setFetchSize(EXPORT_FETCH_SIZE);
+                statement.setObject(1, sessionId);
+                return statement;
+            }, (RowCallbackHandler) row -> {
+                sink.accept(toMessage(row));
+                exported[0]++;
+            });
+            return exported[0];
+        }
+        long exported = 0;
+        try (Stream<ChatMessage> messages = messageRepository.streamBySessionId(sessionId)) {
+            Iterator<ChatMessage> iterator = messages.iterator();
+            while (iterator.hasNext()) {
+                ChatMessage message = iterator.next();
+                sink.accept(message);
+                // Detach as we go so the persistence context never holds more than one row
+                entityManager.detach(message);
+                exported++;
+            }
+        }
+        return exported;
+    }
+
+    @Override
+    public List<RetentionCandidate> findRetentionCandidates(LocalDateTime idleSince, LocalDateTime createdBefore,
+                                                            int limit) {
+        Map<UUID, RetentionCandidate> candidates = new LinkedHashMap<>();
+        if (createdBefore != null) {
+            sessionRepository.findCreatedBefore(createdBefore, PageRequest.of(0, limit))
+                    .forEach(candidate -> candidates.put(candidate.sessionId(), candidate));
+        }
+        if (idleSince != null && candidates.size() < limit) {
+            sessionRepository.findIdleSince(idleSince, PageRequest.of(0, limit))
+                    .forEach(candidate -> candidates.putIfAbsent(candidate.sessionId(), candidate));
+        }
+        return candidates.values().stream().limit(limit).toList();
+    }
+
+    // The session rows are locked before their counters are compared, so a concurrent write either
+    // commits first (and the session is kept) or finds the session gone
+    @Override
+    @Transactional
+    public Set<UUID> deleteSessions(Collection<RetentionCandidate> sessions) {
+        if (sessions.isEmpty()) {
+            return Set.of();
+        }
+        Map<UUID, Long> expected = new HashMap<>();
+        sessions.forEach(candidate -> expected.put(candidate.sessionId(), candidate.lastSeq()));
+        Set<UUID> deletable = new HashSet<>();
+        for (ChatSession session : sessionRepository.lockSessions(expected.keySet())) {
+            if (session.getLastSeq() == expected.get(session.getSessionId())) {
+                deletable.add(session.getSessionId());
+            }
+        }
+        if (!deletable.isEmpty()) {
+            messageRepository.deleteBySessionIds(deletable);
+            sessionRepository.deleteSessions(deletable);
+        }
+        return deletable;
+    }
+
+    private static ChatMessage toMessage(ResultSet row) throws SQLException {
+        return ChatMessage.stored(row.getObject(1, UUID.class), row.getObject(2, UUID.class), row.getString(3),
+                                  row.getString(4), row.getObject(5, LocalDateTime.class), row.getLong(6));
+    }
+
+    // Returns the first of the messages' consecutive sequence numbers, reserved in one statement
+    private long reserveSeqs(UUID sessionId, List<ChatMessage> messages) {
+        LocalDateTime activityAt = activityAt(messages);
+        int count = messages.size();
+        List<Long> lastSeq;
+        if (finalTable()) {
+            lastSeq = jdbcTemplate.queryForList(SELECT_RESERVED, Long.class, count, activityAt, activityAt, sessionId);
+        } else if (jdbcTemplate.update(RESERVE_SEQS, count, activityAt, activityAt, sessionId) > 0) {
+            lastSeq = jdbcTemplate.queryForList(SELECT_LAST_SEQ, Long.class, sessionId);
+        } else {
+            lastSeq = List.of();
+        }
+        if (lastSeq.isEmpty()) {
+            throw new DataIntegrityViolationException("Session does not exist: " + sessionId);
+        }
+        return lastSeq.get(0) - count + 1;
+    }
+
+    private boolean finalTable() {
+        Boolean supported = finalTable;
+        if (supported == null) {
+            String product = jdbcTemplate.execute((ConnectionCallback<String>) connection ->
+                    connection.getMetaData().getDatabaseProductName());
+            supported = finalTableEnabled && product != null && (product.equals("H2") || product.startsWith("DB2"));
+            finalTable = supported;
+        }
+        return supported;
+    }
+
+    // Messages without a timestamp get theirs on persist, moments after the time taken here
+    private static LocalDateTime activityAt(List<ChatMessage> messages) {
+        LocalDateTime activityAt = LocalDateTime.now();
+        for (ChatMessage message : messages) {
+            if (message.getTimestamp() != null && message.getTimestamp().isAfter(activityAt)) {
+                activityAt = message.getTimestamp();
+            }
+        }
+        return activityAt;
+    }
+}
@@ -0,0 +1,922 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * {@link ChatStore} on an append-only log of memory-mapped segment files in
+ * {@code chat.storage.log.directory}.
+ *
+ * <p>Every session and message is one checksummed record. Writes are serialised on a single append
+ * lock and land in the page cache, so they survive a process crash straight away; the active
+ * segment is forced to disk once {@code fsync-every} records are pending and every
+ * {@code fsync-interval}, so a machine crash loses at most one group. The records of a multi-record
+ * write are chained with a continuation flag and only take effect once the whole chain is read
+ * back, which keeps batches all-or-nothing across crashes. A chain only carries over into the next
+ * segment when that segment starts with a marker saying it was opened mid-chain; any other
+ * segment boundary ends an unfinished chain, so a write torn by a crash is never completed by the
+ * records of the next run.
+ *
+ * <p>Sessions and a per-session array of record addresses are held in memory and rebuilt on
+ * startup by scanning every segment up to its last intact record. Appends keep each session's
+ * timestamps strictly increasing, so the array is in record order and a message's sequence number
+ * is its position in it; sequence numbers are not stored. Each start opens a fresh
+ * segment, so a partly written tail is never appended to. A background task copies the live
+ * records of sealed segments that are less than {@code compaction.min-live-ratio} full into the
+ * active segment and deletes the old file one compaction interval later. A reader that still
+ * holds an address into a deleted segment finds the record's new address in the index.
+ *
+ * <p>Retention deletes a session by appending a tombstone and dropping it from the indexes; its
+ * records become dead space that compaction reclaims. A compacted tombstone is copied forward
+ * for as long as an older segment, which may still hold the session's records, exists.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "chat.storage", name = "engine", havingValue = "log")
+public class LogChatStore implements ChatStore {
+    private static final Logger logger = LoggerFactory.getLogger(LogChatStore.class);
+
+    private static final byte SESSION_RECORD = 1;
+    private static final byte MESSAGE_RECORD = 2;
+    // Tombstone of a session removed by retention, with all of its messages
+    private static final byte SESSION_DELETED_RECORD = 3;
+    // First record of a segment opened in the middle of a multi-record write; carries no data
+    private static final byte CHAIN_CONTINUES_RECORD = 4;
+    // Set on every record of a multi-record write except the last
+    private static final byte CONTINUED = (byte) 0x80;
+    private static final int MIN_SEGMENT_SIZE = 64 * 1024;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int fsyncEvery;
+    private final double minLiveRatio;
+
+    private final Map<Integer, LogSegment> segments = new ConcurrentSkipListMap<>();
+    private final Map<UUID, SessionIndex> sessions = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> messageAddresses = new ConcurrentHashMap<>();
+    private final LongAdder messageCount = new LongAdder();
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final AtomicInteger unflushedRecords = new AtomicInteger();
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService maintenance;
+    private final List<LogSegment> retired = new ArrayList<>();
+
+    private volatile LogSegment active;
+    private int nextSegmentId;
+    // Whether the last record appended was continued; guarded by the append lock
+    private boolean chainOpen;
+
+    @Autowired
+    public LogChatStore(@Value("${chat.storage.log.directory:data/chat-log}") String directory,
+                        @Value("${chat.storage.log.segment-size:64MB}") DataSize segmentSize,
+                        @Value("${chat.storage.log.fsync-every:100}") int fsyncEvery,
+                        @Value("${chat.storage.log.fsync-interval:200ms}") Duration fsyncInterval,
+                        @Value("${chat.storage.log.compaction.interval:1m}") Duration compactionInterval,
+                        @Value("${chat.storage.log.compaction.min-live-ratio:0.5}") double minLiveRatio) {
+        if (segmentSize.toBytes() < MIN_SEGMENT_SIZE || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("chat.storage.log.segment-size must be between 64KB and 2GB");
+        }
+        this.directory = Paths.get(directory);
+        this.segmentSize = (int) segmentSize.toBytes();
+        this.fsyncEvery = fsyncEvery;
+        this.minLiveRatio = minLiveRatio;
+
+        try {
+            Files.createDirectories(this.directory);
+            recover();
+            active = newSegment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open chat log in " + this.directory, e);
+        }
+
+        this.maintenance = Executors.newScheduledThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "chat-log-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long fsyncMillis = fsyncInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::flushQuietly, fsyncMillis, fsyncMillis, TimeUnit.MILLISECONDS);
+        long compactionMillis = compactionInterval.toMillis();
+        maintenance.scheduleWithFixedDelay(this::compactQuietly, compactionMillis, compactionMillis,
+                                           TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public ChatSession createSession(ChatSession session, ChatMessage initialMessage) {
+        if (session.getCreatedAt() == null) {
+            session.setCreatedAt(LocalDateTime.now());
+        }
+        appendLock.lock();
+        try {
+            if (sessions.containsKey(session.getSessionId())) {
+                throw new DataIntegrityViolationException("Duplicate session ID: " + session.getSessionId());
+            }
+            if (initialMessage != null) {
+                requireNewMessageId(initialMessage.getMessageId());
+            }
+            SessionIndex index = new SessionIndex(session);
+            index.sessionAddress = append(SESSION_RECORD, encodeSession(session), initialMessage != null);
+            sessions.put(session.getSessionId(), index);
+            if (initialMessage != null) {
+                appendMessage(index, initialMessage, false);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        afterAppend(initialMessage != null ? 2 : 1);
+        return session;
+    }
+
+    @Override
+    public Optional<ChatSession> findSession(UUID sessionId) {
+        SessionIndex index = sessions.get(sessionId);
+        return index != null ? Optional.of(index.session) : Optional.empty();
+    }
+
+    @Override
+    public boolean sessionExists(UUID sessionId) {
+        return sessions.containsKey(sessionId);
+    }
+
+    @Override
+    public Set<UUID> findExistingSessionIds(Collection<UUID> sessionIds) {
+        Set<UUID> existing = new HashSet<>();
+        for (UUID sessionId : sessionIds) {
+            if (sessions.containsKey(sessionId)) {
+                existing.add(sessionId);
+            }
+        }
+        return existing;
+    }
+
+    @Override
+    public long countSessions() {
+        return sessions.size();
+    }
+
+    @Override
+    public long forEachSessionId(Consumer<UUID> sink) {
+        long count = 0;
+        for (UUID sessionId : sessions.keySet()) {
+            sink.accept(sessionId);
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public ChatMessage saveMessage(ChatMessage message) {
+        appendLock.lock();
+        try {
+            // Looked up under the lock so a session deleted by retention cannot be appended to
+            SessionIndex index = requireSession(message.getSessionId());
+            requireNewMessageId(message.getMessageId());
+            appendMessage(index, message, false);
+        } finally {
+            appendLock.unlock();
+        }
+        afterAppend(1);
+        return message;
+    }
+
+    @Override
+    public List<ChatMessage> saveMessages(List<ChatMessage> messages) {
+        appendLock.lock();
+        try {
+            // Validate everything before the first record is written
+            Map<ChatMessage, SessionIndex> targets = new LinkedHashMap<>();
+            for (ChatMessage message : messages) {
+                targets.put(message, requireSession(message.getSessionId()));
+            }
+            Set<UUID> ids = new HashSet<>();
+            for (ChatMessage message : messages) {
+                if (!ids.add(message.getMessageId())) {
+                    throw new DataIntegrityViolationException("Duplicate message ID: " + message.getMessageId());
+                }
+                requireNewMessageId(message.getMessageId());
+            }
+            for (int i = 0; i < messages.size(); i++) {
+                ChatMessage message = messages.get(i);
+                appendMessage(targets.get(message), message, i < messages.size() - 1);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        afterAppend(messages.size());
+        return messages;
+    }
+
+    @Override
+    public Optional<ChatMessage> findMessage(UUID messageId) {
+        ByteBuffer payload = null;
+        Long address = messageAddresses.get(messageId);
+        while (address != null && (payload = payload(address)) == null) {
+            // Relocated by compaction since the lookup
+            Long current = messageAddresses.get(messageId);
+            address = address.equals(current) ? null : current;
+        }
+        if (payload == null) {
+            return Optional.empty();
+        }
+        ChatMessage message = decodeMessage(payload);
+        SessionIndex index = sessions.get(message.getSessionId());
+        if (index == null) {
+            return Optional.empty();
+        }
+        message.setSeq(search(index, message.getTimestamp(), messageId, index.size, false) + 1L);
+        return Optional.of(message);
+    }
+
+    @Override
+    public long countMessages() {
+        return messageCount.sum();
+    }
+
+    @Override
+    public List<ChatMessage> findMessages(UUID sessionId) {
+        SessionIndex index = sessions.get(sessionId);
+        return index != null ? read(index, 0, index.size) : List.of();
+    }
+
+    @Override
+    public List<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return List.of();
+        }
+        return read(index, 0, Math.min(index.size, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return List.of();
+        }
+        int size = index.size;
+        return reversed(read(index, Math.max(0, size - limit), size));
+    }
+
+    @Override
+    public List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return List.of();
+        }
+        int size = index.size;
+        int from = search(index, timestamp, messageId, size, true);
+        return read(index, from, Math.min(size, from + limit));
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return List.of();
+        }
+        int to = search(index, timestamp, messageId, index.size, false);
+        return reversed(read(index, Math.max(0, to - limit), to));
+    }
+
+    @Override
+    public List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return List.of();
+        }
+        int size = index.size;
+        int from = (int) Math.min(Math.max(seq, 0), size);
+        return read(index, from, (int) Math.min(size, (long) from + limit));
+    }
+
+    @Override
+    public long exportMessages(UUID sessionId, Consumer<ChatMessage> sink) {
+        SessionIndex index = sessions.get(sessionId);
+        if (index == null) {
+            return 0;
+        }
+        int size = index.size;
+        for (int i = 0; i < size; i++) {
+            sink.accept(readMessage(index, i));
+        }
+        return size;
+    }
+
+    @Override
+    public List<RetentionCandidate> findRetentionCandidates(LocalDateTime idleSince, LocalDateTime createdBefore,
+                                                            int limit) {
+        List<RetentionCandidate> candidates = new ArrayList<>();
+        for (SessionIndex index : sessions.values()) {
+            if (candidates.size() == limit) {
+                break;
+            }
+            int size = index.size;
+            LocalDateTime createdAt = index.session.getCreatedAt();
+            LocalDateTime lastActivity = index.session.getLastActivityAt();
+            if ((idleSince != null && lastActivity.isBefore(idleSince))
+                    || (createdBefore != null && createdAt.isBefore(createdBefore))) {
+                candidates.add(new RetentionCandidate(index.session.getSessionId(), size));
+            }
+        }
+        return candidates;
+    }
+
+    // The records stay on disk until compaction rewrites their segments; the tombstone keeps a
+    // restart from bringing the session back in the meantime
+    @Override
+    public Set<UUID> deleteSessions(Collection<RetentionCandidate> candidates) {
+        Set<UUID> deleted = new HashSet<>();
+        appendLock.lock();
+        try {
+            for (RetentionCandidate candidate : candidates) {
+                UUID sessionId = candidate.sessionId();
+                SessionIndex index = sessions.get(sessionId);
+                if (index == null || index.size != candidate.lastSeq()) {
+                    continue;
+                }
+                ByteBuffer tombstone = ByteBuffer.allocate(16);
+                writeUuid(tombstone, sessionId);
+                append(SESSION_DELETED_RECORD, tombstone.flip(), false);
+                sessions.remove(sessionId);
+                markDead(index.sessionAddress);
+                for (int i = 0; i < index.size; i++) {
+                    long address = index.address(i);
+                    messageAddresses.remove(readUuid(payload(address), 0));
+                    markDead(address);
+                }
+                messageCount.add(-index.size);
+                deleted.add(sessionId);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+        afterAppend(deleted.size());
+        return deleted;
+    }
+
+    /**
+     * Forces every record appended so far to disk.
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            unflushedRecords.set(0);
+            active.force();
+        }
+    }
+
+    /**
+     * Stops background maintenance and forces outstanding records to disk.
+     */
+    @PreDestroy
+    public void close() {
+        maintenance.shutdownNow();
+        try {
+            maintenance.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        appendLock.lock();
+        try {
+            flush();
+            for (LogSegment segment : segments.values()) {
+                segment.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close chat log segments: {}", e.getMessage());
+        } finally {
+            appendLock.unlock();
+        }
+        logger.info("Closed chat log in {}", directory);
+    }
+
+    /**
+     * Rewrites sparsely populated sealed segments. Segments emptied by the previous run are deleted
+     * first.
+     */
+    void compact() throws IOException {
+        for (LogSegment segment : retired) {
+            segments.remove(segment.id);
+            segment.delete();
+            logger.info("Deleted compacted chat log segment {}", segment.path.getFileName());
+        }
+        retired.clear();
+
+        List<LogSegment> candidates = new ArrayList<>();
+        for (LogSegment segment : segments.values()) {
+            if (segment != active && segment.liveBytes.get() < minLiveRatio * segment.capacity()) {
+                candidates.add(segment);
+            }
+        }
+        for (LogSegment segment : candidates) {
+            long live = segment.liveBytes.getAndSet(0);
+            segment.scan((offset, type, payload) -> relocate(segment, offset, type, payload));
+            retired.add(segment);
+            logger.info("Compacted chat log segment {} ({} live bytes)", segment.path.getFileName(), live);
+        }
+        for (LogSegment segment : candidates) {
+            relocateChainsInto(segment, candidates);
+        }
+        // The copies must be durable before the originals are deleted on the next run
+        if (!candidates.isEmpty()) {
+            flush();
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Writing
+
+    // Caller holds the append lock
+    private void appendMessage(SessionIndex index, ChatMessage message, boolean continued) {
+        LocalDateTime timestamp = message.getTimestamp() != null
+                ? message.getTimestamp().truncatedTo(ChronoUnit.MICROS)
+                : LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        if (index.lastTimestamp != null && !timestamp.isAfter(index.lastTimestamp)) {
+            timestamp = index.lastTimestamp.plus(1, ChronoUnit.MICROS);
+        }
+        message.setTimestamp(timestamp);
+        message.setSeq(index.size + 1L);
+
+        long address = append(MESSAGE_RECORD, encodeMessage(message), continued);
+        index.append(address, timestamp);
+        messageAddresses.put(message.getMessageId(), address);
+        messageCount.increment();
+    }
+
+    // Caller holds the append lock
+    private long append(byte type, ByteBuffer payload, boolean continued) {
+        if (LogSegment.recordSize(payload) > active.remaining()) {
+            LogSegment sealed = active;
+            try {
+                active = newSegment();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot roll chat log segment", e);
+            }
+            sealed.force();
+            if (chainOpen) {
+                // Recovery only carries the chain into this segment because of the marker
+                active.append((byte) (CHAIN_CONTINUES_RECORD | CONTINUED), ByteBuffer.allocate(0));
+            }
+        }
+        LogSegment segment = active;
+        int offset = segment.append(continued ? (byte) (type | CONTINUED) : type, payload);
+        segment.liveBytes.addAndGet(segment.recordSize(offset));
+        chainOpen = continued;
+        return address(segment.id, offset);
+    }
+
+    private void afterAppend(int records) {
+        if (fsyncEvery > 0 && unflushedRecords.addAndGet(records) >= fsyncEvery) {
+            flush();
+        }
+    }
+
+    private LogSegment newSegment() throws IOException {
+        int id = nextSegmentId++;
+        LogSegment segment = LogSegment.create(directory.resolve(segmentFileName(id)), id, segmentSize);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // Once a segment opened mid-chain is deleted, recovery ends the chain at the end of the segment
+    // before it, so the live records of that unfinished tail are copied forward as well
+    private void relocateChainsInto(LogSegment segment, List<LogSegment> candidates) {
+        while (segment.writePosition() > 0
+                && (segment.type(0) & ~CONTINUED) == CHAIN_CONTINUES_RECORD) {
+            LogSegment previous = segments.get(segment.id - 1);
+            if (previous == null || candidates.contains(previous)) {
+                return;
+            }
+            int[] tail = {0};
+            previous.scan((offset, type, payload) -> {
+                if ((type & CONTINUED) == 0) {
+                    tail[0] = offset + previous.recordSize(offset);
+                }
+            });
+            previous.scan((offset, type, payload) -> {
+                if (offset >= tail[0] && relocate(previous, offset, type, payload)) {
+                    previous.liveBytes.addAndGet(-previous.recordSize(offset));
+                }
+            });
+            if (tail[0] > 0) {
+                return;
+            }
+            segment = previous;
+        }
+    }
+
+    // Copies a record of a segment being compacted to the active segment if it is still live
+    private boolean relocate(LogSegment segment, int offset, byte type, ByteBuffer payload) {
+        long address = address(segment.id, offset);
+        byte recordType = (byte) (type & ~CONTINUED);
+        appendLock.lock();
+        try {
+            if (recordType == SESSION_RECORD) {
+                SessionIndex index = sessions.get(readUuid(payload, 0));
+                if (index != null && index.sessionAddress == address) {
+                    index.sessionAddress = append(SESSION_RECORD, payload, false);
+                    return true;
+                }
+            } else if (recordType == MESSAGE_RECORD) {
+                UUID messageId = readUuid(payload, 0);
+                Long current = messageAddresses.get(messageId);
+                if (current != null && current == address) {
+                    SessionIndex index = sessions.get(readUuid(payload, 16));
+                    int position = search(index, readTimestamp(payload, 32), messageId, index.size, false);
+                    long relocated = append(MESSAGE_RECORD, payload, false);
+                    index.replace(position, relocated);
+                    messageAddresses.put(messageId, relocated);
+                    return true;
+                }
+            } else if (recordType == SESSION_DELETED_RECORD && segment.id > segments.keySet().iterator().next()) {
+                // An older segment may still hold the deleted session's records
+                append(SESSION_DELETED_RECORD, payload, false);
+                return true;
+            }
+            return false;
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void requireNewMessageId(UUID messageId) {
+        if (messageAddresses.containsKey(messageId)) {
+            throw new DataIntegrityViolationException("Duplicate message ID: " + messageId);
+        }
+    }
+
+    private SessionIndex requireSession(UUID sessionId) {
+        SessionIndex index = sessionId != null ? sessions.get(sessionId) : null;
+        if (index == null) {
+            throw new DataIntegrityViolationException("Session does not exist: " + sessionId);
+        }
+        return index;
+    }
+
+    private void flushQuietly() {
+        try {
+            if (unflushedRecords.get() > 0) {
+                flush();
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush chat log: {}", e.getMessage(), e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Chat log compaction failed: {}", e.getMessage(), e);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Recovery
+
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted(Comparator.comparingInt(LogChatStore::segmentId))
+                    .toList();
+        }
+
+        // Later copies of a record (written by compaction) replace earlier ones
+        Map<UUID, ChatSession> recoveredSessions = new HashMap<>();
+        Map<UUID, Long> sessionAddresses = new HashMap<>();
+        Map<UUID, RecoveredMessage> recoveredMessages = new HashMap<>();
+        Set<UUID> deletedSessions = new HashSet<>();
+        List<Long> tombstoneAddresses = new ArrayList<>();
+        List<Runnable> chain = new ArrayList<>();
+
+        for (Path file : files) {
+            int id = segmentId(file);
+            nextSegmentId = Math.max(nextSegmentId, id + 1);
+            LogSegment segment = LogSegment.open(file, id);
+            int end = segment.scan((offset, type, payload) -> {
+                long address = address(id, offset);
+                if (offset == 0 && (type & ~CONTINUED) != CHAIN_CONTINUES_RECORD && !chain.isEmpty()) {
+                    // The previous segment ended inside a write that this one does not continue
+                    logger.warn("Discarded {} records of a write that was cut off by a crash", chain.size());
+                    chain.clear();
+                }
+                if ((type & ~CONTINUED) == SESSION_RECORD) {
+                    ChatSession session = decodeSession(payload);
+                    chain.add(() -> {
+                        recoveredSessions.put(session.getSessionId(), session);
+                        sessionAddresses.put(session.getSessionId(), address);
+                    });
+                } else if ((type & ~CONTINUED) == MESSAGE_RECORD) {
+                    RecoveredMessage message = new RecoveredMessage(readUuid(payload, 0), readUuid(payload, 16),
+                            readTimestamp(payload, 32), address);
+                    chain.add(() -> recoveredMessages.put(message.messageId(), message));
+                } else if ((type & ~CONTINUED) == SESSION_DELETED_RECORD) {
+                    UUID sessionId = readUuid(payload, 0);
+                    chain.add(() -> {
+                        recoveredSessions.remove(sessionId);
+                        sessionAddresses.remove(sessionId);
+                        deletedSessions.add(sessionId);
+                        tombstoneAddresses.add(address);
+                    });
+                }
+                if ((type & CONTINUED) == 0) {
+                    chain.forEach(Runnable::run);
+                    chain.clear();
+                }
+            });
+            if (end == 0) {
+                // The active segment of a run that never wrote anything
+                if (!chain.isEmpty()) {
+                    logger.warn("Discarded {} records of a write that was cut off by a crash", chain.size());
+                    chain.clear();
+                }
+                segment.delete();
+                continue;
+            }
+            segments.put(id, segment);
+        }
+        if (!chain.isEmpty()) {
+            logger.warn("Discarded {} records of a write that was cut off by a crash", chain.size());
+        }
+
+        recoveredSessions.forEach((sessionId, session) -> {
+            SessionIndex index = new SessionIndex(session);
+            index.sessionAddress = sessionAddresses.get(sessionId);
+            sessions.put(sessionId, index);
+            markLive(index.sessionAddress);
+        });
+        tombstoneAddresses.forEach(this::markLive);
+        List<RecoveredMessage> ordered = new ArrayList<>(recoveredMessages.values());
+        ordered.sort(Comparator.comparing(RecoveredMessage::timestamp)
+                             .thenComparing(RecoveredMessage::messageId, MessageOrder.IDS));
+        for (RecoveredMessage message : ordered) {
+            SessionIndex index = sessions.get(message.sessionId());
+            if (index == null) {
+                if (deletedSessions.contains(message.sessionId())) {
+                    continue;
+                }
+                logger.warn("Skipping message {} of unknown session {}", message.messageId(), message.sessionId());
+                continue;
+            }
+            index.append(message.address(), message.timestamp());
+            messageAddresses.put(message.messageId(), message.address());
+            messageCount.increment();
+            markLive(message.address());
+        }
+
+        logger.info("Recovered {} sessions and {} messages from {} chat log segments in {}",
+                    sessions.size(), messageCount.sum(), segments.size(), directory);
+    }
+
+    private void markLive(long address) {
+        LogSegment segment = segments.get(segmentId(address));
+        segment.liveBytes.addAndGet(segment.recordSize(offset(address)));
+    }
+
+    private void markDead(long address) {
+        LogSegment segment = segments.get(segmentId(address));
+        segment.liveBytes.addAndGet(-segment.recordSize(offset(address)));
+    }
+
+    private record RecoveredMessage(UUID messageId, UUID sessionId, LocalDateTime timestamp, long address) {
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Reading
+
+    private List<ChatMessage> read(SessionIndex index, int from, int to) {
+        List<ChatMessage> messages = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            messages.add(readMessage(index, i));
+        }
+        return messages;
+    }
+
+    private ChatMessage readMessage(SessionIndex index, int position) {
+        ChatMessage message = decodeMessage(payload(index, position));
+        message.setSeq(position + 1L);
+        return message;
+    }
+
+    /**
+     * The payload of the message at {@code position}. An address read before compaction relocated
+     * the record can point into a segment deleted since; the index holds the new address by then.
+     */
+    private ByteBuffer payload(SessionIndex index, int position) {
+        long address = index.address(position);
+        ByteBuffer payload = payload(address);
+        while (payload == null) {
+            long current = index.address(position);
+            if (current == address) {
+                // Not relocated: the session was deleted and its records compacted away
+                throw new ConcurrencyFailureException("Message " + position + " of session "
+                        + index.session.getSessionId() + " was deleted while it was being read");
+            }
+            address = current;
+            payload = payload(address);
+        }
+        return payload;
+    }
+
+    // Null once the segment has been deleted by compaction
+    private ByteBuffer payload(long address) {
+        LogSegment segment = segments.get(segmentId(address));
+        return segment != null ? segment.payload(offset(address)) : null;
+    }
+
+    /**
+     * Binary search over the first {@code size} messages of the session: the index of the first
+     * message after (timestamp, messageId), or at or after it when {@code exclusive} is false.
+     */
+    private int search(SessionIndex index, LocalDateTime timestamp, UUID messageId, int size, boolean exclusive) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            ByteBuffer payload = payload(index, mid);
+            int comparison = MessageOrder.compare(readTimestamp(payload, 32), readUuid(payload, 0),
+                                                  timestamp, messageId);
+            if (comparison < 0 || (exclusive && comparison == 0)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static List<ChatMessage> reversed(List<ChatMessage> messages) {
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Encoding
+
+    // Session: sessionId(16) createdAt(12)
+    private static ByteBuffer encodeSession(ChatSession session) {
+        ByteBuffer buffer = ByteBuffer.allocate(28);
+        writeUuid(buffer, session.getSessionId());
+        writeTimestamp(buffer, session.getCreatedAt());
+        return buffer.flip();
+    }
+
+    private static ChatSession decodeSession(ByteBuffer payload) {
+        ChatSession session = new ChatSession(readUuid(payload, 0));
+        session.setCreatedAt(readTimestamp(payload, 16));
+        return session;
+    }
+
+    // Message: messageId(16) sessionId(16) timestamp(12) senderLength(2) sender contentLength(4) content
+    private static ByteBuffer encodeMessage(ChatMessage message) {
+        byte[] sender = message.getSender().getBytes(StandardCharsets.UTF_8);
+        byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(50 + sender.length + content.length);
+        writeUuid(buffer, message.getMessageId());
+        writeUuid(buffer, message.getSessionId());
+        writeTimestamp(buffer, message.getTimestamp());
+        buffer.putShort((short) sender.length).put(sender);
+        buffer.putInt(content.length).put(content);
+        return buffer.flip();
+    }
+
+    private static ChatMessage decodeMessage(ByteBuffer payload) {
+        ChatMessage message = new ChatMessage();
+        message.setMessageId(readUuid(payload, 0));
+        message.setSessionId(readUuid(payload, 16));
+        message.setTimestamp(readTimestamp(payload, 32));
+        int senderLength = Short.toUnsignedInt(payload.getShort(44));
+        message.setSender(readString(payload, 46, senderLength));
+        int contentOffset = 46 + senderLength;
+        message.setContent(readString(payload, contentOffset + 4, payload.getInt(contentOffset)));
+        return message;
+    }
+
+    private static void writeUuid(ByteBuffer buffer, UUID uuid) {
+        buffer.putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(ByteBuffer buffer, int offset) {
+        return new UUID(buffer.getLong(offset), buffer.getLong(offset + 8));
+    }
+
+    private static void writeTimestamp(ByteBuffer buffer, LocalDateTime timestamp) {
+        buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC)).putInt(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(ByteBuffer buffer, int offset) {
+        return LocalDateTime.ofEpochSecond(buffer.getLong(offset), buffer.getInt(offset + 8), ZoneOffset.UTC);
+    }
+
+    private static String readString(ByteBuffer buffer, int offset, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long address(int segmentId, int offset) {
+        return ((long) segmentId << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    private static int segmentId(long address) {
+        return (int) (address >>> 32);
+    }
+
+    private static int offset(long address) {
+        return (int) address;
+    }
+
+    private static String segmentFileName(int id) {
+        return String.format("%010d%s", id, SEGMENT_SUFFIX);
+    }
+
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * Record addresses of one session in (timestamp, messageId) order. Appends and relocations
+     * happen under the store's append lock; readers take a snapshot of {@code size} and read the
+     * addresses below it without locking.
+     */
+    static final class SessionIndex {
+        final ChatSession session;
+        volatile long sessionAddress;
+        private volatile long[] addresses = new long[16];
+        volatile int size;
+        private LocalDateTime lastTimestamp;
+
+        SessionIndex(ChatSession session) {
+            this.session = session;
+            session.setLastActivityAt(session.getCreatedAt());
+        }
+
+        void append(long address, LocalDateTime timestamp) {
+            int index = size;
+            long[] current = addresses;
+            if (index == current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[index] = address;
+            addresses = current;
+            lastTimestamp = timestamp;
+            session.setLastActivityAt(timestamp);
+            size = index + 1;
+        }
+
+        void replace(int index, long address) {
+            addresses[index] = address;
+        }
+
+        long address(int index) {
+            return addresses[index];
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.pidima.chatmicroservice.repositories;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * One memory-mapped file of the chat log. New files are mapped at the full segment size and start
+ * out zero-filled, so a zero length marks the end of the written records.
+ *
+ * <p>Record layout: {@code int length | int crc32c | byte type | payload}, where {@code length}
+ * and the checksum both cover the type byte and the payload.
+ */
+final class LogSegment {
+    static final int HEADER_SIZE = 8;
+
+    final int id;
+    final Path path;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    // Appends happen under the store's append lock; readers only follow addresses published after
+    // the bytes were written
+    private volatile int writePosition;
+    private int flushedPosition;
+
+    // Bytes of records the store's indexes still point at
+    final AtomicLong liveBytes = new AtomicLong();
+
+    private LogSegment(int id, Path path, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.path = path;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    static LogSegment create(Path path, int id, int size) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+    }
+
+    static LogSegment open(Path path, int id) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new LogSegment(id, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+    }
+
+    int capacity() {
+        return buffer.capacity();
+    }
+
+    int writePosition() {
+        return writePosition;
+    }
+
+    int remaining() {
+        return buffer.capacity() - writePosition;
+    }
+
+    /**
+     * Writes a complete record at the end of the segment and returns its offset. The caller must
+     * check {@link #remaining()} first.
+     */
+    int append(byte type, ByteBuffer payload) {
+        int offset = writePosition;
+        int length = 1 + payload.remaining();
+        buffer.put(offset + HEADER_SIZE, type);
+        buffer.put(offset + HEADER_SIZE + 1, payload, payload.position(), payload.remaining());
+        buffer.putInt(offset + 4, checksum(offset + HEADER_SIZE, length));
+        // The length goes last: until it is written the record reads as the end of the segment
+        buffer.putInt(offset, length);
+        writePosition = offset + HEADER_SIZE + length;
+        return offset;
+    }
+
+    static int recordSize(ByteBuffer payload) {
+        return HEADER_SIZE + 1 + payload.remaining();
+    }
+
+    int recordSize(int offset) {
+        return HEADER_SIZE + buffer.getInt(offset);
+    }
+
+    byte type(int offset) {
+        return buffer.get(offset + HEADER_SIZE);
+    }
+
+    ByteBuffer payload(int offset) {
+        return buffer.slice(offset + HEADER_SIZE + 1, buffer.getInt(offset) - 1);
+    }
+
+    /**
+     * Visits every intact record from the start of the segment and leaves the write position after
+     * the last one. Scanning stops at the first zero length, truncated record or checksum
+     * mismatch, which is where a crash cut the segment off.
+     *
+     * @return the number of bytes of intact records
+     */
+    int scan(RecordVisitor visitor) {
+        int offset = 0;
+        while (offset + HEADER_SIZE < buffer.capacity()) {
+            int length = buffer.getInt(offset);
+            if (length <= 0 || length > buffer.capacity() - offset - HEADER_SIZE
+                    || buffer.getInt(offset + 4) != checksum(offset + HEADER_SIZE, length)) {
+                break;
+            }
+            visitor.visit(offset, type(offset), payload(offset));
+            offset += HEADER_SIZE + length;
+        }
+        writePosition = offset;
+        flushedPosition = offset;
+        return offset;
+    }
+
+    /**
+     * Forces everything written since the last call to the storage device.
+     */
+    synchronized void force() {
+        int position = writePosition;
+        if (position > flushedPosition) {
+            buffer.force(flushedPosition, position - flushedPosition);
+            flushedPosition = position;
+        }
+    }
+
+    void close() throws IOException {
+        channel.close();
+    }
+
+    // The mapping stays readable after the file is gone, so late readers of a retired segment
+    // still see its records
+    void delete() throws IOException {
+        channel.close();
+        Files.deleteIfExists(path);
+    }
+
+    private int checksum(int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+
+    @FunctionalInterface
+    interface RecordVisitor {
+        void visit(int offset, byte type, ByteBuffer payload);
+    }
+}
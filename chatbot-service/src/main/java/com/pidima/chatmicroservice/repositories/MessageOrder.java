@@ -0,0 +1,34 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * The order of messages within a session, (timestamp, messageId), exactly as the database sorts
+ * it. Message IDs compare as unsigned 128-bit numbers, like H2 and PostgreSQL order UUID columns;
+ * {@link UUID#compareTo} compares the two halves as signed longs and disagrees with them whenever
+ * the top bit of a half differs, which random IDs do half of the time.
+ */
+public final class MessageOrder {
+
+    public static final Comparator<UUID> IDS = MessageOrder::compareIds;
+
+    public static final Comparator<ChatMessage> MESSAGES = (left, right) ->
+            compare(left.getTimestamp(), left.getMessageId(), right.getTimestamp(), right.getMessageId());
+
+    private MessageOrder() {
+    }
+
+    public static int compareIds(UUID left, UUID right) {
+        int high = Long.compareUnsigned(left.getMostSignificantBits(), right.getMostSignificantBits());
+        return high != 0 ? high : Long.compareUnsigned(left.getLeastSignificantBits(), right.getLeastSignificantBits());
+    }
+
+    public static int compare(LocalDateTime leftTimestamp, UUID leftId, LocalDateTime rightTimestamp, UUID rightId) {
+        int byTime = leftTimestamp.compareTo(rightTimestamp);
+        return byTime != 0 ? byTime : compareIds(leftId, rightId);
+    }
+}
@@ -0,0 +1,10 @@
+package com.pidima.chatmicroservice.repositories;
+
+import java.util.UUID;
+
+/**
+ * A session retention may remove, with the last sequence number it had when it was picked, so a
+ * session written to since then can be told apart.
+ */
+public record RetentionCandidate(UUID sessionId, long lastSeq) {
+}
@@ -0,0 +1,642 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only, compressed copies of the sessions retention moved out of the {@link ChatStore}, kept
+ * in archive files in {@code chat.archive.directory}.
+ *
+ * <p>Each file holds one batch of sessions: every session's messages as Deflate-compressed blocks
+ * of about {@code block-size}, then an index of each session's blocks, then a trailer pointing at
+ * the index. A file is written under a temporary name, forced to disk and renamed, so it is either
+ * complete or absent. The indexes of all files are loaded into memory on startup, so locating a
+ * session never reads the disk; a session archived again later is read from the newest file.
+ * Sessions the archive stops serving are appended to a removal log, so they stay gone after a
+ * restart while a later copy in a newer file still counts.
+ * Decoded sessions are kept in a cache bounded by message count ({@code cache.maximum-messages},
+ * 0 disables it).
+ */
+@Repository
+@ConditionalOnProperty(prefix = "chat.archive", name = "enabled", havingValue = "true")
+public class SessionArchive implements ChatHistoryReader, MeterBinder {
+    private static final Logger logger = LoggerFactory.getLogger(SessionArchive.class);
+
+    static final String CACHE_NAME = "archivedHistory";
+
+    private static final String FILE_SUFFIX = ".archive";
+    private static final String TEMP_SUFFIX = ".tmp";
+    private static final String REMOVALS_FILE = "removed.log";
+    // sessionId(16) fileId(4) crc(4): the session's copies in files up to fileId are void
+    private static final int REMOVAL_SIZE = 24;
+    // "CHA1": archive format version 1
+    private static final int MAGIC = 0x43484131;
+    // indexOffset(8) indexLength(4) indexCrc(4) magic(4)
+    private static final int TRAILER_SIZE = 20;
+    private static final long MAX_BLOCK_SIZE = 64L * 1024 * 1024;
+
+    private final Path directory;
+    private final int blockSize;
+    private final Map<Integer, FileChannel> files = new ConcurrentHashMap<>();
+    private final Map<UUID, Location> locations = new ConcurrentHashMap<>();
+    private final AtomicLong archiveBytes = new AtomicLong();
+    // Null when the cache is disabled
+    private final Cache<UUID, History> cache;
+
+    private int nextFileId;
+    // Opened on the first removal
+    private FileChannel removals;
+
+    /**
+     * A session with its whole history, oldest first.
+     */
+    public record History(ChatSession session, List<ChatMessage> messages) {
+    }
+
+    private record Block(long offset, int length, int rawLength) {
+    }
+
+    private record Location(int fileId, ChatSession session, int messageCount, List<Block> blocks) {
+    }
+
+    @Autowired
+    public SessionArchive(@Value("${chat.archive.directory:data/archive}") String directory,
+                          @Value("${chat.archive.block-size:64KB}") DataSize blockSize,
+                          @Value("${chat.archive.cache.maximum-messages:100000}") long cacheMaximumMessages) {
+        if (blockSize.toBytes() < 1 || blockSize.toBytes() > MAX_BLOCK_SIZE) {
+            throw new IllegalArgumentException("chat.archive.block-size must be between 1B and 64MB");
+        }
+        this.directory = Paths.get(directory);
+        this.blockSize = (int) blockSize.toBytes();
+        this.cache = cacheMaximumMessages > 0
+                ? Caffeine.newBuilder()
+                        .maximumWeight(cacheMaximumMessages)
+                        .weigher((UUID sessionId, History history) -> history.messages().size())
+                        .recordStats()
+                        .build()
+                : null;
+        try {
+            Files.createDirectories(this.directory);
+            open();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open session archive in " + this.directory, e);
+        }
+    }
+
+    /**
+     * Writes the sessions to a new archive file and makes them readable from it.
+     *
+     * @return the size of the file in bytes
+     */
+    public synchronized long write(List<History> histories) {
+        int fileId = nextFileId++;
+        Path file = directory.resolve(fileName(fileId));
+        Path temp = directory.resolve(fileName(fileId) + TEMP_SUFFIX);
+        Map<UUID, Location> written = new LinkedHashMap<>();
+        long size;
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                for (History history : histories) {
+                    List<Block> blocks = writeBlocks(channel, history.messages());
+                    written.put(history.session().getSessionId(),
+                                new Location(fileId, history.session(), history.messages().size(), blocks));
+                }
+                long indexOffset = channel.position();
+                byte[] index = encodeIndex(written.values());
+                CRC32C crc = new CRC32C();
+                crc.update(index);
+                ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE)
+                        .putLong(indexOffset).putInt(index.length).putInt((int) crc.getValue()).putInt(MAGIC)
+                        .flip();
+                writeFully(channel, ByteBuffer.wrap(index));
+                writeFully(channel, trailer);
+                size = channel.position();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            files.put(fileId, FileChannel.open(file, StandardOpenOption.READ));
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw new UncheckedIOException("Cannot write session archive " + file, e);
+        }
+
+        locations.putAll(written);
+        if (cache != null) {
+            cache.invalidateAll(written.keySet());
+        }
+        archiveBytes.addAndGet(size);
+        logger.info("Archived {} sessions to {} ({} bytes)", written.size(), file.getFileName(), size);
+        return size;
+    }
+
+    public boolean contains(UUID sessionId) {
+        return locations.containsKey(sessionId);
+    }
+
+    public Optional<ChatSession> findSession(UUID sessionId) {
+        Location location = locations.get(sessionId);
+        return location != null ? Optional.of(location.session()) : Optional.empty();
+    }
+
+    /**
+     * Stops serving the sessions from the archive, e.g. because they stayed in the store after
+     * all. Their copies remain on disk, but the removal is logged and forced before this returns,
+     * so they are not served again after a restart either. Archiving a session again later makes
+     * the new copy readable.
+     */
+    public synchronized void forget(Collection<UUID> sessionIds) {
+        ByteBuffer records = ByteBuffer.allocate(REMOVAL_SIZE * sessionIds.size());
+        for (UUID sessionId : sessionIds) {
+            Location location = locations.remove(sessionId);
+            if (location != null) {
+                CRC32C crc = new CRC32C();
+                int start = records.position();
+                records.putLong(sessionId.getMostSignificantBits())
+                        .putLong(sessionId.getLeastSignificantBits())
+                        .putInt(location.fileId());
+                crc.update(records.array(), start, REMOVAL_SIZE - 4);
+                records.putInt((int) crc.getValue());
+            }
+        }
+        if (cache != null) {
+            cache.invalidateAll(sessionIds);
+        }
+        records.flip();
+        if (!records.hasRemaining()) {
+            return;
+        }
+        try {
+            if (removals == null) {
+                removals = FileChannel.open(directory.resolve(REMOVALS_FILE), StandardOpenOption.CREATE,
+                                            StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            }
+            writeFully(removals, records);
+            removals.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot record removed archived sessions in " + directory, e);
+        }
+    }
+
+    public long sessionCount() {
+        return locations.size();
+    }
+
+    public long sizeInBytes() {
+        return archiveBytes.get();
+    }
+
+    @Override
+    public List<ChatMessage> findMessages(UUID sessionId) {
+        return new ArrayList<>(messages(sessionId));
+    }
+
+    @Override
+    public List<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        List<ChatMessage> messages = messages(sessionId);
+        return new ArrayList<>(messages.subList(0, Math.min(messages.size(), limit)));
+    }
+
+    @Override
+    public List<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        List<ChatMessage> messages = messages(sessionId);
+        return reversed(messages.subList(Math.max(0, messages.size() - limit), messages.size()));
+    }
+
+    @Override
+    public List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        List<ChatMessage> messages = messages(sessionId);
+        int found = Collections.binarySearch(messages, probe(timestamp, messageId), MessageOrder.MESSAGES);
+        int from = found >= 0 ? found + 1 : -found - 1;
+        return new ArrayList<>(messages.subList(from, Math.min(messages.size(), from + limit)));
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        List<ChatMessage> messages = messages(sessionId);
+        int found = Collections.binarySearch(messages, probe(timestamp, messageId), MessageOrder.MESSAGES);
+        int to = found >= 0 ? found : -found - 1;
+        return reversed(messages.subList(Math.max(0, to - limit), to));
+    }
+
+    @Override
+    public List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        List<ChatMessage> newer = new ArrayList<>();
+        for (ChatMessage message : messages(sessionId)) {
+            if (message.getSeq() > seq) {
+                newer.add(message);
+            }
+        }
+        newer.sort(Comparator.comparing(ChatMessage::getSeq));
+        return new ArrayList<>(newer.subList(0, Math.min(newer.size(), limit)));
+    }
+
+    @Override
+    public long exportMessages(UUID sessionId, Consumer<ChatMessage> sink) {
+        List<ChatMessage> messages = messages(sessionId);
+        messages.forEach(sink);
+        return messages.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("chat.archive.sessions", locations, Map::size)
+                .description("Sessions readable from the archive")
+                .register(registry);
+        Gauge.builder("chat.archive.size", archiveBytes, AtomicLong::get)
+                .description("Size of the archive files written or loaded by this instance")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        if (cache != null) {
+            CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        List<FileChannel> channels = new ArrayList<>(files.values());
+        if (removals != null) {
+            channels.add(removals);
+        }
+        for (FileChannel channel : channels) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close session archive file: {}", e.getMessage());
+            }
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Reading
+
+    // The session's messages oldest first, or an empty list when it is not archived
+    private List<ChatMessage> messages(UUID sessionId) {
+        if (!locations.containsKey(sessionId)) {
+            return List.of();
+        }
+        History history = cache != null ? cache.get(sessionId, this::load) : load(sessionId);
+        return history != null ? history.messages() : List.of();
+    }
+
+    private History load(UUID sessionId) {
+        Location location = locations.get(sessionId);
+        if (location == null) {
+            return null;
+        }
+        FileChannel channel = files.get(location.fileId());
+        List<ChatMessage> messages = new ArrayList<>(location.messageCount());
+        try {
+            for (Block block : location.blocks()) {
+                ByteBuffer compressed = ByteBuffer.allocate(block.length());
+                readFully(channel, compressed, block.offset());
+                byte[] raw = inflate(compressed.array(), block.rawLength());
+                DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+                while (in.available() > 0) {
+                    messages.add(decodeMessage(in, sessionId));
+                }
+            }
+        } catch (IOException | DataFormatException e) {
+            throw new UncheckedIOException("Cannot read archived session " + sessionId,
+                    e instanceof IOException io ? io : new IOException(e));
+        }
+        return new History(location.session(), Collections.unmodifiableList(messages));
+    }
+
+    private static ChatMessage probe(LocalDateTime timestamp, UUID messageId) {
+        ChatMessage probe = new ChatMessage();
+        probe.setTimestamp(timestamp);
+        probe.setMessageId(messageId);
+        return probe;
+    }
+
+    private static List<ChatMessage> reversed(List<ChatMessage> messages) {
+        List<ChatMessage> copy = new ArrayList<>(messages);
+        Collections.reverse(copy);
+        return copy;
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Loading
+
+    private void open() throws IOException {
+        List<Path> archives;
+        try (Stream<Path> listing = Files.list(directory)) {
+            List<Path> all = listing.toList();
+            for (Path path : all) {
+                if (path.getFileName().toString().endsWith(TEMP_SUFFIX)) {
+                    // Left behind by a write that never completed
+                    Files.delete(path);
+                }
+            }
+            archives = all.stream()
+                    .filter(path -> path.getFileName().toString().endsWith(FILE_SUFFIX))
+                    .sorted(Comparator.comparingInt(SessionArchive::fileId))
+                    .toList();
+        }
+        for (Path file : archives) {
+            int fileId = fileId(file);
+            nextFileId = Math.max(nextFileId, fileId + 1);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+            try {
+                // Files are opened in write order, so a session archived again later wins
+                locations.putAll(readIndex(channel, fileId));
+                files.put(fileId, channel);
+                archiveBytes.addAndGet(channel.size());
+            } catch (IOException e) {
+                channel.close();
+                logger.error("Skipping unreadable session archive {}: {}", file.getFileName(), e.getMessage());
+            }
+        }
+        applyRemovals();
+        logger.info("Loaded {} archived sessions from {} files in {}", locations.size(), files.size(), directory);
+    }
+
+    // Drops the locations the removal log voids. A record torn by a crash ends the log and is cut
+    // off, so the next removal is appended at a record boundary.
+    private void applyRemovals() throws IOException {
+        Path file = directory.resolve(REMOVALS_FILE);
+        if (!Files.exists(file)) {
+            return;
+        }
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(file));
+        int applied = 0;
+        while (log.remaining() >= REMOVAL_SIZE) {
+            int start = log.position();
+            UUID sessionId = new UUID(log.getLong(), log.getLong());
+            int fileId = log.getInt();
+            CRC32C crc = new CRC32C();
+            crc.update(log.array(), start, REMOVAL_SIZE - 4);
+            if (log.getInt() != (int) crc.getValue()) {
+                log.position(start);
+                break;
+            }
+            Location location = locations.get(sessionId);
+            if (location != null && location.fileId() <= fileId) {
+                locations.remove(sessionId);
+                applied++;
+            }
+        }
+        if (log.position() < log.capacity()) {
+            logger.warn("Truncating torn record at the end of {}", file.getFileName());
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                channel.truncate(log.position());
+                channel.force(true);
+            }
+        }
+        logger.info("Skipped {} removed sessions listed in {}", applied, file.getFileName());
+    }
+
+    private static Map<UUID, Location> readIndex(FileChannel channel, int fileId) throws IOException {
+        long size = channel.size();
+        if (size < TRAILER_SIZE) {
+            throw new IOException("File too short");
+        }
+        ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+        readFully(channel, trailer, size - TRAILER_SIZE);
+        long indexOffset = trailer.getLong(0);
+        int indexLength = trailer.getInt(8);
+        if (trailer.getInt(16) != MAGIC || indexOffset < 0 || indexOffset + indexLength != size - TRAILER_SIZE) {
+            throw new IOException("Not a session archive");
+        }
+        ByteBuffer index = ByteBuffer.allocate(indexLength);
+        readFully(channel, index, indexOffset);
+        CRC32C crc = new CRC32C();
+        crc.update(index.array());
+        if ((int) crc.getValue() != trailer.getInt(12)) {
+            throw new IOException("Index checksum mismatch");
+        }
+        return decodeIndex(index.array(), fileId);
+    }
+
+    // ---------------------------------------------------------------------------------------------
+    // Encoding
+
+    // Splits the messages into blocks of about blockSize bytes before compression
+    private List<Block> writeBlocks(FileChannel channel, List<ChatMessage> messages) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(blockSize);
+        DataOutputStream out = new DataOutputStream(raw);
+        for (ChatMessage message : messages) {
+            encodeMessage(out, message);
+            if (raw.size() >= blockSize) {
+                blocks.add(writeBlock(channel, raw));
+            }
+        }
+        if (raw.size() > 0) {
+            blocks.add(writeBlock(channel, raw));
+        }
+        return blocks;
+    }
+
+    private static Block writeBlock(FileChannel channel, ByteArrayOutputStream raw) throws IOException {
+        byte[] compressed = deflate(raw.toByteArray());
+        Block block = new Block(channel.position(), compressed.length, raw.size());
+        writeFully(channel, ByteBuffer.wrap(compressed));
+        raw.reset();
+        return block;
+    }
+
+    // Message: messageId(16) timestamp(12) seq(8) senderLength(2) sender contentLength(4) content
+    private static void encodeMessage(DataOutputStream out, ChatMessage message) throws IOException {
+        byte[] sender = message.getSender().getBytes(StandardCharsets.UTF_8);
+        byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+        writeUuid(out, message.getMessageId());
+        writeTimestamp(out, message.getTimestamp());
+        out.writeLong(message.getSeq());
+        out.writeShort(sender.length);
+        out.write(sender);
+        out.writeInt(content.length);
+        out.write(content);
+    }
+
+    private static ChatMessage decodeMessage(DataInputStream in, UUID sessionId) throws IOException {
+        ChatMessage message = new ChatMessage();
+        message.setSessionId(sessionId);
+        message.setMessageId(readUuid(in));
+        message.setTimestamp(readTimestamp(in));
+        message.setSeq(in.readLong());
+        message.setSender(readString(in, in.readUnsignedShort()));
+        message.setContent(readString(in, in.readInt()));
+        return message;
+    }
+
+    // Index: sessionCount(4), then per session: sessionId(16) createdAt(12) messageCount(4)
+    // blockCount(4) and per block: offset(8) length(4) rawLength(4)
+    private static byte[] encodeIndex(Collection<Location> locations) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(locations.size());
+        for (Location location : locations) {
+            writeUuid(out, location.session().getSessionId());
+            writeTimestamp(out, location.session().getCreatedAt());
+            out.writeInt(location.messageCount());
+            out.writeInt(location.blocks().size());
+            for (Block block : location.blocks()) {
+                out.writeLong(block.offset());
+                out.writeInt(block.length());
+                out.writeInt(block.rawLength());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static Map<UUID, Location> decodeIndex(byte[] index, int fileId) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(index));
+        int sessions = in.readInt();
+        Map<UUID, Location> locations = new LinkedHashMap<>();
+        for (int i = 0; i < sessions; i++) {
+            ChatSession session = new ChatSession();
+            session.setSessionId(readUuid(in));
+            session.setCreatedAt(readTimestamp(in));
+            int messageCount = in.readInt();
+            int blockCount = in.readInt();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            for (int b = 0; b < blockCount; b++) {
+                blocks.add(new Block(in.readLong(), in.readInt(), in.readInt()));
+            }
+            locations.put(session.getSessionId(), new Location(fileId, session, messageCount, List.copyOf(blocks)));
+        }
+        return locations;
+    }
+
+    // Archives are written once in the background and rarely read, so compression wins over speed
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] compressed, int rawLength) throws DataFormatException {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != rawLength) {
+                throw new DataFormatException("Block is truncated");
+            }
+            return raw;
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeTimestamp(DataOutputStream out, LocalDateTime timestamp) throws IOException {
+        out.writeLong(timestamp.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(timestamp.getNano());
+    }
+
+    private static LocalDateTime readTimestamp(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static String readString(DataInputStream in, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new EOFException("Unexpected end of session archive");
+            }
+        }
+    }
+
+    private static String fileName(int id) {
+        return String.format("%010d%s", id, FILE_SUFFIX);
+    }
+
+    private static int fileId(Path file) {
+        String name = file.getFileName().toString();
+        return Integer.parseInt(name.substring(0, name.length() - FILE_SUFFIX.length()));
+    }
+}
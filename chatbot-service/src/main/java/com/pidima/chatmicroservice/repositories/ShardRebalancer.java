@@ -0,0 +1,149 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static com.pidima.chatmicroservice.repositories.ShardRoutingDataSource.inShard;
+import static com.pidima.chatmicroservice.repositories.ShardRoutingDataSource.runInShard;
+
+/**
+ * Moves sessions that are stored on a shard other than the one the {@link ShardRouter} assigns
+ * them to, e.g. after shards were added. Run it once the service is up with the new shard list.
+ *
+ * <p>Each session is copied to its owner (session row first, then its messages in pages) and only
+ * then deleted from the old shard, so an interrupted run can simply be repeated. Until a session
+ * has been moved it is not visible through the service, since requests are already routed to its
+ * new owner.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.storage.sharding", name = "enabled", havingValue = "true")
+public class ShardRebalancer {
+    private static final Logger logger = LoggerFactory.getLogger(ShardRebalancer.class);
+
+    private static final int PAGE_SIZE = 500;
+
+    private final ShardRouter router;
+    private final ChatSessionRepository sessionRepository;
+    private final ChatMessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public ShardRebalancer(ShardRouter router,
+                           ChatSessionRepository sessionRepository,
+                           ChatMessageRepository messageRepository,
+                           PlatformTransactionManager transactionManager) {
+        this.router = router;
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public record Result(long sessionsMoved, long messagesMoved, Map<String, Long> sessionsPerShard) {
+    }
+
+    public synchronized Result rebalance() {
+        logger.info("Rebalancing sessions across shards {}", router.shards());
+        long sessionsMoved = 0;
+        long messagesMoved = 0;
+        for (String shard : router.shards()) {
+            UUID after = null;
+            List<UUID> page;
+            do {
+                UUID cursor = after;
+                page = inShard(shard, () -> cursor == null
+                        ? sessionRepository.findSessionIds(PageRequest.of(0, PAGE_SIZE))
+                        : sessionRepository.findSessionIdsAfter(cursor, PageRequest.of(0, PAGE_SIZE)));
+                for (UUID sessionId : page) {
+                    String owner = router.shardFor(sessionId);
+                    if (!owner.equals(shard)) {
+                        messagesMoved += move(sessionId, shard, owner);
+                        sessionsMoved++;
+                    }
+                }
+                after = page.isEmpty() ? null : page.get(page.size() - 1);
+            } while (page.size() == PAGE_SIZE);
+        }
+        Result result = new Result(sessionsMoved, messagesMoved, sessionsPerShard());
+        logger.info("Rebalancing finished: moved {} sessions and {} messages; sessions per shard: {}",
+                    sessionsMoved, messagesMoved, result.sessionsPerShard());
+        return result;
+    }
+
+    public Map<String, Long> sessionsPerShard() {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (String shard : router.shards()) {
+            counts.put(shard, inShard(shard, sessionRepository::count));
+        }
+        return counts;
+    }
+
+    // Returns the number of messages copied
+    private long move(UUID sessionId, String from, String to) {
+        ChatSession source = inShard(from, () -> sessionRepository.findById(sessionId)).orElse(null);
+        if (source == null) {
+            return 0;
+        }
+        runInShard(to, () -> transactionTemplate.executeWithoutResult(status -> {
+            if (!sessionRepository.existsById(sessionId)) {
+                ChatSession copy = new ChatSession(sessionId);
+                copy.setCreatedAt(source.getCreatedAt());
+                copy.setLastSeq(source.getLastSeq());
+                copy.setLastActivityAt(source.getLastActivityAt());
+                sessionRepository.save(copy);
+            }
+        }));
+
+        long copied = 0;
+        List<ChatMessage> page = inShard(from, () ->
+                messageRepository.findFirstPage(sessionId, PageRequest.of(0, PAGE_SIZE)));
+        while (!page.isEmpty()) {
+            copied += copyMessages(page, to);
+            ChatMessage last = page.get(page.size() - 1);
+            page = inShard(from, () -> messageRepository.findPageAfter(sessionId, last.getTimestamp(),
+                    last.getMessageId(), PageRequest.of(0, PAGE_SIZE)));
+        }
+
+        runInShard(from, () -> transactionTemplate.executeWithoutResult(status -> {
+            messageRepository.deleteBySessionId(sessionId);
+            sessionRepository.deleteSession(sessionId);
+        }));
+        logger.debug("Moved session {} from shard {} to {} ({} messages)", sessionId, from, to, copied);
+        return copied;
+    }
+
+    // Skips messages a previous, interrupted run already copied
+    private int copyMessages(List<ChatMessage> messages, String to) {
+        return inShard(to, () -> transactionTemplate.execute(status -> {
+            List<UUID> ids = messages.stream().map(ChatMessage::getMessageId).toList();
+            Set<UUID> present = new HashSet<>(messageRepository.findExistingMessageIds(ids));
+            List<ChatMessage> copies = new ArrayList<>();
+            for (ChatMessage message : messages) {
+                if (!present.contains(message.getMessageId())) {
+                    ChatMessage copy = new ChatMessage(message.getSessionId(), message.getContent(), message.getSender());
+                    copy.setMessageId(message.getMessageId());
+                    copy.setTimestamp(message.getTimestamp());
+                    copy.setSeq(message.getSeq());
+                    copies.add(copy);
+                }
+            }
+            messageRepository.saveAll(copies);
+            return copies.size();
+        }));
+    }
+}
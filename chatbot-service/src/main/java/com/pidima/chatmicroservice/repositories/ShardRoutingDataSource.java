@@ -0,0 +1,67 @@
+package com.pidima.chatmicroservice.repositories;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.function.Supplier;
+
+/**
+ * Routes each connection request to the shard selected on the current thread with
+ * {@link #inShard} or {@link #runInShard}. Without a selection connections go to the default
+ * (first) shard, which is also where Hibernate bootstraps its schema.
+ *
+ * <p>The shard must be selected before a transaction starts: the connection is taken when the
+ * transaction begins and kept until it ends.
+ *
+ * <p>The shards' pools are owned by this data source and closed with it.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+    private static final ThreadLocal<String> currentShard = new ThreadLocal<>();
+
+    public static <T> T inShard(String shard, Supplier<T> action) {
+        String previous = currentShard.get();
+        currentShard.set(shard);
+        try {
+            return action.get();
+        } finally {
+            if (previous != null) {
+                currentShard.set(previous);
+            } else {
+                currentShard.remove();
+            }
+        }
+    }
+
+    public static void runInShard(String shard, Runnable action) {
+        inShard(shard, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return currentShard.get();
+    }
+
+    @Override
+    public void close() throws Exception {
+        Exception failure = null;
+        for (DataSource shard : getResolvedDataSources().values()) {
+            if (shard instanceof AutoCloseable pool) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static com.pidima.chatmicroservice.repositories.ShardRoutingDataSource.inShard;
+import static com.pidima.chatmicroservice.repositories.ShardRoutingDataSource.runInShard;
+
+/**
+ * {@link ChatStore} that spreads sessions over the shards of a {@link ShardRoutingDataSource}.
+ * A session and all of its messages live on the shard the {@link ShardRouter} assigns to its ID,
+ * so every session-scoped operation is a single {@link JpaChatStore} call on one shard. Counts and
+ * message lookups by ID alone fan out to every shard.
+ *
+ * <p>Each shard commits its own transaction, so a bulk write can only be atomic within one
+ * shard: {@link #writeGroups} splits it by shard and {@link #saveMessages} rejects a batch that
+ * spans several before writing anything.
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(prefix = "chat.storage.sharding", name = "enabled", havingValue = "true")
+public class ShardedChatStore implements ChatStore {
+    private static final Logger logger = LoggerFactory.getLogger(ShardedChatStore.class);
+
+    private final JpaChatStore delegate;
+    private final ShardRouter router;
+    private final AtomicInteger nextRetentionShard = new AtomicInteger();
+
+    @Autowired
+    public ShardedChatStore(JpaChatStore delegate,
+                            ShardRouter router,
+                            EntityManagerFactory entityManagerFactory,
+                            @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        this(delegate, router);
+        createSchemas(entityManagerFactory, ddlAuto);
+    }
+
+    ShardedChatStore(JpaChatStore delegate, ShardRouter router) {
+        this.delegate = delegate;
+        this.router = router;
+    }
+
+    @Override
+    public ChatSession createSession(ChatSession session, ChatMessage initialMessage) {
+        return inShard(shardOf(session.getSessionId()), () -> delegate.createSession(session, initialMessage));
+    }
+
+    @Override
+    public Optional<ChatSession> findSession(UUID sessionId) {
+        return inShard(shardOf(sessionId), () -> delegate.findSession(sessionId));
+    }
+
+    @Override
+    public boolean sessionExists(UUID sessionId) {
+        return inShard(shardOf(sessionId), () -> delegate.sessionExists(sessionId));
+    }
+
+    @Override
+    public Set<UUID> findExistingSessionIds(Collection<UUID> sessionIds) {
+        Set<UUID> existing = new HashSet<>();
+        groupByShard(sessionIds, sessionId -> sessionId).forEach((shard, ids) ->
+                existing.addAll(inShard(shard, () -> delegate.findExistingSessionIds(ids))));
+        return existing;
+    }
+
+    @Override
+    public long countSessions() {
+        long count = 0;
+        for (String shard : router.shards()) {
+            count += inShard(shard, delegate::countSessions);
+        }
+        return count;
+    }
+
+    @Override
+    public long forEachSessionId(Consumer<UUID> sink) {
+        long count = 0;
+        for (String shard : router.shards()) {
+            count += inShard(shard, () -> delegate.forEachSessionId(sink));
+        }
+        return count;
+    }
+
+    @Override
+    public ChatMessage saveMessage(ChatMessage message) {
+        return inShard(shardOf(message.getSessionId()), () -> delegate.saveMessage(message));
+    }
+
+    @Override
+    public List<ChatMessage> saveMessages(List<ChatMessage> messages) {
+        Map<String, List<ChatMessage>> byShard = groupByShard(messages, ChatMessage::getSessionId);
+        if (byShard.size() > 1) {
+            // Unknown sessions are reported like on a single database; anything else is a misuse
+            Set<UUID> sessionIds = new HashSet<>();
+            messages.forEach(message -> sessionIds.add(message.getSessionId()));
+            sessionIds.removeAll(findExistingSessionIds(sessionIds));
+            if (!sessionIds.isEmpty()) {
+                throw new DataIntegrityViolationException("Sessions do not exist: " + sessionIds);
+            }
+            throw new InvalidDataAccessApiUsageException(
+                    "Messages span shards " + byShard.keySet() + " and cannot be stored atomically");
+        }
+        if (byShard.isEmpty()) {
+            return messages;
+        }
+        Map.Entry<String, List<ChatMessage>> only = byShard.entrySet().iterator().next();
+        return inShard(only.getKey(), () -> delegate.saveMessages(only.getValue()));
+    }
+
+    @Override
+    public <T> Collection<List<T>> writeGroups(List<T> items, Function<T, UUID> sessionId) {
+        return groupByShard(items, sessionId).values();
+    }
+
+    @Override
+    public Optional<ChatMessage> findMessage(UUID messageId) {
+        for (String shard : router.shards()) {
+            Optional<ChatMessage> message = inShard(shard, () -> delegate.findMessage(messageId));
+            if (message.isPresent()) {
+                return message;
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public long countMessages() {
+        long count = 0;
+        for (String shard : router.shards()) {
+            count += inShard(shard, delegate::countMessages);
+        }
+        return count;
+    }
+
+    @Override
+    public List<ChatMessage> findMessages(UUID sessionId) {
+        return inShard(shardOf(sessionId), () -> delegate.findMessages(sessionId));
+    }
+
+    @Override
+    public List<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        return inShard(shardOf(sessionId), () -> delegate.findFirstPage(sessionId, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        return inShard(shardOf(sessionId), () -> delegate.findLatestPage(sessionId, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        return inShard(shardOf(sessionId), () -> delegate.findPageAfter(sessionId, timestamp, messageId, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        return inShard(shardOf(sessionId), () -> delegate.findPageBefore(sessionId, timestamp, messageId, limit));
+    }
+
+    @Override
+    public List<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        return inShard(shardOf(sessionId), () -> delegate.findMessagesSince(sessionId, seq, limit));
+    }
+
+    @Override
+    public long exportMessages(UUID sessionId, Consumer<ChatMessage> sink) {
+        return inShard(shardOf(sessionId), () -> delegate.exportMessages(sessionId, sink));
+    }
+
+    @Override
+    public List<RetentionCandidate> findRetentionCandidates(LocalDateTime idleSince, LocalDateTime createdBefore,
+                                                            int limit) {
+        // Every shard gets its share of the limit. Callers skip candidates they have already seen and
+        // stop at a batch without new ones, so filling the limit from the first shard would starve
+        // the others. The shards that get the remainder rotate from call to call.
+        List<String> shards = router.shards();
+        int start = Math.floorMod(nextRetentionShard.getAndIncrement(), shards.size());
+        List<RetentionCandidate> candidates = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            int share = limit / shards.size() + (i < limit % shards.size() ? 1 : 0);
+            if (share == 0) {
+                break;
+            }
+            candidates.addAll(inShard(shards.get((start + i) % shards.size()), () ->
+                    delegate.findRetentionCandidates(idleSince, createdBefore, share)));
+        }
+        return candidates;
+    }
+
+    @Override
+    public Set<UUID> deleteSessions(Collection<RetentionCandidate> sessions) {
+        Set<UUID> deleted = new HashSet<>();
+        groupByShard(sessions, RetentionCandidate::sessionId).forEach((shard, batch) ->
+                deleted.addAll(inShard(shard, () -> delegate.deleteSessions(batch))));
+        return deleted;
+    }
+
+    // A session without an ID cannot exist anywhere; the default shard rejects it like any other
+    private String shardOf(UUID sessionId) {
+        return sessionId != null ? router.shardFor(sessionId) : router.shards().get(0);
+    }
+
+    private <T> Map<String, List<T>> groupByShard(Collection<T> items, Function<T, UUID> sessionId) {
+        Map<String, List<T>> byShard = new LinkedHashMap<>();
+        for (T item : items) {
+            byShard.computeIfAbsent(shardOf(sessionId.apply(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return byShard;
+    }
+
+    // Hibernate builds the schema on the default shard only; mirror it onto the others
+    private void createSchemas(EntityManagerFactory entityManagerFactory, String ddlAuto) {
+        List<String> others = router.shards().subList(1, router.shards().size());
+        if (others.isEmpty()) {
+            return;
+        }
+        if (!ddlAuto.equals("create") && !ddlAuto.equals("create-drop")) {
+            logger.info("Schema of shards {} is not managed (ddl-auto: {}); apply migrations to every shard",
+                        others, ddlAuto);
+            return;
+        }
+        SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        for (String shard : others) {
+            runInShard(shard, () -> sessionFactory.getSchemaManager().exportMappedObjects(true));
+            logger.info("Created schema on shard {}", shard);
+        }
+    }
+}
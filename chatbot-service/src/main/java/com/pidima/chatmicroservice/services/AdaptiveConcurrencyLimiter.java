@@ -0,0 +1,146 @@
+package com.pidima.chatmicroservice.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the requests in flight at a limit that follows the service's latency (additive increase,
+ * multiplicative decrease).
+ *
+ * <p>A request that completes within {@code latencyThreshold} while at least half the limit is in
+ * use raises the limit by {@code 1/limit}, so a fully used limit grows by about one per round of
+ * requests. A slower or failed one multiplies it by {@code backoffRatio}, at most once per
+ * threshold period so one slow episode cuts it once rather than once per request caught in it.
+ * The limit stays between {@code minLimit} and {@code maxLimit}. All state is atomics; admitting
+ * and completing a request never take a lock.
+ */
+public class AdaptiveConcurrencyLimiter {
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+    private final Duration retryAfter;
+    private final LongSupplier nanoClock;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // The fractional limit as double bits, so increases smaller than one accumulate
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecrease;
+    private final Counter rejections;
+
+    public AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                                      Duration latencyThreshold, double backoffRatio, Duration retryAfter) {
+        this(meterRegistry, initialLimit, minLimit, maxLimit, latencyThreshold, backoffRatio, retryAfter,
+             System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(MeterRegistry meterRegistry, int initialLimit, int minLimit, int maxLimit,
+                               Duration latencyThreshold, double backoffRatio, Duration retryAfter,
+                               LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.retryAfter = retryAfter;
+        this.nanoClock = nanoClock;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+        this.lastDecrease = new AtomicLong(nanoClock.getAsLong() - latencyThresholdNanos);
+
+        Gauge.builder("chat.admission.concurrency.limit", this, AdaptiveConcurrencyLimiter::limit)
+                .description("Requests allowed in flight at once")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.concurrency.in-flight", inFlight, AtomicInteger::get)
+                .description("Requests in flight")
+                .register(meterRegistry);
+        this.rejections = Counter.builder("chat.admission.rejected")
+                .tag("reason", "concurrency")
+                .description("Requests rejected by admission control")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Admits a request, or throws if the limit is reached. Every admitted request must be
+     * followed by exactly one {@link #release} or {@link #onCompleted}.
+     */
+    public void acquire() {
+        int limit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejections.increment();
+                throw new ConcurrencyLimitExceededException("Service is overloaded, try again later", retryAfter);
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Releases a request without taking a sample, e.g. one handed off to a stream whose duration
+     * says nothing about the service's load.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Releases a request and adjusts the limit from its outcome.
+     */
+    public void onCompleted(long latencyNanos, boolean failed) {
+        int wasInFlight = inFlight.getAndDecrement();
+        if (failed || latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (wasInFlight * 2 >= limit()) {
+            // Only a limit that is actually used has proven it can grow
+            increase();
+        }
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private void increase() {
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = Math.min(maxLimit, current + 1 / current);
+            if (next == current || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private void decrease() {
+        long now = nanoClock.getAsLong();
+        long last = lastDecrease.get();
+        if (now - last < latencyThresholdNanos || !lastDecrease.compareAndSet(last, now)) {
+            return;
+        }
+        while (true) {
+            long bits = limitBits.get();
+            double current = Double.longBitsToDouble(bits);
+            double next = Math.max(minLimit, current * backoffRatio);
+            if (next == current || limitBits.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Session and message totals maintained from committed events instead of counted on demand.
+ * The totals are seeded from the store once at startup; afterwards they only reflect writes
+ * made through this instance.
+ */
+@Component
+public class ChatMetrics {
+    private static final Logger logger = LoggerFactory.getLogger(ChatMetrics.class);
+
+    private final AtomicLong sessions;
+    private final AtomicLong messages;
+    private final Counter sessionsCreated;
+    private final Counter messagesStored;
+
+    @Autowired
+    public ChatMetrics(ChatStore chatStore, MeterRegistry meterRegistry) {
+        this.sessions = new AtomicLong(chatStore.countSessions());
+        this.messages = new AtomicLong(chatStore.countMessages());
+        logger.info("Seeded chat metrics with {} sessions and {} messages", sessions.get(), messages.get());
+
+        Gauge.builder("chat.sessions", sessions, AtomicLong::get)
+                .description("Chat sessions stored")
+                .register(meterRegistry);
+        Gauge.builder("chat.messages", messages, AtomicLong::get)
+                .description("Chat messages stored")
+                .register(meterRegistry);
+        this.sessionsCreated = Counter.builder("chat.sessions.created")
+                .description("Sessions created by this instance")
+                .register(meterRegistry);
+        this.messagesStored = Counter.builder("chat.messages.stored")
+                .description("Messages stored by this instance")
+                .register(meterRegistry);
+    }
+
+    public long sessionCount() {
+        return sessions.get();
+    }
+
+    public long messageCount() {
+        return messages.get();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCreated(SessionCreatedEvent event) {
+        sessions.incrementAndGet();
+        sessionsCreated.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCommitted(MessageCommittedEvent event) {
+        messages.incrementAndGet();
+        messagesStored.increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsRemoved(SessionsRemovedEvent event) {
+        sessions.addAndGet(-event.sessionIds().size());
+        messages.addAndGet(-event.messages());
+    }
+}
@@ -1,43 +1,108 @@
 package com.pidima.chatmicroservice.services;
 
+import com.pidima.chatmicroservice.dto.BulkMessageResult;
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
 import com.pidima.chatmicroservice.models.ChatMessage;
 import com.pidima.chatmicroservice.models.ChatSession;
-import com.pidima.chatmicroservice.repositories.ChatMessageRepository;
-import com.pidima.chatmicroservice.repositories.ChatSessionRepository;
+import com.pidima.chatmicroservice.repositories.ChatHistoryReader;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.SessionArchive;
+import io.micrometer.core.annotation.Timed;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+// Transaction boundaries live in the ChatStore, so an in-memory engine never opens a JPA transaction
 @Service
+@Timed(value = "chat.service", histogram = true)
 public class ChatService {
     private static final Logger logger = LoggerFactory.getLogger(ChatService.class);
     
     @Autowired
-    private ChatSessionRepository sessionRepository;
-    
+    private ChatStore chatStore;
+
+    @Autowired
+    private SessionExistenceCache sessionCache;
+
+    @Autowired
+    private IdGenerator idGenerator;
+
+    @Autowired
+    private ChatMetrics chatMetrics;
+
+    // Present only when chat.ingestion.mode=group-commit
+    @Autowired(required = false)
+    private GroupCommitWriter groupCommitWriter;
+
+    // Absent when chat.history.tail-cache.enabled=false
+    @Autowired(required = false)
+    private HistoryTailCache historyTailCache;
+
+    // Present only when chat.archive.enabled=true
+    @Autowired(required = false)
+    private SessionArchive sessionArchive;
+
+    // Present only when chat.admission.rate-limit.enabled=true
+    @Autowired(required = false)
+    private MessageRateLimiter rateLimiter;
+
     @Autowired
-    private ChatMessageRepository messageRepository;
+    private MessageBroadcaster broadcaster;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private Validator validator;
+
+    @Value("${chat.history.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${chat.history.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    @Value("${chat.bulk.max-messages:1000}")
+    private int maxBulkMessages = 1000;
 
-    @Transactional
     public ChatSession createSession(String initialMessage) {
 
         logger.info("Creating new chat session with initial message: {}", 
                     initialMessage != null && !initialMessage.isEmpty() ? "provided" : "none");
         
-        ChatSession session = new ChatSession();
-        session = sessionRepository.save(session);
-        
-        // Add initial message if provided
+        ChatSession session = new ChatSession(idGenerator.newId());
+
+        // Add initial message if provided; it is stored atomically with the session
+        ChatMessage message = null;
         if (initialMessage != null && !initialMessage.trim().isEmpty()) {
-            ChatMessage message = new ChatMessage(session.getSessionId(), initialMessage, "system");
-            message.setMessageId(UUID.randomUUID().toString());
-            messageRepository.save(message);
+            message = new ChatMessage(session.getSessionId(), initialMessage, "system");
+            message.setMessageId(idGenerator.newId());
+        }
+        session = chatStore.createSession(session, message);
+        sessionCache.markExists(session.getSessionId());
+        eventPublisher.publishEvent(new SessionCreatedEvent(session));
+        if (message != null) {
+            eventPublisher.publishEvent(new MessageCommittedEvent(message));
         }
         
         logger.info("Created chat session with ID: {}", session.getSessionId());
@@ -45,48 +110,343 @@ public class ChatService {
         return session;
     }
 
-    @Transactional
+    // The existence check is served from the cache and the insert runs in the store's own
+    // transaction (or in a group commit), so a hot send never loads the session
     public ChatMessage sendMessage(String sessionId, String content, String sender) {
         logger.info("Sending message to session: {} from sender: {}", sessionId, sender);
         
-        Optional<ChatSession> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
-            logger.warn("Session not found: {}", sessionId);
-            throw new IllegalArgumentException("Session not found: " + sessionId);
+        if (rateLimiter != null) {
+            rateLimiter.acquireSender(sender);
+        }
+        UUID sessionUuid = requireSession(sessionId);
+        if (rateLimiter != null) {
+            rateLimiter.acquireSession(sessionUuid);
         }
 
-        ChatMessage message = new ChatMessage(sessionId, content, sender);
-        message.setMessageId(UUID.randomUUID().toString());
+        ChatMessage message = new ChatMessage(sessionUuid, content, sender);
+        message.setMessageId(idGenerator.newId());
         
-        message = messageRepository.save(message);
+        try {
+            message = groupCommitWriter != null
+                    ? groupCommitWriter.write(message)
+                    : chatStore.saveMessage(message);
+        } catch (DataIntegrityViolationException e) {
+            // The cached entry was stale and the foreign key rejected the insert
+            logger.warn("Session not found: {} (rejected by foreign key)", sessionId);
+            sessionCache.invalidate(sessionUuid);
+            throw new IllegalArgumentException("Session not found: " + sessionId);
+        }
+        eventPublisher.publishEvent(new MessageCommittedEvent(message));
         
         logger.info("Message sent successfully with ID: {}", message.getMessageId());
         return message;
     }
 
-    @Transactional(readOnly = true)
+    public BulkSendMessageResponse sendMessages(List<SendMessageRequest> requests) {
+        logger.info("Sending bulk of {} messages", requests.size());
+
+        if (requests.isEmpty()) {
+            throw new IllegalArgumentException("At least one message is required");
+        }
+        if (requests.size() > maxBulkMessages) {
+            throw new IllegalArgumentException("A bulk request cannot exceed " + maxBulkMessages + " messages");
+        }
+
+        // Pass 1: validate every item and collect the sessions they target
+        BulkMessageResult[] results = new BulkMessageResult[requests.size()];
+        UUID[] targets = new UUID[requests.size()];
+        Set<UUID> sessionIds = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            SendMessageRequest request = requests.get(i);
+            if (request == null) {
+                results[i] = BulkMessageResult.rejected(i, null, "Message is required", null);
+                continue;
+            }
+            Set<ConstraintViolation<SendMessageRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                Map<String, String> errors = new LinkedHashMap<>();
+                violations.forEach(violation ->
+                        errors.put(violation.getPropertyPath().toString(), violation.getMessage()));
+                results[i] = BulkMessageResult.rejected(i, request.getSessionId(), "Validation failed", errors);
+                continue;
+            }
+            Optional<UUID> target = IdGenerator.parse(request.getSessionId());
+            if (target.isEmpty()) {
+                results[i] = BulkMessageResult.rejected(i, request.getSessionId(),
+                        "Session not found: " + request.getSessionId(), null);
+                continue;
+            }
+            targets[i] = target.get();
+            sessionIds.add(target.get());
+        }
+
+        // Resolve all target sessions with a single query
+        Set<UUID> existingSessions = chatStore.findExistingSessionIds(sessionIds);
+
+        // Pass 2: build the rows. Timestamps are spaced one microsecond apart (the column precision)
+        // so messages in one request keep the order they were sent in.
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        List<PendingMessage> pending = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            SendMessageRequest request = requests.get(i);
+            if (!existingSessions.contains(targets[i])) {
+                results[i] = BulkMessageResult.rejected(i, request.getSessionId(),
+                        "Session not found: " + request.getSessionId(), null);
+                continue;
+            }
+            if (rateLimiter != null) {
+                try {
+                    rateLimiter.acquireSender(request.getSender());
+                    rateLimiter.acquireSession(targets[i]);
+                } catch (RateLimitExceededException e) {
+                    results[i] = BulkMessageResult.rateLimited(i, request.getSessionId(), e.getMessage());
+                    continue;
+                }
+            }
+            ChatMessage message = new ChatMessage(targets[i], request.getContent(), request.getSender());
+            message.setMessageId(idGenerator.newId());
+            message.setTimestamp(base.plus(pending.size(), ChronoUnit.MICROS));
+            pending.add(new PendingMessage(i, message));
+        }
+
+        // All or nothing within a write group: the whole request, or one group per shard when
+        // sharded. The JPA engine writes a group in one transaction as JDBC batches. Once a group
+        // has committed, a later one failing only fails its own items, so that what was stored is
+        // reported and published rather than retried.
+        int created = 0;
+        for (List<PendingMessage> group : chatStore.writeGroups(pending, item -> item.message().getSessionId())) {
+            List<ChatMessage> messages = group.stream().map(PendingMessage::message).toList();
+            try {
+                chatStore.saveMessages(messages);
+            } catch (DataIntegrityViolationException e) {
+                // A session was deleted between the lookup and the insert
+                messages.stream().map(ChatMessage::getSessionId).distinct().forEach(sessionCache::invalidate);
+                if (created == 0 && group.size() == pending.size()) {
+                    throw new IllegalArgumentException("One or more sessions no longer exist");
+                }
+                group.forEach(item -> results[item.index()] = BulkMessageResult.rejected(item.index(),
+                        item.message().getSessionId().toString(), "One or more sessions no longer exist", null));
+                continue;
+            } catch (RuntimeException e) {
+                if (created == 0) {
+                    throw e;
+                }
+                logger.error("Bulk send stored {} messages, then failed: {}", created, e.getMessage(), e);
+                group.forEach(item -> results[item.index()] = BulkMessageResult.failed(item.index(),
+                        item.message().getSessionId().toString(), "Message could not be stored"));
+                continue;
+            }
+            messages.stream().map(ChatMessage::getSessionId).distinct().forEach(sessionCache::markExists);
+            for (PendingMessage item : group) {
+                ChatMessage message = item.message();
+                eventPublisher.publishEvent(new MessageCommittedEvent(message));
+                results[item.index()] = BulkMessageResult.created(item.index(), message.getMessageId().toString(),
+                        message.getSessionId().toString(), message.getTimestamp());
+            }
+            created += group.size();
+        }
+
+        int rejected = requests.size() - created;
+        logger.info("Bulk send completed: {} created, {} rejected", created, rejected);
+        return new BulkSendMessageResponse(created, rejected, List.of(results));
+    }
+
     public List<ChatMessage> getChatHistory(String sessionId) {
         logger.info("Retrieving chat history for session: {}", sessionId);
         
-        Optional<ChatSession> sessionOpt = sessionRepository.findById(sessionId);
-        if (sessionOpt.isEmpty()) {
-            logger.warn("Session not found: {}", sessionId);
-            throw new IllegalArgumentException("Session not found: " + sessionId);
-        }
+        HistorySource source = requireHistory(sessionId);
 
-        List<ChatMessage> messages = messageRepository.findBySessionIdOrderByTimestampAsc(sessionId);
+        List<ChatMessage> messages = source.reader().findMessages(source.sessionId());
         logger.info("Retrieved {} messages for session: {}", messages.size(), sessionId);
         
         return messages;
     }
 
-    @Transactional(readOnly = true)
+    public ChatHistoryPage getChatHistoryPage(String sessionId, Integer limit, String after, String before,
+                                              boolean latest) {
+        logger.info("Retrieving chat history page for session: {} (limit: {}, after: {}, before: {}, latest: {})",
+                    sessionId, limit, after != null, before != null, latest);
+
+        if (after != null && before != null) {
+            throw new IllegalArgumentException("Only one of 'after' or 'before' may be specified");
+        }
+        if (latest && (after != null || before != null)) {
+            throw new IllegalArgumentException("'latest' cannot be combined with a cursor");
+        }
+        int pageSize = pageSize(limit);
+
+        HistorySource source = requireHistory(sessionId);
+        ChatHistoryReader reader = source.reader();
+        UUID sessionUuid = source.sessionId();
+
+        // Fetch one extra row to learn whether another page exists without a count query
+        int window = pageSize + 1;
+        List<ChatMessage> rows;
+        boolean descending;
+        if (after != null) {
+            HistoryCursor cursor = HistoryCursor.decode(after);
+            rows = reader.findPageAfter(sessionUuid, cursor.timestamp(), cursor.messageId(), window);
+            descending = false;
+        } else if (before != null) {
+            HistoryCursor cursor = HistoryCursor.decode(before);
+            rows = reader.findPageBefore(sessionUuid, cursor.timestamp(), cursor.messageId(), window);
+            descending = true;
+        } else if (latest) {
+            rows = reader.findLatestPage(sessionUuid, window);
+            descending = true;
+        } else {
+            rows = reader.findFirstPage(sessionUuid, window);
+            descending = false;
+        }
+
+        ChatHistoryPage page = toPage(rows, pageSize, descending);
+        logger.info("Retrieved {} messages for session: {} (has more: {})", page.getMessages().size(), sessionId,
+                    page.isHasMore());
+        return page;
+    }
+
+    // A page from a window of up to pageSize + 1 rows, oldest first, with cursors at both ends
+    static ChatHistoryPage toPage(List<ChatMessage> rows, int pageSize, boolean descending) {
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessage> messages = new ArrayList<>(hasMore ? rows.subList(0, pageSize) : rows);
+        if (descending) {
+            Collections.reverse(messages);
+        }
+
+        String nextCursor = null;
+        String prevCursor = null;
+        if (!messages.isEmpty()) {
+            prevCursor = HistoryCursor.of(messages.get(0)).encode();
+            nextCursor = HistoryCursor.of(messages.get(messages.size() - 1)).encode();
+        }
+        return new ChatHistoryPage(messages, nextCursor, prevCursor, hasMore);
+    }
+
+    /**
+     * Messages with a sequence number greater than {@code sinceSeq}, oldest first, for clients that
+     * already hold everything up to it. Without a limit up to {@code max-page-size} are returned.
+     */
+    public ChatHistoryPage getMessagesSince(String sessionId, long sinceSeq, Integer limit) {
+        logger.info("Retrieving messages of session: {} since seq: {} (limit: {})", sessionId, sinceSeq, limit);
+
+        if (sinceSeq < 0) {
+            throw new IllegalArgumentException("'sinceSeq' must not be negative");
+        }
+        int pageSize = limit != null ? pageSize(limit) : maxPageSize;
+
+        HistorySource source = requireHistory(sessionId);
+
+        List<ChatMessage> rows = source.reader().findMessagesSince(source.sessionId(), sinceSeq, pageSize + 1);
+        boolean hasMore = rows.size() > pageSize;
+        List<ChatMessage> messages = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+
+        logger.info("Retrieved {} messages for session: {} (has more: {})", messages.size(), sessionId, hasMore);
+        return new ChatHistoryPage(messages, null, null, hasMore);
+    }
+
+    /**
+     * Answers a full-history request ({@code latest == false}) or a latest page from the
+     * {@link HistoryTailCache}, without touching the store when the session's tail is cached.
+     * Empty when the cache is disabled or the session is archived.
+     */
+    public Optional<HistoryTailCache.Snapshot> getCachedHistory(String sessionId, boolean latest, Integer limit) {
+        if (historyTailCache == null) {
+            return Optional.empty();
+        }
+        int pageSize = latest ? pageSize(limit) : 0;
+
+        HistorySource source = requireHistory(sessionId);
+        if (source.reader() != chatStore) {
+            return Optional.empty();
+        }
+        UUID sessionUuid = source.sessionId();
+
+        return Optional.of(latest
+                ? historyTailCache.latestPage(sessionUuid, pageSize)
+                : historyTailCache.fullHistory(sessionUuid));
+    }
+
+    public long exportChatHistory(String sessionId, Consumer<ChatMessage> sink) {
+        logger.info("Exporting chat history for session: {}", sessionId);
+
+        HistorySource source = requireHistory(sessionId);
+
+        long exported = source.reader().exportMessages(source.sessionId(), sink);
+
+        logger.info("Exported {} messages for session: {}", exported, sessionId);
+        return exported;
+    }
+
+    /**
+     * Subscribes to messages committed to the session. {@code lastEventId} is the ID of the last
+     * message the client received; anything newer is replayed first.
+     */
+    public MessageSubscription subscribe(String sessionId, String lastEventId, MessageSubscriber subscriber) {
+        logger.info("Subscribing to session: {}", sessionId);
+
+        UUID sessionUuid = requireSession(sessionId);
+
+        HistoryCursor resumeFrom = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            ChatMessage lastSeen = IdGenerator.parse(lastEventId)
+                    .flatMap(chatStore::findMessage)
+                    .filter(message -> sessionUuid.equals(message.getSessionId()))
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown last event ID: " + lastEventId));
+            resumeFrom = HistoryCursor.of(lastSeen);
+        }
+
+        return broadcaster.subscribe(sessionUuid, resumeFrom, subscriber);
+    }
+
     public Optional<ChatSession> getSession(String sessionId) {
-        return sessionRepository.findById(sessionId);
+        return IdGenerator.parse(sessionId).flatMap(sessionUuid -> chatStore.findSession(sessionUuid)
+                .or(() -> sessionArchive != null ? sessionArchive.findSession(sessionUuid) : Optional.empty()));
     }
 
-    @Transactional(readOnly = true)
+    // Served from the incrementally maintained total so health probes never scan the table
     public int getSessionCount() {
-        return (int) sessionRepository.count();
+        return (int) chatMetrics.sessionCount();
+    }
+
+    private int pageSize(Integer limit) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+        return pageSize;
+    }
+
+    // A session that can be written to; archived sessions are read-only
+    private UUID requireSession(String sessionId) {
+        HistorySource source = requireHistory(sessionId);
+        if (source.reader() != chatStore) {
+            logger.warn("Session is archived: {}", sessionId);
+            throw new IllegalArgumentException("Session is archived and read-only: " + sessionId);
+        }
+        return source.sessionId();
+    }
+
+    // Where a session's history is read from: the store, or the archive once retention moved it
+    // there. An ID that does not parse cannot exist, so it is reported like any other unknown session.
+    private HistorySource requireHistory(String sessionId) {
+        UUID sessionUuid = IdGenerator.parse(sessionId).orElse(null);
+        if (sessionUuid != null && sessionCache.exists(sessionUuid)) {
+            return new HistorySource(sessionUuid, chatStore);
+        }
+        if (sessionUuid != null && sessionArchive != null && sessionArchive.contains(sessionUuid)) {
+            return new HistorySource(sessionUuid, sessionArchive);
+        }
+        logger.warn("Session not found: {}", sessionId);
+        throw new IllegalArgumentException("Session not found: " + sessionId);
+    }
+
+    private record HistorySource(UUID sessionId, ChatHistoryReader reader) {
+    }
+
+    // A bulk item that passed validation, with its position in the request
+    private record PendingMessage(int index, ChatMessage message) {
     }
 }
\ No newline at end of file
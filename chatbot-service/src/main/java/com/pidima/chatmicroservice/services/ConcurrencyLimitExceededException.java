@@ -0,0 +1,20 @@
+package com.pidima.chatmicroservice.services;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a request arrives while the adaptive concurrency limit is reached. Rejections are
+ * expected under load, so no stack trace is captured.
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public ConcurrencyLimitExceededException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,242 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Write-behind ingestion path for chat messages. Callers enqueue a message and block until the
+ * batch containing it has been committed; a single writer thread drains the queue and persists
+ * up to {@code max-batch-size} messages per store write (one transaction of JDBC batch inserts
+ * with the JPA engine).
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.ingestion", name = "mode", havingValue = "group-commit")
+public class GroupCommitWriter implements SmartLifecycle {
+    private static final Logger logger = LoggerFactory.getLogger(GroupCommitWriter.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final ChatStore chatStore;
+    private final BlockingQueue<PendingWrite> queue;
+    private final int maxBatchSize;
+    private final long maxLingerNanos;
+    private final long enqueueTimeoutNanos;
+
+    private final DistributionSummary batchSizes;
+    private final Timer commitTimer;
+    private final SimpleAsyncTaskExecutor writerExecutor;
+
+    private volatile boolean running;
+    private Future<?> writerTask;
+
+    @Autowired
+    public GroupCommitWriter(ChatStore chatStore,
+                             MeterRegistry meterRegistry,
+                             Environment environment,
+                             @Value("${chat.ingestion.queue-capacity:10000}") int queueCapacity,
+                             @Value("${chat.ingestion.max-batch-size:100}") int maxBatchSize,
+                             @Value("${chat.ingestion.max-linger:5ms}") Duration maxLinger,
+                             @Value("${chat.ingestion.enqueue-timeout:50ms}") Duration enqueueTimeout) {
+        this.chatStore = chatStore;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.maxLingerNanos = maxLinger.toNanos();
+        this.enqueueTimeoutNanos = enqueueTimeout.toNanos();
+        // The writer follows spring.threads.virtual.enabled, as request handling and subscription delivery do
+        this.writerExecutor = new SimpleAsyncTaskExecutor("chat-group-commit-");
+        this.writerExecutor.setVirtualThreads(Threading.VIRTUAL.isActive(environment));
+
+        Gauge.builder("chat.ingestion.queue.depth", queue, BlockingQueue::size)
+                .description("Messages waiting for the group-commit writer")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("chat.ingestion.batch.size")
+                .description("Messages persisted per group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.commitTimer = Timer.builder("chat.ingestion.commit")
+                .description("Time spent persisting one group commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Enqueues the message and waits until it is durable.
+     *
+     * @throws RejectedExecutionException if the queue stays full for longer than the enqueue timeout
+     */
+    public ChatMessage write(ChatMessage message) {
+        try {
+            return submit(message).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public CompletableFuture<ChatMessage> submit(ChatMessage message) {
+        if (!running) {
+            throw new RejectedExecutionException("Message ingestion is not running");
+        }
+        PendingWrite pending = new PendingWrite(message, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, enqueueTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new RejectedExecutionException("Message ingestion queue is full");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while enqueueing message", e);
+        }
+        return pending.result();
+    }
+
+    int queueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        writerTask = writerExecutor.submit(this::drainLoop);
+        logger.info("Group-commit ingestion started (max batch size: {}, max linger: {}µs)",
+                    maxBatchSize, TimeUnit.NANOSECONDS.toMicros(maxLingerNanos));
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            writerTask.get(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Group-commit writer did not stop cleanly: {}", e.getMessage());
+        }
+        logger.info("Group-commit ingestion stopped");
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    // Stop after the web server has drained in-flight requests, which may be waiting on a commit
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void drainLoop() {
+        List<PendingWrite> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingWrite first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                commit(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                logger.error("Unexpected error in group-commit writer: {}", e.getMessage(), e);
+                batch.forEach(pending -> pending.result().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        // Anything still queued after an interrupt would otherwise block its caller forever
+        PendingWrite leftover;
+        while ((leftover = queue.poll()) != null) {
+            leftover.result().completeExceptionally(new RejectedExecutionException("Message ingestion stopped"));
+        }
+    }
+
+    // Take whatever is already queued, then linger up to max-linger for the batch to fill up
+    private void fillBatch(List<PendingWrite> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + maxLingerNanos;
+        while (batch.size() < maxBatchSize) {
+            if (queue.drainTo(batch, maxBatchSize - batch.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingWrite next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+
+    // One transaction per write group, so that a batch spanning shards never commits in part
+    private void commit(List<PendingWrite> batch) {
+        for (List<PendingWrite> group : chatStore.writeGroups(batch, pending -> pending.message().getSessionId())) {
+            commitGroup(group);
+        }
+    }
+
+    private void commitGroup(List<PendingWrite> batch) {
+        List<ChatMessage> messages = new ArrayList<>(batch.size());
+        batch.forEach(pending -> messages.add(pending.message()));
+
+        try {
+            List<ChatMessage> saved = commitTimer.recordCallable(() -> chatStore.saveMessages(messages));
+            batchSizes.record(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (Exception e) {
+            if (batch.size() == 1) {
+                batch.get(0).result().completeExceptionally(e);
+                return;
+            }
+            // One bad row (e.g. a session deleted after the cache check) must not fail its neighbours
+            logger.warn("Group commit of {} messages failed, retrying individually: {}", batch.size(), e.getMessage());
+            for (PendingWrite pending : batch) {
+                try {
+                    ChatMessage saved = chatStore.saveMessage(pending.message());
+                    batchSizes.record(1);
+                    pending.result().complete(saved);
+                } catch (RuntimeException individual) {
+                    pending.result().completeExceptionally(individual);
+                }
+            }
+        }
+    }
+
+    private record PendingWrite(ChatMessage message, CompletableFuture<ChatMessage> result) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Opaque keyset position inside a session's history. Messages are ordered by
+ * (timestamp, messageId), so the pair identifies a unique point in the ordering.
+ */
+public record HistoryCursor(LocalDateTime timestamp, UUID messageId) {
+
+    private static final String SEPARATOR = "|";
+
+    public static HistoryCursor of(ChatMessage message) {
+        return new HistoryCursor(message.getTimestamp(), message.getMessageId());
+    }
+
+    public static HistoryCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator <= 0 || separator == raw.length() - 1) {
+                throw new IllegalArgumentException("Invalid cursor: " + cursor);
+            }
+            return new HistoryCursor(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1))
+            );
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + messageId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
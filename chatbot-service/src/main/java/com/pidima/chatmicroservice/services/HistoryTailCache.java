@@ -0,0 +1,393 @@
+package com.pidima.chatmicroservice.services;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.MessageOrder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache of the newest messages of recently read sessions, kept as serialized JSON so the
+ * full history of a short session, or the latest page of a long one, is written out without a
+ * query or any serialization. Committed messages are appended to a cached tail in place rather
+ * than invalidating it; tails are evicted by total size.
+ *
+ * <p>Only writes made through this instance are seen, like {@link ChatMetrics}; run a single
+ * instance per session (or disable the cache) when several instances write to one database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.history.tail-cache", name = "enabled", havingValue = "true",
+                       matchIfMissing = true)
+public class HistoryTailCache implements MeterBinder {
+
+    static final String CACHE_NAME = "historyTail";
+
+    // Rough per-message bookkeeping (entry, cursor, array headers) counted towards the weight
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private static final byte[] EMPTY_ARRAY = {'[', ']'};
+
+    // Smallest buffer a tail is moved to when its own is full
+    private static final int MIN_BUFFER = 256;
+
+    private final ChatStore chatStore;
+    private final ObjectMapper objectMapper;
+    private final int messagesPerSession;
+    private final Cache<UUID, Tail> cache;
+    // Loads in flight, so that a message committed during one is not silently missing from its tail
+    private final Map<UUID, Load> loads = new ConcurrentHashMap<>();
+
+    /**
+     * What the cache knows about a history request. The ETag is always set; {@code body} is null
+     * when the cached tail does not hold every requested message and the caller has to query the
+     * store. Cursors and {@code hasMore} are only meaningful for latest pages.
+     */
+    public record Snapshot(String etag, byte[] body, String nextCursor, String prevCursor, boolean hasMore) {
+    }
+
+    @Autowired
+    public HistoryTailCache(ChatStore chatStore,
+                            ObjectMapper objectMapper,
+                            @Value("${chat.history.tail-cache.messages-per-session:100}") int messagesPerSession,
+                            @Value("${chat.history.tail-cache.maximum-size:64MB}") DataSize maximumSize,
+                            @Value("${chat.history.tail-cache.expire-after-access:10m}") Duration expireAfterAccess) {
+        if (messagesPerSession < 1) {
+            throw new IllegalArgumentException("chat.history.tail-cache.messages-per-session must be positive");
+        }
+        this.chatStore = chatStore;
+        this.objectMapper = objectMapper;
+        this.messagesPerSession = messagesPerSession;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((UUID sessionId, Tail tail) -> tail.weight())
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * The whole history of a session; the body is only available when the session has no more
+     * than {@code messages-per-session} messages.
+     */
+    public Snapshot fullHistory(UUID sessionId) {
+        Tail tail = tail(sessionId);
+        return new Snapshot(tail.version(), tail.complete ? tail.body() : null, null, null, false);
+    }
+
+    /**
+     * The newest {@code limit} messages, oldest first, with the cursors of the page's first and
+     * last message.
+     */
+    public Snapshot latestPage(UUID sessionId, int limit) {
+        Tail tail = tail(sessionId);
+        String etag = "latest-" + limit + "-" + tail.version();
+        int size = tail.cursors.size();
+        if (size < limit && !tail.complete) {
+            return new Snapshot(etag, null, null, null, false);
+        }
+        if (size == 0) {
+            return new Snapshot(etag, EMPTY_ARRAY, null, null, false);
+        }
+        int from = Math.max(0, size - limit);
+        return new Snapshot(etag, tail.slice(from),
+                tail.cursors.get(size - 1).encode(),
+                tail.cursors.get(from).encode(),
+                from > 0 || !tail.complete);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCreated(SessionCreatedEvent event) {
+        // Nothing to load for a brand-new session; its initial message is appended right after
+        cache.asMap().putIfAbsent(event.session().getSessionId(), Tail.EMPTY);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCommitted(MessageCommittedEvent event) {
+        ChatMessage message = event.message();
+        UUID sessionId = message.getSessionId();
+        Entry entry = new Entry(HistoryCursor.of(message), serialize(message));
+        if (append(sessionId, entry) != null) {
+            return;
+        }
+        // Not cached, or a load is in flight whose query may have run before this commit: that
+        // load is flagged and dropped once it completes. Once its marker is gone the loaded tail
+        // is visible, so the message is appended to it instead.
+        if (loads.computeIfPresent(sessionId, (id, load) -> load.raced()) == null) {
+            append(sessionId, entry);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsRemoved(SessionsRemovedEvent event) {
+        cache.invalidateAll(event.sessionIds());
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    private Tail tail(UUID sessionId) {
+        Load load = new Load();
+        Tail tail = cache.get(sessionId, id -> {
+            loads.put(id, load);
+            return load(id);
+        });
+        if (loads.remove(sessionId, load) && load.raced) {
+            cache.asMap().remove(sessionId, tail);
+        }
+        return tail;
+    }
+
+    // computeIfPresent() rather than compute(): Caffeine counts every compute() as a load
+    private Tail append(UUID sessionId, Entry entry) {
+        return cache.asMap().computeIfPresent(sessionId, (id, tail) -> tail.with(entry, messagesPerSession));
+    }
+
+    // One extra row tells whether the tail is the whole history
+    private Tail load(UUID sessionId) {
+        List<ChatMessage> newestFirst = chatStore.findLatestPage(sessionId, messagesPerSession + 1);
+        boolean complete = newestFirst.size() <= messagesPerSession;
+        List<Entry> entries = new ArrayList<>();
+        for (ChatMessage message : newestFirst.subList(0, Math.min(newestFirst.size(), messagesPerSession))) {
+            entries.add(new Entry(HistoryCursor.of(message), serialize(message)));
+        }
+        Collections.reverse(entries);
+        return Tail.of(entries, complete);
+    }
+
+    private byte[] serialize(ChatMessage message) {
+        try {
+            return objectMapper.writeValueAsBytes(message);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private record Entry(HistoryCursor cursor, byte[] json) {
+    }
+
+    private static final class Load {
+        volatile boolean raced;
+
+        Load raced() {
+            raced = true;
+            return this;
+        }
+    }
+
+    // Bytes shared by the successive tails of a session; only the tail ending at 'used' may write
+    // past it. Appends are serialized per session by the cache, so 'used' needs no synchronization.
+    private static final class Buffer {
+        final byte[] bytes;
+        int used;
+
+        Buffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+    }
+
+    /**
+     * Immutable view of a session's newest messages: their JSON, comma-separated, lives in
+     * {@code buffer[from, to)}. Appending in order writes past {@code to} and trimming moves
+     * {@code from}, so neither touches bytes an older tail still reads and neither copies the
+     * tail; the buffer is only reallocated, compacted, when it is full.
+     */
+    private static final class Tail {
+
+        static final Tail EMPTY = new Tail(List.of(), new int[0], new Buffer(0), 0, 0, true);
+
+        final List<HistoryCursor> cursors;
+        // Where each entry starts in the buffer
+        final int[] starts;
+        final Buffer buffer;
+        final int from;
+        final int to;
+        // True when the entries are the session's entire history
+        final boolean complete;
+        // The JSON array, built on first read
+        private volatile byte[] body;
+        private volatile String version;
+
+        private Tail(List<HistoryCursor> cursors, int[] starts, Buffer buffer, int from, int to, boolean complete) {
+            this.cursors = cursors;
+            this.starts = starts;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+            this.complete = complete;
+        }
+
+        static Tail of(List<Entry> entries, boolean complete) {
+            int length = Math.max(0, entries.size() - 1);
+            for (Entry entry : entries) {
+                length += entry.json().length;
+            }
+            Buffer buffer = new Buffer(length);
+            int[] starts = new int[entries.size()];
+            int position = 0;
+            for (int i = 0; i < entries.size(); i++) {
+                if (i > 0) {
+                    buffer.bytes[position++] = ',';
+                }
+                starts[i] = position;
+                byte[] json = entries.get(i).json();
+                System.arraycopy(json, 0, buffer.bytes, position, json.length);
+                position += json.length;
+            }
+            buffer.used = position;
+            return new Tail(entries.stream().map(Entry::cursor).toList(), starts, buffer, 0, position, complete);
+        }
+
+        Tail with(Entry entry, int capacity) {
+            // Messages usually arrive in order, so the insertion point is found from the end
+            int size = cursors.size();
+            int position = size;
+            while (position > 0) {
+                int comparison = compare(cursors.get(position - 1), entry.cursor());
+                if (comparison == 0) {
+                    return this;
+                }
+                if (comparison < 0) {
+                    break;
+                }
+                position--;
+            }
+            if (position == 0 && !complete) {
+                // Older than everything cached while older messages are missing: not part of the tail
+                return this;
+            }
+            if (position < size) {
+                return inserted(position, entry, capacity);
+            }
+
+            int dropped = Math.max(0, size + 1 - capacity);
+            int kept = size - dropped;
+            byte[] json = entry.json();
+            // A comma only separates the new entry from the ones kept
+            int needed = (kept > 0 ? 1 : 0) + json.length;
+            int liveFrom = kept > 0 ? starts[dropped] : to;
+            Buffer target = buffer;
+            int shift = 0;
+            if (to != buffer.used || to + needed > buffer.bytes.length) {
+                // Full, or another tail already wrote past this one: compact the kept bytes into a new buffer
+                int live = to - liveFrom;
+                target = new Buffer(Math.max(MIN_BUFFER, 2 * (live + needed)));
+                System.arraycopy(buffer.bytes, liveFrom, target.bytes, 0, live);
+                shift = liveFrom;
+            }
+            int end = to - shift;
+            if (kept > 0) {
+                target.bytes[end++] = ',';
+            }
+            int entryStart = end;
+            System.arraycopy(json, 0, target.bytes, end, json.length);
+            end += json.length;
+            target.used = end;
+
+            int[] newStarts = new int[kept + 1];
+            for (int i = 0; i < kept; i++) {
+                newStarts[i] = starts[dropped + i] - shift;
+            }
+            newStarts[kept] = entryStart;
+            List<HistoryCursor> newCursors = new ArrayList<>(kept + 1);
+            newCursors.addAll(cursors.subList(dropped, size));
+            newCursors.add(entry.cursor());
+            return new Tail(List.copyOf(newCursors), newStarts, target, newStarts[0], end, complete && dropped == 0);
+        }
+
+        // A message committed out of order: rebuilt, which is rare enough not to matter
+        private Tail inserted(int position, Entry entry, int capacity) {
+            List<Entry> entries = new ArrayList<>(cursors.size() + 1);
+            for (int i = 0; i < cursors.size(); i++) {
+                entries.add(new Entry(cursors.get(i), json(i)));
+            }
+            entries.add(position, entry);
+            if (entries.size() > capacity) {
+                entries.subList(0, entries.size() - capacity).clear();
+                return of(entries, false);
+            }
+            return of(entries, complete);
+        }
+
+        private byte[] json(int index) {
+            int end = index + 1 < starts.length ? starts[index + 1] - 1 : to;
+            return Arrays.copyOfRange(buffer.bytes, starts[index], end);
+        }
+
+        byte[] body() {
+            byte[] result = body;
+            if (result == null) {
+                result = array(from);
+                body = result;
+            }
+            return result;
+        }
+
+        // The entries from index 'first' on, as a JSON array
+        byte[] slice(int first) {
+            return first == 0 ? body() : array(starts[first]);
+        }
+
+        private byte[] array(int start) {
+            int length = Math.max(0, to - start);
+            byte[] array = new byte[length + 2];
+            array[0] = '[';
+            System.arraycopy(buffer.bytes, start, array, 1, length);
+            array[length + 1] = ']';
+            return array;
+        }
+
+        // Derived from every cached message ID, not just the newest: a message committed out of
+        // order changes the tail without changing its last entry, and a tail loaded again after
+        // eviction must not repeat a version that stood for different contents
+        String version() {
+            String result = version;
+            if (result == null) {
+                long hash = 0xcbf29ce484222325L;
+                for (HistoryCursor cursor : cursors) {
+                    hash = (hash ^ cursor.messageId().getMostSignificantBits()) * 0x100000001b3L;
+                    hash = (hash ^ cursor.messageId().getLeastSignificantBits()) * 0x100000001b3L;
+                }
+                result = cursors.size() + "-" + Long.toHexString(hash);
+                version = result;
+            }
+            return result;
+        }
+
+        // The buffer, plus the body once it is built
+        int weight() {
+            return buffer.bytes.length + (to - from) + ENTRY_OVERHEAD * cursors.size();
+        }
+    }
+
+    private static int compare(HistoryCursor left, HistoryCursor right) {
+        return MessageOrder.compare(left.timestamp(), left.messageId(), right.timestamp(), right.messageId());
+    }
+}
@@ -0,0 +1,29 @@
+package com.pidima.chatmicroservice.services;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Source of primary keys for sessions and messages. IDs are stored as 16-byte UUID columns and
+ * exposed in their canonical string form; the implementation is selected with
+ * {@code chat.ids.strategy}.
+ */
+public interface IdGenerator {
+
+    UUID newId();
+
+    /**
+     * Parses the string form used by the API. Returns empty for anything that is not a UUID, which
+     * callers treat the same as an unknown ID.
+     */
+    static Optional<UUID> parse(String id) {
+        if (id == null || id.length() != 36) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,604 @@
+package com.pidima.chatmicroservice.services;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over message contents, ranked with BM25.
+ *
+ * <p>Every indexed message becomes a document with a dense int ID, assigned in indexing order.
+ * What the filters and the results need per document (message ID, session, sender, time, length)
+ * is kept in parallel primitive arrays. Each term's posting list is a byte array of
+ * (document gap, term frequency) pairs in variable-length encoding, so a posting usually takes two
+ * bytes and never a boxed object.
+ *
+ * <p>A search intersects the posting lists of all query terms, shortest first, and keeps the best
+ * {@code limit} documents in a bounded heap. Removed sessions are masked at first; once their
+ * documents make up more than the compaction threshold of the index, it is compacted: posting lists
+ * and per-document arrays are rewritten without them and the remaining documents renumbered. Writes
+ * take a write lock for the few microseconds they need (a compaction for as long as it takes to copy
+ * the index), searches a read lock.
+ */
+final class InvertedIndex {
+    private static final Logger logger = LoggerFactory.getLogger(InvertedIndex.class);
+
+    static final int MAX_TERM_LENGTH = 64;
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final double compactionThreshold;
+
+    // Per document
+    private long[] messageIdHigh = new long[INITIAL_CAPACITY];
+    private long[] messageIdLow = new long[INITIAL_CAPACITY];
+    private int[] sessionOf = new int[INITIAL_CAPACITY];
+    private int[] senderOf = new int[INITIAL_CAPACITY];
+    private long[] timeOf = new long[INITIAL_CAPACITY];
+    private int[] lengthOf = new int[INITIAL_CAPACITY];
+    private int documents;
+    private long totalLength;
+
+    private final Map<String, PostingList> postings = new HashMap<>();
+    private long postingBytes;
+
+    // Sessions and senders are stored once and referred to by ordinal
+    private final Map<UUID, Integer> sessionOrdinals = new HashMap<>();
+    private final List<UUID> sessions = new ArrayList<>();
+    private final Map<String, Integer> senderOrdinals = new HashMap<>();
+    private int[] documentsOfSession = new int[INITIAL_CAPACITY];
+    private final BitSet removedSessions = new BitSet();
+    private int removedDocuments;
+    // Sessions dropped by the last compaction, so that a message event arriving late for one of
+    // them is still ignored; forgotten at the next compaction
+    private Set<UUID> compactedSessions = new HashSet<>();
+
+    InvertedIndex() {
+        this(0.25);
+    }
+
+    /**
+     * @param compactionThreshold fraction of the documents that may belong to removed sessions
+     *                            before the index is compacted
+     */
+    InvertedIndex(double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits. Longer runs than {@link #MAX_TERM_LENGTH} are not
+     * words anyone searches for and are dropped.
+     */
+    static List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder term = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i <= length; ) {
+            int codePoint = i < length ? text.codePointAt(i) : ' ';
+            if (Character.isLetterOrDigit(codePoint)) {
+                term.appendCodePoint(Character.toLowerCase(codePoint));
+            } else if (!term.isEmpty()) {
+                if (term.length() <= MAX_TERM_LENGTH) {
+                    terms.add(term.toString());
+                }
+                term.setLength(0);
+            }
+            i += i < length ? Character.charCount(codePoint) : 1;
+        }
+        return terms;
+    }
+
+    void add(UUID messageId, UUID sessionId, String sender, LocalDateTime timestamp, String content) {
+        List<String> terms = tokenize(content);
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        terms.forEach(term -> frequencies.merge(term, 1, Integer::sum));
+
+        lock.writeLock().lock();
+        try {
+            if (compactedSessions.contains(sessionId)) {
+                return;
+            }
+            int session = sessionOrdinals.computeIfAbsent(sessionId, id -> {
+                sessions.add(id);
+                return sessions.size() - 1;
+            });
+            if (removedSessions.get(session)) {
+                return;
+            }
+            if (session == documentsOfSession.length) {
+                documentsOfSession = Arrays.copyOf(documentsOfSession, session * 2);
+            }
+            documentsOfSession[session]++;
+            int doc = documents;
+            if (doc == messageIdHigh.length) {
+                grow();
+            }
+            messageIdHigh[doc] = messageId.getMostSignificantBits();
+            messageIdLow[doc] = messageId.getLeastSignificantBits();
+            sessionOf[doc] = session;
+            senderOf[doc] = senderOrdinals.computeIfAbsent(sender, s -> senderOrdinals.size());
+            timeOf[doc] = epochMicros(timestamp);
+            lengthOf[doc] = terms.size();
+            documents++;
+            totalLength += terms.size();
+            frequencies.forEach((term, frequency) -> {
+                PostingList list = postings.computeIfAbsent(term, t -> new PostingList());
+                int before = list.size;
+                list.add(doc, frequency);
+                postingBytes += list.size - before;
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void removeSessions(Collection<UUID> sessionIds) {
+        lock.writeLock().lock();
+        try {
+            for (UUID sessionId : sessionIds) {
+                Integer session = sessionOrdinals.get(sessionId);
+                if (session != null && !removedSessions.get(session)) {
+                    removedSessions.set(session);
+                    removedDocuments += documentsOfSession[session];
+                }
+            }
+            if (removedDocuments > 0 && removedDocuments >= documents * compactionThreshold) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            messageIdHigh = new long[INITIAL_CAPACITY];
+            messageIdLow = new long[INITIAL_CAPACITY];
+            sessionOf = new int[INITIAL_CAPACITY];
+            senderOf = new int[INITIAL_CAPACITY];
+            timeOf = new long[INITIAL_CAPACITY];
+            lengthOf = new int[INITIAL_CAPACITY];
+            documents = 0;
+            totalLength = 0;
+            postings.clear();
+            postingBytes = 0;
+            sessionOrdinals.clear();
+            sessions.clear();
+            senderOrdinals.clear();
+            documentsOfSession = new int[INITIAL_CAPACITY];
+            removedSessions.clear();
+            removedDocuments = 0;
+            compactedSessions = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The best {@code limit} documents containing every term of {@code query} that pass the
+     * filters, best first. Each filter may be null to disable it; {@code from} is inclusive and
+     * {@code to} exclusive.
+     */
+    Result search(String query, UUID sessionId, String sender, LocalDateTime from, LocalDateTime to, int limit) {
+        List<String> terms = tokenize(query).stream().distinct().toList();
+        if (terms.isEmpty()) {
+            return new Result(List.of(), 0);
+        }
+        lock.readLock().lock();
+        try {
+            int session = -1;
+            if (sessionId != null) {
+                Integer ordinal = sessionOrdinals.get(sessionId);
+                if (ordinal == null) {
+                    return new Result(List.of(), 0);
+                }
+                session = ordinal;
+            }
+            int senderOrdinal = -1;
+            if (sender != null) {
+                Integer ordinal = senderOrdinals.get(sender);
+                if (ordinal == null) {
+                    return new Result(List.of(), 0);
+                }
+                senderOrdinal = ordinal;
+            }
+            long fromMicros = from != null ? epochMicros(from) : Long.MIN_VALUE;
+            long toMicros = to != null ? epochMicros(to) : Long.MAX_VALUE;
+
+            Cursor[] cursors = new Cursor[terms.size()];
+            float[] idf = new float[terms.size()];
+            for (int i = 0; i < terms.size(); i++) {
+                PostingList list = postings.get(terms.get(i));
+                if (list == null) {
+                    return new Result(List.of(), 0);
+                }
+                cursors[i] = new Cursor(list);
+            }
+            // Lead with the rarest term; the others only skip ahead to its documents
+            Arrays.sort(cursors, (a, b) -> Integer.compare(a.list.documentFrequency, b.list.documentFrequency));
+            for (int i = 0; i < cursors.length; i++) {
+                int df = cursors[i].list.documentFrequency;
+                idf[i] = (float) Math.log(1 + (documents - df + 0.5) / (df + 0.5));
+            }
+            float averageLength = documents > 0 ? (float) totalLength / documents : 1;
+
+            TopDocs top = new TopDocs(limit);
+            long matches = 0;
+            Cursor lead = cursors[0];
+            if (lead.next()) {
+                int doc = lead.doc;
+                candidates:
+                while (true) {
+                    for (int i = 1; i < cursors.length; i++) {
+                        if (!cursors[i].advance(doc)) {
+                            break candidates;
+                        }
+                        if (cursors[i].doc > doc) {
+                            if (!lead.advance(cursors[i].doc)) {
+                                break candidates;
+                            }
+                            doc = lead.doc;
+                            continue candidates;
+                        }
+                    }
+                    if (!removedSessions.get(sessionOf[doc])
+                            && (session < 0 || sessionOf[doc] == session)
+                            && (senderOrdinal < 0 || senderOf[doc] == senderOrdinal)
+                            && timeOf[doc] >= fromMicros && timeOf[doc] < toMicros) {
+                        matches++;
+                        float norm = K1 * (1 - B + B * lengthOf[doc] / averageLength);
+                        float score = 0;
+                        for (int i = 0; i < cursors.length; i++) {
+                            int tf = cursors[i].frequency;
+                            score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                        }
+                        top.offer(doc, score);
+                    }
+                    if (!lead.next()) {
+                        break;
+                    }
+                    doc = lead.doc;
+                }
+            }
+
+            List<Hit> hits = new ArrayList<>(top.size);
+            for (int i : top.ranked()) {
+                int doc = top.docs[i];
+                hits.add(new Hit(new UUID(messageIdHigh[doc], messageIdLow[doc]), sessions.get(sessionOf[doc]),
+                                 top.scores[i]));
+            }
+            return new Result(hits, matches);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int documentCount() {
+        lock.readLock().lock();
+        try {
+            return documents;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Bytes held by the posting lists and the per-document arrays, not counting the term and
+     * session dictionaries.
+     */
+    long sizeInBytes() {
+        lock.readLock().lock();
+        try {
+            return postingBytes + (long) messageIdHigh.length * (8 + 8 + 4 + 4 + 8 + 4);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Rewrites the index without the documents of removed sessions. Documents keep their order, so
+     * each posting list is copied front to back with its IDs remapped. Called with the write lock
+     * held.
+     */
+    private void compact() {
+        long start = System.nanoTime();
+        Set<UUID> dropped = new HashSet<>();
+        int[] sessionRemap = new int[sessions.size()];
+        List<UUID> keptSessions = new ArrayList<>();
+        for (int session = 0; session < sessions.size(); session++) {
+            if (removedSessions.get(session)) {
+                sessionRemap[session] = -1;
+                dropped.add(sessions.get(session));
+            } else {
+                sessionRemap[session] = keptSessions.size();
+                keptSessions.add(sessions.get(session));
+            }
+        }
+
+        int live = documents - removedDocuments;
+        int capacity = INITIAL_CAPACITY;
+        while (capacity < live) {
+            capacity *= 2;
+        }
+        long[] newMessageIdHigh = new long[capacity];
+        long[] newMessageIdLow = new long[capacity];
+        int[] newSessionOf = new int[capacity];
+        int[] newSenderOf = new int[capacity];
+        long[] newTimeOf = new long[capacity];
+        int[] newLengthOf = new int[capacity];
+        int[] docRemap = new int[documents];
+        int kept = 0;
+        long keptLength = 0;
+        for (int doc = 0; doc < documents; doc++) {
+            int session = sessionRemap[sessionOf[doc]];
+            if (session < 0) {
+                docRemap[doc] = -1;
+                continue;
+            }
+            docRemap[doc] = kept;
+            newMessageIdHigh[kept] = messageIdHigh[doc];
+            newMessageIdLow[kept] = messageIdLow[doc];
+            newSessionOf[kept] = session;
+            newSenderOf[kept] = senderOf[doc];
+            newTimeOf[kept] = timeOf[doc];
+            newLengthOf[kept] = lengthOf[doc];
+            keptLength += lengthOf[doc];
+            kept++;
+        }
+
+        long bytes = 0;
+        Iterator<Map.Entry<String, PostingList>> terms = postings.entrySet().iterator();
+        while (terms.hasNext()) {
+            Map.Entry<String, PostingList> entry = terms.next();
+            Cursor cursor = new Cursor(entry.getValue());
+            PostingList list = new PostingList();
+            while (cursor.next()) {
+                if (docRemap[cursor.doc] >= 0) {
+                    list.add(docRemap[cursor.doc], cursor.frequency);
+                }
+            }
+            if (list.documentFrequency == 0) {
+                terms.remove();
+            } else {
+                entry.setValue(list);
+                bytes += list.size;
+            }
+        }
+
+        int[] newDocumentsOfSession = new int[Math.max(INITIAL_CAPACITY, keptSessions.size())];
+        sessionOrdinals.clear();
+        for (int session = 0; session < sessionRemap.length; session++) {
+            if (sessionRemap[session] >= 0) {
+                newDocumentsOfSession[sessionRemap[session]] = documentsOfSession[session];
+                sessionOrdinals.put(sessions.get(session), sessionRemap[session]);
+            }
+        }
+        sessions.clear();
+        sessions.addAll(keptSessions);
+        documentsOfSession = newDocumentsOfSession;
+        removedSessions.clear();
+        removedDocuments = 0;
+        compactedSessions = dropped;
+
+        messageIdHigh = newMessageIdHigh;
+        messageIdLow = newMessageIdLow;
+        sessionOf = newSessionOf;
+        senderOf = newSenderOf;
+        timeOf = newTimeOf;
+        lengthOf = newLengthOf;
+        documents = kept;
+        totalLength = keptLength;
+        postingBytes = bytes;
+        logger.info("Compacted search index to {} messages, dropping {} sessions in {} ms",
+                    kept, dropped.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void grow() {
+        int capacity = messageIdHigh.length * 2;
+        messageIdHigh = Arrays.copyOf(messageIdHigh, capacity);
+        messageIdLow = Arrays.copyOf(messageIdLow, capacity);
+        sessionOf = Arrays.copyOf(sessionOf, capacity);
+        senderOf = Arrays.copyOf(senderOf, capacity);
+        timeOf = Arrays.copyOf(timeOf, capacity);
+        lengthOf = Arrays.copyOf(lengthOf, capacity);
+    }
+
+    private static long epochMicros(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + timestamp.getNano() / 1_000;
+    }
+
+    record Hit(UUID messageId, UUID sessionId, float score) {
+    }
+
+    /**
+     * The ranked hits and how many documents matched in total.
+     */
+    record Result(List<Hit> hits, long matches) {
+    }
+
+    /**
+     * Ascending document IDs with their term frequencies, each pair as two variable-length ints
+     * (seven bits per byte, high bit set on all but the last). IDs are stored as the gap to the
+     * previous one.
+     */
+    static final class PostingList {
+        private byte[] data = new byte[8];
+        private int size;
+        private int lastDoc = -1;
+        private int documentFrequency;
+
+        void add(int doc, int frequency) {
+            if (size + 10 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, size + 10));
+            }
+            write(doc - lastDoc);
+            write(frequency);
+            lastDoc = doc;
+            documentFrequency++;
+        }
+
+        private void write(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[size++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    /**
+     * Reads a posting list front to back. Only valid while the read lock is held.
+     */
+    static final class Cursor {
+        final PostingList list;
+        private final byte[] data;
+        private final int end;
+        private int position;
+        int doc = -1;
+        int frequency;
+
+        Cursor(PostingList list) {
+            this.list = list;
+            this.data = list.data;
+            this.end = list.size;
+        }
+
+        boolean next() {
+            if (position >= end) {
+                return false;
+            }
+            doc += read();
+            frequency = read();
+            return true;
+        }
+
+        // Moves to the first document at or after target
+        boolean advance(int target) {
+            while (doc < target) {
+                if (!next()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int read() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Bounded min-heap of (score, doc); ties go to the newer document.
+     */
+    private static final class TopDocs {
+        final int[] docs;
+        final float[] scores;
+        int size;
+
+        TopDocs(int capacity) {
+            this.docs = new int[capacity];
+            this.scores = new float[capacity];
+        }
+
+        void offer(int doc, float score) {
+            if (size < docs.length) {
+                docs[size] = doc;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (docs.length > 0 && better(score, doc, 0)) {
+                docs[0] = doc;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        // Heap slots ordered best first
+        int[] ranked() {
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> better(scores[a], docs[a], b) ? -1 : better(scores[b], docs[b], a) ? 1 : 0);
+            return Arrays.stream(order).mapToInt(Integer::intValue).toArray();
+        }
+
+        private boolean better(float score, int doc, int slot) {
+            return score > scores[slot] || (score == scores[slot] && doc > docs[slot]);
+        }
+
+        private void siftUp(int slot) {
+            while (slot > 0) {
+                int parent = (slot - 1) / 2;
+                if (!better(scores[parent], docs[parent], slot)) {
+                    return;
+                }
+                swap(slot, parent);
+                slot = parent;
+            }
+        }
+
+        private void siftDown(int slot) {
+            while (true) {
+                int worst = slot;
+                for (int child = 2 * slot + 1; child <= 2 * slot + 2 && child < size; child++) {
+                    if (better(scores[worst], docs[worst], child)) {
+                        worst = child;
+                    }
+                }
+                if (worst == slot) {
+                    return;
+                }
+                swap(slot, worst);
+                slot = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int doc = docs[a];
+            docs[a] = docs[b];
+            docs[b] = doc;
+            float score = scores[a];
+            scores[a] = scores[b];
+            scores[b] = score;
+        }
+    }
+}
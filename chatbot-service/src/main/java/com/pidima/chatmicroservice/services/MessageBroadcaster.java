@@ -0,0 +1,390 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed messages to the subscribers of a session.
+ *
+ * <p>Idle subscriptions hold no thread: each one owns a lock-free queue that is drained only while
+ * it has something to send, on a pool of {@code send-threads} reserved for delivery so that
+ * subscribers writing to slow connections never hold threads the rest of the application needs.
+ * A subscriber that falls more than {@code max-pending} messages behind, or that cannot be
+ * scheduled because {@code send-queue-capacity} drains are already waiting, is disconnected; the
+ * client reconnects with {@code Last-Event-ID} and the missed messages are replayed from the
+ * database.
+ *
+ * <p>With {@code spring.threads.virtual.enabled} every drain and the heartbeat timer run on virtual
+ * threads instead: a drain blocked on a slow connection then costs no platform thread, so
+ * {@code send-threads} does not apply and {@code send-queue-capacity} bounds the drains scheduled
+ * or running.
+ */
+@Component
+public class MessageBroadcaster {
+    private static final Logger logger = LoggerFactory.getLogger(MessageBroadcaster.class);
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object COMPLETED = new Object();
+
+    private final Map<UUID, Set<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicInteger activeSubscriptions = new AtomicInteger();
+
+    private final ChatStore chatStore;
+    private final Executor executor;
+    private final ScheduledExecutorService heartbeatScheduler;
+    private final int maxPending;
+    private final int maxReplay;
+    private final Counter droppedSubscriptions;
+
+    @Autowired
+    public MessageBroadcaster(ChatStore chatStore,
+                              MeterRegistry meterRegistry,
+                              Environment environment,
+                              @Value("${chat.subscriptions.max-pending:256}") int maxPending,
+                              @Value("${chat.subscriptions.max-replay:1000}") int maxReplay,
+                              @Value("${chat.subscriptions.heartbeat-interval:15s}") Duration heartbeatInterval,
+                              @Value("${chat.subscriptions.send-threads:8}") int sendThreads,
+                              @Value("${chat.subscriptions.send-queue-capacity:10000}") int sendQueueCapacity) {
+        this(chatStore, Threading.VIRTUAL.isActive(environment) ? newVirtualSendExecutor(sendQueueCapacity)
+                                                                 : newSendExecutor(sendThreads, sendQueueCapacity),
+             meterRegistry, maxPending, maxReplay, heartbeatInterval, Threading.VIRTUAL.isActive(environment));
+    }
+
+    MessageBroadcaster(ChatStore chatStore, Executor executor, MeterRegistry meterRegistry, int maxPending,
+                       int maxReplay, Duration heartbeatInterval) {
+        this(chatStore, executor, meterRegistry, maxPending, maxReplay, heartbeatInterval, false);
+    }
+
+    private MessageBroadcaster(ChatStore chatStore, Executor executor, MeterRegistry meterRegistry, int maxPending,
+                               int maxReplay, Duration heartbeatInterval, boolean virtualThreads) {
+        this.chatStore = chatStore;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.maxReplay = maxReplay;
+
+        Gauge.builder("chat.subscriptions.active", activeSubscriptions, AtomicInteger::get)
+                .description("Open message subscriptions")
+                .register(meterRegistry);
+        this.droppedSubscriptions = Counter.builder("chat.subscriptions.dropped")
+                .description("Subscriptions disconnected for falling too far behind")
+                .register(meterRegistry);
+
+        // Keeps proxies from closing idle streams and surfaces dead connections
+        this.heartbeatScheduler = Executors.newSingleThreadScheduledExecutor(heartbeatThreads(virtualThreads));
+        long heartbeatMillis = heartbeatInterval.toMillis();
+        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMillis, heartbeatMillis,
+                                               TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a subscription. When {@code resumeFrom} is set, messages committed after it are
+     * replayed before live delivery starts.
+     */
+    public MessageSubscription subscribe(UUID sessionId, HistoryCursor resumeFrom, MessageSubscriber subscriber) {
+        Subscription subscription = new Subscription(sessionId, subscriber, resumeFrom);
+
+        // Register before replaying so nothing committed in between is missed; duplicates are
+        // filtered out against the replayed IDs. The set is only changed inside compute so an
+        // unregister that empties and removes it cannot drop this subscription.
+        subscriptions.compute(sessionId, (id, subscribers) -> {
+            Set<Subscription> registered = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            registered.add(subscription);
+            return registered;
+        });
+        activeSubscriptions.incrementAndGet();
+
+        subscription.execute(subscription::start);
+        logger.info("Opened subscription to session: {} (resuming: {})", sessionId, resumeFrom != null);
+        return subscription;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCommitted(MessageCommittedEvent event) {
+        Set<Subscription> subscribers = subscriptions.get(event.message().getSessionId());
+        if (subscribers != null) {
+            subscribers.forEach(subscription -> subscription.offer(event.message()));
+        }
+    }
+
+    int subscriberCount(UUID sessionId) {
+        Set<Subscription> subscribers = subscriptions.get(sessionId);
+        return subscribers != null ? subscribers.size() : 0;
+    }
+
+    void sendHeartbeats() {
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(Subscription::heartbeat));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatScheduler.shutdownNow();
+        subscriptions.values().forEach(subscribers -> subscribers.forEach(Subscription::end));
+        if (executor instanceof ExecutorService sendExecutor) {
+            // Lets the drains deliver the completions just queued before interrupting stragglers
+            sendExecutor.shutdown();
+            try {
+                sendExecutor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sendExecutor.shutdownNow();
+        }
+    }
+
+    // Bounded in threads and queued drains; each subscription has at most one drain queued
+    private static ExecutorService newSendExecutor(int threads, int queueCapacity) {
+        AtomicInteger count = new AtomicInteger();
+        return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "chat-subscription-send-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    // One virtual thread per drain
+    private static Executor newVirtualSendExecutor(int queueCapacity) {
+        SimpleAsyncTaskExecutor threads = new SimpleAsyncTaskExecutor("chat-subscription-send-");
+        threads.setVirtualThreads(true);
+        return bounded(threads, queueCapacity);
+    }
+
+    /**
+     * Runs tasks on {@code threads}, rejecting a task while {@code capacity} earlier ones have not
+     * finished, as the platform pool does once its threads are busy and its queue is full.
+     */
+    static Executor bounded(Executor threads, int capacity) {
+        Semaphore slots = new Semaphore(capacity);
+        return task -> {
+            if (!slots.tryAcquire()) {
+                throw new RejectedExecutionException("All " + capacity + " send slots are taken");
+            }
+            try {
+                threads.execute(() -> {
+                    try {
+                        task.run();
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                slots.release();
+                throw e;
+            }
+        };
+    }
+
+    private static ThreadFactory heartbeatThreads(boolean virtualThreads) {
+        if (virtualThreads) {
+            return new VirtualThreadTaskExecutor("chat-subscription-heartbeat-").getVirtualThreadFactory();
+        }
+        return runnable -> {
+            Thread thread = new Thread(runnable, "chat-subscription-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private void unregister(Subscription subscription) {
+        subscriptions.computeIfPresent(subscription.sessionId, (id, subscribers) -> {
+            subscribers.remove(subscription);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+        activeSubscriptions.decrementAndGet();
+    }
+
+    private final class Subscription implements MessageSubscription {
+        private final UUID sessionId;
+        private final MessageSubscriber subscriber;
+        private final HistoryCursor resumeFrom;
+        private final ConcurrentLinkedQueue<Object> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pendingCount = new AtomicInteger();
+        // True while a drain is scheduled or running; starts set so live messages wait for the replay
+        private final AtomicBoolean draining = new AtomicBoolean(true);
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile Set<UUID> replayedIds = Set.of();
+
+        Subscription(UUID sessionId, MessageSubscriber subscriber, HistoryCursor resumeFrom) {
+            this.sessionId = sessionId;
+            this.subscriber = subscriber;
+            this.resumeFrom = resumeFrom;
+        }
+
+        void offer(ChatMessage message) {
+            if (closed.get()) {
+                return;
+            }
+            if (pendingCount.incrementAndGet() > maxPending) {
+                logger.warn("Dropping slow subscriber of session: {} ({} messages pending)", sessionId, maxPending);
+                drop();
+                return;
+            }
+            pending.add(message);
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            if (!closed.get() && pendingCount.get() == 0) {
+                pendingCount.incrementAndGet();
+                pending.add(HEARTBEAT);
+                scheduleDrain();
+            }
+        }
+
+        void start() {
+            try {
+                subscriber.opened();
+                if (resumeFrom != null) {
+                    replay();
+                }
+            } catch (IOException | RuntimeException e) {
+                fail(e);
+                return;
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            close();
+        }
+
+        // Returns true for the call that ended the subscription. The completion is queued for the
+        // drain rather than delivered here, where it could overlap a message the drain is writing.
+        boolean end() {
+            if (!close()) {
+                return false;
+            }
+            pendingCount.incrementAndGet();
+            pending.add(COMPLETED);
+            scheduleDrain();
+            return true;
+        }
+
+        // Called with draining set, so a rejected task leaves no drain scheduled or running
+        void execute(Runnable task) {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Dropping subscriber of session: {} (send queue full)", sessionId);
+                drop();
+                // Closed by now, so the drain only delivers the completion
+                drain();
+            }
+        }
+
+        private void drop() {
+            if (end()) {
+                droppedSubscriptions.increment();
+            }
+        }
+
+        // Returns true for the call that closed the subscription
+        private boolean close() {
+            if (!closed.compareAndSet(false, true)) {
+                return false;
+            }
+            unregister(this);
+            pending.clear();
+            logger.info("Closed subscription to session: {}", sessionId);
+            return true;
+        }
+
+        // Ends the stream when the backlog exceeds max-replay so the client continues from the last
+        // replayed message on reconnect
+        private void replay() throws IOException {
+            List<ChatMessage> missed = chatStore.findPageAfter(sessionId, resumeFrom.timestamp(),
+                    resumeFrom.messageId(), maxReplay + 1);
+            Set<UUID> ids = new HashSet<>();
+            for (ChatMessage message : missed.subList(0, Math.min(missed.size(), maxReplay))) {
+                subscriber.message(message);
+                ids.add(message.getMessageId());
+            }
+            replayedIds = ids;
+            if (missed.size() > maxReplay) {
+                end();
+            }
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            try {
+                while (true) {
+                    Object item = pending.poll();
+                    if (item == null) {
+                        draining.set(false);
+                        // Re-check: an offer may have seen draining=true just before it was cleared
+                        if (pending.isEmpty() || !draining.compareAndSet(false, true)) {
+                            return;
+                        }
+                        continue;
+                    }
+                    pendingCount.decrementAndGet();
+                    if (item == COMPLETED) {
+                        subscriber.completed();
+                        continue;
+                    }
+                    if (closed.get()) {
+                        continue;
+                    }
+                    if (item == HEARTBEAT) {
+                        subscriber.heartbeat();
+                    } else if (!replayedIds.contains(((ChatMessage) item).getMessageId())) {
+                        subscriber.message((ChatMessage) item);
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                draining.set(false);
+                fail(e);
+            }
+        }
+
+        private void fail(Exception e) {
+            logger.debug("Subscription to session {} failed: {}", sessionId, e.getMessage());
+            if (close()) {
+                subscriber.failed(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+
+/**
+ * Published by {@link ChatService} for every stored message. Listeners that must only observe
+ * durable messages should use {@code @TransactionalEventListener}.
+ */
+public record MessageCommittedEvent(ChatMessage message) {
+}
@@ -0,0 +1,85 @@
+package com.pidima.chatmicroservice.services;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.function.LongSupplier;
+
+/**
+ * Limits how fast messages are sent, with one token bucket per sender and one per session.
+ *
+ * <p>The sender bucket is checked before the session is looked up, so a flood from one sender is
+ * turned away cheaply; the session bucket only after, so made-up session IDs never take up a
+ * bucket. Both hold at most {@code chat.admission.rate-limit.maximum-keys} keys.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.admission.rate-limit", name = "enabled", havingValue = "true")
+public class MessageRateLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(MessageRateLimiter.class);
+
+    private final TokenBucketLimiter<String> senders;
+    private final TokenBucketLimiter<UUID> sessions;
+    private final Counter senderRejections;
+    private final Counter sessionRejections;
+
+    @Autowired
+    public MessageRateLimiter(MeterRegistry meterRegistry,
+                              @Value("${chat.admission.rate-limit.sender.rate:20}") double senderRate,
+                              @Value("${chat.admission.rate-limit.sender.burst:40}") int senderBurst,
+                              @Value("${chat.admission.rate-limit.session.rate:10}") double sessionRate,
+                              @Value("${chat.admission.rate-limit.session.burst:20}") int sessionBurst,
+                              @Value("${chat.admission.rate-limit.maximum-keys:100000}") long maximumKeys) {
+        this(meterRegistry, senderRate, senderBurst, sessionRate, sessionBurst, maximumKeys, System::nanoTime);
+    }
+
+    MessageRateLimiter(MeterRegistry meterRegistry, double senderRate, int senderBurst, double sessionRate,
+                       int sessionBurst, long maximumKeys, LongSupplier nanoClock) {
+        this.senders = new TokenBucketLimiter<>(senderRate, senderBurst, maximumKeys, nanoClock);
+        this.sessions = new TokenBucketLimiter<>(sessionRate, sessionBurst, maximumKeys, nanoClock);
+
+        Gauge.builder("chat.admission.rate.keys", senders, TokenBucketLimiter::keyCount)
+                .tag("limiter", "sender")
+                .description("Token buckets held for senders")
+                .register(meterRegistry);
+        Gauge.builder("chat.admission.rate.keys", sessions, TokenBucketLimiter::keyCount)
+                .tag("limiter", "session")
+                .description("Token buckets held for sessions")
+                .register(meterRegistry);
+        this.senderRejections = Counter.builder("chat.admission.rejected")
+                .tag("reason", "sender")
+                .description("Requests rejected by admission control")
+                .register(meterRegistry);
+        this.sessionRejections = Counter.builder("chat.admission.rejected")
+                .tag("reason", "session")
+                .description("Requests rejected by admission control")
+                .register(meterRegistry);
+    }
+
+    public void acquireSender(String sender) {
+        long wait = senders.tryAcquire(sender);
+        if (wait > 0) {
+            senderRejections.increment();
+            logger.debug("Rate limit exceeded for sender: {}", sender);
+            throw new RateLimitExceededException("Rate limit exceeded for sender: " + sender, Duration.ofNanos(wait));
+        }
+    }
+
+    public void acquireSession(UUID sessionId) {
+        long wait = sessions.tryAcquire(sessionId);
+        if (wait > 0) {
+            sessionRejections.increment();
+            logger.debug("Rate limit exceeded for session: {}", sessionId);
+            throw new RateLimitExceededException("Rate limit exceeded for session: " + sessionId,
+                                                 Duration.ofNanos(wait));
+        }
+    }
+}
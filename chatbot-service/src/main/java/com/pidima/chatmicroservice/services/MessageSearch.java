@@ -0,0 +1,150 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.dto.SearchResponse;
+import com.pidima.chatmicroservice.dto.SearchResult;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Full-text search over the contents of stored messages, served from an {@link InvertedIndex} in
+ * this instance's heap.
+ *
+ * <p>Messages are indexed as their {@link MessageCommittedEvent} arrives and dropped from results
+ * once retention removes their session, and from memory once removed sessions hold more than
+ * {@code chat.search.compaction-threshold} of the indexed messages. The index is built from the
+ * store at startup, before the instance takes requests; with several instances each indexes what it
+ * has seen since it started, plus what was in the store then.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.search", name = "enabled", havingValue = "true")
+public class MessageSearch {
+    private static final Logger logger = LoggerFactory.getLogger(MessageSearch.class);
+
+    private final ChatStore chatStore;
+    private final InvertedIndex index;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final boolean rebuildOnStartup;
+
+    @Autowired
+    public MessageSearch(ChatStore chatStore,
+                         MeterRegistry meterRegistry,
+                         @Value("${chat.search.default-limit:20}") int defaultLimit,
+                         @Value("${chat.search.max-limit:100}") int maxLimit,
+                         @Value("${chat.search.rebuild-on-startup:true}") boolean rebuildOnStartup,
+                         @Value("${chat.search.compaction-threshold:0.25}") double compactionThreshold) {
+        this.chatStore = chatStore;
+        this.index = new InvertedIndex(compactionThreshold);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.rebuildOnStartup = rebuildOnStartup;
+
+        Gauge.builder("chat.search.documents", index, InvertedIndex::documentCount)
+                .description("Messages in the search index, including those of removed sessions not yet compacted away")
+                .register(meterRegistry);
+        Gauge.builder("chat.search.terms", index, InvertedIndex::termCount)
+                .description("Distinct terms in the search index")
+                .register(meterRegistry);
+        Gauge.builder("chat.search.size", index, InvertedIndex::sizeInBytes)
+                .description("Bytes held by posting lists and per-message data")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (rebuildOnStartup) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Replaces the index with one built from every message in the store. Messages committed while
+     * it runs may be missed or indexed twice, which is why it only runs at startup.
+     *
+     * @return the number of messages indexed
+     */
+    public synchronized long rebuild() {
+        long start = System.nanoTime();
+        index.clear();
+        long[] messages = new long[1];
+        long sessions = chatStore.forEachSessionId(sessionId ->
+                messages[0] += chatStore.exportMessages(sessionId, this::index));
+        logger.info("Built search index from {} messages in {} sessions in {} ms",
+                    messages[0], sessions, (System.nanoTime() - start) / 1_000_000);
+        return messages[0];
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCommitted(MessageCommittedEvent event) {
+        index(event.message());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsRemoved(SessionsRemovedEvent event) {
+        index.removeSessions(event.sessionIds());
+    }
+
+    /**
+     * Messages containing every word of {@code query}, best match first. Words are runs of letters
+     * and digits, compared case-insensitively. The filters are optional; {@code from} is inclusive
+     * and {@code to} exclusive.
+     */
+    @Timed(value = "chat.search", histogram = true)
+    public SearchResponse search(String query, String sessionId, String sender, LocalDateTime from,
+                                 LocalDateTime to, Integer limit) {
+        if (query == null || query.isBlank()) {
+            throw new IllegalArgumentException("Query is required");
+        }
+        int resultLimit = limit != null ? limit : defaultLimit;
+        if (resultLimit < 1 || resultLimit > maxLimit) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxLimit);
+        }
+        if (InvertedIndex.tokenize(query).isEmpty()) {
+            throw new IllegalArgumentException("Query has no searchable words");
+        }
+        UUID sessionFilter = null;
+        if (sessionId != null) {
+            // A session ID that does not parse matches nothing, like an unknown one
+            Optional<UUID> parsed = IdGenerator.parse(sessionId);
+            if (parsed.isEmpty()) {
+                return new SearchResponse(query, 0, List.of());
+            }
+            sessionFilter = parsed.get();
+        }
+
+        InvertedIndex.Result result = index.search(query, sessionFilter, sender, from, to, resultLimit);
+
+        // Only the hits are loaded; one deleted since the index saw it is left out
+        List<SearchResult> results = new ArrayList<>(result.hits().size());
+        for (InvertedIndex.Hit hit : result.hits()) {
+            chatStore.findMessage(hit.messageId()).ifPresent(message -> results.add(new SearchResult(
+                    message.getMessageId().toString(), message.getSessionId().toString(), message.getContent(),
+                    message.getSender(), message.getTimestamp(), hit.score())));
+        }
+        logger.info("Search matched {} messages, returning {}", result.matches(), results.size());
+        return new SearchResponse(query, result.matches(), results);
+    }
+
+    private void index(ChatMessage message) {
+        index.add(message.getMessageId(), message.getSessionId(), message.getSender(), message.getTimestamp(),
+                  message.getContent());
+    }
+}
@@ -0,0 +1,28 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+
+import java.io.IOException;
+
+/**
+ * Receives the messages of a {@link MessageBroadcaster} subscription. Calls for one subscription
+ * never overlap. A failing call ends the subscription.
+ */
+public interface MessageSubscriber {
+
+    /** Called once before anything else, when the subscription starts delivering. */
+    void opened() throws IOException;
+
+    void message(ChatMessage message) throws IOException;
+
+    /** Called on idle subscriptions every heartbeat interval. */
+    void heartbeat() throws IOException;
+
+    /**
+     * The broadcaster ended the subscription: the subscriber fell behind, the replay was cut short
+     * or the application is shutting down. The client should resume from the last message.
+     */
+    void completed();
+
+    void failed(Exception error);
+}
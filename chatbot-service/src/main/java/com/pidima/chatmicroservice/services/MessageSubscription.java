@@ -0,0 +1,10 @@
+package com.pidima.chatmicroservice.services;
+
+/**
+ * An open {@link MessageBroadcaster} subscription.
+ */
+public interface MessageSubscription {
+
+    /** Stops delivery, e.g. because the client went away. Does nothing if already ended. */
+    void cancel();
+}
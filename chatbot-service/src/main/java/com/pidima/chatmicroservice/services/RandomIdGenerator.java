@@ -0,0 +1,20 @@
+package com.pidima.chatmicroservice.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Random (version 4) UUIDs, the scheme used before time-ordered IDs. Kept selectable for
+ * comparison and for deployments that must not reveal creation times through IDs.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.ids", name = "strategy", havingValue = "random")
+public class RandomIdGenerator implements IdGenerator {
+
+    @Override
+    public UUID newId() {
+        return UUID.randomUUID();
+    }
+}
@@ -0,0 +1,20 @@
+package com.pidima.chatmicroservice.services;
+
+import java.time.Duration;
+
+/**
+ * Thrown when a sender or session has used up its message rate. Rejections are expected under
+ * load, so no stack trace is captured.
+ */
+public class RateLimitExceededException extends RuntimeException {
+    private final Duration retryAfter;
+
+    public RateLimitExceededException(String message, Duration retryAfter) {
+        super(message, null, false, false);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
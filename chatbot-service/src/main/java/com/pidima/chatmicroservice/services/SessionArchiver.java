@@ -0,0 +1,219 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.RetentionCandidate;
+import com.pidima.chatmicroservice.repositories.SessionArchive;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves cold sessions out of the {@link ChatStore} into the {@link SessionArchive}: every
+ * {@code interval}, sessions without a message for {@code idle-after}, or created longer than
+ * {@code max-age} ago, are written to an archive file {@code batch-size} at a time and then deleted
+ * from the store. Archived sessions stay readable through the history endpoints but no longer
+ * accept messages.
+ *
+ * <p>A session is only deleted if nothing was written to it after it was read for archiving; one
+ * that was stays in the store and its archived copy is dropped again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.archive", name = "enabled", havingValue = "true")
+public class SessionArchiver {
+    private static final Logger logger = LoggerFactory.getLogger(SessionArchiver.class);
+
+    // Rough cost of a stored message besides its text: IDs, timestamp, sequence number, row and
+    // index overhead. Only used to report how much retention freed.
+    private static final int MESSAGE_OVERHEAD = 64;
+
+    private final ChatStore chatStore;
+    private final SessionArchive sessionArchive;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration idleAfter;
+    private final Duration maxAge;
+    private final int batchSize;
+    private final ScheduledExecutorService scheduler;
+
+    private final Counter sessionsArchived;
+    private final Counter messagesArchived;
+    private final Counter bytesReclaimed;
+    private final Counter bytesWritten;
+    private final Timer runs;
+
+    public record Result(long sessionsArchived, long messagesArchived, long bytesReclaimed, long bytesWritten) {
+    }
+
+    @Autowired
+    public SessionArchiver(ChatStore chatStore,
+                           SessionArchive sessionArchive,
+                           ApplicationEventPublisher eventPublisher,
+                           MeterRegistry meterRegistry,
+                           @Value("${chat.archive.idle-after:30d}") Duration idleAfter,
+                           @Value("${chat.archive.max-age:0d}") Duration maxAge,
+                           @Value("${chat.archive.batch-size:500}") int batchSize,
+                           @Value("${chat.archive.interval:10m}") Duration interval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("chat.archive.batch-size must be positive");
+        }
+        this.chatStore = chatStore;
+        this.sessionArchive = sessionArchive;
+        this.eventPublisher = eventPublisher;
+        this.idleAfter = idleAfter;
+        this.maxAge = maxAge;
+        this.batchSize = batchSize;
+
+        this.sessionsArchived = Counter.builder("chat.archive.sessions.moved")
+                .description("Sessions moved from the store to the archive")
+                .register(meterRegistry);
+        this.messagesArchived = Counter.builder("chat.archive.messages.moved")
+                .description("Messages moved from the store to the archive")
+                .register(meterRegistry);
+        this.bytesReclaimed = Counter.builder("chat.archive.reclaimed")
+                .description("Estimated size of the message data deleted from the store")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        this.bytesWritten = Counter.builder("chat.archive.written")
+                .description("Compressed bytes written to archive files")
+                .baseUnit(BaseUnits.BYTES)
+                .register(meterRegistry);
+        this.runs = Timer.builder("chat.archive.run")
+                .description("Duration of archiver runs")
+                .register(meterRegistry);
+
+        // A zero interval leaves archiving to POST /actuator/archive
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = interval.toMillis();
+        if (intervalMillis > 0) {
+            scheduler.scheduleWithFixedDelay(this::archiveQuietly, intervalMillis, intervalMillis,
+                                             TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Archives every session the retention policy currently selects.
+     */
+    public synchronized Result archive() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime idleSince = idleAfter.isZero() ? null : now.minus(idleAfter);
+        LocalDateTime createdBefore = maxAge.isZero() ? null : now.minus(maxAge);
+        if (idleSince == null && createdBefore == null) {
+            return new Result(0, 0, 0, 0);
+        }
+
+        long sessions = 0;
+        long messages = 0;
+        long reclaimed = 0;
+        long written = 0;
+        long start = System.nanoTime();
+        // Sessions kept in the store come back in the next query; each is tried once per run
+        Set<UUID> seen = new HashSet<>();
+        while (true) {
+            List<RetentionCandidate> candidates = chatStore.findRetentionCandidates(idleSince, createdBefore, batchSize)
+                    .stream()
+                    .filter(candidate -> seen.add(candidate.sessionId()))
+                    .toList();
+            if (candidates.isEmpty()) {
+                break;
+            }
+
+            List<SessionArchive.History> histories = new ArrayList<>();
+            List<RetentionCandidate> copied = new ArrayList<>();
+            for (RetentionCandidate candidate : candidates) {
+                Optional<ChatSession> session = chatStore.findSession(candidate.sessionId());
+                if (session.isEmpty()) {
+                    continue;
+                }
+                List<ChatMessage> history = chatStore.findMessages(candidate.sessionId());
+                // Deleting against the copy's own last sequence number keeps anything written after it
+                long lastSeq = history.stream().mapToLong(ChatMessage::getSeq).max().orElse(0);
+                histories.add(new SessionArchive.History(session.get(), history));
+                copied.add(new RetentionCandidate(candidate.sessionId(), lastSeq));
+            }
+            if (histories.isEmpty()) {
+                continue;
+            }
+
+            written += sessionArchive.write(histories);
+            Set<UUID> deleted;
+            try {
+                deleted = chatStore.deleteSessions(copied);
+            } catch (RuntimeException e) {
+                sessionArchive.forget(copied.stream().map(RetentionCandidate::sessionId).toList());
+                throw e;
+            }
+            List<UUID> kept = copied.stream().map(RetentionCandidate::sessionId)
+                    .filter(sessionId -> !deleted.contains(sessionId))
+                    .toList();
+            sessionArchive.forget(kept);
+
+            long batchMessages = 0;
+            for (SessionArchive.History history : histories) {
+                if (deleted.contains(history.session().getSessionId())) {
+                    batchMessages += history.messages().size();
+                    for (ChatMessage message : history.messages()) {
+                        reclaimed += storedSize(message);
+                    }
+                }
+            }
+            sessions += deleted.size();
+            messages += batchMessages;
+            eventPublisher.publishEvent(new SessionsRemovedEvent(deleted, batchMessages));
+        }
+        runs.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        sessionsArchived.increment(sessions);
+        messagesArchived.increment(messages);
+        bytesReclaimed.increment(reclaimed);
+        bytesWritten.increment(written);
+        logger.info("Archived {} sessions with {} messages (~{} bytes reclaimed, {} bytes written)",
+                    sessions, messages, reclaimed, written);
+        return new Result(sessions, messages, reclaimed, written);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void archiveQuietly() {
+        try {
+            archive();
+        } catch (RuntimeException e) {
+            logger.error("Session archiving failed: {}", e.getMessage(), e);
+        }
+    }
+
+    private static long storedSize(ChatMessage message) {
+        return MESSAGE_OVERHEAD
+                + message.getContent().getBytes(StandardCharsets.UTF_8).length
+                + message.getSender().getBytes(StandardCharsets.UTF_8).length;
+    }
+}
@@ -0,0 +1,10 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatSession;
+
+/**
+ * Published by {@link ChatService} once a new session has been stored. No transaction is open at
+ * that point, so {@code @TransactionalEventListener}s need {@code fallbackExecution = true}.
+ */
+public record SessionCreatedEvent(ChatSession session) {
+}
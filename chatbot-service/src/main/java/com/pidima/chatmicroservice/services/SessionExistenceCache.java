@@ -0,0 +1,90 @@
+package com.pidima.chatmicroservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Bounded cache answering "does this session exist?" without hydrating a {@code ChatSession}.
+ * Known sessions stay cached while they are being used; unknown IDs are remembered for a short
+ * time so repeated requests for a bad ID do not reach the database either.
+ */
+@Component
+public class SessionExistenceCache implements MeterBinder {
+
+    static final String CACHE_NAME = "sessionExistence";
+
+    private final ChatStore chatStore;
+    private final Cache<UUID, Boolean> cache;
+
+    @Autowired
+    public SessionExistenceCache(ChatStore chatStore,
+                                 @Value("${chat.session-cache.maximum-size:100000}") long maximumSize,
+                                 @Value("${chat.session-cache.expire-after-access:30m}") Duration expireAfterAccess,
+                                 @Value("${chat.session-cache.negative-ttl:5s}") Duration negativeTtl) {
+        this.chatStore = chatStore;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ExistenceExpiry(expireAfterAccess.toNanos(), negativeTtl.toNanos()))
+                .recordStats()
+                .build();
+    }
+
+    public boolean exists(UUID sessionId) {
+        return cache.get(sessionId, chatStore::sessionExists);
+    }
+
+    public void markExists(UUID sessionId) {
+        cache.put(sessionId, Boolean.TRUE);
+    }
+
+    public void invalidate(UUID sessionId) {
+        cache.invalidate(sessionId);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsRemoved(SessionsRemovedEvent event) {
+        cache.invalidateAll(event.sessionIds());
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+    }
+
+    // Positive entries expire after a period of inactivity; negative entries live for a fixed,
+    // short TTL so a session created on another node becomes visible quickly.
+    private record ExistenceExpiry(long positiveNanos, long negativeNanos) implements Expiry<UUID, Boolean> {
+
+        @Override
+        public long expireAfterCreate(UUID key, Boolean exists, long currentTime) {
+            return exists ? positiveNanos : negativeNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(UUID key, Boolean exists, long currentTime, long currentDuration) {
+            return exists ? positiveNanos : negativeNanos;
+        }
+
+        @Override
+        public long expireAfterRead(UUID key, Boolean exists, long currentTime, long currentDuration) {
+            return exists ? positiveNanos : currentDuration;
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.RetentionCandidate;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deletes sessions that have had no activity for {@code chat.expiry.ttl}, messages included.
+ *
+ * <p>Every session created or written to through this instance gets a timer on a
+ * {@link TimerWheel}, so finding the expired ones costs nothing per live session. A write only
+ * pushes the session's deadline back; the timer stays where it is and, when it fires early, is
+ * filed again at the current deadline. Sessions this instance has not seen since it started, or
+ * that other instances write to, are picked up by a sweep every {@code sweep-interval} that pages
+ * through the store's idle sessions.
+ *
+ * <p>Expired sessions are deleted {@code batch-size} at a time from a single background thread,
+ * which pauses {@code batch-pause} between batches so a burst of expiries never competes with
+ * foreground writes for long. As with archiving, a session written to after its timer fired
+ * stays.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.expiry", name = "enabled", havingValue = "true")
+public class SessionExpiry {
+    private static final Logger logger = LoggerFactory.getLogger(SessionExpiry.class);
+
+    private final ChatStore chatStore;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Duration batchPause;
+    private final Duration tick;
+    private final Duration sweepInterval;
+    private final Clock clock;
+    private final ScheduledExecutorService scheduler;
+
+    private final Map<UUID, Tracked> tracked = new ConcurrentHashMap<>();
+    // Sessions tracked since the last tick, filed on the wheel by the expiry thread
+    private final Queue<Tracked> untimed = new ConcurrentLinkedQueue<>();
+    private final TimerWheel<Tracked> wheel;
+
+    private final Counter sessionsExpired;
+    private final Counter messagesExpired;
+    private final Timer batches;
+
+    @Autowired
+    public SessionExpiry(ChatStore chatStore,
+                         ApplicationEventPublisher eventPublisher,
+                         MeterRegistry meterRegistry,
+                         @Value("${chat.expiry.ttl:24h}") Duration ttl,
+                         @Value("${chat.expiry.tick:1s}") Duration tick,
+                         @Value("${chat.expiry.batch-size:500}") int batchSize,
+                         @Value("${chat.expiry.batch-pause:100ms}") Duration batchPause,
+                         @Value("${chat.expiry.sweep-interval:1h}") Duration sweepInterval) {
+        this(chatStore, eventPublisher, meterRegistry, ttl, tick, batchSize, batchPause, sweepInterval,
+             Clock.systemDefaultZone());
+    }
+
+    SessionExpiry(ChatStore chatStore, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry,
+                  Duration ttl, Duration tick, int batchSize, Duration batchPause, Duration sweepInterval,
+                  Clock clock) {
+        if (ttl.isZero() || ttl.isNegative()) {
+            throw new IllegalArgumentException("chat.expiry.ttl must be positive");
+        }
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("chat.expiry.batch-size must be positive");
+        }
+        this.chatStore = chatStore;
+        this.eventPublisher = eventPublisher;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.batchPause = batchPause;
+        this.tick = tick;
+        this.sweepInterval = sweepInterval;
+        this.clock = clock;
+        this.wheel = new TimerWheel<>(tick.toMillis(), clock.millis());
+
+        Gauge.builder("chat.expiry.tracked", tracked, Map::size)
+                .description("Sessions with an expiry timer on this instance")
+                .register(meterRegistry);
+        this.sessionsExpired = Counter.builder("chat.expiry.sessions")
+                .description("Idle sessions deleted by expiry")
+                .register(meterRegistry);
+        this.messagesExpired = Counter.builder("chat.expiry.messages")
+                .description("Messages deleted with expired sessions")
+                .register(meterRegistry);
+        this.batches = Timer.builder("chat.expiry.batch")
+                .description("Duration of expiry delete batches")
+                .register(meterRegistry);
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "chat-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PostConstruct
+    public void start() {
+        long tickMillis = tick.toMillis();
+        scheduler.scheduleWithFixedDelay(() -> quietly(this::expire), tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        // A zero sweep interval leaves sessions this instance has not seen to live forever
+        long sweepMillis = sweepInterval.toMillis();
+        if (sweepMillis > 0) {
+            scheduler.scheduleWithFixedDelay(() -> quietly(this::sweep), tickMillis, sweepMillis,
+                                             TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionCreated(SessionCreatedEvent event) {
+        touch(event.session().getSessionId(), event.session().getLastSeq());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMessageCommitted(MessageCommittedEvent event) {
+        touch(event.message().getSessionId(), event.message().getSeq());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionsRemoved(SessionsRemovedEvent event) {
+        event.sessionIds().forEach(tracked::remove);
+    }
+
+    /**
+     * Deletes the sessions whose timers have fired. Runs every {@code tick}.
+     */
+    public synchronized long expire() {
+        for (Tracked entry; (entry = untimed.poll()) != null; ) {
+            wheel.schedule(entry, entry.deadline());
+        }
+        long now = clock.millis();
+        List<Tracked> due = new ArrayList<>();
+        wheel.advance(now, entry -> {
+            if (tracked.get(entry.sessionId) != entry) {
+                // Removed, or replaced by a newer entry with its own timer
+                return;
+            }
+            long deadline = entry.deadline();
+            if (deadline > now) {
+                wheel.schedule(entry, deadline);
+            } else {
+                due.add(entry);
+            }
+        });
+
+        long expired = 0;
+        for (int from = 0; from < due.size(); from += batchSize) {
+            if (from > 0 && !pause()) {
+                break;
+            }
+            List<Tracked> batch = due.subList(from, Math.min(due.size(), from + batchSize));
+            Set<UUID> deleted = delete(batch.stream().map(Tracked::candidate).toList());
+            for (Tracked entry : batch) {
+                if (deleted.contains(entry.sessionId) || entry.deadline() <= now) {
+                    // Kept sessions that saw no write here were written through another instance;
+                    // the sweep looks at them again
+                    tracked.remove(entry.sessionId, entry);
+                } else {
+                    wheel.schedule(entry, entry.deadline());
+                }
+            }
+            expired += deleted.size();
+        }
+        return expired;
+    }
+
+    /**
+     * Deletes every session in the store that has been idle for longer than the TTL, in batches.
+     * Runs every {@code sweep-interval}.
+     */
+    public synchronized long sweep() {
+        LocalDateTime idleSince = LocalDateTime.now(clock).minus(ttl);
+        Set<UUID> seen = new HashSet<>();
+        long expired = 0;
+        while (true) {
+            List<RetentionCandidate> candidates = chatStore.findRetentionCandidates(idleSince, null, batchSize)
+                    .stream()
+                    .filter(candidate -> seen.add(candidate.sessionId()))
+                    .toList();
+            if (candidates.isEmpty()) {
+                break;
+            }
+            Set<UUID> deleted = delete(candidates);
+            deleted.forEach(tracked::remove);
+            expired += deleted.size();
+            if (!pause()) {
+                break;
+            }
+        }
+        if (expired > 0) {
+            logger.info("Sweep expired {} idle sessions", expired);
+        }
+        return expired;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void touch(UUID sessionId, Long seq) {
+        long deadline = clock.millis() + ttl.toMillis();
+        long lastSeq = seq != null ? seq : 0;
+        Tracked entry = tracked.get(sessionId);
+        if (entry == null) {
+            Tracked created = new Tracked(sessionId, deadline, lastSeq);
+            entry = tracked.putIfAbsent(sessionId, created);
+            if (entry == null) {
+                untimed.add(created);
+                return;
+            }
+        }
+        entry.touch(deadline, lastSeq);
+    }
+
+    private Set<UUID> delete(List<RetentionCandidate> candidates) {
+        long start = System.nanoTime();
+        Set<UUID> deleted = chatStore.deleteSessions(candidates);
+        batches.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (deleted.isEmpty()) {
+            return deleted;
+        }
+        // Sequence numbers are gap-free and sessions are only removed whole, so the last one is
+        // the session's message count
+        long messages = candidates.stream()
+                .filter(candidate -> deleted.contains(candidate.sessionId()))
+                .mapToLong(RetentionCandidate::lastSeq)
+                .sum();
+        sessionsExpired.increment(deleted.size());
+        messagesExpired.increment(messages);
+        logger.debug("Expired {} idle sessions with {} messages", deleted.size(), messages);
+        eventPublisher.publishEvent(new SessionsRemovedEvent(deleted, messages));
+        return deleted;
+    }
+
+    // Returns false if the thread was interrupted, i.e. the service is shutting down
+    private boolean pause() {
+        if (batchPause.isZero()) {
+            return true;
+        }
+        try {
+            Thread.sleep(batchPause.toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void quietly(Runnable task) {
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            logger.error("Session expiry failed: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Deadline and highest sequence number seen for one session. Writers move both forward under
+     * the entry's monitor; the expiry thread reads them when the session's timer fires.
+     */
+    private static final class Tracked {
+        final UUID sessionId;
+        private long deadline;
+        private long lastSeq;
+
+        Tracked(UUID sessionId, long deadline, long lastSeq) {
+            this.sessionId = sessionId;
+            this.deadline = deadline;
+            this.lastSeq = lastSeq;
+        }
+
+        synchronized void touch(long deadline, long lastSeq) {
+            this.deadline = Math.max(this.deadline, deadline);
+            this.lastSeq = Math.max(this.lastSeq, lastSeq);
+        }
+
+        synchronized long deadline() {
+            return deadline;
+        }
+
+        synchronized RetentionCandidate candidate() {
+            return new RetentionCandidate(sessionId, lastSeq);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.pidima.chatmicroservice.services;
+
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Published when retention has deleted sessions, with all of their messages, from the store.
+ */
+public record SessionsRemovedEvent(Set<UUID> sessionIds, long messages) {
+}
@@ -0,0 +1,97 @@
+package com.pidima.chatmicroservice.services;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 (RFC 9562) generator: a 48-bit Unix millisecond timestamp followed by random bits, so
+ * new keys land at the right-hand edge of the primary key index instead of at random pages.
+ *
+ * <p>The 12 {@code rand_a} bits are used as a counter within a millisecond, which keeps IDs from
+ * one node strictly increasing; when the counter overflows the timestamp is advanced by one. The
+ * remaining 62 random bits come from a small set of striped, buffered DRBG instances rather than
+ * the single shared {@code SecureRandom} behind {@link UUID#randomUUID()}.
+ */
+@Component
+@ConditionalOnProperty(prefix = "chat.ids", name = "strategy", havingValue = "uuid-v7", matchIfMissing = true)
+public class TimeOrderedIdGenerator implements IdGenerator {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VARIANT_MASK = 0x3FFFFFFFFFFFFFFFL;
+    private static final long VARIANT_RFC = 0x8000000000000000L;
+
+    private final Clock clock;
+    // Last issued (timestamp << 12 | counter)
+    private final AtomicLong lastTimeAndCounter = new AtomicLong();
+    private final RandomStripe[] stripes;
+
+    public TimeOrderedIdGenerator() {
+        this(Clock.systemUTC());
+    }
+
+    TimeOrderedIdGenerator(Clock clock) {
+        this.clock = clock;
+        int count = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors()) * 2);
+        this.stripes = new RandomStripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new RandomStripe(newRandom());
+        }
+    }
+
+    @Override
+    public UUID newId() {
+        long candidate = clock.millis() << COUNTER_BITS;
+        long timeAndCounter = lastTimeAndCounter.updateAndGet(last -> candidate > last ? candidate : last + 1);
+
+        long timestamp = timeAndCounter >>> COUNTER_BITS;
+        long counter = timeAndCounter & ((1L << COUNTER_BITS) - 1);
+        long mostSignificant = (timestamp << 16) | VERSION_7 | counter;
+        long leastSignificant = (nextRandom() & VARIANT_MASK) | VARIANT_RFC;
+        return new UUID(mostSignificant, leastSignificant);
+    }
+
+    @SuppressWarnings("deprecation")
+    private long nextRandom() {
+        // Thread#getId is the only thread identifier available on Java 17
+        return stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))].nextLong();
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    // Each DRBG call has a fixed cost, so random bits are fetched a few kilobytes at a time
+    private static final class RandomStripe {
+        private static final int BUFFERED_LONGS = 256;
+
+        private final SecureRandom random;
+        private final byte[] bytes = new byte[BUFFERED_LONGS * Long.BYTES];
+        private final LongBuffer buffer = ByteBuffer.wrap(bytes).asLongBuffer();
+
+        RandomStripe(SecureRandom random) {
+            this.random = random;
+            buffer.position(buffer.limit());
+        }
+
+        synchronized long nextLong() {
+            if (!buffer.hasRemaining()) {
+                random.nextBytes(bytes);
+                buffer.clear();
+            }
+            return buffer.get();
+        }
+    }
+}
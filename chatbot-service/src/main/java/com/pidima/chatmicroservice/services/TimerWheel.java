@@ -0,0 +1,120 @@
+package com.pidima.chatmicroservice.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timer wheel: {@value #LEVELS} levels of {@value #SLOTS} slots, where a slot of
+ * level {@code n} spans {@code SLOTS^n} ticks. A timer is filed in the lowest level whose range
+ * covers its deadline; whenever the lower levels wrap around, the next slot of the level above is
+ * emptied and its timers are filed again, one level further down. Scheduling is O(1), and
+ * advancing costs one slot per tick plus the timers that fire or move down, however many are
+ * pending.
+ *
+ * <p>Deadlines beyond the top level's range are parked in its furthest slot and filed again from
+ * there. Timers cannot be cancelled; owners check on expiry whether the timer still applies.
+ *
+ * <p>Not thread-safe: the owner schedules and advances from a single thread.
+ */
+final class TimerWheel<K> {
+    static final int SLOTS = 64;
+    static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final List<List<Timer<K>>> slots = new ArrayList<>(LEVELS * SLOTS);
+    // Last tick fired; inside advance() the tick being fired
+    private long currentTick;
+    private int size;
+
+    private record Timer<K>(K key, long deadlineTick) {
+    }
+
+    TimerWheel(long tickMillis, long nowMillis) {
+        if (tickMillis < 1) {
+            throw new IllegalArgumentException("Tick must be at least 1ms");
+        }
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        for (int i = 0; i < LEVELS * SLOTS; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Schedules {@code key} to fire once the wheel has advanced past {@code deadlineMillis}; a
+     * deadline already passed fires on the next tick.
+     */
+    void schedule(K key, long deadlineMillis) {
+        // Round up so a timer never fires before its deadline
+        long deadlineTick = Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis);
+        file(new Timer<>(key, deadlineTick), currentTick + 1);
+        size++;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}, handing every timer whose deadline has passed to
+     * {@code expired}. Returns the number of timers that fired.
+     */
+    int advance(long nowMillis, Consumer<K> expired) {
+        long targetTick = nowMillis / tickMillis;
+        int fired = 0;
+        while (currentTick < targetTick) {
+            long tick = ++currentTick;
+            // Move timers down from every level that wraps on this tick, highest first
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((tick & ((1L << (SLOT_BITS * level)) - 1)) == 0) {
+                    cascade(level, tick);
+                }
+            }
+            List<Timer<K>> due = slot(0, tick);
+            if (!due.isEmpty()) {
+                List<Timer<K>> timers = new ArrayList<>(due);
+                due.clear();
+                for (Timer<K> timer : timers) {
+                    size--;
+                    fired++;
+                    expired.accept(timer.key());
+                }
+            }
+        }
+        return fired;
+    }
+
+    int size() {
+        return size;
+    }
+
+    private void cascade(int level, long tick) {
+        List<Timer<K>> slot = slot(level, tick);
+        if (slot.isEmpty()) {
+            return;
+        }
+        List<Timer<K>> timers = new ArrayList<>(slot);
+        slot.clear();
+        // This tick has not fired yet, so timers due on it land in its level-0 slot
+        timers.forEach(timer -> file(timer, tick));
+    }
+
+    // Files the timer relative to currentTick, no earlier than the first tick yet to fire
+    private void file(Timer<K> timer, long firstUnfiredTick) {
+        long tick = Math.max(timer.deadlineTick(), firstUnfiredTick);
+        long delay = tick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delay >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        if (delay >= 1L << (SLOT_BITS * LEVELS)) {
+            // Park in the top level's furthest slot; it is filed again when that slot comes round
+            tick = currentTick + (1L << (SLOT_BITS * LEVELS)) - 1;
+        }
+        slot(level, tick).add(timer);
+    }
+
+    private List<Timer<K>> slot(int level, long tick) {
+        int index = (int) ((tick >>> (SLOT_BITS * level)) & SLOT_MASK);
+        return slots.get(level * SLOTS + index);
+    }
+}
@@ -0,0 +1,68 @@
+package com.pidima.chatmicroservice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by {@code K}, each refilling at {@code rate} tokens per second up to
+ * {@code burst} tokens.
+ *
+ * <p>A bucket is a single {@link AtomicLong} holding its theoretical arrival time (the generic
+ * cell rate algorithm): the moment the bucket would be full again if nothing else arrived. Taking
+ * a token is one compare-and-set that moves it forward by one emission interval, and is refused
+ * while that would put it more than a burst ahead of now, so no lock is ever taken.
+ *
+ * <p>Buckets live in a cache bounded to {@code maximumKeys} and dropped once idle long enough to
+ * have refilled completely, so evicting an idle bucket loses nothing.
+ */
+final class TokenBucketLimiter<K> {
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final LongSupplier nanoClock;
+    private final Cache<K, AtomicLong> buckets;
+
+    TokenBucketLimiter(double rate, int burst, long maximumKeys) {
+        this(rate, burst, maximumKeys, System::nanoTime);
+    }
+
+    TokenBucketLimiter(double rate, int burst, long maximumKeys, LongSupplier nanoClock) {
+        if (rate <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / rate));
+        this.toleranceNanos = (burst - 1) * intervalNanos;
+        this.nanoClock = nanoClock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maximumKeys)
+                .expireAfterAccess(Duration.ofNanos(toleranceNanos + intervalNanos))
+                .build();
+    }
+
+    /**
+     * Takes a token from the key's bucket. Returns 0 if one was available, otherwise the nanoseconds
+     * until one will be.
+     */
+    long tryAcquire(K key) {
+        long now = nanoClock.getAsLong();
+        AtomicLong arrival = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long current = arrival.get();
+            long start = Math.max(current, now);
+            long wait = start - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (arrival.compareAndSet(current, start + intervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    long keyCount() {
+        return buckets.estimatedSize();
+    }
+}
@@ -0,0 +1,20 @@
+-- Converts session and message keys from VARCHAR UUID strings to 16-byte UUID columns.
+--
+-- Run once against an existing database before starting a build with time-ordered IDs
+-- (the in-memory default schema is created from the entities and needs no migration).
+-- Existing IDs keep their value, so their string form in the API does not change; only rows
+-- created afterwards get time-ordered (version 7) IDs.
+--
+-- Written for H2. On PostgreSQL use "ALTER COLUMN ... TYPE uuid USING ...::uuid"; on MySQL add
+-- BINARY(16) columns filled with UUID_TO_BIN(...) and swap them in.
+
+ALTER TABLE chat_messages DROP CONSTRAINT IF EXISTS fk_chat_messages_session;
+DROP INDEX IF EXISTS idx_chat_messages_session_timestamp;
+
+ALTER TABLE chat_messages ALTER COLUMN message_id SET DATA TYPE UUID;
+ALTER TABLE chat_messages ALTER COLUMN session_id SET DATA TYPE UUID;
+ALTER TABLE chat_sessions ALTER COLUMN session_id SET DATA TYPE UUID;
+
+CREATE INDEX idx_chat_messages_session_timestamp ON chat_messages (session_id, timestamp, message_id);
+ALTER TABLE chat_messages ADD CONSTRAINT fk_chat_messages_session
+    FOREIGN KEY (session_id) REFERENCES chat_sessions (session_id);
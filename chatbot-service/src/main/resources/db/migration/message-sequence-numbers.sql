@@ -0,0 +1,25 @@
+-- Adds per-session message sequence numbers (chat_messages.seq) and the counter they are
+-- allocated from (chat_sessions.last_seq).
+--
+-- Run once against an existing database before starting a build with sequence numbers
+-- (the in-memory default schema is created from the entities and needs no migration).
+-- Existing messages are numbered in their current (timestamp, message_id) order.
+--
+-- Written for H2. PostgreSQL accepts the same statements with "UPDATE ... FROM" in place of
+-- the MERGE.
+
+ALTER TABLE chat_sessions ADD COLUMN IF NOT EXISTS last_seq BIGINT DEFAULT 0 NOT NULL;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS seq BIGINT;
+
+MERGE INTO chat_messages m
+USING (SELECT message_id,
+              ROW_NUMBER() OVER (PARTITION BY session_id ORDER BY timestamp, message_id) AS seq
+       FROM chat_messages) numbered
+ON m.message_id = numbered.message_id
+WHEN MATCHED THEN UPDATE SET seq = numbered.seq;
+
+UPDATE chat_sessions s
+SET last_seq = COALESCE((SELECT MAX(m.seq) FROM chat_messages m WHERE m.session_id = s.session_id), 0);
+
+ALTER TABLE chat_messages ALTER COLUMN seq SET NOT NULL;
+CREATE UNIQUE INDEX idx_chat_messages_session_seq ON chat_messages (session_id, seq);
@@ -0,0 +1,17 @@
+-- Adds chat_sessions.last_activity_at, the time of a session's latest message, which idle
+-- session expiry and retention select on.
+--
+-- Run once against an existing database before starting a build with session expiry
+-- (the in-memory default schema is created from the entities and needs no migration).
+-- Sessions without messages take their creation time.
+--
+-- Written for H2; PostgreSQL accepts the same statements.
+
+ALTER TABLE chat_sessions ADD COLUMN IF NOT EXISTS last_activity_at TIMESTAMP;
+
+UPDATE chat_sessions s
+SET last_activity_at = COALESCE((SELECT MAX(m.timestamp) FROM chat_messages m WHERE m.session_id = s.session_id),
+                                s.created_at);
+
+ALTER TABLE chat_sessions ALTER COLUMN last_activity_at SET NOT NULL;
+CREATE INDEX idx_chat_sessions_last_activity ON chat_sessions (last_activity_at);
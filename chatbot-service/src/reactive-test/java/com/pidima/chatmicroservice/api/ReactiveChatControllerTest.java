@@ -0,0 +1,192 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.CreateSessionRequest;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.services.ChatService;
+import com.pidima.chatmicroservice.services.ReactiveChatService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@WebFluxTest(ReactiveChatController.class)
+class ReactiveChatControllerTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID MESSAGE_ID = UUID.fromString("01900000-0000-7000-9000-000000000001");
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @MockBean
+    private ReactiveChatService chatService;
+
+    // HealthController is scanned along with the controllers
+    @MockBean
+    private ChatService servletChatService;
+
+    @Test
+    void createSession_Success() {
+        // Given
+        ChatSession session = new ChatSession(SESSION_ID);
+        when(chatService.createSession("Hello world")).thenReturn(Mono.just(session));
+
+        // When & Then
+        webTestClient.post().uri("/chat/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateSessionRequest("Hello world"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.session_id").isEqualTo(SESSION_ID.toString())
+                .jsonPath("$.created_at").exists();
+    }
+
+    @Test
+    void createSession_ValidationError() {
+        // When & Then
+        webTestClient.post().uri("/chat/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new CreateSessionRequest("a".repeat(101)))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Validation failed")
+                .jsonPath("$.validation_errors.initialMessage").exists();
+    }
+
+    @Test
+    void sendMessage_Success() {
+        // Given
+        when(chatService.sendMessage(anyString(), anyString(), anyString()))
+                .thenReturn(Mono.just(message("Hello")));
+
+        // When & Then
+        webTestClient.post().uri("/chat/message")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new SendMessageRequest(SESSION_ID.toString(), "Hello", "John"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("$.message_id").isEqualTo(MESSAGE_ID.toString())
+                .jsonPath("$.session_id").isEqualTo(SESSION_ID.toString())
+                .jsonPath("$.content").isEqualTo("Hello");
+    }
+
+    @Test
+    void sendMessage_SessionNotFound() {
+        // Given
+        when(chatService.sendMessage(anyString(), anyString(), anyString()))
+                .thenReturn(Mono.error(new IllegalArgumentException("Session not found: missing")));
+
+        // When & Then
+        webTestClient.post().uri("/chat/message")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new SendMessageRequest("missing", "Hello", "John"))
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Session not found: missing");
+    }
+
+    @Test
+    void getChatHistory_Success() {
+        // Given
+        when(chatService.getChatHistory(SESSION_ID.toString()))
+                .thenReturn(Flux.just(message("Hello"), message("Hi there!")));
+
+        // When & Then
+        webTestClient.get().uri("/chat/history/{sessionId}", SESSION_ID)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].content").isEqualTo("Hi there!");
+    }
+
+    @Test
+    void getChatHistory_PagedWithCursorHeaders() {
+        // Given
+        ChatHistoryPage page = new ChatHistoryPage(List.of(message("Hello")), "next", "prev", true);
+        when(chatService.getChatHistoryPage(eq(SESSION_ID.toString()), eq(1), isNull(), isNull(), eq(false)))
+                .thenReturn(Mono.just(page));
+
+        // When & Then
+        webTestClient.get().uri("/chat/history/{sessionId}?limit=1", SESSION_ID)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(ChatController.NEXT_CURSOR_HEADER, "next")
+                .expectHeader().valueEquals(ChatController.PREV_CURSOR_HEADER, "prev")
+                .expectHeader().valueEquals(ChatController.HAS_MORE_HEADER, "true")
+                .expectBody()
+                .jsonPath("$[0].content").isEqualTo("Hello");
+    }
+
+    @Test
+    void getChatHistory_SinceSeqWithCursorIsRejected() {
+        // When & Then
+        webTestClient.get().uri("/chat/history/{sessionId}?sinceSeq=1&latest=true", SESSION_ID)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void exportChatHistory_StreamsNdjson() {
+        // Given
+        when(chatService.getChatHistory(SESSION_ID.toString()))
+                .thenReturn(Flux.just(message("Hello"), message("Hi there!")));
+
+        // When
+        String body = webTestClient.get().uri("/chat/history/{sessionId}/export", SESSION_ID)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Then
+        String[] lines = body.trim().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[1].contains("\"content\":\"Hi there!\""));
+    }
+
+    @Test
+    void exportChatHistory_SessionNotFound() {
+        // Given
+        when(chatService.getChatHistory("missing"))
+                .thenReturn(Flux.error(new IllegalArgumentException("Session not found: missing")));
+
+        // When & Then
+        webTestClient.get().uri("/chat/history/missing/export")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    private static ChatMessage message(String content) {
+        ChatMessage message = new ChatMessage(SESSION_ID, content, "John");
+        message.setMessageId(MESSAGE_ID);
+        return message;
+    }
+}
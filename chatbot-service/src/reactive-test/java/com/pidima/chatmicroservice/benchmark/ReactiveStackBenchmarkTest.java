@@ -0,0 +1,123 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.pidima.chatmicroservice.config.ChatMicroserviceApplication;
+import com.pidima.chatmicroservice.loadtest.SendAndPageLoad;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the servlet stack (Tomcat with a fixed worker pool, JDBC) with the reactive one (Netty,
+ * R2DBC) for sendMessage/getChatHistory under a high request rate against a deliberately slow
+ * database. Both pools get the same number of connections, so the difference is in how waiting
+ * for them is paid for: a blocked worker thread per request, or a pending timer.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark,reactive test -Dtest=ReactiveStackBenchmarkTest \
+ *     -Dbench.rate=500 -Dbench.duration=20s -Dbench.db-latency=20ms -Dbench.servlet-threads=200
+ * </pre>
+ *
+ * Results, including the peak number of live threads per stack, are printed and written to
+ * target/benchmarks/reactive-stack.json. The H2 R2DBC driver runs its in-memory work on the
+ * subscribing thread; only the simulated latency is truly asynchronous, as it would be with a
+ * network database.
+ */
+@Tag("benchmark")
+class ReactiveStackBenchmarkTest {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("bench.rate", "500"));
+    private static final Duration DURATION = DurationStyle.detectAndParse(System.getProperty("bench.duration", "15s"));
+    private static final Duration DB_LATENCY = DurationStyle.detectAndParse(System.getProperty("bench.db-latency", "20ms"));
+    private static final int POOL_SIZE = Integer.getInteger("bench.pool-size", 100);
+    private static final int SERVLET_THREADS = Integer.getInteger("bench.servlet-threads", 200);
+    private static final int SESSIONS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+    @Test
+    void compareStacks() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", RATE);
+        report.put("duration_ms", DURATION.toMillis());
+        report.put("db_latency_ms", DB_LATENCY.toMillis());
+        report.put("pool_size", POOL_SIZE);
+        report.put("servlet_threads", SERVLET_THREADS);
+        report.put("servlet", run(false));
+        report.put("reactive", run(true));
+
+        Path output = Path.of("target", "benchmarks", "reactive-stack.json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("[reactive-stack] results written to " + output.toAbsolutePath());
+    }
+
+    private Map<String, Object> run(boolean reactive) throws Exception {
+        String mode = reactive ? "reactive" : "servlet";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatMicroserviceApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                if (bean instanceof DataSource dataSource && !(bean instanceof SlowDataSource)) {
+                                    return new SlowDataSource(dataSource, DB_LATENCY);
+                                }
+                                // The reactive stack reaches its pool only through the DatabaseClient
+                                if (bean instanceof DatabaseClient databaseClient
+                                        && !(databaseClient.getConnectionFactory() instanceof SlowConnectionFactory)) {
+                                    return DatabaseClient.create(new SlowConnectionFactory(
+                                            databaseClient.getConnectionFactory(), DB_LATENCY));
+                                }
+                                return bean;
+                            }
+                        }))
+                // Arguments rather than default properties, which application.yml (with its own port,
+                // database, r2dbc pool size and tail cache) would override
+                .run("--server.port=0",
+                     "--spring.main.web-application-type=" + mode,
+                     "--server.tomcat.threads.max=" + SERVLET_THREADS,
+                     "--spring.datasource.url=jdbc:h2:mem:bench-stack-" + mode + ";DB_CLOSE_DELAY=-1",
+                     "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                     "--spring.r2dbc.url=r2dbc:h2:mem:///bench-stack-" + mode,
+                     // Both sides open the same in-memory database and must log in alike
+                     "--spring.datasource.username=sa",
+                     "--spring.datasource.password=password",
+                     "--spring.r2dbc.username=sa",
+                     "--spring.r2dbc.password=password",
+                     "--spring.r2dbc.pool.max-size=" + POOL_SIZE,
+                     // The reactive API reads from the database; keep the servlet one honest too
+                     "--chat.history.tail-cache.enabled=false",
+                     "--logging.level.com.pidima.chatmicroservice=WARN");
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        try (SendAndPageLoad load = new SendAndPageLoad("http://localhost:" + port, SESSIONS, RATE)) {
+            assertEquals(String.valueOf(POOL_SIZE), context.getEnvironment().getProperty("spring.r2dbc.pool.max-size"));
+            assertEquals("false", context.getEnvironment().getProperty("chat.history.tail-cache.enabled"));
+            load.warmUp(Duration.ofSeconds(3));
+            threads.resetPeakThreadCount();
+            Map<String, Object> result = load.measure(DURATION);
+            result.put("peak_threads", threads.getPeakThreadCount());
+            System.out.println("[reactive-stack] " + mode + " " + result);
+            return result;
+        } finally {
+            context.close();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import io.r2dbc.spi.Statement;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+
+/**
+ * The R2DBC counterpart of {@link SlowDataSource}: every statement execution is answered after a
+ * fixed delay. The delay is a timer, so unlike the JDBC variant no thread waits for it.
+ */
+class SlowConnectionFactory implements ConnectionFactory {
+
+    private final ConnectionFactory target;
+    private final Duration latency;
+
+    SlowConnectionFactory(ConnectionFactory target, Duration latency) {
+        this.target = target;
+        this.latency = latency;
+    }
+
+    @Override
+    public Publisher<? extends Connection> create() {
+        return Mono.from(target.create()).map(this::slowConnection);
+    }
+
+    @Override
+    public ConnectionFactoryMetadata getMetadata() {
+        return target.getMetadata();
+    }
+
+    private Connection slowConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement ? slowStatement(statement) : result;
+                });
+    }
+
+    private Statement slowStatement(Statement statement) {
+        return (Statement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("execute")) {
+                        return Flux.defer(statement::execute).delaySubscription(latency);
+                    }
+                    Object result = invoke(statement, method, args);
+                    // bind() and friends return the statement itself; keep handing out the proxy
+                    return result == statement ? proxy : result;
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
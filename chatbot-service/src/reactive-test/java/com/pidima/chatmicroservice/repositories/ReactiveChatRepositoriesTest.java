@@ -0,0 +1,176 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.pidima.chatmicroservice.repositories.ChatStoreContractTest.ids;
+import static com.pidima.chatmicroservice.repositories.ChatStoreContractTest.message;
+import static com.pidima.chatmicroservice.repositories.ChatStoreContractTest.seqs;
+import static org.junit.jupiter.api.Assertions.*;
+
+// The R2DBC statements against the schema JPA creates, cross-checked through the JPA store
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaPersistence.class)
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:mem:reactive-repositories;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReactiveChatRepositoriesTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @Autowired
+    private JpaChatStore store;
+
+    // The reactive connections log in as the JDBC side does
+    @Value("${spring.datasource.username}")
+    private String username;
+
+    @Value("${spring.datasource.password}")
+    private String password;
+
+    private DatabaseClient databaseClient;
+    private ReactiveChatSessionRepository sessions;
+    private ReactiveChatMessageRepository messages;
+
+    @BeforeEach
+    void setUp() {
+        databaseClient = DatabaseClient.create(ConnectionFactories.get(
+                ConnectionFactoryOptions.parse("r2dbc:h2:mem:///reactive-repositories").mutate()
+                        .option(ConnectionFactoryOptions.USER, username)
+                        .option(ConnectionFactoryOptions.PASSWORD, password)
+                        .build()));
+        sessions = new ReactiveChatSessionRepository(databaseClient);
+        messages = new ReactiveChatMessageRepository(databaseClient);
+    }
+
+    @Test
+    void insert_SessionAndMessageAreVisibleToJpa() {
+        // Given
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setLastActivityAt(session.getCreatedAt());
+        session.setLastSeq(1);
+        ChatMessage message = message(session.getSessionId(), "Hello", BASE);
+        message.setSeq(1L);
+
+        // When
+        sessions.insert(session).then(messages.insert(message)).block();
+
+        // Then
+        assertTrue(store.sessionExists(session.getSessionId()));
+        ChatMessage stored = store.findMessages(session.getSessionId()).get(0);
+        assertEquals(message.getMessageId(), stored.getMessageId());
+        assertEquals("Hello", stored.getContent());
+        assertEquals("user", stored.getSender());
+        assertEquals(message.getTimestamp(), stored.getTimestamp());
+        assertEquals(1L, stored.getSeq());
+    }
+
+    @Test
+    void exists_KnowsSessionsCreatedThroughJpa() {
+        // Given
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        store.createSession(session, null);
+
+        // When & Then
+        assertEquals(Boolean.TRUE, sessions.exists(session.getSessionId()).block());
+        assertEquals(Boolean.FALSE, sessions.exists(UUID.randomUUID()).block());
+    }
+
+    @Test
+    void reserveSeqs_ContinuesTheSessionsSequence() {
+        // Given - the initial message took seq 1
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(BASE);
+        store.createSession(session, message(session.getSessionId(), "Hello", BASE));
+
+        // When
+        Long first = sessions.reserveSeqs(session.getSessionId(), 3, BASE.plusMinutes(1)).block();
+        Long next = sessions.reserveSeqs(session.getSessionId(), 1, BASE.plusMinutes(2)).block();
+
+        // Then
+        assertEquals(2L, first);
+        assertEquals(5L, next);
+        assertEquals(BASE.plusMinutes(2), store.findSession(session.getSessionId()).orElseThrow().getLastActivityAt());
+    }
+
+    @Test
+    void reserveSeqs_UnknownSessionIsEmpty() {
+        // When & Then
+        assertNull(sessions.reserveSeqs(UUID.randomUUID(), 1, BASE).block());
+    }
+
+    @Test
+    void reserveSeqs_WithoutFinalTableReadsTheCounterBack() {
+        // Given - the initial message took seq 1
+        ReactiveChatSessionRepository twoStatements = new ReactiveChatSessionRepository(databaseClient, false);
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(BASE);
+        store.createSession(session, message(session.getSessionId(), "Hello", BASE));
+
+        // When
+        Long first = twoStatements.reserveSeqs(session.getSessionId(), 3, BASE.plusMinutes(1)).block();
+        Long next = sessions.reserveSeqs(session.getSessionId(), 1, BASE.plusMinutes(2)).block();
+
+        // Then
+        assertEquals(2L, first);
+        assertEquals(5L, next);
+        assertEquals(BASE.plusMinutes(2), store.findSession(session.getSessionId()).orElseThrow().getLastActivityAt());
+        assertNull(twoStatements.reserveSeqs(UUID.randomUUID(), 1, BASE).block());
+    }
+
+    @Test
+    void findPages_MatchTheJpaStore() {
+        // Given - five messages a minute apart, seqs 1..5
+        UUID sessionId = sessionWithMessages(5);
+        List<ChatMessage> all = store.findMessages(sessionId);
+
+        // When
+        List<ChatMessage> history = messages.findMessages(sessionId).collectList().block();
+        List<ChatMessage> first = messages.findFirstPage(sessionId, 2).collectList().block();
+        ChatMessage last = first.get(first.size() - 1);
+        List<ChatMessage> after = messages.findPageAfter(sessionId, last.getTimestamp(), last.getMessageId(), 2)
+                .collectList().block();
+        List<ChatMessage> latest = messages.findLatestPage(sessionId, 2).collectList().block();
+        ChatMessage oldest = latest.get(latest.size() - 1);
+        List<ChatMessage> before = messages.findPageBefore(sessionId, oldest.getTimestamp(), oldest.getMessageId(), 2)
+                .collectList().block();
+        List<ChatMessage> since = messages.findMessagesSince(sessionId, 3, 10).collectList().block();
+
+        // Then
+        assertEquals(ids(all), ids(history));
+        assertEquals(ids(all.subList(0, 2)), ids(first));
+        assertEquals(ids(all.subList(2, 4)), ids(after));
+        assertEquals(List.of(all.get(4).getMessageId(), all.get(3).getMessageId()), ids(latest));
+        assertEquals(List.of(all.get(2).getMessageId(), all.get(1).getMessageId()), ids(before));
+        assertEquals(List.of(4L, 5L), seqs(since));
+    }
+
+    private UUID sessionWithMessages(int count) {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        store.createSession(session, null);
+        List<ChatMessage> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(message(session.getSessionId(), "message " + i, BASE.plusMinutes(i)));
+        }
+        store.saveMessages(batch);
+        return session.getSessionId();
+    }
+}
@@ -0,0 +1,103 @@
+package com.pidima.chatmicroservice.api;
+
+import com.pidima.chatmicroservice.dto.CreateSessionRequest;
+import com.pidima.chatmicroservice.dto.CreateSessionResponse;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.ReactiveChatService;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+import static com.pidima.chatmicroservice.api.ChatController.NDJSON_VALUE;
+import static com.pidima.chatmicroservice.api.ChatController.cursorHeaders;
+
+/**
+ * The core endpoints of {@link ChatController} on WebFlux, for
+ * {@code spring.main.web-application-type=reactive}. Requests, responses, headers and errors are
+ * the same; bulk sends, subscriptions and the tail cache are servlet-only.
+ */
+@RestController
+@RequestMapping("/chat")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatController {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveChatController.class);
+
+    @Autowired
+    private ReactiveChatService chatService;
+
+    @PostMapping("/session")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<CreateSessionResponse> createSession(@Valid @RequestBody CreateSessionRequest request) {
+        logger.info("Received request to create new chat session");
+
+        return chatService.createSession(request.getInitialMessage())
+                .map(session -> new CreateSessionResponse(session.getSessionId().toString(),
+                                                          session.getCreatedAt()));
+    }
+
+    @PostMapping("/message")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<SendMessageResponse> sendMessage(@Valid @RequestBody SendMessageRequest request) {
+        logger.info("Received request to send message to session: {}", request.getSessionId());
+
+        return chatService.sendMessage(request.getSessionId(), request.getContent(), request.getSender())
+                .map(message -> new SendMessageResponse(
+                        message.getMessageId().toString(),
+                        message.getSessionId().toString(),
+                        message.getContent(),
+                        message.getSender(),
+                        message.getTimestamp()));
+    }
+
+    @GetMapping("/history/{sessionId}")
+    public Mono<ResponseEntity<List<ChatMessage>>> getChatHistory(@PathVariable String sessionId,
+                                                                  @RequestParam(required = false) Integer limit,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(required = false) String before,
+                                                                  @RequestParam(defaultValue = "false") boolean latest,
+                                                                  @RequestParam(required = false) Long sinceSeq) {
+        logger.info("Received request to get chat history for session: {}", sessionId);
+
+        if (sinceSeq != null) {
+            if (after != null || before != null || latest) {
+                return Mono.error(new IllegalArgumentException(
+                        "'sinceSeq' cannot be combined with a cursor or 'latest'"));
+            }
+            return chatService.getMessagesSince(sessionId, sinceSeq, limit)
+                    .map(page -> ResponseEntity.ok()
+                            .headers(cursorHeaders(null, null, page.isHasMore()))
+                            .body(page.getMessages()));
+        }
+
+        if (limit == null && after == null && before == null && !latest) {
+            return chatService.getChatHistory(sessionId)
+                    .collectList()
+                    .map(ResponseEntity::ok);
+        }
+
+        return chatService.getChatHistoryPage(sessionId, limit, after, before, latest)
+                .map(page -> ResponseEntity.ok()
+                        .headers(cursorHeaders(page.getNextCursor(), page.getPrevCursor(), page.isHasMore()))
+                        .body(page.getMessages()));
+    }
+
+    // Rows are encoded one per line as the database delivers them, under backpressure. An unknown
+    // session fails before the first line, so it still maps to a 400
+    @GetMapping(value = {"/history/{sessionId}/export", "/history/{sessionId}"}, produces = NDJSON_VALUE)
+    public Flux<ChatMessage> exportChatHistory(@PathVariable String sessionId) {
+        logger.info("Received request to export chat history for session: {}", sessionId);
+
+        return chatService.getChatHistory(sessionId);
+    }
+}
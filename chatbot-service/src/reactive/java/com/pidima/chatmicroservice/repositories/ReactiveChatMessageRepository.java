@@ -0,0 +1,117 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Messages over R2DBC for the reactive API: the projection queries of {@link JpaChatStore} on
+ * the chat_messages table JPA maintains. Rows are mapped to detached messages as the driver
+ * delivers them, so a whole history is never held in memory on its way to the client.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatMessageRepository {
+
+    private static final String SELECT_MESSAGES =
+            "SELECT message_id, session_id, content, sender, timestamp, seq FROM chat_messages " +
+            "WHERE session_id = :sessionId ";
+    private static final String AFTER =
+            "AND timestamp >= :timestamp AND (timestamp > :timestamp OR message_id > :messageId) ";
+    private static final String BEFORE =
+            "AND timestamp <= :timestamp AND (timestamp < :timestamp OR message_id < :messageId) ";
+    private static final String ASCENDING = "ORDER BY timestamp ASC, message_id ASC";
+    private static final String DESCENDING = "ORDER BY timestamp DESC, message_id DESC";
+    private static final String LIMIT = " FETCH FIRST :limit ROWS ONLY";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveChatMessageRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Void> insert(ChatMessage message) {
+        return databaseClient.sql("INSERT INTO chat_messages (message_id, session_id, content, sender, timestamp, seq) " +
+                                  "VALUES (:messageId, :sessionId, :content, :sender, :timestamp, :seq)")
+                .bind("messageId", message.getMessageId())
+                .bind("sessionId", message.getSessionId())
+                .bind("content", message.getContent())
+                .bind("sender", message.getSender())
+                .bind("timestamp", message.getTimestamp())
+                .bind("seq", message.getSeq())
+                .then();
+    }
+
+    /**
+     * The whole history of a session, oldest first, emitted as the client asks for it.
+     */
+    public Flux<ChatMessage> findMessages(UUID sessionId) {
+        return databaseClient.sql(SELECT_MESSAGES + ASCENDING)
+                .bind("sessionId", sessionId)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    public Flux<ChatMessage> findFirstPage(UUID sessionId, int limit) {
+        return databaseClient.sql(SELECT_MESSAGES + ASCENDING + LIMIT)
+                .bind("sessionId", sessionId)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    /**
+     * The newest {@code limit} messages, newest first.
+     */
+    public Flux<ChatMessage> findLatestPage(UUID sessionId, int limit) {
+        return databaseClient.sql(SELECT_MESSAGES + DESCENDING + LIMIT)
+                .bind("sessionId", sessionId)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    public Flux<ChatMessage> findPageAfter(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        return databaseClient.sql(SELECT_MESSAGES + AFTER + ASCENDING + LIMIT)
+                .bind("sessionId", sessionId)
+                .bind("timestamp", timestamp)
+                .bind("messageId", messageId)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    /**
+     * Messages strictly before the given position, newest first.
+     */
+    public Flux<ChatMessage> findPageBefore(UUID sessionId, LocalDateTime timestamp, UUID messageId, int limit) {
+        return databaseClient.sql(SELECT_MESSAGES + BEFORE + DESCENDING + LIMIT)
+                .bind("sessionId", sessionId)
+                .bind("timestamp", timestamp)
+                .bind("messageId", messageId)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    public Flux<ChatMessage> findMessagesSince(UUID sessionId, long seq, int limit) {
+        return databaseClient.sql(SELECT_MESSAGES + "AND seq > :seq ORDER BY seq ASC" + LIMIT)
+                .bind("sessionId", sessionId)
+                .bind("seq", seq)
+                .bind("limit", limit)
+                .map(ReactiveChatMessageRepository::toMessage)
+                .all();
+    }
+
+    private static ChatMessage toMessage(Readable row) {
+        return ChatMessage.stored(row.get(0, UUID.class), row.get(1, UUID.class), row.get(2, String.class),
+                                  row.get(3, String.class), row.get(4, LocalDateTime.class), row.get(5, Long.class));
+    }
+}
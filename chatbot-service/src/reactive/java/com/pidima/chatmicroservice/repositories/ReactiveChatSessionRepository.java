@@ -0,0 +1,90 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Sessions over R2DBC for the reactive API, with the same statements as
+ * {@link ChatSessionRepository} on the chat_sessions table JPA maintains.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatSessionRepository {
+    private static final String RESERVE_SEQS =
+            "UPDATE chat_sessions SET last_seq = last_seq + :count, " +
+            "last_activity_at = CASE WHEN last_activity_at < :activityAt THEN :activityAt ELSE last_activity_at END " +
+            "WHERE session_id = :sessionId";
+
+    private final DatabaseClient databaseClient;
+    private final boolean finalTable;
+
+    @Autowired
+    public ReactiveChatSessionRepository(DatabaseClient databaseClient) {
+        this(databaseClient, supportsFinalTable(databaseClient.getConnectionFactory().getMetadata().getName()));
+    }
+
+    ReactiveChatSessionRepository(DatabaseClient databaseClient, boolean finalTable) {
+        this.databaseClient = databaseClient;
+        this.finalTable = finalTable;
+    }
+
+    public Mono<Void> insert(ChatSession session) {
+        return databaseClient.sql("INSERT INTO chat_sessions (session_id, created_at, last_activity_at, last_seq) " +
+                                  "VALUES (:sessionId, :createdAt, :lastActivityAt, :lastSeq)")
+                .bind("sessionId", session.getSessionId())
+                .bind("createdAt", session.getCreatedAt())
+                .bind("lastActivityAt", session.getLastActivityAt())
+                .bind("lastSeq", session.getLastSeq())
+                .then();
+    }
+
+    public Mono<Boolean> exists(UUID sessionId) {
+        return databaseClient.sql("SELECT 1 FROM chat_sessions WHERE session_id = :sessionId")
+                .bind("sessionId", sessionId)
+                .map(row -> Boolean.TRUE)
+                .first()
+                .hasElement();
+    }
+
+    /**
+     * Reserves the session's next {@code count} sequence numbers and moves its last activity
+     * forward, returning the first of them; empty when the session does not exist. One statement
+     * where the database has {@code FINAL TABLE}, otherwise the update and a read of the counter.
+     * As in {@link JpaChatStore}, the row stays locked until the surrounding transaction commits.
+     */
+    public Mono<Long> reserveSeqs(UUID sessionId, int count, LocalDateTime activityAt) {
+        if (finalTable) {
+            return databaseClient.sql("SELECT last_seq FROM FINAL TABLE (" + RESERVE_SEQS + ")")
+                    .bind("count", count)
+                    .bind("activityAt", activityAt)
+                    .bind("sessionId", sessionId)
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(lastSeq -> lastSeq - count + 1);
+        }
+        return databaseClient.sql(RESERVE_SEQS)
+                .bind("count", count)
+                .bind("activityAt", activityAt)
+                .bind("sessionId", sessionId)
+                .fetch()
+                .rowsUpdated()
+                .filter(updated -> updated > 0)
+                .flatMap(updated -> databaseClient.sql("SELECT last_seq FROM chat_sessions WHERE session_id = :sessionId")
+                        .bind("sessionId", sessionId)
+                        .map(row -> row.get(0, Long.class))
+                        .one())
+                .map(lastSeq -> lastSeq - count + 1);
+    }
+
+    // The products that take FINAL TABLE, by their R2DBC driver names
+    private static boolean supportsFinalTable(String product) {
+        return product.equals("H2") || product.startsWith("DB2");
+    }
+}
@@ -0,0 +1,210 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.ReactiveChatMessageRepository;
+import com.pidima.chatmicroservice.repositories.ReactiveChatSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The core of {@link ChatService} for the reactive API: sessions, messages and history, with every
+ * statement issued over R2DBC so no request ever holds a thread while the database works.
+ *
+ * <p>Writes go straight to the chat tables JPA maintains, with the same sequence reservation as
+ * {@code JpaChatStore}, and publish the same events once committed. The storage engine, sharding,
+ * group commit, the archive and the tail cache are not consulted.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveChatService {
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveChatService.class);
+
+    private final ReactiveChatSessionRepository sessionRepository;
+    private final ReactiveChatMessageRepository messageRepository;
+    private final IdGenerator idGenerator;
+    private final ApplicationEventPublisher eventPublisher;
+    // Built here rather than exposed as a bean, which would compete with the JPA transaction manager
+    private final TransactionalOperator transactionalOperator;
+
+    @Value("${chat.history.default-page-size:50}")
+    private int defaultPageSize = 50;
+
+    @Value("${chat.history.max-page-size:500}")
+    private int maxPageSize = 500;
+
+    @Autowired
+    public ReactiveChatService(ReactiveChatSessionRepository sessionRepository,
+                               ReactiveChatMessageRepository messageRepository,
+                               IdGenerator idGenerator,
+                               ApplicationEventPublisher eventPublisher,
+                               DatabaseClient databaseClient) {
+        this.sessionRepository = sessionRepository;
+        this.messageRepository = messageRepository;
+        this.idGenerator = idGenerator;
+        this.eventPublisher = eventPublisher;
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(
+                databaseClient.getConnectionFactory()));
+    }
+
+    public Mono<ChatSession> createSession(String initialMessage) {
+        ChatSession session = new ChatSession(idGenerator.newId());
+        session.setLastActivityAt(session.getCreatedAt());
+
+        // Add initial message if provided; it is stored atomically with the session
+        ChatMessage message;
+        if (initialMessage != null && !initialMessage.trim().isEmpty()) {
+            message = new ChatMessage(session.getSessionId(), initialMessage, "system");
+            message.setMessageId(idGenerator.newId());
+            message.setSeq(1L);
+            session.setLastSeq(1);
+            if (message.getTimestamp().isAfter(session.getLastActivityAt())) {
+                session.setLastActivityAt(message.getTimestamp());
+            }
+        } else {
+            message = null;
+        }
+
+        Mono<Void> insert = sessionRepository.insert(session);
+        if (message != null) {
+            insert = insert.then(messageRepository.insert(message));
+        }
+        return insert.as(transactionalOperator::transactional)
+                .then(Mono.fromSupplier(() -> {
+                    eventPublisher.publishEvent(new SessionCreatedEvent(session));
+                    if (message != null) {
+                        eventPublisher.publishEvent(new MessageCommittedEvent(message));
+                    }
+                    logger.info("Created chat session with ID: {}", session.getSessionId());
+                    return session;
+                }));
+    }
+
+    // The sequence reservation doubles as the existence check, so a send costs two statements
+    // and the insert
+    public Mono<ChatMessage> sendMessage(String sessionId, String content, String sender) {
+        UUID sessionUuid = IdGenerator.parse(sessionId).orElse(null);
+        if (sessionUuid == null) {
+            return Mono.error(sessionNotFound(sessionId));
+        }
+
+        ChatMessage message = new ChatMessage(sessionUuid, content, sender);
+        message.setMessageId(idGenerator.newId());
+
+        return sessionRepository.reserveSeqs(sessionUuid, 1, message.getTimestamp())
+                .switchIfEmpty(Mono.error(() -> sessionNotFound(sessionId)))
+                .flatMap(seq -> {
+                    message.setSeq(seq);
+                    return messageRepository.insert(message);
+                })
+                .as(transactionalOperator::transactional)
+                .then(Mono.fromSupplier(() -> {
+                    eventPublisher.publishEvent(new MessageCommittedEvent(message));
+                    logger.info("Message sent successfully with ID: {}", message.getMessageId());
+                    return message;
+                }));
+    }
+
+    /**
+     * The whole history of a session, oldest first, streamed from the database at the pace the
+     * client reads it.
+     */
+    public Flux<ChatMessage> getChatHistory(String sessionId) {
+        return requireSession(sessionId).flatMapMany(messageRepository::findMessages);
+    }
+
+    public Mono<ChatHistoryPage> getChatHistoryPage(String sessionId, Integer limit, String after, String before,
+                                                    boolean latest) {
+        return Mono.defer(() -> {
+            if (after != null && before != null) {
+                throw new IllegalArgumentException("Only one of 'after' or 'before' may be specified");
+            }
+            if (latest && (after != null || before != null)) {
+                throw new IllegalArgumentException("'latest' cannot be combined with a cursor");
+            }
+            int pageSize = pageSize(limit);
+            HistoryCursor afterCursor = after != null ? HistoryCursor.decode(after) : null;
+            HistoryCursor beforeCursor = before != null ? HistoryCursor.decode(before) : null;
+
+            // Fetch one extra row to learn whether another page exists without a count query
+            int window = pageSize + 1;
+            return requireSession(sessionId).flatMap(sessionUuid -> {
+                Flux<ChatMessage> rows;
+                if (afterCursor != null) {
+                    rows = messageRepository.findPageAfter(sessionUuid, afterCursor.timestamp(),
+                                                           afterCursor.messageId(), window);
+                } else if (beforeCursor != null) {
+                    rows = messageRepository.findPageBefore(sessionUuid, beforeCursor.timestamp(),
+                                                            beforeCursor.messageId(), window);
+                } else if (latest) {
+                    rows = messageRepository.findLatestPage(sessionUuid, window);
+                } else {
+                    rows = messageRepository.findFirstPage(sessionUuid, window);
+                }
+                boolean descending = beforeCursor != null || latest;
+                return rows.collectList().map(list -> ChatService.toPage(list, pageSize, descending));
+            });
+        });
+    }
+
+    /**
+     * Messages with a sequence number greater than {@code sinceSeq}, oldest first; see
+     * {@link ChatService#getMessagesSince}.
+     */
+    public Mono<ChatHistoryPage> getMessagesSince(String sessionId, long sinceSeq, Integer limit) {
+        return Mono.defer(() -> {
+            if (sinceSeq < 0) {
+                throw new IllegalArgumentException("'sinceSeq' must not be negative");
+            }
+            int pageSize = limit != null ? pageSize(limit) : maxPageSize;
+
+            return requireSession(sessionId)
+                    .flatMapMany(sessionUuid -> messageRepository.findMessagesSince(sessionUuid, sinceSeq,
+                                                                                    pageSize + 1))
+                    .collectList()
+                    .map(rows -> {
+                        boolean hasMore = rows.size() > pageSize;
+                        List<ChatMessage> messages = hasMore ? new ArrayList<>(rows.subList(0, pageSize)) : rows;
+                        return new ChatHistoryPage(messages, null, null, hasMore);
+                    });
+        });
+    }
+
+    private int pageSize(Integer limit) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + maxPageSize);
+        }
+        return pageSize;
+    }
+
+    // An ID that does not parse cannot exist, so it is reported like any other unknown session
+    private Mono<UUID> requireSession(String sessionId) {
+        UUID sessionUuid = IdGenerator.parse(sessionId).orElse(null);
+        if (sessionUuid == null) {
+            return Mono.error(sessionNotFound(sessionId));
+        }
+        return sessionRepository.exists(sessionUuid)
+                .flatMap(exists -> exists ? Mono.just(sessionUuid) : Mono.error(sessionNotFound(sessionId)));
+    }
+
+    private static IllegalArgumentException sessionNotFound(String sessionId) {
+        logger.warn("Session not found: {}", sessionId);
+        return new IllegalArgumentException("Session not found: " + sessionId);
+    }
+}
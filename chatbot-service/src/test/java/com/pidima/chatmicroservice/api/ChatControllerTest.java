@@ -1,24 +1,46 @@
 package com.pidima.chatmicroservice.api;
 
+import com.pidima.chatmicroservice.dto.BulkMessageResult;
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
 import com.pidima.chatmicroservice.dto.CreateSessionRequest;
 import com.pidima.chatmicroservice.dto.SendMessageRequest;
 import com.pidima.chatmicroservice.models.ChatMessage;
 import com.pidima.chatmicroservice.models.ChatSession;
 import com.pidima.chatmicroservice.services.ChatService;
+import com.pidima.chatmicroservice.services.HistoryTailCache;
+import com.pidima.chatmicroservice.services.MessageSubscriber;
+import com.pidima.chatmicroservice.services.MessageSubscription;
+import com.pidima.chatmicroservice.services.RateLimitExceededException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.endsWith;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -29,6 +51,9 @@ class ChatControllerTest {
     @Autowired
     private MockMvc mockMvc;
 
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID MESSAGE_ID = UUID.fromString("01900000-0000-7000-9000-000000000001");
+
     @MockBean
     private ChatService chatService;
 
@@ -40,7 +65,7 @@ class ChatControllerTest {
         // Given
         CreateSessionRequest request = new CreateSessionRequest("Hello world");
         ChatSession mockSession = new ChatSession();
-        mockSession.setSessionId("test-session-id");
+        mockSession.setSessionId(SESSION_ID);
         mockSession.setCreatedAt(LocalDateTime.now());
 
         when(chatService.createSession(anyString())).thenReturn(mockSession);
@@ -50,7 +75,7 @@ class ChatControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.session_id").value("test-session-id"))
+                .andExpect(jsonPath("$.session_id").value(SESSION_ID.toString()))
                 .andExpect(jsonPath("$.created_at").exists());
     }
 
@@ -71,9 +96,9 @@ class ChatControllerTest {
     @Test
     void sendMessage_Success() throws Exception {
         // Given
-        SendMessageRequest request = new SendMessageRequest("session-123", "Hello", "John");
-        ChatMessage mockMessage = new ChatMessage("session-123", "Hello", "John");
-        mockMessage.setMessageId("msg-123");
+        SendMessageRequest request = new SendMessageRequest(SESSION_ID.toString(), "Hello", "John");
+        ChatMessage mockMessage = new ChatMessage(SESSION_ID, "Hello", "John");
+        mockMessage.setMessageId(MESSAGE_ID);
 
         when(chatService.sendMessage(anyString(), anyString(), anyString())).thenReturn(mockMessage);
 
@@ -82,8 +107,8 @@ class ChatControllerTest {
                 .contentType(MediaType.APPLICATION_JSON)
                 .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isCreated())
-                .andExpect(jsonPath("$.message_id").value("msg-123"))
-                .andExpect(jsonPath("$.session_id").value("session-123"))
+                .andExpect(jsonPath("$.message_id").value(MESSAGE_ID.toString()))
+                .andExpect(jsonPath("$.session_id").value(SESSION_ID.toString()))
                 .andExpect(jsonPath("$.content").value("Hello"))
                 .andExpect(jsonPath("$.sender").value("John"));
     }
@@ -91,7 +116,7 @@ class ChatControllerTest {
     @Test
     void sendMessage_ValidationError_EmptyContent() throws Exception {
         // Given - request with empty content
-        SendMessageRequest request = new SendMessageRequest("session-123", "", "John");
+        SendMessageRequest request = new SendMessageRequest(SESSION_ID.toString(), "", "John");
 
         // When & Then
         mockMvc.perform(post("/chat/message")
@@ -105,7 +130,7 @@ class ChatControllerTest {
     @Test
     void sendMessage_ValidationError_MissingSender() throws Exception {
         // Given - request without sender
-        SendMessageRequest request = new SendMessageRequest("session-123", "Hello", null);
+        SendMessageRequest request = new SendMessageRequest(SESSION_ID.toString(), "Hello", null);
 
         // When & Then
         mockMvc.perform(post("/chat/message")
@@ -116,13 +141,75 @@ class ChatControllerTest {
                 .andExpect(jsonPath("$.validation_errors.sender").exists());
     }
 
+    @Test
+    void sendMessage_RateLimitedReturnsTooManyRequests() throws Exception {
+        // Given
+        SendMessageRequest request = new SendMessageRequest(SESSION_ID.toString(), "Hello", "John");
+        when(chatService.sendMessage(anyString(), anyString(), anyString()))
+                .thenThrow(new RateLimitExceededException("Rate limit exceeded for sender: John",
+                                                          Duration.ofMillis(1500)));
+
+        // When & Then: Retry-After is rounded up to whole seconds
+        mockMvc.perform(post("/chat/message")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.message").value("Rate limit exceeded for sender: John"));
+    }
+
+    @Test
+    void sendMessages_AllCreated() throws Exception {
+        // Given
+        List<SendMessageRequest> requests = List.of(
+                new SendMessageRequest(SESSION_ID.toString(), "Hello", "John"),
+                new SendMessageRequest(SESSION_ID.toString(), "Hi there!", "Jane")
+        );
+        BulkSendMessageResponse response = new BulkSendMessageResponse(2, 0, List.of(
+                BulkMessageResult.created(0, "msg-1", SESSION_ID.toString(), LocalDateTime.now()),
+                BulkMessageResult.created(1, "msg-2", SESSION_ID.toString(), LocalDateTime.now())
+        ));
+        when(chatService.sendMessages(requests)).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/chat/messages")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.results[1].message_id").value("msg-2"));
+    }
+
+    @Test
+    void sendMessages_PartialFailureReturnsMultiStatus() throws Exception {
+        // Given
+        List<SendMessageRequest> requests = List.of(
+                new SendMessageRequest(SESSION_ID.toString(), "Hello", "John"),
+                new SendMessageRequest("missing", "Hello", "John")
+        );
+        BulkSendMessageResponse response = new BulkSendMessageResponse(1, 1, List.of(
+                BulkMessageResult.created(0, "msg-1", SESSION_ID.toString(), LocalDateTime.now()),
+                BulkMessageResult.rejected(1, "missing", "Session not found: missing", null)
+        ));
+        when(chatService.sendMessages(requests)).thenReturn(response);
+
+        // When & Then
+        mockMvc.perform(post("/chat/messages")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isMultiStatus())
+                .andExpect(jsonPath("$.rejected").value(1))
+                .andExpect(jsonPath("$.results[1].status").value(400))
+                .andExpect(jsonPath("$.results[1].error").value("Session not found: missing"));
+    }
+
     @Test
     void getChatHistory_Success() throws Exception {
         // Given
-        String sessionId = "session-123";
+        String sessionId = SESSION_ID.toString();
         List<ChatMessage> mockMessages = Arrays.asList(
-                new ChatMessage(sessionId, "Hello", "John"),
-                new ChatMessage(sessionId, "Hi there!", "Jane")
+                new ChatMessage(SESSION_ID, "Hello", "John"),
+                new ChatMessage(SESSION_ID, "Hi there!", "Jane")
         );
 
         when(chatService.getChatHistory(sessionId)).thenReturn(mockMessages);
@@ -150,4 +237,256 @@ class ChatControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.message").value("Session not found: " + sessionId));
     }
+
+    @Test
+    void getChatHistory_PagedWithCursorHeaders() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> mockMessages = Arrays.asList(
+                new ChatMessage(SESSION_ID, "Hello", "John"),
+                new ChatMessage(SESSION_ID, "Hi there!", "Jane")
+        );
+        ChatHistoryPage page = new ChatHistoryPage(mockMessages, "next-cursor", "prev-cursor", true);
+
+        when(chatService.getChatHistoryPage(sessionId, 2, null, null, true)).thenReturn(page);
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId)
+                        .param("limit", "2")
+                        .param("latest", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "next-cursor"))
+                .andExpect(header().string("X-Prev-Cursor", "prev-cursor"))
+                .andExpect(header().string("X-Has-More", "true"))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+    }
+
+    @Test
+    void getChatHistory_InvalidCursor() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.getChatHistoryPage(anyString(), isNull(), anyString(), isNull(), any(Boolean.class)))
+                .thenThrow(new IllegalArgumentException("Invalid cursor: bogus"));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId).param("after", "bogus"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: bogus"));
+    }
+
+    @Test
+    void exportChatHistory_StreamsNdjson() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        ChatMessage first = new ChatMessage(SESSION_ID, "Hello", "John");
+        first.setMessageId(MESSAGE_ID);
+        ChatMessage second = new ChatMessage(SESSION_ID, "Hi there!", "Jane");
+        second.setMessageId(UUID.fromString("01900000-0000-7000-9000-000000000002"));
+
+        when(chatService.getSession(sessionId)).thenReturn(Optional.of(new ChatSession(SESSION_ID)));
+        when(chatService.exportChatHistory(eq(sessionId), any())).thenAnswer(invocation -> {
+            Consumer<ChatMessage> sink = invocation.getArgument(1);
+            sink.accept(first);
+            sink.accept(second);
+            return 2L;
+        });
+
+        // When
+        MvcResult result = mockMvc.perform(get("/chat/history/" + sessionId + "/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Then
+        String expected = objectMapper.writeValueAsString(first) + "\n"
+                + objectMapper.writeValueAsString(second) + "\n";
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(expected));
+    }
+
+    @Test
+    void exportChatHistory_NegotiatedOnHistoryEndpoint() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.getSession(sessionId)).thenReturn(Optional.of(new ChatSession(SESSION_ID)));
+        when(chatService.exportChatHistory(eq(sessionId), any())).thenReturn(0L);
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId).accept("application/x-ndjson"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void getChatHistory_DefaultsToJsonForWildcardAccept() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.getChatHistory(sessionId)).thenReturn(List.of());
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId).accept(MediaType.ALL))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$").isArray());
+    }
+
+    @Test
+    void getChatHistory_SinceSeq() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        ChatMessage message = new ChatMessage(SESSION_ID, "Hi there!", "Jane");
+        message.setSeq(8L);
+        when(chatService.getMessagesSince(sessionId, 7, null))
+                .thenReturn(new ChatHistoryPage(List.of(message), null, null, false));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId).param("sinceSeq", "7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-More", "false"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].seq").value(8));
+    }
+
+    @Test
+    void getChatHistory_SinceSeqWithCursorIsRejected() throws Exception {
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + SESSION_ID).param("sinceSeq", "7").param("latest", "true"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("'sinceSeq' cannot be combined with a cursor or 'latest'"));
+    }
+
+    @Test
+    void getChatHistory_ServesCachedTail() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        byte[] body = "[{\"content\":\"Hello\",\"sender\":\"John\"}]".getBytes();
+        when(chatService.getCachedHistory(sessionId, false, null))
+                .thenReturn(Optional.of(new HistoryTailCache.Snapshot(MESSAGE_ID.toString(), body, null, null, false)));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + MESSAGE_ID + "\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+        verify(chatService, never()).getChatHistory(anyString());
+    }
+
+    @Test
+    void getChatHistory_NotModified() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.getCachedHistory(sessionId, false, null))
+                .thenReturn(Optional.of(new HistoryTailCache.Snapshot(MESSAGE_ID.toString(), null, null, null, false)));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId).header("If-None-Match", "\"" + MESSAGE_ID + "\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"" + MESSAGE_ID + "\""))
+                .andExpect(content().string(""));
+        verify(chatService, never()).getChatHistory(anyString());
+    }
+
+    @Test
+    void getChatHistory_LatestPageFromCacheCarriesCursors() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        byte[] body = "[{\"content\":\"Hi there!\"}]".getBytes();
+        when(chatService.getCachedHistory(sessionId, true, 1))
+                .thenReturn(Optional.of(new HistoryTailCache.Snapshot("latest-1", body, "next-cursor", "prev-cursor", true)));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId)
+                        .param("limit", "1")
+                        .param("latest", "true"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"latest-1\""))
+                .andExpect(header().string("X-Next-Cursor", "next-cursor"))
+                .andExpect(header().string("X-Prev-Cursor", "prev-cursor"))
+                .andExpect(header().string("X-Has-More", "true"))
+                .andExpect(jsonPath("$[0].content").value("Hi there!"));
+    }
+
+    @Test
+    void getChatHistory_TagsStoreResponseWhenTailIsIncomplete() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.getCachedHistory(sessionId, false, null))
+                .thenReturn(Optional.of(new HistoryTailCache.Snapshot(MESSAGE_ID.toString(), null, null, null, false)));
+        when(chatService.getChatHistory(sessionId)).thenReturn(List.of(new ChatMessage(SESSION_ID, "Hello", "John")));
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"" + MESSAGE_ID + "\""))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+    }
+
+    @Test
+    void exportChatHistory_SessionNotFound() throws Exception {
+        // Given
+        String sessionId = "non-existent-session";
+        when(chatService.getSession(sessionId)).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/chat/history/" + sessionId + "/export"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Session not found: " + sessionId));
+    }
+
+    @Test
+    void subscribe_PassesLastEventIdHeader() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        when(chatService.subscribe(eq(sessionId), eq("msg-9"), any())).thenReturn(mock(MessageSubscription.class));
+
+        // When & Then
+        mockMvc.perform(get("/chat/subscribe/" + sessionId)
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header("Last-Event-ID", "msg-9"))
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void subscribe_WritesSubscriptionAsServerSentEvents() throws Exception {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        MessageSubscription subscription = mock(MessageSubscription.class);
+        ArgumentCaptor<MessageSubscriber> subscriber = ArgumentCaptor.forClass(MessageSubscriber.class);
+        when(chatService.subscribe(eq(sessionId), isNull(), subscriber.capture())).thenReturn(subscription);
+        ChatMessage message = new ChatMessage(SESSION_ID, "Hello", "user");
+        message.setMessageId(MESSAGE_ID);
+
+        // When
+        MvcResult result = mockMvc.perform(get("/chat/subscribe/" + sessionId).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        subscriber.getValue().opened();
+        subscriber.getValue().message(message);
+        subscriber.getValue().heartbeat();
+        subscriber.getValue().completed();
+
+        // Then
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(content().string(allOf(
+                        startsWith("retry:2000\n:subscribed\n\n"),
+                        containsString("id:" + MESSAGE_ID + "\nevent:message\ndata:{"),
+                        endsWith(":keepalive\n\n"))));
+        verify(subscription).cancel();
+    }
+
+    @Test
+    void subscribe_SessionNotFound() throws Exception {
+        // Given
+        String sessionId = "non-existent-session";
+        when(chatService.subscribe(eq(sessionId), isNull(), any()))
+                .thenThrow(new IllegalArgumentException("Session not found: " + sessionId));
+
+        // When & Then
+        mockMvc.perform(get("/chat/subscribe/" + sessionId))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Session not found: " + sessionId));
+    }
 }
\ No newline at end of file
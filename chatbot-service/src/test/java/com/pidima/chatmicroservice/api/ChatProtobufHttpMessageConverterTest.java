@@ -0,0 +1,155 @@
+package com.pidima.chatmicroservice.api;
+
+import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedOutputStream;
+import com.pidima.chatmicroservice.dto.CreateSessionResponse;
+import com.pidima.chatmicroservice.dto.ErrorResponse;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Type;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatProtobufHttpMessageConverterTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final Type MESSAGE_LIST = ResolvableType.forClassWithGenerics(List.class, ChatMessage.class)
+            .getType();
+
+    private final ChatProtobufHttpMessageConverter converter = new ChatProtobufHttpMessageConverter();
+
+    @Test
+    void history_RoundTrips() throws Exception {
+        // Given
+        List<ChatMessage> messages = List.of(message(1, "Hello"), message(2, "caf\u00e9 \u2615"));
+
+        // When
+        @SuppressWarnings("unchecked")
+        List<ChatMessage> decoded = (List<ChatMessage>) converter.decode(MESSAGE_LIST, stream(messages));
+
+        // Then
+        assertEquals(messages, decoded);
+    }
+
+    @Test
+    void history_EncodesIdsAsSixteenBytes() throws Exception {
+        // Given
+        ChatMessage message = message(1, "Hello");
+
+        // When
+        byte[] encoded = encode(message);
+
+        // Then - two IDs (2 + 16 each), content (2 + 5), sender (2 + 4), timestamp (1 + 8), seq (1 + 1)
+        assertEquals(60, encoded.length);
+        // and in a ChatHistory, one tag and one length byte more
+        assertEquals(62, encode(List.of(message)).length);
+    }
+
+    @Test
+    void sendMessageRequest_KeepsMalformedSessionIdAsText() throws Exception {
+        // Given - a client that sends the ID as text rather than 16 bytes
+        SendMessageRequest request = new SendMessageRequest("not-a-uuid", "Hello", "user");
+        ByteString bytes = ByteString.copyFromUtf8(request.getSessionId());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CodedOutputStream coded = CodedOutputStream.newInstance(out);
+        coded.writeBytes(1, bytes);
+        coded.writeString(2, "Hello");
+        coded.writeString(3, "user");
+        coded.flush();
+
+        // When
+        SendMessageRequest decoded = (SendMessageRequest) converter.decode(SendMessageRequest.class,
+                new ByteArrayInputStream(out.toByteArray()));
+
+        // Then - the service answers it with "Session not found", as for JSON
+        assertEquals(request, decoded);
+    }
+
+    @Test
+    void createSessionResponse_RoundTripsAndSkipsUnknownFields() throws Exception {
+        // Given
+        CreateSessionResponse response = new CreateSessionResponse(SESSION_ID.toString(),
+                LocalDateTime.of(1969, 12, 31, 23, 59, 59, 999_999_000));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.encode(response, out);
+        // a field from a newer schema
+        CodedOutputStream coded = CodedOutputStream.newInstance(out);
+        coded.writeString(15, "future");
+        coded.flush();
+
+        // When
+        Object decoded = converter.decode(CreateSessionResponse.class, new ByteArrayInputStream(out.toByteArray()));
+
+        // Then
+        assertEquals(response, decoded);
+    }
+
+    @Test
+    void errorResponse_RoundTripsValidationErrors() throws Exception {
+        // Given
+        ErrorResponse error = new ErrorResponse(400, "Validation failed", LocalDateTime.of(2025, 9, 21, 9, 51),
+                                                Map.of("content", "Message content is required"));
+
+        // When
+        Object decoded = converter.decode(ErrorResponse.class, stream(error));
+
+        // Then
+        assertEquals(error, decoded);
+    }
+
+    @Test
+    void errorResponse_OmitsAbsentFields() throws Exception {
+        // Given
+        ErrorResponse error = new ErrorResponse(500, null, null);
+
+        // When
+        ErrorResponse decoded = (ErrorResponse) converter.decode(ErrorResponse.class, stream(error));
+
+        // Then
+        assertEquals(500, decoded.getStatus());
+        assertNull(decoded.getMessage());
+        assertNull(decoded.getValidationErrors());
+    }
+
+    @Test
+    void canWrite_OnlyChatTypes() {
+        // Then
+        assertTrue(converter.canWrite(CreateSessionResponse.class, ChatProtobufHttpMessageConverter.PROTOBUF));
+        assertFalse(converter.canWrite(String.class, ChatProtobufHttpMessageConverter.PROTOBUF));
+        assertFalse(converter.canRead(MESSAGE_LIST, null, MediaType.APPLICATION_JSON));
+        assertThrows(HttpMessageNotWritableException.class, () -> encode(List.of("not a message")));
+    }
+
+    private ByteArrayInputStream stream(Object value) throws Exception {
+        return new ByteArrayInputStream(encode(value));
+    }
+
+    private byte[] encode(Object value) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        converter.encode(value, out);
+        return out.toByteArray();
+    }
+
+    private static ChatMessage message(long seq, String content) {
+        ChatMessage message = new ChatMessage(SESSION_ID, content, "user");
+        message.setMessageId(new UUID(0x0190000000007000L, 0x9000000000000000L | seq));
+        message.setSeq(seq);
+        message.setTimestamp(LocalDateTime.of(2025, 9, 21, 9, 51, 23, 795_867_000).plusSeconds(seq));
+        return message;
+    }
+}
@@ -0,0 +1,169 @@
+package com.pidima.chatmicroservice.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.pidima.chatmicroservice.config.WireFormatConfiguration;
+import com.pidima.chatmicroservice.dto.ErrorResponse;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.services.ChatService;
+import com.pidima.chatmicroservice.services.HistoryTailCache;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(ChatController.class)
+@Import(WireFormatConfiguration.class)
+class WireFormatTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID MESSAGE_ID = UUID.fromString("01900000-0000-7000-9000-000000000001");
+    private static final MediaType CBOR = MediaType.APPLICATION_CBOR;
+    private static final MediaType PROTOBUF = ChatProtobufHttpMessageConverter.PROTOBUF;
+
+    private final ChatProtobufHttpMessageConverter protobuf = new ChatProtobufHttpMessageConverter();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private ChatService chatService;
+
+    @Test
+    void sendMessage_ProtobufRequestAndResponse() throws Exception {
+        // Given
+        ChatMessage message = message("Hello");
+        when(chatService.sendMessage(SESSION_ID.toString(), "Hello", "user")).thenReturn(message);
+
+        // When
+        MvcResult result = mockMvc.perform(post("/chat/message")
+                        .contentType(PROTOBUF)
+                        .accept(PROTOBUF)
+                        .content(encode(new SendMessageRequest(SESSION_ID.toString(), "Hello", "user"))))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentType(PROTOBUF))
+                .andReturn();
+
+        // Then
+        SendMessageResponse response = (SendMessageResponse) protobuf.decode(SendMessageResponse.class,
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(MESSAGE_ID.toString(), response.getMessageId());
+        assertEquals(SESSION_ID.toString(), response.getSessionId());
+        assertEquals("Hello", response.getContent());
+        assertEquals(message.getTimestamp(), response.getTimestamp());
+    }
+
+    @Test
+    void sendMessage_ProtobufValidationErrorIsProtobuf() throws Exception {
+        // When
+        MvcResult result = mockMvc.perform(post("/chat/message")
+                        .contentType(PROTOBUF)
+                        .accept(PROTOBUF)
+                        .content(encode(new SendMessageRequest(SESSION_ID.toString(), "", "user"))))
+                .andExpect(status().isBadRequest())
+                .andExpect(content().contentType(PROTOBUF))
+                .andReturn();
+
+        // Then
+        ErrorResponse error = (ErrorResponse) protobuf.decode(ErrorResponse.class,
+                new ByteArrayInputStream(result.getResponse().getContentAsByteArray()));
+        assertEquals(400, error.getStatus());
+        assertEquals("Validation failed", error.getMessage());
+        assertTrue(error.getValidationErrors().containsKey("content"));
+        verify(chatService, never()).sendMessage(anyString(), anyString(), anyString());
+    }
+
+    @Test
+    void getChatHistory_CborBypassesTheJsonTailCache() throws Exception {
+        // Given
+        when(chatService.getChatHistory(SESSION_ID.toString())).thenReturn(List.of(message("Hello")));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/chat/history/" + SESSION_ID).accept(CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(CBOR))
+                .andReturn();
+
+        // Then - same field names as the JSON form
+        JsonNode history = new ObjectMapper(new CBORFactory()).readTree(result.getResponse().getContentAsByteArray());
+        assertEquals("Hello", history.get(0).get("content").asText());
+        assertEquals(MESSAGE_ID.toString(), history.get(0).get("message_id").asText());
+        verify(chatService, never()).getCachedHistory(anyString(), anyBoolean(), any());
+    }
+
+    @Test
+    void getChatHistory_PreferredJsonUsesTheTailCacheWhateverTheOrder() throws Exception {
+        // Given
+        byte[] body = "[{\"content\":\"Hello\"}]".getBytes();
+        when(chatService.getCachedHistory(SESSION_ID.toString(), false, null))
+                .thenReturn(Optional.of(new HistoryTailCache.Snapshot(MESSAGE_ID.toString(), body, null, null, false)));
+
+        // When & Then - CBOR is listed first but with a lower quality
+        mockMvc.perform(get("/chat/history/" + SESSION_ID).header("Accept", "application/cbor;q=0.5, application/json"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].content").value("Hello"));
+        verify(chatService, never()).getChatHistory(anyString());
+    }
+
+    @Test
+    void createSession_AnyAcceptStillGetsJson() throws Exception {
+        // Given
+        ChatSession session = new ChatSession();
+        session.setSessionId(SESSION_ID);
+        session.setCreatedAt(LocalDateTime.now());
+        when(chatService.createSession(any())).thenReturn(session);
+
+        // When & Then
+        mockMvc.perform(post("/chat/session")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.ALL)
+                        .content("{}"))
+                .andExpect(status().isCreated())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.session_id").value(SESSION_ID.toString()));
+    }
+
+    private byte[] encode(Object value) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        protobuf.encode(value, out);
+        return out.toByteArray();
+    }
+
+    private static ChatMessage message(String content) {
+        ChatMessage message = new ChatMessage(SESSION_ID, content, "user");
+        message.setMessageId(MESSAGE_ID);
+        message.setSeq(1L);
+        message.setTimestamp(LocalDateTime.of(2025, 9, 21, 9, 51, 23, 795_867_000));
+        return message;
+    }
+}
@@ -0,0 +1,199 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pidima.chatmicroservice.services.IdGenerator;
+import com.pidima.chatmicroservice.services.RandomIdGenerator;
+import com.pidima.chatmicroservice.services.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares today's key scheme (random UUID strings in VARCHAR columns) with random and
+ * time-ordered UUIDs in 16-byte UUID columns: bulk insert rate, primary-key lookup rate and the
+ * on-disk size of a chat_messages-shaped table with its secondary index. Also measures raw ID
+ * generation throughput under contention.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test -Dtest=IdStrategyBenchmarkTest -Dbench.rows=1000000
+ * </pre>
+ *
+ * Results are printed and written to target/benchmarks/id-strategy.json.
+ */
+@Tag("benchmark")
+class IdStrategyBenchmarkTest {
+
+    private static final int ROWS = Integer.getInteger("bench.rows", 500_000);
+    private static final int LOOKUPS = Integer.getInteger("bench.lookups", 100_000);
+    private static final int SESSIONS = 1_000;
+    private static final int BATCH_SIZE = 1_000;
+    private static final int GENERATOR_THREADS = 8;
+    private static final int IDS_PER_THREAD = 1_000_000;
+
+    private static final Path WORK_DIR = Path.of("target", "benchmarks", "id-strategy");
+
+    @Test
+    void compareIdStrategies() throws Exception {
+        FileSystemUtils.deleteRecursively(WORK_DIR);
+        Files.createDirectories(WORK_DIR);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rows", ROWS);
+        report.put("lookups", LOOKUPS);
+        report.put("random-varchar", runStorage("random-varchar", new RandomIdGenerator(), false));
+        report.put("random-uuid", runStorage("random-uuid", new RandomIdGenerator(), true));
+        report.put("v7-uuid", runStorage("v7-uuid", new TimeOrderedIdGenerator(), true));
+
+        Map<String, Object> generation = new LinkedHashMap<>();
+        generation.put("random_ids_per_sec", generationRate(new RandomIdGenerator()));
+        generation.put("v7_ids_per_sec", generationRate(new TimeOrderedIdGenerator()));
+        report.put("generation_" + GENERATOR_THREADS + "_threads", generation);
+        System.out.println("[id-strategy] generation " + generation);
+
+        Path output = Path.of("target", "benchmarks", "id-strategy.json");
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("[id-strategy] results written to " + output.toAbsolutePath());
+    }
+
+    private Map<String, Object> runStorage(String name, IdGenerator generator, boolean binary)
+            throws SQLException, IOException {
+        String url = "jdbc:h2:file:" + WORK_DIR.resolve(name).toAbsolutePath();
+        String keyType = binary ? "UUID" : "VARCHAR(36)";
+        List<UUID> sessions = new ArrayList<>();
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(generator.newId());
+        }
+        List<UUID> sample = new ArrayList<>();
+        int sampleEvery = Math.max(1, ROWS / LOOKUPS);
+
+        long insertNanos;
+        try (Connection connection = DriverManager.getConnection(url, "sa", "")) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TABLE chat_messages (message_id " + keyType + " PRIMARY KEY, "
+                        + "session_id " + keyType + " NOT NULL, timestamp TIMESTAMP(6) NOT NULL, "
+                        + "content VARCHAR(1000) NOT NULL, sender VARCHAR(255) NOT NULL)");
+                statement.execute("CREATE INDEX idx_chat_messages_session_timestamp "
+                        + "ON chat_messages (session_id, timestamp, message_id)");
+            }
+            connection.setAutoCommit(false);
+
+            long start = System.nanoTime();
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT INTO chat_messages VALUES (?, ?, ?, ?, ?)")) {
+                LocalDateTime now = LocalDateTime.now();
+                for (int i = 0; i < ROWS; i++) {
+                    UUID id = generator.newId();
+                    bindKey(insert, 1, id, binary);
+                    bindKey(insert, 2, sessions.get(i % SESSIONS), binary);
+                    insert.setTimestamp(3, Timestamp.valueOf(now.plusNanos(i * 1000L)));
+                    insert.setString(4, "benchmark message " + i);
+                    insert.setString(5, "bench");
+                    insert.addBatch();
+                    if (i % sampleEvery == 0) {
+                        sample.add(id);
+                    }
+                    if ((i + 1) % BATCH_SIZE == 0) {
+                        insert.executeBatch();
+                        connection.commit();
+                    }
+                }
+                insert.executeBatch();
+                connection.commit();
+            }
+            insertNanos = System.nanoTime() - start;
+        }
+
+        long lookupNanos;
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT content FROM chat_messages WHERE message_id = ?")) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long start = System.nanoTime();
+            for (int i = 0; i < LOOKUPS; i++) {
+                bindKey(select, 1, sample.get(random.nextInt(sample.size())), binary);
+                try (ResultSet rs = select.executeQuery()) {
+                    if (!rs.next()) {
+                        throw new IllegalStateException("Missing row");
+                    }
+                }
+            }
+            lookupNanos = System.nanoTime() - start;
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+        }
+        long sizeBytes = Files.size(WORK_DIR.resolve(name + ".mv.db"));
+
+        try (Connection connection = DriverManager.getConnection(url, "sa", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN COMPACT");
+        }
+        long compactedBytes = Files.size(WORK_DIR.resolve(name + ".mv.db"));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("inserts_per_sec", Math.round(ROWS / (insertNanos / 1e9)));
+        result.put("lookups_per_sec", Math.round(LOOKUPS / (lookupNanos / 1e9)));
+        result.put("file_mb", megabytes(sizeBytes));
+        result.put("compacted_mb", megabytes(compactedBytes));
+        System.out.printf("[id-strategy] %-15s inserts=%d/s lookups=%d/s file=%.1fMB compacted=%.1fMB%n", name,
+                result.get("inserts_per_sec"), result.get("lookups_per_sec"), megabytes(sizeBytes),
+                megabytes(compactedBytes));
+        return result;
+    }
+
+    private static void bindKey(PreparedStatement statement, int index, UUID id, boolean binary) throws SQLException {
+        if (binary) {
+            statement.setObject(index, id);
+        } else {
+            statement.setString(index, id.toString());
+        }
+    }
+
+    private static long generationRate(IdGenerator generator) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(GENERATOR_THREADS);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < GENERATOR_THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    long checksum = 0;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        checksum += generator.newId().getLeastSignificantBits();
+                    }
+                    return checksum;
+                }));
+            }
+            for (Future<Long> result : results) {
+                result.get();
+            }
+            return Math.round((long) GENERATOR_THREADS * IDS_PER_THREAD / ((System.nanoTime() - start) / 1e9));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static double megabytes(long bytes) {
+        return Math.round(bytes / 1024.0 / 102.4) / 10.0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * DataSource decorator that adds a fixed delay to every statement execution, standing in for a
+ * database that is slow to answer. The delay is a plain sleep, so it blocks the calling thread the
+ * same way waiting on a socket would.
+ */
+class SlowDataSource extends DelegatingDataSource {
+
+    private final long latencyMillis;
+
+    SlowDataSource(DataSource target, Duration latency) {
+        super(target);
+        this.latencyMillis = latency.toMillis();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return slowConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return slowConnection(super.getConnection(username, password));
+    }
+
+    private Connection slowConnection(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    if (result instanceof Statement statement && method.getReturnType().isInterface()) {
+                        return slowStatement(statement, method.getReturnType());
+                    }
+                    return result;
+                });
+    }
+
+    private Object slowStatement(Statement statement, Class<?> statementType) {
+        return Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{statementType},
+                (proxy, method, args) -> {
+                    if (method.getName().startsWith("execute")) {
+                        Thread.sleep(latencyMillis);
+                    }
+                    return invoke(statement, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
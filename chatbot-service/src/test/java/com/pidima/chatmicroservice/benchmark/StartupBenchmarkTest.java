@@ -0,0 +1,310 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Measures how long a fresh instance takes to serve traffic in each startup mode: the executable
+ * jar, an unpacked class path with an AppCDS archive (as in the Docker image), the same with Spring
+ * AOT, and the GraalVM native executable. For every mode it reports the time until
+ * /actuator/health answers, the context start time Spring logs, and the latency of the first
+ * session creation, message and history read, with the savings against the plain jar.
+ *
+ * <pre>
+ * ./mvnw -Paot package -DskipTests
+ * ./mvnw -Pnative native:compile -DskipTests    # optional, needs GraalVM
+ * ./mvnw -Pbenchmark test -Dtest=StartupBenchmarkTest -Dbench.runs=5
+ * </pre>
+ *
+ * Modes whose artifacts are missing (a jar built without -Paot, no native executable) are reported
+ * as skipped. Each run starts a new process; medians are printed and written to
+ * target/benchmarks/startup.json.
+ */
+@Tag("benchmark")
+class StartupBenchmarkTest {
+
+    private static final int RUNS = Integer.getInteger("bench.runs", 5);
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(2);
+    private static final Path TARGET = Path.of("target");
+    private static final Path WORK_DIR = TARGET.resolve("benchmarks").resolve("startup");
+    private static final String MAIN_CLASS = "com.pidima.chatmicroservice.config.ChatMicroserviceApplication";
+    // Present in the jar only when it was built with the aot profile
+    private static final String AOT_INITIALIZER =
+            "BOOT-INF/classes/com/pidima/chatmicroservice/config/ChatMicroserviceApplication__ApplicationContextInitializer.class";
+    private static final Pattern STARTED = Pattern.compile("Started ChatMicroserviceApplication in ([0-9.]+) seconds");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String java = ProcessHandle.current().info().command().orElse("java");
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+
+    @Test
+    void compareStartupModes() throws Exception {
+        Path jar = executableJar();
+        assumeTrue(jar != null, "No executable jar in target/; run ./mvnw package first");
+        FileSystemUtils.deleteRecursively(WORK_DIR);
+        Files.createDirectories(WORK_DIR);
+
+        boolean aotProcessed;
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            aotProcessed = jarFile.getEntry(AOT_INITIALIZER) != null;
+        }
+        String classpath = unpack(jar);
+
+        Map<String, Object> modes = new LinkedHashMap<>();
+        Map<String, Double> baseline = measure("jar", command("-jar", jar.toString()));
+        modes.put("jar", baseline);
+        modes.put("cds", measure("cds", cdsCommand("cds", classpath, false)));
+        if (aotProcessed) {
+            modes.put("aot", measure("aot", command("-Dspring.aot.enabled=true", "-cp", classpath, MAIN_CLASS)));
+            modes.put("aot+cds", measure("aot+cds", cdsCommand("aot-cds", classpath, true)));
+        } else {
+            System.out.println("[startup] aot: skipped (jar was not built with -Paot)");
+            modes.put("aot", "skipped: build the jar with -Paot");
+            modes.put("aot+cds", "skipped: build the jar with -Paot");
+        }
+        Path executable = TARGET.resolve("chat-microservice");
+        if (Files.isExecutable(executable)) {
+            modes.put("native", measure("native", List.of(executable.toAbsolutePath().toString())));
+        } else {
+            System.out.println("[startup] native: skipped (no target/chat-microservice)");
+            modes.put("native", "skipped: build with -Pnative native:compile");
+        }
+
+        for (Map.Entry<String, Object> mode : modes.entrySet()) {
+            if (mode.getValue() instanceof Map<?, ?> && !mode.getKey().equals("jar")) {
+                @SuppressWarnings("unchecked")
+                Map<String, Double> result = (Map<String, Double>) mode.getValue();
+                Map<String, Double> saved = new LinkedHashMap<>();
+                baseline.forEach((metric, value) -> saved.put(metric, round(value - result.get(metric))));
+                result.put("saved_ready_ms", saved.get("ready_ms"));
+                result.put("saved_first_requests_ms", round(saved.get("first_session_ms")
+                        + saved.get("first_message_ms") + saved.get("first_history_ms")));
+                System.out.printf("[startup] %-8s saves %.0fms to ready, %.1fms on the first requests%n",
+                        mode.getKey(), result.get("saved_ready_ms"), result.get("saved_first_requests_ms"));
+            }
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("runs", RUNS);
+        report.put("java", Runtime.version().toString());
+        report.put("modes", modes);
+        Path output = TARGET.resolve("benchmarks").resolve("startup.json");
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("[startup] results written to " + output.toAbsolutePath());
+    }
+
+    // The Docker image's layout: application classes in one jar, dependencies next to it, and an
+    // archive from a training run that exits as soon as the context is refreshed
+    private List<String> cdsCommand(String name, String classpath, boolean aot) throws Exception {
+        Path archive = WORK_DIR.resolve(name + ".jsa").toAbsolutePath();
+        List<String> options = new ArrayList<>(List.of("-cp", classpath));
+        if (aot) {
+            options.add(0, "-Dspring.aot.enabled=true");
+        }
+
+        List<String> training = new ArrayList<>(List.of(java, "-XX:ArchiveClassesAtExit=" + archive,
+                                                        "-Dspring.context.exit=onRefresh"));
+        training.addAll(options);
+        training.add(MAIN_CLASS);
+        Process process = new ProcessBuilder(training)
+                .redirectErrorStream(true)
+                .redirectOutput(WORK_DIR.resolve(name + "-training.log").toFile())
+                .start();
+        if (!process.waitFor(STARTUP_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS) || !Files.exists(archive)) {
+            process.destroyForcibly();
+            throw new IllegalStateException("CDS training run failed; see " + name + "-training.log");
+        }
+
+        List<String> command = new ArrayList<>(List.of(java, "-XX:SharedArchiveFile=" + archive));
+        command.addAll(options);
+        command.add(MAIN_CLASS);
+        return command;
+    }
+
+    private Map<String, Double> measure(String mode, List<String> command) throws Exception {
+        Map<String, List<Double>> samples = new LinkedHashMap<>();
+        for (int run = 0; run < RUNS; run++) {
+            run(mode, run, command).forEach((metric, value) ->
+                    samples.computeIfAbsent(metric, key -> new ArrayList<>()).add(value));
+        }
+        Map<String, Double> medians = new LinkedHashMap<>();
+        samples.forEach((metric, values) -> medians.put(metric, round(median(values))));
+        System.out.printf("[startup] %-8s ready=%.0fms context=%.0fms first session=%.1fms message=%.1fms history=%.1fms%n",
+                mode, medians.get("ready_ms"), medians.get("context_started_ms"), medians.get("first_session_ms"),
+                medians.get("first_message_ms"), medians.get("first_history_ms"));
+        return medians;
+    }
+
+    private Map<String, Double> run(String mode, int run, List<String> command) throws Exception {
+        int port = freePort();
+        String baseUrl = "http://localhost:" + port;
+        List<String> arguments = new ArrayList<>(command);
+        arguments.add("--server.port=" + port);
+        Path log = WORK_DIR.resolve(mode.replace('+', '-') + "-" + run + ".log");
+
+        long started = System.nanoTime();
+        Process process = new ProcessBuilder(arguments)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        try {
+            awaitHealthy(process, baseUrl, log);
+            Map<String, Double> result = new LinkedHashMap<>();
+            result.put("ready_ms", (System.nanoTime() - started) / 1e6);
+            result.put("context_started_ms", contextStartedMillis(log));
+
+            long start = System.nanoTime();
+            HttpResponse<String> session = client.send(post(baseUrl + "/chat/session",
+                    "{\"initial_message\":\"startup\"}"), HttpResponse.BodyHandlers.ofString());
+            result.put("first_session_ms", (System.nanoTime() - start) / 1e6);
+            String sessionId = objectMapper.readTree(session.body()).get("session_id").asText();
+
+            start = System.nanoTime();
+            client.send(post(baseUrl + "/chat/message",
+                    "{\"session_id\":\"" + sessionId + "\",\"content\":\"hello\",\"sender\":\"bench\"}"),
+                    HttpResponse.BodyHandlers.discarding());
+            result.put("first_message_ms", (System.nanoTime() - start) / 1e6);
+
+            start = System.nanoTime();
+            client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/chat/history/" + sessionId)).GET().build(),
+                    HttpResponse.BodyHandlers.discarding());
+            result.put("first_history_ms", (System.nanoTime() - start) / 1e6);
+            return result;
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly();
+            }
+        }
+    }
+
+    private void awaitHealthy(Process process, String baseUrl, Path log) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(baseUrl + "/actuator/health"))
+                .timeout(Duration.ofSeconds(1)).GET().build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Process exited during startup; see " + log);
+            }
+            try {
+                if (client.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // Not listening yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("Not healthy within " + STARTUP_TIMEOUT + "; see " + log);
+    }
+
+    // The plain jar's entries unpacked into a class path of jars only, which is what AppCDS accepts
+    private static String unpack(Path jar) throws IOException {
+        Path lib = Files.createDirectories(WORK_DIR.resolve("lib"));
+        Path app = WORK_DIR.resolve("app.jar");
+        try (JarFile jarFile = new JarFile(jar.toFile());
+             JarOutputStream classes = new JarOutputStream(Files.newOutputStream(app))) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                JarEntry entry = entries.nextElement();
+                String name = entry.getName();
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                try (InputStream in = jarFile.getInputStream(entry)) {
+                    if (name.startsWith("BOOT-INF/lib/")) {
+                        Files.copy(in, lib.resolve(name.substring("BOOT-INF/lib/".length())));
+                    } else if (name.startsWith("BOOT-INF/classes/")) {
+                        classes.putNextEntry(new JarEntry(name.substring("BOOT-INF/classes/".length())));
+                        in.transferTo(classes);
+                        classes.closeEntry();
+                    }
+                }
+            }
+        }
+        List<String> classpath = new ArrayList<>();
+        classpath.add(app.toAbsolutePath().toString());
+        try (Stream<Path> jars = Files.list(lib)) {
+            jars.sorted().forEach(dependency -> classpath.add(dependency.toAbsolutePath().toString()));
+        }
+        return String.join(File.pathSeparator, classpath);
+    }
+
+    private static Path executableJar() throws IOException {
+        if (!Files.isDirectory(TARGET)) {
+            return null;
+        }
+        try (Stream<Path> files = Files.list(TARGET)) {
+            return files.filter(file -> file.getFileName().toString().matches("chat-microservice-.*\\.jar"))
+                    .findFirst()
+                    .orElse(null);
+        }
+    }
+
+    private double contextStartedMillis(Path log) throws IOException {
+        Matcher matcher = STARTED.matcher(Files.readString(log));
+        return matcher.find() ? Double.parseDouble(matcher.group(1)) * 1000 : Double.NaN;
+    }
+
+    private List<String> command(String... arguments) {
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(List.of(arguments));
+        return command;
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(List<Double> values) {
+        List<Double> sorted = values.stream().sorted().toList();
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+}
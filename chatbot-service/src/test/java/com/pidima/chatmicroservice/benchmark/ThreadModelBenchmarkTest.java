@@ -0,0 +1,99 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.pidima.chatmicroservice.config.ChatMicroserviceApplication;
+import com.pidima.chatmicroservice.loadtest.SendAndPageLoad;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares platform-thread and virtual-thread request handling for sendMessage/getChatHistory
+ * under a high request rate against a deliberately slow datasource.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test -Dtest=ThreadModelBenchmarkTest \
+ *     -Dbench.rate=500 -Dbench.duration=20s -Dbench.db-latency=20ms
+ * </pre>
+ *
+ * The virtual-thread run needs a Java 21 runtime (build with -Pjava21); on older runtimes it is
+ * reported as skipped. Results are printed and written to target/benchmarks/thread-model.json.
+ */
+@Tag("benchmark")
+class ThreadModelBenchmarkTest {
+
+    private static final double RATE = Double.parseDouble(System.getProperty("bench.rate", "500"));
+    private static final Duration DURATION = DurationStyle.detectAndParse(System.getProperty("bench.duration", "15s"));
+    private static final Duration DB_LATENCY = DurationStyle.detectAndParse(System.getProperty("bench.db-latency", "20ms"));
+    private static final int POOL_SIZE = Integer.getInteger("bench.pool-size", 400);
+    private static final int SESSIONS = 100;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void compareThreadModels() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("rate", RATE);
+        report.put("duration_ms", DURATION.toMillis());
+        report.put("db_latency_ms", DB_LATENCY.toMillis());
+        report.put("pool_size", POOL_SIZE);
+        report.put("platform", run(false));
+        if (Runtime.version().feature() >= 21) {
+            report.put("virtual", run(true));
+        } else {
+            System.out.println("[thread-model] virtual: skipped (requires Java 21, running " + Runtime.version() + ")");
+            report.put("virtual", "skipped: requires Java 21");
+        }
+
+        Path output = Path.of("target", "benchmarks", "thread-model.json");
+        Files.createDirectories(output.getParent());
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("[thread-model] results written to " + output.toAbsolutePath());
+    }
+
+    private Map<String, Object> run(boolean virtualThreads) throws Exception {
+        String mode = virtualThreads ? "virtual" : "platform";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ChatMicroserviceApplication.class)
+                .initializers(applicationContext -> applicationContext.getBeanFactory().addBeanPostProcessor(
+                        new BeanPostProcessor() {
+                            @Override
+                            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                                return bean instanceof DataSource dataSource && !(bean instanceof SlowDataSource)
+                                        ? new SlowDataSource(dataSource, DB_LATENCY)
+                                        : bean;
+                            }
+                        }))
+                // As arguments: application.yml outranks default properties and turns virtual threads off
+                .run("--server.port=0",
+                     "--spring.threads.virtual.enabled=" + virtualThreads,
+                     "--spring.datasource.url=jdbc:h2:mem:bench-" + mode + ";DB_CLOSE_DELAY=-1",
+                     "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                     "--spring.jpa.open-in-view=false",
+                     "--logging.level.com.pidima.chatmicroservice=WARN");
+
+        int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+        try (SendAndPageLoad load = new SendAndPageLoad("http://localhost:" + port, SESSIONS, RATE)) {
+            assertEquals(String.valueOf(virtualThreads),
+                         context.getEnvironment().getProperty("spring.threads.virtual.enabled"));
+            load.warmUp(Duration.ofSeconds(3));
+            Map<String, Object> result = load.measure(DURATION);
+            System.out.println("[thread-model] " + mode + " " + result);
+            return result;
+        } finally {
+            context.close();
+        }
+    }
+}
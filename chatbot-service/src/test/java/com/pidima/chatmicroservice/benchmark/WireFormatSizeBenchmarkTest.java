@@ -0,0 +1,123 @@
+package com.pidima.chatmicroservice.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.pidima.chatmicroservice.api.ChatProtobufHttpMessageConverter;
+import com.pidima.chatmicroservice.dto.SendMessageResponse;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.services.TimeOrderedIdGenerator;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload sizes of the chat API bodies in each negotiable wire format, raw and gzipped (as
+ * {@code server.compression} would send them). Encode/decode times are in the JMH
+ * {@code WireFormatBenchmark}.
+ *
+ * <pre>
+ * ./mvnw -Pbenchmark test -Dtest=WireFormatSizeBenchmarkTest
+ * </pre>
+ *
+ * Results are printed and written to target/benchmarks/wire-formats.json.
+ */
+@Tag("benchmark")
+class WireFormatSizeBenchmarkTest {
+
+    private static final int[] MESSAGE_COUNTS = {1, 50, 500};
+
+    @Test
+    void compareWireFormatSizes() throws Exception {
+        Map<String, Encoder> formats = new LinkedHashMap<>();
+        formats.put("json", jackson(new JsonFactory())::writeValueAsBytes);
+        formats.put("cbor", jackson(new CBORFactory())::writeValueAsBytes);
+        formats.put("smile", jackson(new SmileFactory())::writeValueAsBytes);
+        ChatProtobufHttpMessageConverter protobuf = new ChatProtobufHttpMessageConverter();
+        formats.put("protobuf", value -> {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            protobuf.encode(value, out);
+            return out.toByteArray();
+        });
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (Map.Entry<String, Encoder> format : formats.entrySet()) {
+            Map<String, Object> sizes = new LinkedHashMap<>();
+            List<ChatMessage> first = messages(1);
+            ChatMessage message = first.get(0);
+            SendMessageResponse response = new SendMessageResponse(message.getMessageId().toString(),
+                    message.getSessionId().toString(), message.getContent(), message.getSender(),
+                    message.getTimestamp());
+            sizes.put("send_message_response", size(format.getValue().encode(response)));
+            for (int count : MESSAGE_COUNTS) {
+                sizes.put("history_" + count, size(format.getValue().encode(messages(count))));
+            }
+            report.put(format.getKey(), sizes);
+            System.out.println("[wire-formats] " + format.getKey() + " " + sizes);
+        }
+
+        Path output = Path.of("target", "benchmarks", "wire-formats.json");
+        Files.createDirectories(output.getParent());
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+        System.out.println("[wire-formats] results written to " + output.toAbsolutePath());
+    }
+
+    private static Map<String, Integer> size(byte[] encoded) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(encoded);
+        }
+        Map<String, Integer> size = new LinkedHashMap<>();
+        size.put("raw", encoded.length);
+        size.put("gzip", compressed.size());
+        return size;
+    }
+
+    private static ObjectMapper jackson(JsonFactory factory) {
+        return Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .propertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .serializationInclusion(JsonInclude.Include.NON_NULL)
+                .serializerByType(UUID.class, ToStringSerializer.instance)
+                .build();
+    }
+
+    // A history of typical chat lines; IDs differ between calls but always encode to the same size
+    private static List<ChatMessage> messages(int count) {
+        TimeOrderedIdGenerator ids = new TimeOrderedIdGenerator();
+        UUID sessionId = ids.newId();
+        LocalDateTime base = LocalDateTime.of(2025, 9, 21, 9, 51, 23, 795_867_000);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage(sessionId,
+                    "Message " + i + ": a typical chat line of a few dozen characters", i % 2 == 0 ? "user" : "bot");
+            message.setMessageId(ids.newId());
+            message.setSeq(i + 1L);
+            message.setTimestamp(base.plus(i * 1_337L, ChronoUnit.MICROS));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    @FunctionalInterface
+    private interface Encoder {
+        byte[] encode(Object value) throws IOException;
+    }
+}
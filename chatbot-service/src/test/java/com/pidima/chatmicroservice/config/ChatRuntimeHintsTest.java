@@ -0,0 +1,45 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @Test
+    void registerHints_BindsApiTypes() throws Exception {
+        // When
+        new ChatRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then - Jackson can construct requests and read responses through their accessors
+        assertTrue(RuntimeHintsPredicates.reflection().onType(SendMessageRequest.class)
+                .withMemberCategory(MemberCategory.INVOKE_DECLARED_CONSTRUCTORS).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(SendMessageRequest.class.getMethod("setContent", String.class)).test(hints));
+        assertTrue(RuntimeHintsPredicates.reflection()
+                .onMethod(ChatHistoryPage.class.getMethod("getMessages")).test(hints));
+    }
+
+    @Test
+    void registerHints_ExposesEntityFieldsAndCallbacks() {
+        // When
+        new ChatRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        // Then
+        for (Class<?> entity : new Class<?>[]{ChatSession.class, ChatMessage.class}) {
+            assertTrue(RuntimeHintsPredicates.reflection().onType(entity)
+                    .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_METHODS,
+                                          MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)
+                    .test(hints));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.pidima.chatmicroservice.config;
+
+import com.pidima.chatmicroservice.repositories.ShardRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardingConfigurationTest {
+
+    @Test
+    void dataSource_ClosesEveryShardPoolWhenClosed() throws Exception {
+        // Given
+        ShardingProperties properties = new ShardingProperties();
+        properties.setShards(List.of(shard("shard-0"), shard("shard-1")));
+        ShardRoutingDataSource dataSource = (ShardRoutingDataSource) new ShardingConfiguration().dataSource(properties);
+        dataSource.afterPropertiesSet();
+        try (Connection connection = dataSource.getConnection()) {
+            assertTrue(connection.isValid(1));
+        }
+
+        // When
+        dataSource.close();
+
+        // Then
+        for (DataSource pool : dataSource.getResolvedDataSources().values()) {
+            assertTrue(((HikariDataSource) pool).isClosed());
+        }
+    }
+
+    private static ShardingProperties.Shard shard(String name) {
+        ShardingProperties.Shard shard = new ShardingProperties.Shard();
+        shard.setName(name);
+        shard.setUrl("jdbc:h2:mem:sharding-configuration-" + name);
+        shard.setUsername("sa");
+        return shard;
+    }
+}
@@ -0,0 +1,119 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatFlightRecorderTest {
+
+    private static final Duration SLOW = Duration.ofSeconds(2);
+    private static final Duration INTERVAL = Duration.ofMinutes(5);
+
+    @TempDir
+    Path directory;
+
+    private final AtomicLong clock = new AtomicLong();
+    private final ExecutorService dumper = Executors.newSingleThreadExecutor();
+    private ChatFlightRecorder recorder;
+
+    @AfterEach
+    void tearDown() {
+        if (recorder != null) {
+            recorder.shutdown();
+        }
+    }
+
+    private ChatFlightRecorder recorder(int maxDumps) {
+        recorder = new ChatFlightRecorder(directory, "default", Duration.ofMinutes(10), DataSize.ofMegabytes(10),
+                                          Duration.ZERO, SLOW, INTERVAL, maxDumps, clock::get, dumper);
+        return recorder;
+    }
+
+    @Test
+    void dump_ContainsChatEvents() throws Exception {
+        // Given
+        recorder(10);
+        ChatServiceEvent event = new ChatServiceEvent();
+        event.begin();
+        event.operation = "getChatHistory";
+        event.sessionId = "3f2b8c1e-0000-4000-8000-000000000001";
+        event.rows = 42;
+        event.commit();
+
+        // When
+        Path file = recorder.dump("manual");
+
+        // Then
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(recorded -> recorded.getEventType().getName().equals("com.pidima.chat.Service"))
+                .filter(recorded -> "getChatHistory".equals(recorded.getString("operation")))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals("3f2b8c1e-0000-4000-8000-000000000001", events.get(0).getString("sessionId"));
+        assertEquals(42, events.get(0).getLong("rows"));
+        assertEquals(List.of(file), recorder.dumps());
+    }
+
+    @Test
+    void onRequestCompleted_DumpsSlowRequestsAtMostOncePerInterval() throws Exception {
+        // Given
+        recorder(10);
+
+        // When - a fast request, two slow ones within the interval and one after it
+        recorder.onRequestCompleted(SLOW.toNanos() - 1, "GET /chat/history/a");
+        recorder.onRequestCompleted(SLOW.toNanos(), "GET /chat/history/b");
+        clock.addAndGet(INTERVAL.toNanos() - 1);
+        recorder.onRequestCompleted(SLOW.toNanos() * 2, "GET /chat/history/c");
+        clock.addAndGet(1);
+        recorder.onRequestCompleted(SLOW.toNanos() * 2, "GET /chat/history/d");
+        dumper.shutdown();
+        assertTrue(dumper.awaitTermination(30, TimeUnit.SECONDS));
+
+        // Then
+        List<Path> dumps = recorder.dumps();
+        assertEquals(2, dumps.size());
+        assertTrue(dumps.stream().allMatch(file -> file.getFileName().toString().startsWith("slow-")));
+    }
+
+    @Test
+    void dump_KeepsOnlyTheNewestDumps() throws Exception {
+        // Given
+        recorder(2);
+
+        // When
+        Path first = recorder.dump("manual");
+        Path second = recorder.dump("manual");
+        Path third = recorder.dump("manual");
+
+        // Then
+        assertEquals(List.of(third, second), recorder.dumps());
+        assertFalse(first.toFile().exists());
+    }
+
+    @Test
+    void findDump_ResolvesListedNamesOnly() throws Exception {
+        // Given
+        recorder(10);
+        Path file = recorder.dump("manual");
+
+        // When / Then
+        assertEquals(file, recorder.findDump(file.getFileName().toString()).orElseThrow());
+        assertTrue(recorder.findDump("../" + directory.getFileName() + "/" + file.getFileName()).isEmpty());
+        assertTrue(recorder.findDump("unknown.jfr").isEmpty());
+    }
+}
@@ -0,0 +1,63 @@
+package com.pidima.chatmicroservice.diagnostics;
+
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EventFieldsTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("3f2b8c1e-0000-4000-8000-000000000001");
+
+    @Test
+    void sessionId_PrefersTheSessionIdParameter() {
+        // Given
+        String[] names = {"limit", "sessionId"};
+        Object[] args = {50, SESSION_ID.toString()};
+
+        // When / Then
+        assertEquals(SESSION_ID.toString(), EventFields.sessionId(names, args, null));
+    }
+
+    @Test
+    void sessionId_FallsBackToMessageArgumentsAndResults() {
+        // Given
+        ChatMessage message = new ChatMessage(SESSION_ID, "Hello", "user");
+        ChatSession session = new ChatSession();
+        session.setSessionId(SESSION_ID);
+
+        // When / Then
+        assertEquals(SESSION_ID.toString(), EventFields.sessionId(new String[]{"message"}, new Object[]{message}, null));
+        assertEquals(SESSION_ID.toString(),
+                     EventFields.sessionId(new String[]{"initialMessage"}, new Object[]{"Hi"}, session));
+        assertEquals(SESSION_ID.toString(), EventFields.sessionId(new String[0], new Object[0], Optional.of(session)));
+        assertNull(EventFields.sessionId(new String[]{"requests"}, new Object[]{List.of()}, 3L));
+    }
+
+    @Test
+    void rows_CountsCollectionsPagesAndTotals() {
+        // Given
+        ChatMessage message = new ChatMessage(SESSION_ID, "Hello", "user");
+        ChatHistoryPage page = new ChatHistoryPage();
+        page.setMessages(List.of(message, message));
+        BulkSendMessageResponse bulk = new BulkSendMessageResponse();
+        bulk.setCreated(7);
+
+        // When / Then
+        assertEquals(3, EventFields.rows(List.of(message, message, message)));
+        assertEquals(2, EventFields.rows(page));
+        assertEquals(7, EventFields.rows(bulk));
+        assertEquals(12, EventFields.rows(12L));
+        assertEquals(1, EventFields.rows(message));
+        assertEquals(0, EventFields.rows(Optional.empty()));
+        assertEquals(0, EventFields.rows(null));
+    }
+}
@@ -0,0 +1,191 @@
+package com.pidima.chatmicroservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pidima.chatmicroservice.config.ChatMicroserviceApplication;
+import com.pidima.chatmicroservice.loadtest.LoadProfile.Operation;
+import org.HdrHistogram.Histogram;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * End-to-end load test against the HTTP API. Seeds sessions, then drives an open-loop mix of
+ * session creation, sends and history reads and reports coordinated-omission-corrected latency
+ * percentiles per operation.
+ *
+ * <pre>
+ * ./mvnw -Ploadtest test -Dload.rate=500 -Dload.duration=60s \
+ *     -Dload.mix=create=5,send=60,history=10,page=25 -Dload.session-size=zipf:500:1.1
+ * </pre>
+ *
+ * An embedded server is started unless {@code load.target-url} points at a running service; any
+ * other -D option (e.g. {@code -Dchat.ingestion.mode=group-commit}) configures the embedded one.
+ * The report is written to target/loadtest/report.json, with full percentile distributions per
+ * operation in target/loadtest/*.hgrm.
+ */
+@Tag("loadtest")
+class HttpLoadTest {
+
+    private static final int BULK_BATCH = 1000;
+    private static final Path OUTPUT_DIR = Path.of("target", "loadtest");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void runLoad() throws Exception {
+        LoadProfile profile = LoadProfile.fromSystemProperties();
+        Random random = new Random(Long.getLong("load.seed", 42));
+        ConfigurableApplicationContext context = profile.targetUrl() == null ? startEmbedded() : null;
+        try {
+            String baseUrl = context != null
+                    ? "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort()
+                    : profile.targetUrl();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+
+            long seeded = 0;
+            List<String> sessionIds = new ArrayList<>();
+            for (int i = 0; i < profile.sessions(); i++) {
+                String sessionId = createSession(client, baseUrl);
+                seeded += seed(client, baseUrl, sessionId, profile.sessionSizes().sample(random));
+                sessionIds.add(sessionId);
+            }
+            System.out.printf("[loadtest] seeded %d sessions with %d messages (%s)%n", sessionIds.size(), seeded,
+                    profile.sessionSizes());
+
+            OpenLoopDriver driver = new OpenLoopDriver(client, baseUrl, sessionIds, profile);
+            if (!profile.warmup().isZero()) {
+                driver.run(profile.warmup(), random);
+            }
+            OpenLoopDriver.Result result = driver.run(profile.duration(), random);
+
+            Map<String, Object> report = report(profile, seeded, result);
+            Files.createDirectories(OUTPUT_DIR);
+            Path output = OUTPUT_DIR.resolve("report.json");
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+            System.out.println("[loadtest] results written to " + output.toAbsolutePath());
+
+            if (profile.maxP99() != null) {
+                double p99Millis = result.all().corrected.getValueAtPercentile(99.0) / 1000.0;
+                assertTrue(p99Millis <= profile.maxP99().toMillis(),
+                        "p99 " + p99Millis + "ms exceeds load.max-p99 " + profile.maxP99().toMillis() + "ms");
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    // Command-line arguments, as default properties would lose to application.yml
+    private ConfigurableApplicationContext startEmbedded() {
+        return new SpringApplicationBuilder(ChatMicroserviceApplication.class)
+                .run("--server.port=0",
+                     "--spring.datasource.url=jdbc:h2:mem:loadtest-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                     "--spring.jpa.open-in-view=false",
+                     "--logging.level.com.pidima.chatmicroservice=WARN");
+    }
+
+    private String createSession(HttpClient client, String baseUrl) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(post(baseUrl + "/chat/session", "{}"),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 201) {
+            throw new IllegalStateException("Session creation failed: " + response.statusCode() + " " + response.body());
+        }
+        return objectMapper.readTree(response.body()).get("session_id").asText();
+    }
+
+    private int seed(HttpClient client, String baseUrl, String sessionId, int size)
+            throws IOException, InterruptedException {
+        for (int from = 0; from < size; from += BULK_BATCH) {
+            List<Map<String, String>> batch = new ArrayList<>();
+            for (int i = from; i < Math.min(size, from + BULK_BATCH); i++) {
+                batch.add(Map.of("session_id", sessionId, "content", "seeded message " + i,
+                        "sender", i % 2 == 0 ? "user" : "bot"));
+            }
+            HttpResponse<String> response = client.send(post(baseUrl + "/chat/messages",
+                    objectMapper.writeValueAsString(batch)), HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 201) {
+                throw new IllegalStateException("Seeding failed: " + response.statusCode() + " " + response.body());
+            }
+        }
+        return size;
+    }
+
+    private Map<String, Object> report(LoadProfile profile, long seeded, OpenLoopDriver.Result result)
+            throws IOException {
+        double elapsedSeconds = result.elapsedSeconds();
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target_rate", profile.rate());
+        report.put("arrival", profile.poisson() ? "poisson" : "constant");
+        report.put("duration_ms", profile.duration().toMillis());
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        profile.mix().forEach((operation, weight) -> mix.put(operation.key(), weight));
+        report.put("mix", mix);
+        report.put("sessions", profile.sessions());
+        report.put("session_size", profile.sessionSizes().toString());
+        report.put("seeded_messages", seeded);
+        report.put("issued", result.issued());
+        report.put("achieved_rate", Math.round(result.issued() / (profile.duration().toNanos() / 1e9)));
+        report.put("throughput_rps", Math.round(result.issued() / elapsedSeconds));
+        report.put("generator_max_lag_ms", result.maxLagMillis());
+
+        Map<String, Object> operations = new LinkedHashMap<>();
+        for (Map.Entry<Operation, OpenLoopDriver.Stats> entry : result.stats().entrySet()) {
+            operations.put(entry.getKey().key(), summary(entry.getKey().key(), entry.getValue(), elapsedSeconds));
+            writeDistribution(entry.getKey().key(), entry.getValue().corrected);
+        }
+        OpenLoopDriver.Stats all = result.all();
+        operations.put("all", summary("all", all, elapsedSeconds));
+        writeDistribution("all", all.corrected);
+        report.put("operations", operations);
+        return report;
+    }
+
+    private static Map<String, Object> summary(String name, OpenLoopDriver.Stats stats, double elapsedSeconds) {
+        Map<String, Object> summary = stats.summary(elapsedSeconds);
+        System.out.printf("[loadtest] %-7s count=%d errors=%d p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms "
+                        + "(uncorrected p99=%.2fms)%n", name, summary.get("count"), summary.get("errors"),
+                summary.get("p50_ms"), summary.get("p99_ms"), summary.get("p999_ms"), summary.get("max_ms"),
+                summary.get("uncorrected_p99_ms"));
+        return summary;
+    }
+
+    // HdrHistogram percentile distribution in milliseconds, loadable by the HdrHistogram plotter
+    private static void writeDistribution(String name, Histogram histogram) throws IOException {
+        Files.createDirectories(OUTPUT_DIR);
+        try (PrintStream out = new PrintStream(Files.newOutputStream(OUTPUT_DIR.resolve(name + ".hgrm")))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static HttpRequest post(String url, String json) {
+        return HttpRequest.newBuilder(URI.create(url))
+                .timeout(Duration.ofSeconds(60))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.pidima.chatmicroservice.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test settings, read from {@code load.*} system properties.
+ *
+ * @param rate          target arrival rate in requests per second across all operations
+ * @param poisson       exponential inter-arrival times when true, evenly spaced otherwise
+ * @param mix           relative weight of each operation
+ * @param sessions      sessions seeded before the run and targeted by sends and history reads
+ * @param sessionSizes  number of messages seeded into each session
+ * @param pageSize      limit used by latest-page history reads
+ * @param targetUrl     base URL of a running service, or null to start an embedded one
+ * @param maxP99        fails the run when the corrected p99 over all operations exceeds it, or null
+ */
+record LoadProfile(double rate, Duration warmup, Duration duration, boolean poisson, Map<Operation, Integer> mix,
+                   int sessions, SessionSizeDistribution sessionSizes, int pageSize, Duration timeout,
+                   String targetUrl, Duration maxP99) {
+
+    static LoadProfile fromSystemProperties() {
+        String maxP99 = System.getProperty("load.max-p99");
+        return new LoadProfile(
+                Double.parseDouble(System.getProperty("load.rate", "200")),
+                duration("load.warmup", "5s"),
+                duration("load.duration", "30s"),
+                !"constant".equalsIgnoreCase(System.getProperty("load.arrival", "poisson")),
+                parseMix(System.getProperty("load.mix", "create=5,send=60,history=10,page=25")),
+                Integer.getInteger("load.sessions", 200),
+                SessionSizeDistribution.parse(System.getProperty("load.session-size", "zipf:500:1.1")),
+                Integer.getInteger("load.page-size", 50),
+                duration("load.timeout", "30s"),
+                System.getProperty("load.target-url"),
+                maxP99 != null ? DurationStyle.detectAndParse(maxP99) : null);
+    }
+
+    // "create=5,send=60,history=10,page=25"; operations that are left out are not issued
+    static Map<Operation, Integer> parseMix(String spec) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String entry : spec.split(",")) {
+            String[] parts = entry.trim().split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Invalid load.mix entry: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Negative weight in load.mix: " + entry);
+            }
+            mix.put(Operation.valueOf(parts[0].trim().toUpperCase(Locale.ROOT)), weight);
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() == 0) {
+            throw new IllegalArgumentException("load.mix must give at least one operation a positive weight");
+        }
+        return mix;
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    enum Operation {
+        CREATE, SEND, HISTORY, PAGE;
+
+        String key() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.pidima.chatmicroservice.loadtest;
+
+import com.pidima.chatmicroservice.loadtest.LoadProfile.Operation;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Issues requests on a fixed arrival schedule regardless of how fast the server answers (open
+ * loop). Latency is measured from the time a request was scheduled to be sent, not from when it
+ * actually went out, so a stalled server or client is charged for every request that queued up
+ * behind the stall (no coordinated omission). The uncorrected send-to-response time is kept
+ * alongside for comparison.
+ */
+final class OpenLoopDriver {
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final List<String> sessionIds;
+    private final LoadProfile profile;
+    private final Operation[] operations;
+    private final int[] cumulativeWeights;
+
+    OpenLoopDriver(HttpClient client, String baseUrl, List<String> sessionIds, LoadProfile profile) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.sessionIds = sessionIds;
+        this.profile = profile;
+        Operation[] weighted = profile.mix().entrySet().stream()
+                .filter(entry -> entry.getValue() > 0)
+                .map(Map.Entry::getKey)
+                .toArray(Operation[]::new);
+        this.operations = weighted;
+        this.cumulativeWeights = new int[weighted.length];
+        int total = 0;
+        for (int i = 0; i < weighted.length; i++) {
+            total += profile.mix().get(weighted[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    Result run(Duration duration, Random random) throws InterruptedException, TimeoutException {
+        Map<Operation, Stats> stats = new EnumMap<>(Operation.class);
+        for (Operation operation : operations) {
+            stats.put(operation, new Stats());
+        }
+        double meanIntervalNanos = 1e9 / profile.rate();
+        Phaser outstanding = new Phaser(1);
+        long issued = 0;
+        long maxLagNanos = 0;
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long intended = start;
+        while (intended < end) {
+            long now;
+            while ((now = System.nanoTime()) < intended) {
+                LockSupport.parkNanos(intended - now);
+            }
+            maxLagNanos = Math.max(maxLagNanos, now - intended);
+
+            Operation operation = pick(random);
+            HttpRequest request = request(operation, random);
+            Stats operationStats = stats.get(operation);
+            long scheduledAt = intended;
+            long sentAt = System.nanoTime();
+            outstanding.register();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, failure) -> {
+                long completedAt = System.nanoTime();
+                operationStats.record(completedAt - scheduledAt, completedAt - sentAt,
+                        failure == null && response.statusCode() < 400);
+                outstanding.arriveAndDeregister();
+            });
+            issued++;
+
+            intended += profile.poisson()
+                    ? (long) (-Math.log(1 - random.nextDouble()) * meanIntervalNanos)
+                    : (long) meanIntervalNanos;
+        }
+
+        // Wait for the tail; requests carry their own timeout so this only guards against a hung client
+        int phase = outstanding.arrive();
+        outstanding.awaitAdvanceInterruptibly(phase, profile.timeout().toMillis() + 10_000, TimeUnit.MILLISECONDS);
+        return new Result(stats, issued, System.nanoTime() - start, maxLagNanos);
+    }
+
+    private Operation pick(Random random) {
+        int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (ticket < cumulativeWeights[i]) {
+                return operations[i];
+            }
+        }
+        throw new IllegalStateException("Unreachable");
+    }
+
+    private HttpRequest request(Operation operation, Random random) {
+        String sessionId = sessionIds.get(random.nextInt(sessionIds.size()));
+        return switch (operation) {
+            case CREATE -> post("/chat/session", "{\"initial_message\":\"load test\"}");
+            case SEND -> post("/chat/message",
+                    "{\"session_id\":\"" + sessionId + "\",\"content\":\"load test message\",\"sender\":\"load\"}");
+            case HISTORY -> get("/chat/history/" + sessionId);
+            case PAGE -> get("/chat/history/" + sessionId + "?latest=true&limit=" + profile.pageSize());
+        };
+    }
+
+    private HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(profile.timeout())
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .timeout(profile.timeout())
+                .GET()
+                .build();
+    }
+
+    /** Latencies in microseconds. Failed requests (including timeouts) are recorded as well so they show in the tail. */
+    static final class Stats {
+        final Histogram corrected = new ConcurrentHistogram(3);
+        final Histogram uncorrected = new ConcurrentHistogram(3);
+        final AtomicLong errors = new AtomicLong();
+
+        void record(long correctedNanos, long uncorrectedNanos, boolean success) {
+            corrected.recordValue(correctedNanos / 1000);
+            uncorrected.recordValue(uncorrectedNanos / 1000);
+            if (!success) {
+                errors.incrementAndGet();
+            }
+        }
+
+        /** Throughput and corrected latency percentiles in milliseconds, plus the uncorrected tail. */
+        Map<String, Object> summary(double elapsedSeconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("count", corrected.getTotalCount());
+            summary.put("errors", errors.get());
+            summary.put("throughput_rps", Math.round(corrected.getTotalCount() / elapsedSeconds));
+            summary.put("p50_ms", millis(corrected, 50.0));
+            summary.put("p90_ms", millis(corrected, 90.0));
+            summary.put("p99_ms", millis(corrected, 99.0));
+            summary.put("p999_ms", millis(corrected, 99.9));
+            summary.put("max_ms", Math.round(corrected.getMaxValue() / 10.0) / 100.0);
+            summary.put("uncorrected_p99_ms", millis(uncorrected, 99.0));
+            summary.put("uncorrected_p999_ms", millis(uncorrected, 99.9));
+            return summary;
+        }
+
+        private static double millis(Histogram histogram, double percentile) {
+            return Math.round(histogram.getValueAtPercentile(percentile) / 10.0) / 100.0;
+        }
+    }
+
+    record Result(Map<Operation, Stats> stats, long issued, long elapsedNanos, long maxLagNanos) {
+
+        /** The requests of every operation together. */
+        Stats all() {
+            Stats all = new Stats();
+            for (Stats operation : stats.values()) {
+                all.corrected.add(operation.corrected);
+                all.uncorrected.add(operation.uncorrected);
+                all.errors.addAndGet(operation.errors.get());
+            }
+            return all;
+        }
+
+        double elapsedSeconds() {
+            return elapsedNanos / 1e9;
+        }
+
+        // A large lag means the generator itself could not keep up with the schedule
+        double maxLagMillis() {
+            return Math.round(maxLagNanos / 1e4) / 100.0;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.pidima.chatmicroservice.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pidima.chatmicroservice.loadtest.LoadProfile.Operation;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The load the stack benchmarks compare their servers with: half sends and half latest-page
+ * history reads over freshly created sessions, issued open loop by {@link OpenLoopDriver} at a
+ * fixed rate, so a server that falls behind is charged for every request queued behind it.
+ */
+public final class SendAndPageLoad implements AutoCloseable {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final int PAGE_SIZE = 20;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Random random = new Random(42);
+    private final ExecutorService clientExecutor = Executors.newFixedThreadPool(16);
+    private final OpenLoopDriver driver;
+
+    /** Creates {@code sessions} sessions on the server at {@code baseUrl} to send to and read from. */
+    public SendAndPageLoad(String baseUrl, int sessions, double rate) throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < sessions; i++) {
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/chat/session"))
+                    .timeout(TIMEOUT)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString("{\"initial_message\":\"benchmark\"}"))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            sessionIds.add(objectMapper.readTree(response.body()).get("session_id").asText());
+        }
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        mix.put(Operation.SEND, 1);
+        mix.put(Operation.PAGE, 1);
+        LoadProfile profile = new LoadProfile(rate, Duration.ZERO, Duration.ZERO, true, mix, sessions,
+                SessionSizeDistribution.parse("fixed:1"), PAGE_SIZE, TIMEOUT, baseUrl, null);
+        this.driver = new OpenLoopDriver(client, baseUrl, sessionIds, profile);
+    }
+
+    /** Runs the load without recording it, so JIT compilation does not dominate the measured window. */
+    public void warmUp(Duration duration) throws InterruptedException, TimeoutException {
+        driver.run(duration, random);
+    }
+
+    /**
+     * Runs the load and summarizes it: latency percentiles in milliseconds, measured from each
+     * request's scheduled send time, with the uncorrected tail alongside for comparison.
+     */
+    public Map<String, Object> measure(Duration duration) throws InterruptedException, TimeoutException {
+        OpenLoopDriver.Result result = driver.run(duration, random);
+        Map<String, Object> summary = result.all().summary(result.elapsedSeconds());
+        summary.put("generator_max_lag_ms", result.maxLagMillis());
+        return summary;
+    }
+
+    @Override
+    public void close() {
+        clientExecutor.shutdownNow();
+    }
+}
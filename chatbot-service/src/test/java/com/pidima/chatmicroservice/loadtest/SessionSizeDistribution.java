@@ -0,0 +1,72 @@
+package com.pidima.chatmicroservice.loadtest;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Number of messages seeded into each session. Specs:
+ * <ul>
+ *   <li>{@code fixed:N} - every session holds N messages</li>
+ *   <li>{@code uniform:MIN:MAX} - uniformly between MIN and MAX inclusive</li>
+ *   <li>{@code zipf:MAX:S} - between 1 and MAX with probability proportional to 1/k^S, i.e. many
+ *       short conversations and a long tail of large ones</li>
+ * </ul>
+ */
+final class SessionSizeDistribution {
+
+    private final String spec;
+    private final int min;
+    private final int max;
+    // Cumulative probabilities of sizes 1..max; null unless zipf
+    private final double[] cdf;
+
+    private SessionSizeDistribution(String spec, int min, int max, double[] cdf) {
+        this.spec = spec;
+        this.min = min;
+        this.max = max;
+        this.cdf = cdf;
+    }
+
+    static SessionSizeDistribution parse(String spec) {
+        String[] parts = spec.trim().split(":");
+        try {
+            switch (parts[0]) {
+                case "fixed":
+                    int size = Integer.parseInt(parts[1]);
+                    return new SessionSizeDistribution(spec, size, size, null);
+                case "uniform":
+                    return new SessionSizeDistribution(spec, Integer.parseInt(parts[1]), Integer.parseInt(parts[2]), null);
+                case "zipf":
+                    int max = Integer.parseInt(parts[1]);
+                    double exponent = parts.length > 2 ? Double.parseDouble(parts[2]) : 1.0;
+                    double[] cdf = new double[max];
+                    double total = 0;
+                    for (int k = 1; k <= max; k++) {
+                        total += 1.0 / Math.pow(k, exponent);
+                        cdf[k - 1] = total;
+                    }
+                    for (int i = 0; i < max; i++) {
+                        cdf[i] /= total;
+                    }
+                    return new SessionSizeDistribution(spec, 1, max, cdf);
+                default:
+                    throw new IllegalArgumentException("Unknown session size distribution: " + spec);
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid session size distribution: " + spec, e);
+        }
+    }
+
+    int sample(Random random) {
+        if (cdf != null) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            return Math.min(max, (index >= 0 ? index : -index - 1) + 1);
+        }
+        return min == max ? min : min + random.nextInt(max - min + 1);
+    }
+
+    @Override
+    public String toString() {
+        return spec;
+    }
+}
@@ -0,0 +1,435 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every {@link ChatStore} engine must share. Sessions use random IDs so engines backed
+ * by a shared database need no cleanup between tests.
+ */
+abstract class ChatStoreContractTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    protected abstract ChatStore store();
+
+    @Test
+    void createSession_StoresSessionWithInitialMessage() {
+        // Given
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        ChatMessage initial = message(session.getSessionId(), "Hello", BASE);
+
+        // When
+        store().createSession(session, initial);
+
+        // Then
+        assertTrue(store().sessionExists(session.getSessionId()));
+        assertEquals(session.getSessionId(), store().findSession(session.getSessionId()).orElseThrow().getSessionId());
+        assertEquals(List.of(initial.getMessageId()), ids(store().findMessages(session.getSessionId())));
+    }
+
+    @Test
+    void createSession_RejectsDuplicateId() {
+        // Given
+        UUID sessionId = newSession();
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> store().createSession(new ChatSession(sessionId), null));
+    }
+
+    @Test
+    void findSession_UnknownSessionIsEmpty() {
+        UUID unknown = UUID.randomUUID();
+
+        assertTrue(store().findSession(unknown).isEmpty());
+        assertFalse(store().sessionExists(unknown));
+        assertEquals(List.of(), store().findMessages(unknown));
+    }
+
+    @Test
+    void saveMessage_RejectsUnknownSession() {
+        ChatMessage orphan = message(UUID.randomUUID(), "Hello", BASE);
+
+        assertThrows(DataIntegrityViolationException.class, () -> store().saveMessage(orphan));
+        assertTrue(store().findMessage(orphan.getMessageId()).isEmpty());
+    }
+
+    @Test
+    void saveMessages_IsAllOrNothing() {
+        // Given
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = List.of(
+                message(sessionId, "First", BASE),
+                message(UUID.randomUUID(), "Orphan", BASE.plusSeconds(1)),
+                message(sessionId, "Third", BASE.plusSeconds(2)));
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> store().saveMessages(batch));
+        assertEquals(List.of(), store().findMessages(sessionId));
+    }
+
+    @Test
+    void findExistingSessionIds_ReturnsOnlyKnownIds() {
+        // Given
+        UUID first = newSession();
+        UUID second = newSession();
+        UUID unknown = UUID.randomUUID();
+
+        // When
+        Set<UUID> existing = store().findExistingSessionIds(List.of(first, second, unknown));
+
+        // Then
+        assertEquals(Set.of(first, second), existing);
+        assertEquals(Set.of(), store().findExistingSessionIds(List.of()));
+    }
+
+    @Test
+    void findMessages_ReturnsOnlyTheSessionsMessagesOldestFirst() {
+        // Given
+        UUID sessionId = newSession();
+        UUID otherSessionId = newSession();
+        ChatMessage first = message(sessionId, "First", BASE);
+        ChatMessage second = message(sessionId, "Second", BASE.plusSeconds(1));
+        store().saveMessage(first);
+        store().saveMessage(message(otherSessionId, "Elsewhere", BASE));
+        store().saveMessage(second);
+
+        // When
+        List<ChatMessage> history = store().findMessages(sessionId);
+
+        // Then
+        assertEquals(List.of(first.getMessageId(), second.getMessageId()), ids(history));
+        assertEquals("First", history.get(0).getContent());
+        assertEquals(first.getMessageId(), store().findMessage(first.getMessageId()).orElseThrow().getMessageId());
+    }
+
+    @Test
+    void findMessages_ReadsBackEveryField() {
+        // Given
+        UUID sessionId = newSession();
+        ChatMessage message = message(sessionId, "Hello", BASE.plusNanos(123_456_000));
+        store().saveMessage(message);
+
+        // When
+        ChatMessage read = store().findMessages(sessionId).get(0);
+
+        // Then
+        assertEquals(message.getMessageId(), read.getMessageId());
+        assertEquals(sessionId, read.getSessionId());
+        assertEquals("Hello", read.getContent());
+        assertEquals(message.getSender(), read.getSender());
+        assertEquals(BASE.plusNanos(123_456_000), read.getTimestamp());
+        assertEquals(1L, read.getSeq());
+        assertEquals(read, store().findLatestPage(sessionId, 1).get(0));
+        assertEquals(read, store().findMessagesSince(sessionId, 0, 1).get(0));
+    }
+
+    @Test
+    void pages_WalkWholeHistoryWithoutGapsOrDuplicates() {
+        // Given: messages sharing a timestamp, with IDs out of insertion order
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            batch.add(message(sessionId, "Message " + i, i < 5 ? BASE : BASE.plusSeconds(i)));
+        }
+        store().saveMessages(batch);
+        List<UUID> expected = ids(store().findMessages(sessionId));
+
+        // When: forward from the first page
+        List<UUID> forward = new ArrayList<>();
+        List<ChatMessage> page = store().findFirstPage(sessionId, 2);
+        while (!page.isEmpty()) {
+            forward.addAll(ids(page));
+            ChatMessage last = page.get(page.size() - 1);
+            page = store().findPageAfter(sessionId, last.getTimestamp(), last.getMessageId(), 2);
+        }
+
+        // And: backward from the latest page
+        List<UUID> backward = new ArrayList<>();
+        page = store().findLatestPage(sessionId, 2);
+        while (!page.isEmpty()) {
+            backward.addAll(ids(page));
+            ChatMessage oldest = page.get(page.size() - 1);
+            page = store().findPageBefore(sessionId, oldest.getTimestamp(), oldest.getMessageId(), 2);
+        }
+
+        // Then
+        assertEquals(7, expected.size());
+        assertEquals(expected, forward);
+        Collections.reverse(backward);
+        assertEquals(expected, backward);
+    }
+
+    @Test
+    void pages_OrderEqualTimestampsByUnsignedMessageId() {
+        // Given: an ID whose top bit is set, which UUID.compareTo would put before all-zero IDs
+        UUID sessionId = newSession();
+        ChatMessage high = message(sessionId, "High", BASE);
+        high.setMessageId(new UUID(0xf000000000004000L, UUID.randomUUID().getLeastSignificantBits()));
+        store().saveMessage(high);
+        UUID low = new UUID(0, 0);
+        UUID highest = new UUID(-1, -1);
+
+        // When & Then: positions are compared the way the database orders them
+        assertEquals(List.of(high.getMessageId()), ids(store().findPageAfter(sessionId, BASE, low, 10)));
+        assertEquals(List.of(), ids(store().findPageBefore(sessionId, BASE, low, 10)));
+        assertEquals(List.of(), ids(store().findPageAfter(sessionId, BASE, highest, 10)));
+        assertEquals(List.of(high.getMessageId()), ids(store().findPageBefore(sessionId, BASE, highest, 10)));
+    }
+
+    @Test
+    void exportMessages_VisitsEveryMessageOldestFirst() {
+        // Given
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(message(sessionId, "Message " + i, BASE.plusSeconds(i)));
+        }
+        store().saveMessages(batch);
+        List<UUID> exported = new ArrayList<>();
+
+        // When
+        long count = store().exportMessages(sessionId, message -> exported.add(message.getMessageId()));
+
+        // Then
+        assertEquals(5, count);
+        assertEquals(ids(batch), exported);
+    }
+
+    @Test
+    void forEachSessionId_VisitsEverySessionOnce() {
+        // Given
+        Set<UUID> created = Set.of(newSession(), newSession(), newSession());
+        List<UUID> visited = new ArrayList<>();
+
+        // When
+        long count = store().forEachSessionId(visited::add);
+
+        // Then
+        assertEquals(store().countSessions(), count);
+        assertEquals(count, visited.size());
+        assertEquals(visited.size(), Set.copyOf(visited).size());
+        assertTrue(visited.containsAll(created));
+    }
+
+    @Test
+    void seq_IsGapFreeWithinEachSession() {
+        // Given
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        UUID sessionId = session.getSessionId();
+        UUID otherSessionId = newSession();
+        store().createSession(session, message(sessionId, "Hello", BASE));
+
+        // When
+        store().saveMessage(message(sessionId, "Second", BASE.plusSeconds(1)));
+        store().saveMessage(message(otherSessionId, "Elsewhere", BASE));
+        assertThrows(DataIntegrityViolationException.class, () -> store().saveMessages(List.of(
+                message(sessionId, "Rejected", BASE.plusSeconds(2)),
+                message(UUID.randomUUID(), "Orphan", BASE.plusSeconds(2)))));
+        ChatMessage last = message(sessionId, "Fourth", BASE.plusSeconds(4));
+        store().saveMessages(List.of(message(sessionId, "Third", BASE.plusSeconds(3)), last));
+
+        // Then
+        assertEquals(List.of(1L, 2L, 3L, 4L), seqs(store().findMessages(sessionId)));
+        assertEquals(List.of(1L), seqs(store().findMessages(otherSessionId)));
+        assertEquals(4L, store().findMessage(last.getMessageId()).orElseThrow().getSeq());
+    }
+
+    @Test
+    void seq_ConcurrentWritersGetDistinctNumbers() throws Exception {
+        // Given
+        UUID sessionId = newSession();
+        int writers = 4;
+        int messagesPerWriter = 25;
+        ExecutorService executor = Executors.newFixedThreadPool(writers);
+
+        // When
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < messagesPerWriter; i++) {
+                        store().saveMessage(message(sessionId, "Message", LocalDateTime.now()));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        List<Long> seqs = new ArrayList<>(seqs(store().findMessages(sessionId)));
+        Collections.sort(seqs);
+        assertEquals(LongStream.rangeClosed(1, writers * messagesPerWriter).boxed().toList(), seqs);
+    }
+
+    @Test
+    void findMessagesSince_ReturnsOnlyNewerMessagesInSeqOrder() {
+        // Given
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            batch.add(message(sessionId, "Message " + i, BASE.plusSeconds(i)));
+        }
+        store().saveMessages(batch);
+
+        // When & Then
+        assertEquals(ids(batch.subList(2, 5)), ids(store().findMessagesSince(sessionId, 2, 10)));
+        assertEquals(List.of(3L, 4L), seqs(store().findMessagesSince(sessionId, 2, 2)));
+        assertEquals(5, store().findMessagesSince(sessionId, 0, 10).size());
+        assertEquals(List.of(), store().findMessagesSince(sessionId, 5, 10));
+        assertEquals(List.of(), store().findMessagesSince(UUID.randomUUID(), 0, 10));
+    }
+
+    @Test
+    void lastActivityAt_StartsAtCreationAndFollowsWrites() {
+        // Given
+        UUID sessionId = sessionCreatedAt(BASE.minusYears(50), null);
+        assertEquals(BASE.minusYears(50), store().findSession(sessionId).orElseThrow().getLastActivityAt());
+
+        // When
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        store().saveMessage(message(sessionId, "Hello", now));
+
+        // Then
+        assertFalse(store().findSession(sessionId).orElseThrow().getLastActivityAt().isBefore(now));
+        assertFalse(sessionIds(store().findRetentionCandidates(now.minusSeconds(1), null, 1_000), Set.of(sessionId))
+                .contains(sessionId));
+    }
+
+    @Test
+    void findRetentionCandidates_MatchesIdleAndOldSessions() {
+        // Given: dates far enough back that no other test's sessions qualify
+        LocalDateTime longAgo = BASE.minusYears(50);
+        UUID idle = sessionCreatedAt(longAgo, "Old");
+        UUID active = sessionCreatedAt(longAgo, "Old");
+        store().saveMessage(message(active, "Recent", longAgo.plusDays(20)));
+        UUID empty = sessionCreatedAt(longAgo.plusDays(5), null);
+        Set<UUID> ours = Set.of(idle, active, empty);
+
+        // When
+        List<RetentionCandidate> idleSince = store().findRetentionCandidates(longAgo.plusDays(10), null, 1_000);
+        List<RetentionCandidate> createdBefore = store().findRetentionCandidates(null, longAgo.plusDays(1), 1_000);
+
+        // Then
+        assertEquals(Set.of(idle, empty), sessionIds(idleSince, ours));
+        assertEquals(Set.of(idle, active), sessionIds(createdBefore, ours));
+        assertTrue(idleSince.contains(new RetentionCandidate(idle, 1)));
+        assertTrue(idleSince.contains(new RetentionCandidate(empty, 0)));
+        assertEquals(List.of(), store().findRetentionCandidates(null, null, 1_000));
+    }
+
+    @Test
+    void deleteSessions_RemovesSessionsWithTheirMessages() {
+        // Given
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = List.of(message(sessionId, "First", BASE), message(sessionId, "Second", BASE));
+        store().saveMessages(batch);
+        UUID other = newSession();
+        store().saveMessage(message(other, "Kept", BASE));
+        long sessions = store().countSessions();
+        long messages = store().countMessages();
+
+        // When
+        Set<UUID> deleted = store().deleteSessions(List.of(new RetentionCandidate(sessionId, 2)));
+
+        // Then
+        assertEquals(Set.of(sessionId), deleted);
+        assertFalse(store().sessionExists(sessionId));
+        assertEquals(List.of(), store().findMessages(sessionId));
+        assertTrue(store().findMessage(batch.get(0).getMessageId()).isEmpty());
+        assertEquals(sessions - 1, store().countSessions());
+        assertEquals(messages - 2, store().countMessages());
+        assertEquals(1, store().findMessages(other).size());
+        assertThrows(DataIntegrityViolationException.class,
+                () -> store().saveMessage(message(sessionId, "Too late", BASE.plusSeconds(1))));
+    }
+
+    @Test
+    void deleteSessions_KeepsSessionsWrittenSinceTheyWerePicked() {
+        // Given
+        UUID sessionId = newSession();
+        store().saveMessage(message(sessionId, "First", BASE));
+        RetentionCandidate picked = new RetentionCandidate(sessionId, 1);
+        store().saveMessage(message(sessionId, "Second", BASE.plusSeconds(1)));
+
+        // When
+        Set<UUID> deleted = store().deleteSessions(List.of(picked, new RetentionCandidate(UUID.randomUUID(), 0)));
+
+        // Then
+        assertEquals(Set.of(), deleted);
+        assertEquals(2, store().findMessages(sessionId).size());
+    }
+
+    @Test
+    void counts_ReflectWrites() {
+        // Given
+        long sessions = store().countSessions();
+        long messages = store().countMessages();
+
+        // When
+        UUID sessionId = newSession();
+        store().saveMessages(List.of(message(sessionId, "First", BASE), message(sessionId, "Second", BASE)));
+
+        // Then
+        assertEquals(sessions + 1, store().countSessions());
+        assertEquals(messages + 2, store().countMessages());
+    }
+
+    private UUID newSession() {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        store().createSession(session, null);
+        return session.getSessionId();
+    }
+
+    private UUID sessionCreatedAt(LocalDateTime createdAt, String initialMessage) {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(createdAt);
+        store().createSession(session, initialMessage != null
+                ? message(session.getSessionId(), initialMessage, createdAt) : null);
+        return session.getSessionId();
+    }
+
+    // The candidates among the given sessions; other tests may have left sessions behind
+    private static Set<UUID> sessionIds(List<RetentionCandidate> candidates, Set<UUID> among) {
+        return candidates.stream().map(RetentionCandidate::sessionId).filter(among::contains)
+                .collect(Collectors.toSet());
+    }
+
+    static ChatMessage message(UUID sessionId, String content, LocalDateTime timestamp) {
+        ChatMessage message = new ChatMessage(sessionId, content, "user");
+        message.setMessageId(UUID.randomUUID());
+        message.setTimestamp(timestamp.truncatedTo(ChronoUnit.MICROS));
+        return message;
+    }
+
+    static List<UUID> ids(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getMessageId).toList();
+    }
+
+    static List<Long> seqs(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getSeq).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryChatStoreTest extends ChatStoreContractTest {
+
+    private final InMemoryChatStore store = new InMemoryChatStore();
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+
+    @Test
+    void saveMessage_ConcurrentAppendsKeepEveryMessageInOrder() throws Exception {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        store.createSession(new ChatSession(sessionId), null);
+        int writers = 4;
+        int perWriter = 2_000;
+        LocalDateTime now = LocalDateTime.now();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 1);
+
+        // When: writers append the same timestamp while a reader pages through the growing log
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perWriter; i++) {
+                        store.saveMessage(message(sessionId, "Message " + i, now));
+                    }
+                    return null;
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 200; i++) {
+                    List<ChatMessage> page = store.findLatestPage(sessionId, 50);
+                    for (int j = 1; j < page.size(); j++) {
+                        assertTrue(page.get(j).getTimestamp().isBefore(page.get(j - 1).getTimestamp()));
+                    }
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Then
+        List<ChatMessage> history = store.findMessages(sessionId);
+        assertEquals(writers * perWriter, history.size());
+        assertEquals(writers * perWriter, new HashSet<>(ids(history)).size());
+        for (int i = 1; i < history.size(); i++) {
+            assertTrue(history.get(i).getTimestamp().isAfter(history.get(i - 1).getTimestamp()));
+        }
+        assertEquals(writers * perWriter, store.countMessages());
+    }
+
+    @Test
+    void saveMessages_IdTakenAfterValidationLeavesNothingBehind() {
+        // Given: a batch over two sessions whose last message ID is taken by another writer
+        // between the up-front validation and the append; the first session is locked and written first
+        UUID first = new UUID(0, 1);
+        UUID second = new UUID(0, 2);
+        store.createSession(new ChatSession(first), null);
+        store.createSession(new ChatSession(second), null);
+        ChatMessage taken = store.saveMessage(message(second, "Taken", LocalDateTime.now()));
+        ChatMessage racing = new IdTakenAfterValidation(second, taken.getMessageId());
+        List<ChatMessage> batch = List.of(message(first, "First", LocalDateTime.now()), racing);
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> store.saveMessages(batch));
+        assertEquals(List.of(), store.findMessages(first));
+        assertEquals(List.of(taken.getMessageId()), ids(store.findMessages(second)));
+        assertTrue(store.findMessage(batch.get(0).getMessageId()).isEmpty());
+        assertEquals(1, store.countMessages());
+    }
+
+    // Reports a fresh ID to the validation (two reads) and a taken one from then on
+    private static class IdTakenAfterValidation extends ChatMessage {
+        private final UUID freshId = UUID.randomUUID();
+        private final UUID takenId;
+        private int reads;
+
+        IdTakenAfterValidation(UUID sessionId, UUID takenId) {
+            super(sessionId, "Racing", "user");
+            this.takenId = takenId;
+        }
+
+        @Override
+        public UUID getMessageId() {
+            return ++reads <= 2 ? freshId : takenId;
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.pidima.chatmicroservice.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// The same contract with history read through the repository's entity queries
+@DataJpaTest
+@ContextConfiguration(classes = JpaPersistence.class)
+@TestPropertySource(properties = "chat.storage.jpa.projection-reads=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaChatStoreEntityReadsTest extends ChatStoreContractTest {
+
+    @Autowired
+    private JpaChatStore store;
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,102 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.services.HistoryCursor;
+import com.pidima.chatmicroservice.services.HistoryTailCache;
+import com.pidima.chatmicroservice.services.MessageCommittedEvent;
+import com.pidima.chatmicroservice.services.SessionCreatedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not wrapped in a test transaction, so every store call commits on its own as in production
+@DataJpaTest
+@ContextConfiguration(classes = JpaPersistence.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaChatStoreTest extends ChatStoreContractTest {
+
+    @Autowired
+    private JpaChatStore store;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+
+    @Test
+    void tailCacheCursors_PageOnIntoTheDatabase() throws IOException {
+        // Given: a tail built from committed messages, as ChatService feeds it, never from a query
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        HistoryTailCache cache = new HistoryTailCache(store, objectMapper, 10, DataSize.ofMegabytes(1),
+                                                      Duration.ofMinutes(10));
+        ChatSession session = store.createSession(new ChatSession(UUID.randomUUID()), null);
+        cache.onSessionCreated(new SessionCreatedEvent(session));
+        UUID sessionId = session.getSessionId();
+        for (String content : List.of("a", "b", "c")) {
+            ChatMessage message = new ChatMessage(sessionId, content, "user");
+            message.setMessageId(UUID.randomUUID());
+            cache.onMessageCommitted(new MessageCommittedEvent(store.saveMessage(message)));
+        }
+
+        // When
+        HistoryTailCache.Snapshot page = cache.latestPage(sessionId, 2);
+        HistoryCursor prev = HistoryCursor.decode(page.prevCursor());
+        HistoryCursor next = HistoryCursor.decode(page.nextCursor());
+
+        // Then: the cached page shows the stored timestamps and its cursors continue where it ends
+        List<ChatMessage> stored = store.findMessages(sessionId);
+        assertEquals(stored.subList(1, 3).stream().map(ChatMessage::getTimestamp).toList(),
+                     List.of(objectMapper.readValue(page.body(), ChatMessage[].class)).stream()
+                             .map(ChatMessage::getTimestamp).toList());
+        assertEquals(List.of("a"), contents(store.findPageBefore(sessionId, prev.timestamp(), prev.messageId(), 10)));
+        assertEquals(List.of("c"), contents(store.findPageAfter(sessionId, prev.timestamp(), prev.messageId(), 10)));
+        assertEquals(List.of(), contents(store.findPageAfter(sessionId, next.timestamp(), next.messageId(), 10)));
+    }
+
+    @Test
+    void jdbcStatements_AreTimedPerMethod() {
+        // Given
+        UUID sessionId = store.createSession(new ChatSession(UUID.randomUUID()), null).getSessionId();
+        long sends = timer("saveMessage").count();
+        long sinceReads = timer("findMessagesSince").count();
+        long pageReads = timer("findLatestPage").count();
+
+        // When
+        ChatMessage message = new ChatMessage(sessionId, "Hello", "user");
+        message.setMessageId(UUID.randomUUID());
+        store.saveMessage(message);
+        store.findMessagesSince(sessionId, 0, 10);
+        store.findLatestPage(sessionId, 10);
+
+        // Then
+        assertEquals(sends + 1, timer("saveMessage").count());
+        assertEquals(sinceReads + 1, timer("findMessagesSince").count());
+        assertEquals(pageReads + 1, timer("findLatestPage").count());
+    }
+
+    private Timer timer(String method) {
+        return meterRegistry.get(JpaChatStore.STORE_TIMER).tags("method", method, "exception", "none").timer();
+    }
+
+    private static List<String> contents(List<ChatMessage> messages) {
+        return messages.stream().map(ChatMessage::getContent).toList();
+    }
+}
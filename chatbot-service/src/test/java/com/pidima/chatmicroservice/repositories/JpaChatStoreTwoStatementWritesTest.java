@@ -0,0 +1,24 @@
+package com.pidima.chatmicroservice.repositories;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+// The same contract with sequence numbers reserved as on databases without FINAL TABLE
+@DataJpaTest
+@ContextConfiguration(classes = JpaPersistence.class)
+@TestPropertySource(properties = "chat.storage.jpa.final-table=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class JpaChatStoreTwoStatementWritesTest extends ChatStoreContractTest {
+
+    @Autowired
+    private JpaChatStore store;
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pidima.chatmicroservice.repositories;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+/**
+ * The JPA engine with its repositories and timers, for the {@code @DataJpaTest}s of the stores.
+ * Deliberately not a {@code @Configuration}, so the application's component scan never picks it
+ * up.
+ */
+@EnableJpaRepositories("com.pidima.chatmicroservice.repositories")
+@EntityScan("com.pidima.chatmicroservice.models")
+@EnableAspectJAutoProxy
+@Import(JpaChatStore.class)
+class JpaPersistence {
+
+    @Bean
+    MeterRegistry meterRegistry() {
+        return new SimpleMeterRegistry();
+    }
+
+    @Bean
+    TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
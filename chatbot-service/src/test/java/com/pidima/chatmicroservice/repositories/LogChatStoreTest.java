@@ -0,0 +1,256 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogChatStoreTest extends ChatStoreContractTest {
+
+    @TempDir
+    Path directory;
+
+    private LogChatStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = open(0.5);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.close();
+    }
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+
+    @Test
+    void reopen_RecoversSessionsAndHistory() {
+        // Given
+        UUID sessionId = UUID.randomUUID();
+        ChatMessage initial = message(sessionId, "Hello", LocalDateTime.now());
+        store.createSession(new ChatSession(sessionId), initial);
+        List<ChatMessage> batch = messages(sessionId, 3);
+        store.saveMessages(batch);
+        List<ChatMessage> before = store.findMessages(sessionId);
+
+        // When
+        reopen(0.5);
+
+        // Then
+        assertTrue(store.sessionExists(sessionId));
+        assertEquals(1, store.countSessions());
+        assertEquals(4, store.countMessages());
+        List<ChatMessage> after = store.findMessages(sessionId);
+        assertEquals(ids(before), ids(after));
+        assertEquals("Hello", after.get(0).getContent());
+        assertEquals(before.get(3).getTimestamp(), after.get(3).getTimestamp());
+        assertEquals("user", store.findMessage(batch.get(2).getMessageId()).orElseThrow().getSender());
+        assertEquals(List.of(1L, 2L, 3L, 4L), seqs(after));
+        assertEquals(5L, store.saveMessage(message(sessionId, "Again", LocalDateTime.now())).getSeq());
+    }
+
+    @Test
+    void reopen_DropsTornTailRecord() throws IOException {
+        // Given
+        UUID sessionId = newSession();
+        ChatMessage kept = store.saveMessage(message(sessionId, "Kept", LocalDateTime.now()));
+        ChatMessage torn = store.saveMessage(message(sessionId, "Torn", LocalDateTime.now()));
+        store.close();
+
+        // When
+        corruptLastRecord();
+        store = open(0.5);
+
+        // Then
+        assertEquals(List.of(kept.getMessageId()), ids(store.findMessages(sessionId)));
+        assertTrue(store.findMessage(torn.getMessageId()).isEmpty());
+        assertEquals(1, store.countMessages());
+    }
+
+    @Test
+    void reopen_DropsBatchCutOffByCrash() throws IOException {
+        // Given
+        UUID sessionId = newSession();
+        ChatMessage kept = store.saveMessage(message(sessionId, "Kept", LocalDateTime.now()));
+        store.saveMessages(messages(sessionId, 3));
+        store.close();
+
+        // When: the last record of the batch never reached the disk
+        corruptLastRecord();
+        store = open(0.5);
+
+        // Then
+        assertEquals(List.of(kept.getMessageId()), ids(store.findMessages(sessionId)));
+        assertEquals(1, store.countMessages());
+    }
+
+    @Test
+    void reopen_TornBatchIsNotCompletedByTheNextRun() throws IOException {
+        // Given: a batch cut off by a crash, then a run that writes again
+        UUID sessionId = newSession();
+        ChatMessage kept = store.saveMessage(message(sessionId, "Kept", LocalDateTime.now()));
+        store.saveMessages(messages(sessionId, 3));
+        store.close();
+        corruptLastRecord();
+        store = open(0.5);
+        ChatMessage after = store.saveMessage(message(sessionId, "After restart", LocalDateTime.now()));
+
+        // When
+        reopen(0.5);
+
+        // Then: the surviving records of the batch stay discarded
+        assertEquals(List.of(kept.getMessageId(), after.getMessageId()), ids(store.findMessages(sessionId)));
+        assertEquals(2, store.countMessages());
+    }
+
+    @Test
+    void reopen_RecoversBatchSpanningSegments() throws IOException {
+        // Given: a batch larger than a segment
+        UUID sessionId = newSession();
+        List<ChatMessage> batch = store.saveMessages(messages(sessionId, 1_000));
+        assertTrue(segmentFiles().size() > 1);
+
+        // When
+        reopen(0.5);
+
+        // Then
+        assertEquals(ids(batch), ids(store.findMessages(sessionId)));
+    }
+
+    @Test
+    void reopen_ContinuesInNewSegment() {
+        // Given
+        UUID sessionId = newSession();
+
+        // When
+        reopen(0.5);
+        ChatMessage message = store.saveMessage(message(sessionId, "After restart", LocalDateTime.now()));
+        reopen(0.5);
+
+        // Then
+        assertEquals(List.of(message.getMessageId()), ids(store.findMessages(sessionId)));
+    }
+
+    @Test
+    void compact_RewritesSparseSegmentsAndDeletesThemOnNextRun() throws IOException {
+        // Given: a full segment and a partly filled one left behind by the restart
+        UUID sessionId = newSession();
+        store.saveMessages(messages(sessionId, 1_000));
+        reopen(0.9);
+        List<ChatMessage> before = store.findMessages(sessionId);
+        List<Path> segmentsBefore = segmentFiles();
+
+        // When
+        store.compact();
+        List<ChatMessage> afterFirstRun = store.findMessages(sessionId);
+        store.compact();
+
+        // Then
+        assertEquals(ids(before), ids(afterFirstRun));
+        assertEquals(ids(before), ids(store.findMessages(sessionId)));
+        // And: the partly filled segment is gone; the batch it finished was copied out of the full one
+        assertFalse(segmentFiles().contains(segmentsBefore.get(1)));
+        ChatMessage middle = before.get(500);
+        assertEquals(ids(before.subList(501, 503)),
+                ids(store.findPageAfter(sessionId, middle.getTimestamp(), middle.getMessageId(), 2)));
+
+        // And: the relocated records are what a restart recovers
+        reopen(0.5);
+        assertEquals(ids(before), ids(store.findMessages(sessionId)));
+        assertEquals(before.get(999).getContent(), store.findMessages(sessionId).get(999).getContent());
+    }
+
+    @Test
+    void deleteSessions_StaysDeletedAcrossRestartsAndCompaction() throws IOException {
+        // Given
+        UUID deleted = newSession();
+        store.saveMessages(messages(deleted, 200));
+        UUID kept = newSession();
+        store.saveMessage(message(kept, "Kept", LocalDateTime.now()));
+        store.deleteSessions(List.of(new RetentionCandidate(deleted, 200)));
+
+        // When
+        reopen(0.9);
+        boolean existsAfterRestart = store.sessionExists(deleted);
+        store.compact();
+        store.compact();
+        reopen(0.5);
+
+        // Then
+        assertFalse(existsAfterRestart);
+        assertFalse(store.sessionExists(deleted));
+        assertEquals(1, store.countSessions());
+        assertEquals(1, store.countMessages());
+        assertEquals("Kept", store.findMessages(kept).get(0).getContent());
+    }
+
+    private LogChatStore open(double minLiveRatio) {
+        return new LogChatStore(directory.toString(), DataSize.ofKilobytes(64), 100, Duration.ofMillis(200),
+                Duration.ofHours(1), minLiveRatio);
+    }
+
+    private void reopen(double minLiveRatio) {
+        store.close();
+        store = open(minLiveRatio);
+    }
+
+    private UUID newSession() {
+        UUID sessionId = UUID.randomUUID();
+        store.createSession(new ChatSession(sessionId), null);
+        return sessionId;
+    }
+
+    private static List<ChatMessage> messages(UUID sessionId, int count) {
+        List<ChatMessage> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(message(sessionId, "Message " + i, LocalDateTime.now()));
+        }
+        return batch;
+    }
+
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+
+    // Flips a payload byte of the newest record so its checksum no longer matches
+    private void corruptLastRecord() throws IOException {
+        List<Path> files = segmentFiles();
+        Path newest = files.get(files.size() - 1);
+        LogSegment segment = LogSegment.open(newest, 0);
+        List<Integer> offsets = new ArrayList<>();
+        segment.scan((offset, type, payload) -> offsets.add(offset));
+        segment.close();
+
+        int target = offsets.get(offsets.size() - 1) + LogSegment.HEADER_SIZE + 1;
+        try (FileChannel channel = FileChannel.open(newest, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, target);
+            value.put(0, (byte) ~value.get(0)).rewind();
+            channel.write(value, target);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static com.pidima.chatmicroservice.repositories.ChatStoreContractTest.ids;
+import static com.pidima.chatmicroservice.repositories.ChatStoreContractTest.seqs;
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionArchiveTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    @TempDir
+    Path directory;
+
+    private SessionArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        archive = open();
+    }
+
+    @AfterEach
+    void tearDown() {
+        archive.close();
+    }
+
+    @Test
+    void write_MakesHistoryReadableAcrossBlocks() {
+        // Given: enough messages for several 1KB blocks
+        SessionArchive.History history = history(300);
+        UUID sessionId = history.session().getSessionId();
+
+        // When
+        long size = archive.write(List.of(history));
+
+        // Then
+        List<ChatMessage> read = archive.findMessages(sessionId);
+        assertEquals(ids(history.messages()), ids(read));
+        assertEquals(seqs(history.messages()), seqs(read));
+        assertEquals("Message 299 of an archived session", read.get(299).getContent());
+        assertEquals(history.messages().get(10).getTimestamp(), read.get(10).getTimestamp());
+        assertEquals(sessionId, read.get(0).getSessionId());
+        assertTrue(archive.contains(sessionId));
+        assertEquals(history.session().getCreatedAt(), archive.findSession(sessionId).orElseThrow().getCreatedAt());
+        assertTrue(size < totalContentBytes(history), "Not compressed: " + size);
+        assertEquals(size, archive.sizeInBytes());
+    }
+
+    @Test
+    void pages_MatchTheStoreContract() {
+        // Given
+        SessionArchive.History history = history(10);
+        UUID sessionId = history.session().getSessionId();
+        List<ChatMessage> messages = history.messages();
+        archive.write(List.of(history));
+        ChatMessage middle = messages.get(5);
+
+        // When & Then
+        assertEquals(ids(messages.subList(0, 3)), ids(archive.findFirstPage(sessionId, 3)));
+        assertEquals(ids(List.of(messages.get(9), messages.get(8))), ids(archive.findLatestPage(sessionId, 2)));
+        assertEquals(ids(messages.subList(6, 8)),
+                ids(archive.findPageAfter(sessionId, middle.getTimestamp(), middle.getMessageId(), 2)));
+        assertEquals(ids(List.of(messages.get(4), messages.get(3))),
+                ids(archive.findPageBefore(sessionId, middle.getTimestamp(), middle.getMessageId(), 2)));
+        assertEquals(List.of(8L, 9L), seqs(archive.findMessagesSince(sessionId, 7, 2)));
+        List<ChatMessage> exported = new ArrayList<>();
+        assertEquals(10, archive.exportMessages(sessionId, exported::add));
+        assertEquals(ids(messages), ids(exported));
+        assertEquals(List.of(), archive.findMessages(UUID.randomUUID()));
+    }
+
+    @Test
+    void reopen_LoadsIndexesAndPrefersTheNewestCopy() throws IOException {
+        // Given: a session archived twice, the second time with one more message
+        SessionArchive.History first = history(3);
+        ChatSession session = first.session();
+        archive.write(List.of(first, history(2)));
+        List<ChatMessage> grown = new ArrayList<>(first.messages());
+        grown.add(archivedMessage(session.getSessionId(), "Late", BASE.plusHours(1), 4));
+        archive.write(List.of(new SessionArchive.History(session, grown)));
+        Files.writeString(directory.resolve("0000000009.archive.tmp"), "half written");
+
+        // When
+        archive.close();
+        archive = open();
+
+        // Then
+        assertEquals(2, archive.sessionCount());
+        assertEquals(ids(grown), ids(archive.findMessages(session.getSessionId())));
+        assertEquals(List.of("0000000000.archive", "0000000001.archive"), fileNames());
+    }
+
+    @Test
+    void forget_StopsServingASession() {
+        // Given
+        SessionArchive.History history = history(2);
+        UUID sessionId = history.session().getSessionId();
+        archive.write(List.of(history));
+        archive.findMessages(sessionId);
+
+        // When
+        archive.forget(List.of(sessionId));
+
+        // Then
+        assertFalse(archive.contains(sessionId));
+        assertEquals(List.of(), archive.findMessages(sessionId));
+    }
+
+    @Test
+    void forget_LastsAcrossRestartsUntilArchivedAgain() throws IOException {
+        // Given: a forgotten session next to one that is kept, and a removal torn by a crash
+        SessionArchive.History forgotten = history(2);
+        SessionArchive.History kept = history(2);
+        UUID sessionId = forgotten.session().getSessionId();
+        archive.write(List.of(forgotten, kept));
+        archive.forget(List.of(sessionId));
+        archive.close();
+        Files.write(directory.resolve("removed.log"), new byte[7], StandardOpenOption.APPEND);
+
+        // When
+        archive = open();
+
+        // Then
+        assertFalse(archive.contains(sessionId));
+        assertTrue(archive.contains(kept.session().getSessionId()));
+
+        // And: a newer copy is served, also after the next restart, and later removals still apply
+        archive.write(List.of(forgotten));
+        archive.forget(List.of(kept.session().getSessionId()));
+        archive.close();
+        archive = open();
+        assertEquals(ids(forgotten.messages()), ids(archive.findMessages(sessionId)));
+        assertFalse(archive.contains(kept.session().getSessionId()));
+    }
+
+    private SessionArchive open() {
+        return new SessionArchive(directory.toString(), DataSize.ofKilobytes(1), 1_000);
+    }
+
+    private static SessionArchive.History history(int size) {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(BASE);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            messages.add(archivedMessage(session.getSessionId(), "Message " + i + " of an archived session",
+                                 BASE.plusSeconds(i), i + 1));
+        }
+        return new SessionArchive.History(session, messages);
+    }
+
+    private static ChatMessage archivedMessage(UUID sessionId, String content, LocalDateTime timestamp, long seq) {
+        ChatMessage message = ChatStoreContractTest.message(sessionId, content, timestamp);
+        message.setSeq(seq);
+        return message;
+    }
+
+    private static long totalContentBytes(SessionArchive.History history) {
+        return history.messages().stream().mapToLong(message -> message.getContent().length() + 44).sum();
+    }
+
+    private List<String> fileNames() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString()).sorted().toList();
+        }
+    }
+}
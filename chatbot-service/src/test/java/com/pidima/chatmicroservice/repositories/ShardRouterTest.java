@@ -0,0 +1,78 @@
+package com.pidima.chatmicroservice.repositories;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardRouterTest {
+
+    private static final List<String> THREE_SHARDS = List.of("shard-0", "shard-1", "shard-2");
+
+    @Test
+    void shardFor_IsStableAcrossInstances() {
+        // Given
+        ShardRouter first = new ShardRouter(THREE_SHARDS, 128);
+        ShardRouter second = new ShardRouter(THREE_SHARDS, 128);
+
+        // When & Then
+        for (int i = 0; i < 1_000; i++) {
+            UUID sessionId = UUID.randomUUID();
+            assertEquals(first.shardFor(sessionId), second.shardFor(sessionId));
+        }
+    }
+
+    @Test
+    void shardFor_SpreadsSessionsEvenly() {
+        // Given
+        ShardRouter router = new ShardRouter(THREE_SHARDS, 128);
+        int sessions = 30_000;
+        Map<String, Integer> counts = new HashMap<>();
+
+        // When
+        for (int i = 0; i < sessions; i++) {
+            counts.merge(router.shardFor(UUID.randomUUID()), 1, Integer::sum);
+        }
+
+        // Then: every shard within 20% of an even split
+        assertEquals(3, counts.size());
+        counts.values().forEach(count ->
+                assertTrue(Math.abs(count - sessions / 3) < sessions / 3 * 0.2, "Unbalanced: " + counts));
+    }
+
+    @Test
+    void shardFor_AddingShardOnlyMovesSessionsToIt() {
+        // Given
+        ShardRouter before = new ShardRouter(THREE_SHARDS, 128);
+        List<String> fourShards = new ArrayList<>(THREE_SHARDS);
+        fourShards.add("shard-3");
+        ShardRouter after = new ShardRouter(fourShards, 128);
+        int sessions = 20_000;
+        int moved = 0;
+
+        // When
+        for (int i = 0; i < sessions; i++) {
+            UUID sessionId = UUID.randomUUID();
+            String oldOwner = before.shardFor(sessionId);
+            String newOwner = after.shardFor(sessionId);
+            if (!oldOwner.equals(newOwner)) {
+                assertEquals("shard-3", newOwner);
+                moved++;
+            }
+        }
+
+        // Then: about a quarter of the sessions move
+        double movedShare = (double) moved / sessions;
+        assertTrue(movedShare > 0.15 && movedShare < 0.35, "Moved share: " + movedShare);
+    }
+
+    @Test
+    void constructor_RequiresAShard() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardRouter(List.of(), 128));
+    }
+}
@@ -0,0 +1,163 @@
+package com.pidima.chatmicroservice.repositories;
+
+import com.pidima.chatmicroservice.config.ShardingConfiguration;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Three in-memory H2 databases behind the routing datasource
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ContextConfiguration(classes = JpaPersistence.class)
+@Import({ShardingConfiguration.class, ShardedChatStore.class, ShardRebalancer.class})
+@TestPropertySource(properties = {
+        "chat.storage.sharding.enabled=true",
+        "chat.storage.sharding.shards[0].name=shard-0",
+        "chat.storage.sharding.shards[0].url=jdbc:h2:mem:sharded-store-0;DB_CLOSE_DELAY=-1",
+        "chat.storage.sharding.shards[1].name=shard-1",
+        "chat.storage.sharding.shards[1].url=jdbc:h2:mem:sharded-store-1;DB_CLOSE_DELAY=-1",
+        "chat.storage.sharding.shards[2].name=shard-2",
+        "chat.storage.sharding.shards[2].url=jdbc:h2:mem:sharded-store-2;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ShardedChatStoreTest extends ChatStoreContractTest {
+
+    @Autowired
+    private ShardedChatStore store;
+
+    @Autowired
+    private JpaChatStore jpaChatStore;
+
+    @Autowired
+    private ShardRouter router;
+
+    @Autowired
+    private ShardRebalancer rebalancer;
+
+    @Override
+    protected ChatStore store() {
+        return store;
+    }
+
+    @Test
+    void sessions_AreSpreadOverShards() {
+        // When
+        for (int i = 0; i < 30; i++) {
+            store.createSession(new ChatSession(UUID.randomUUID()), null);
+        }
+
+        // Then
+        Map<String, Long> perShard = rebalancer.sessionsPerShard();
+        assertEquals(router.shards(), List.copyOf(perShard.keySet()));
+        perShard.values().forEach(count -> assertTrue(count > 0, "Empty shard: " + perShard));
+        assertEquals(store.countSessions(), perShard.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void saveMessages_SpanningShardsWritesNothing() {
+        // Given: two sessions on different shards
+        UUID first = store.createSession(new ChatSession(UUID.randomUUID()), null).getSessionId();
+        UUID second;
+        do {
+            second = store.createSession(new ChatSession(UUID.randomUUID()), null).getSessionId();
+        } while (router.shardFor(second).equals(router.shardFor(first)));
+        LocalDateTime now = LocalDateTime.now();
+        List<ChatMessage> batch = List.of(message(first, "First", now),
+                                          message(second, "Second", now.plusSeconds(1)),
+                                          message(first, "Third", now.plusSeconds(2)));
+
+        // When
+        Collection<List<ChatMessage>> groups = store.writeGroups(batch, ChatMessage::getSessionId);
+
+        // Then: rejected as a whole, and split per shard in the original order
+        assertThrows(InvalidDataAccessApiUsageException.class, () -> store.saveMessages(batch));
+        assertEquals(List.of(), store.findMessages(first));
+        assertEquals(List.of(), store.findMessages(second));
+        assertEquals(List.of(List.of(batch.get(0), batch.get(2)), List.of(batch.get(1))), List.copyOf(groups));
+        groups.forEach(store::saveMessages);
+        assertEquals(List.of("First", "Third"), store.findMessages(first).stream().map(ChatMessage::getContent).toList());
+    }
+
+    @Test
+    void findRetentionCandidates_SharesTheLimitBetweenShards() {
+        // Given: four candidates on every shard, older than any other test's sessions
+        LocalDateTime longAgo = LocalDateTime.of(1900, 1, 1, 0, 0);
+        Map<String, Integer> perShard = new HashMap<>();
+        while (perShard.size() < router.shards().size() || perShard.values().stream().anyMatch(count -> count < 4)) {
+            ChatSession session = new ChatSession(UUID.randomUUID());
+            String shard = router.shardFor(session.getSessionId());
+            if (perShard.getOrDefault(shard, 0) < 4) {
+                session.setCreatedAt(longAgo);
+                store.createSession(session, null);
+                perShard.merge(shard, 1, Integer::sum);
+            }
+        }
+
+        // When
+        List<RetentionCandidate> candidates = store.findRetentionCandidates(null, longAgo.plusDays(1), 6);
+
+        // Then: two from each shard rather than four from the first
+        Map<String, Long> found = candidates.stream().collect(
+                Collectors.groupingBy(candidate -> router.shardFor(candidate.sessionId()), Collectors.counting()));
+        assertEquals(6, candidates.size());
+        router.shards().forEach(shard -> assertEquals(2L, found.get(shard), "Candidates per shard: " + found));
+    }
+
+    @Test
+    void rebalance_MovesSessionsToTheirNewShard() {
+        // Given: sessions written while only the first two shards existed
+        ShardedChatStore twoShardStore = new ShardedChatStore(jpaChatStore,
+                new ShardRouter(router.shards().subList(0, 2), 128));
+        List<UUID> sessionIds = new ArrayList<>();
+        long expectedMoves = 0;
+        for (int i = 0; i < 40; i++) {
+            ChatSession session = new ChatSession(UUID.randomUUID());
+            twoShardStore.createSession(session, message(session.getSessionId(), "Hello", LocalDateTime.now()));
+            twoShardStore.saveMessage(message(session.getSessionId(), "Again", LocalDateTime.now()));
+            sessionIds.add(session.getSessionId());
+            if (router.shardFor(session.getSessionId()).equals("shard-2")) {
+                expectedMoves++;
+            }
+        }
+        long sessions = store.countSessions();
+        long messages = store.countMessages();
+
+        // When
+        ShardRebalancer.Result result = rebalancer.rebalance();
+
+        // Then
+        assertTrue(expectedMoves > 0);
+        assertEquals(expectedMoves, result.sessionsMoved());
+        assertEquals(expectedMoves * 2, result.messagesMoved());
+        for (UUID sessionId : sessionIds) {
+            List<ChatMessage> history = store.findMessages(sessionId);
+            assertEquals(List.of("Hello", "Again"), history.stream().map(ChatMessage::getContent).toList());
+        }
+        assertEquals(sessions, store.countSessions());
+        assertEquals(messages, store.countMessages());
+
+        // And: a second run has nothing left to move
+        assertEquals(0, rebalancer.rebalance().sessionsMoved());
+    }
+}
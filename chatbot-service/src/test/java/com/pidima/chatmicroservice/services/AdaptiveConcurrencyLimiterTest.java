@@ -0,0 +1,102 @@
+package com.pidima.chatmicroservice.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofMillis(500).toNanos();
+
+    private final AtomicLong now = new AtomicLong();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void acquire_RejectsOnceTheLimitIsInFlight() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(2, 1, 10);
+        limiter.acquire();
+        limiter.acquire();
+
+        // When & Then
+        ConcurrencyLimitExceededException exception =
+                assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+        limiter.release();
+        assertDoesNotThrow(limiter::acquire);
+        assertEquals(1.0, meterRegistry.get("chat.admission.rejected").tag("reason", "concurrency").counter().count());
+        assertEquals(2.0, meterRegistry.get("chat.admission.concurrency.in-flight").gauge().value());
+    }
+
+    @Test
+    void onCompleted_GrowsTheLimitWhileFastAndFullyUsed() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(4, 1, 6);
+
+        // When: ten rounds of four fast requests in flight at once
+        for (int round = 0; round < 10; round++) {
+            int limit = limiter.limit();
+            for (int i = 0; i < limit; i++) {
+                limiter.acquire();
+            }
+            for (int i = 0; i < limit; i++) {
+                limiter.onCompleted(FAST, false);
+            }
+        }
+
+        // Then: about one per round, up to the maximum
+        assertEquals(6, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void onCompleted_DoesNotGrowAnUnusedLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(10, 1, 100);
+
+        // When: one request at a time
+        for (int i = 0; i < 100; i++) {
+            limiter.acquire();
+            limiter.onCompleted(FAST, false);
+        }
+
+        // Then
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void onCompleted_ShrinksOncePerSlowEpisodeDownToTheMinimum() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = limiter(100, 20, 100);
+
+        // When: a burst of slow and failed requests at the same moment
+        for (int i = 0; i < 10; i++) {
+            limiter.acquire();
+            limiter.onCompleted(i % 2 == 0 ? SLOW : FAST, i % 2 != 0);
+        }
+
+        // Then
+        assertEquals(50, limiter.limit());
+
+        // When: the slowdown persists
+        for (int i = 0; i < 5; i++) {
+            now.addAndGet(Duration.ofMillis(250).toNanos());
+            limiter.acquire();
+            limiter.onCompleted(SLOW, false);
+        }
+
+        // Then
+        assertEquals(20, limiter.limit());
+        assertEquals(20.0, meterRegistry.get("chat.admission.concurrency.limit").gauge().value());
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(int initial, int min, int max) {
+        return new AdaptiveConcurrencyLimiter(meterRegistry, initial, min, max, Duration.ofMillis(250), 0.5,
+                                              Duration.ofSeconds(1), now::get);
+    }
+}
@@ -0,0 +1,51 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ChatMetricsTest {
+
+    @Mock
+    private ChatStore chatStore;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private ChatMetrics chatMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(chatStore.countSessions()).thenReturn(3L);
+        when(chatStore.countMessages()).thenReturn(10L);
+        chatMetrics = new ChatMetrics(chatStore, meterRegistry);
+    }
+
+    @Test
+    void totals_SeededOnceThenMaintainedFromEvents() {
+        // When
+        chatMetrics.onSessionCreated(new SessionCreatedEvent(new ChatSession(UUID.randomUUID())));
+        chatMetrics.onMessageCommitted(new MessageCommittedEvent(new ChatMessage(UUID.randomUUID(), "Hi", "John")));
+        chatMetrics.onMessageCommitted(new MessageCommittedEvent(new ChatMessage(UUID.randomUUID(), "Hi", "John")));
+
+        // Then
+        assertEquals(4, chatMetrics.sessionCount());
+        assertEquals(12, chatMetrics.messageCount());
+        assertEquals(4.0, meterRegistry.get("chat.sessions").gauge().value());
+        assertEquals(2.0, meterRegistry.get("chat.messages.stored").counter().count());
+        verify(chatStore, times(1)).countSessions();
+        verify(chatStore, times(1)).countMessages();
+    }
+}
@@ -1,88 +1,135 @@
 package com.pidima.chatmicroservice.services;
 
+import com.pidima.chatmicroservice.dto.BulkMessageResult;
+import com.pidima.chatmicroservice.dto.BulkSendMessageResponse;
+import com.pidima.chatmicroservice.dto.ChatHistoryPage;
+import com.pidima.chatmicroservice.dto.SendMessageRequest;
 import com.pidima.chatmicroservice.models.ChatMessage;
 import com.pidima.chatmicroservice.models.ChatSession;
-import com.pidima.chatmicroservice.repositories.ChatMessageRepository;
-import com.pidima.chatmicroservice.repositories.ChatSessionRepository;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import com.pidima.chatmicroservice.repositories.SessionArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
 class ChatServiceTest {
 
     @Mock
-    private ChatSessionRepository sessionRepository;
+    private ChatStore chatStore;
 
     @Mock
-    private ChatMessageRepository messageRepository;
+    private SessionExistenceCache sessionCache;
+
+    @Mock
+    private MessageBroadcaster broadcaster;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private ChatMetrics chatMetrics;
+
+    @Spy
+    private IdGenerator idGenerator = new TimeOrderedIdGenerator();
+
+    @Spy
+    private Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @InjectMocks
     private ChatService chatService;
 
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID OTHER_SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000002");
+    private static final UUID UNKNOWN_SESSION_ID = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
     private ChatSession testSession;
 
     @BeforeEach
     void setUp() {
         testSession = new ChatSession();
-        testSession.setSessionId("test-session-id");
+        testSession.setSessionId(SESSION_ID);
+        lenient().when(chatStore.writeGroups(anyList(), any())).thenCallRealMethod();
     }
 
     @Test
     void createSession_WithInitialMessage() {
         // Given
         String initialMessage = "Hello, this is the first message";
-        when(sessionRepository.save(any(ChatSession.class))).thenReturn(testSession);
-        when(messageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(chatStore.createSession(any(ChatSession.class), any(ChatMessage.class))).thenReturn(testSession);
 
         // When
         ChatSession session = chatService.createSession(initialMessage);
 
         // Then
         assertNotNull(session);
-        assertEquals("test-session-id", session.getSessionId());
-        verify(sessionRepository).save(any(ChatSession.class));
-        verify(messageRepository).save(any(ChatMessage.class));
+        assertEquals(SESSION_ID, session.getSessionId());
+        verify(chatStore).createSession(any(ChatSession.class),
+                argThat(message -> initialMessage.equals(message.getContent()) && "system".equals(message.getSender())));
+        verify(sessionCache).markExists(SESSION_ID);
+        verify(eventPublisher).publishEvent(new SessionCreatedEvent(session));
+        verify(eventPublisher).publishEvent(any(MessageCommittedEvent.class));
     }
 
     @Test
     void createSession_WithoutInitialMessage() {
         // Given
-        when(sessionRepository.save(any(ChatSession.class))).thenReturn(testSession);
+        when(chatStore.createSession(any(ChatSession.class), isNull())).thenReturn(testSession);
 
         // When
         ChatSession session = chatService.createSession(null);
 
         // Then
         assertNotNull(session);
-        assertEquals("test-session-id", session.getSessionId());
-        verify(sessionRepository).save(any(ChatSession.class));
-        verify(messageRepository, never()).save(any(ChatMessage.class));
+        assertEquals(SESSION_ID, session.getSessionId());
+        verify(chatStore).createSession(any(ChatSession.class), isNull());
+        verify(eventPublisher, never()).publishEvent(any(MessageCommittedEvent.class));
     }
 
     @Test
     void sendMessage_Success() {
         // Given
-        String sessionId = "test-session-id";
+        String sessionId = SESSION_ID.toString();
         String content = "Hello World";
         String sender = "John";
         
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(testSession));
-        when(messageRepository.save(any(ChatMessage.class))).thenAnswer(invocation -> {
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.saveMessage(any(ChatMessage.class))).thenAnswer(invocation -> {
             ChatMessage message = invocation.getArgument(0);
-            message.setMessageId("test-message-id");
+            message.setMessageId(messageId(42));
             return message;
         });
 
@@ -91,20 +138,22 @@ class ChatServiceTest {
 
         // Then
         assertNotNull(message);
-        assertEquals("test-message-id", message.getMessageId());
-        assertEquals(sessionId, message.getSessionId());
+        assertEquals(messageId(42), message.getMessageId());
+        assertEquals(SESSION_ID, message.getSessionId());
         assertEquals(content, message.getContent());
         assertEquals(sender, message.getSender());
         assertNotNull(message.getTimestamp());
-        verify(sessionRepository).findById(sessionId);
-        verify(messageRepository).save(any(ChatMessage.class));
+        verify(sessionCache).exists(SESSION_ID);
+        verify(chatStore).saveMessage(any(ChatMessage.class));
+        verify(eventPublisher).publishEvent(new MessageCommittedEvent(message));
+        verifyNoMoreInteractions(chatStore);
     }
 
     @Test
     void sendMessage_SessionNotFound() {
         // Given
-        String nonExistentSessionId = "non-existent-session";
-        when(sessionRepository.findById(nonExistentSessionId)).thenReturn(Optional.empty());
+        String nonExistentSessionId = UNKNOWN_SESSION_ID.toString();
+        when(sessionCache.exists(UNKNOWN_SESSION_ID)).thenReturn(false);
 
         // When & Then
         IllegalArgumentException exception = assertThrows(
@@ -113,29 +162,175 @@ class ChatServiceTest {
         );
 
         assertEquals("Session not found: " + nonExistentSessionId, exception.getMessage());
-        verify(sessionRepository).findById(nonExistentSessionId);
-        verify(messageRepository, never()).save(any(ChatMessage.class));
+        verify(sessionCache).exists(UNKNOWN_SESSION_ID);
+        verify(chatStore, never()).saveMessage(any(ChatMessage.class));
+    }
+
+    @Test
+    void sendMessage_MalformedSessionIdIsNotFound() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> chatService.sendMessage("not-a-uuid", "Hello", "John")
+        );
+
+        assertEquals("Session not found: not-a-uuid", exception.getMessage());
+        verifyNoInteractions(sessionCache, chatStore);
+    }
+
+    @Test
+    void sendMessage_StaleCacheEntryRejectedByForeignKey() {
+        // Given
+        String sessionId = UNKNOWN_SESSION_ID.toString();
+        when(sessionCache.exists(UNKNOWN_SESSION_ID)).thenReturn(true);
+        when(chatStore.saveMessage(any(ChatMessage.class)))
+                .thenThrow(new DataIntegrityViolationException("fk_chat_messages_session"));
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> chatService.sendMessage(sessionId, "Hello", "John")
+        );
+
+        assertEquals("Session not found: " + sessionId, exception.getMessage());
+        verify(sessionCache).invalidate(UNKNOWN_SESSION_ID);
+    }
+
+    @Test
+    void sendMessage_UsesGroupCommitWriterWhenEnabled() {
+        // Given
+        GroupCommitWriter groupCommitWriter = mock(GroupCommitWriter.class);
+        ReflectionTestUtils.setField(chatService, "groupCommitWriter", groupCommitWriter);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(groupCommitWriter.write(any(ChatMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        ChatMessage message = chatService.sendMessage(SESSION_ID.toString(), "Hello", "John");
+
+        // Then
+        assertEquals("Hello", message.getContent());
+        verify(groupCommitWriter).write(any(ChatMessage.class));
+        verify(chatStore, never()).saveMessage(any(ChatMessage.class));
+    }
+
+    @Test
+    void sendMessages_ResolvesSessionsOnceAndReportsPerItem() {
+        // Given
+        List<SendMessageRequest> requests = List.of(
+                new SendMessageRequest(SESSION_ID.toString(), "First", "John"),
+                new SendMessageRequest(OTHER_SESSION_ID.toString(), "Second", "Jane"),
+                new SendMessageRequest("missing", "Third", "John"),
+                new SendMessageRequest(SESSION_ID.toString(), "", "John"),
+                new SendMessageRequest(SESSION_ID.toString(), "Fifth", "John")
+        );
+        when(chatStore.findExistingSessionIds(any())).thenReturn(Set.of(SESSION_ID, OTHER_SESSION_ID));
+        when(chatStore.saveMessages(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BulkSendMessageResponse response = chatService.sendMessages(requests);
+
+        // Then
+        assertEquals(3, response.getCreated());
+        assertEquals(2, response.getRejected());
+        assertEquals(201, response.getResults().get(0).getStatus());
+        assertNotNull(response.getResults().get(0).getMessageId());
+        assertEquals(400, response.getResults().get(2).getStatus());
+        assertEquals("Session not found: missing", response.getResults().get(2).getError());
+        assertEquals(400, response.getResults().get(3).getStatus());
+        assertTrue(response.getResults().get(3).getValidationErrors().containsKey("content"));
+        assertEquals(4, response.getResults().get(4).getIndex());
+        assertTrue(response.getResults().get(4).getTimestamp().isAfter(response.getResults().get(0).getTimestamp()));
+        verify(chatStore, times(1)).findExistingSessionIds(any());
+        verify(chatStore, times(1)).saveMessages(argThat(batch -> batch.size() == 3));
+        verify(sessionCache).markExists(SESSION_ID);
+        verify(eventPublisher, times(3)).publishEvent(any(MessageCommittedEvent.class));
+    }
+
+    @Test
+    void sendMessages_RejectsRateLimitedItemsWith429() {
+        // Given: each session may take two messages, each sender three
+        MessageRateLimiter rateLimiter = new MessageRateLimiter(new SimpleMeterRegistry(), 1, 3, 1, 2, 100, () -> 0L);
+        ReflectionTestUtils.setField(chatService, "rateLimiter", rateLimiter);
+        List<SendMessageRequest> requests = List.of(
+                new SendMessageRequest(SESSION_ID.toString(), "First", "John"),
+                new SendMessageRequest(SESSION_ID.toString(), "Second", "John"),
+                new SendMessageRequest(SESSION_ID.toString(), "Third", "Jane"),
+                new SendMessageRequest(OTHER_SESSION_ID.toString(), "Fourth", "John"),
+                new SendMessageRequest(OTHER_SESSION_ID.toString(), "Fifth", "John")
+        );
+        when(chatStore.findExistingSessionIds(any())).thenReturn(Set.of(SESSION_ID, OTHER_SESSION_ID));
+        when(chatStore.saveMessages(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        BulkSendMessageResponse response = chatService.sendMessages(requests);
+
+        // Then
+        assertEquals(3, response.getCreated());
+        assertEquals(List.of(201, 201, 429, 201, 429),
+                     response.getResults().stream().map(BulkMessageResult::getStatus).toList());
+        assertEquals("Rate limit exceeded for session: " + SESSION_ID, response.getResults().get(2).getError());
+        assertEquals("Rate limit exceeded for sender: John", response.getResults().get(4).getError());
+        verify(chatStore).saveMessages(argThat(batch -> batch.size() == 3));
+    }
+
+    @Test
+    void sendMessages_LaterWriteGroupFailingKeepsWhatCommitted() {
+        // Given: one write group per session, as with sessions on different shards
+        List<SendMessageRequest> requests = List.of(
+                new SendMessageRequest(SESSION_ID.toString(), "First", "John"),
+                new SendMessageRequest(OTHER_SESSION_ID.toString(), "Second", "Jane"),
+                new SendMessageRequest(SESSION_ID.toString(), "Third", "John")
+        );
+        when(chatStore.findExistingSessionIds(any())).thenReturn(Set.of(SESSION_ID, OTHER_SESSION_ID));
+        doAnswer(invocation -> {
+            List<Object> items = invocation.getArgument(0);
+            Function<Object, UUID> sessionId = invocation.getArgument(1);
+            return items.stream().collect(Collectors.groupingBy(sessionId, LinkedHashMap::new, Collectors.toList()))
+                    .values();
+        }).when(chatStore).writeGroups(anyList(), any());
+        when(chatStore.saveMessages(anyList()))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new DataAccessResourceFailureException("Shard unavailable"));
+
+        // When
+        BulkSendMessageResponse response = chatService.sendMessages(requests);
+
+        // Then: the first group is reported and published as stored, the second as failed
+        assertEquals(2, response.getCreated());
+        assertEquals(List.of(201, 503, 201),
+                     response.getResults().stream().map(BulkMessageResult::getStatus).toList());
+        verify(chatStore, times(2)).saveMessages(anyList());
+        verify(eventPublisher, times(2)).publishEvent(any(MessageCommittedEvent.class));
+        verify(sessionCache, never()).markExists(OTHER_SESSION_ID);
+    }
+
+    @Test
+    void sendMessages_RejectsOversizedBulk() {
+        List<SendMessageRequest> requests = Collections.nCopies(1001, new SendMessageRequest("s", "c", "u"));
+
+        assertThrows(IllegalArgumentException.class, () -> chatService.sendMessages(requests));
+        verifyNoInteractions(chatStore);
     }
 
     @Test
     void getChatHistory_Success() {
         // Given
-        String sessionId = "test-session-id";
+        String sessionId = SESSION_ID.toString();
         List<ChatMessage> messages = new ArrayList<>();
         
-        ChatMessage msg1 = new ChatMessage(sessionId, "Initial message", "system");
-        msg1.setMessageId("msg1");
-        ChatMessage msg2 = new ChatMessage(sessionId, "Second message", "User");
-        msg2.setMessageId("msg2");
-        ChatMessage msg3 = new ChatMessage(sessionId, "Third message", "Assistant");
-        msg3.setMessageId("msg3");
+        ChatMessage msg1 = new ChatMessage(SESSION_ID, "Initial message", "system");
+        msg1.setMessageId(messageId(1));
+        ChatMessage msg2 = new ChatMessage(SESSION_ID, "Second message", "User");
+        msg2.setMessageId(messageId(2));
+        ChatMessage msg3 = new ChatMessage(SESSION_ID, "Third message", "Assistant");
+        msg3.setMessageId(messageId(3));
         
         messages.add(msg1);
         messages.add(msg2);
         messages.add(msg3);
 
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(testSession));
-        when(messageRepository.findBySessionIdOrderByTimestampAsc(sessionId)).thenReturn(messages);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findMessages(SESSION_ID)).thenReturn(messages);
 
         // When
         List<ChatMessage> history = chatService.getChatHistory(sessionId);
@@ -148,15 +343,15 @@ class ChatServiceTest {
         assertEquals("User", history.get(1).getSender());
         assertEquals("Third message", history.get(2).getContent());
         assertEquals("Assistant", history.get(2).getSender());
-        verify(sessionRepository).findById(sessionId);
-        verify(messageRepository).findBySessionIdOrderByTimestampAsc(sessionId);
+        verify(sessionCache).exists(SESSION_ID);
+        verify(chatStore).findMessages(SESSION_ID);
     }
 
     @Test
     void getChatHistory_SessionNotFound() {
         // Given
-        String nonExistentSessionId = "non-existent-session";
-        when(sessionRepository.findById(nonExistentSessionId)).thenReturn(Optional.empty());
+        String nonExistentSessionId = UNKNOWN_SESSION_ID.toString();
+        when(sessionCache.exists(UNKNOWN_SESSION_ID)).thenReturn(false);
 
         // When & Then
         IllegalArgumentException exception = assertThrows(
@@ -165,49 +360,306 @@ class ChatServiceTest {
         );
 
         assertEquals("Session not found: " + nonExistentSessionId, exception.getMessage());
-        verify(sessionRepository).findById(nonExistentSessionId);
-        verify(messageRepository, never()).findBySessionIdOrderByTimestampAsc(anyString());
+        verify(sessionCache).exists(UNKNOWN_SESSION_ID);
+        verify(chatStore, never()).findMessages(any());
+    }
+
+    @Test
+    void getChatHistory_ReadsArchivedSessionsFromTheArchive() {
+        // Given
+        SessionArchive sessionArchive = mock(SessionArchive.class);
+        ReflectionTestUtils.setField(chatService, "sessionArchive", sessionArchive);
+        List<ChatMessage> archived = messagesAt(SESSION_ID, 2);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(false);
+        when(sessionArchive.contains(SESSION_ID)).thenReturn(true);
+        when(sessionArchive.findMessages(SESSION_ID)).thenReturn(archived);
+
+        // When
+        List<ChatMessage> result = chatService.getChatHistory(SESSION_ID.toString());
+
+        // Then
+        assertEquals(archived, result);
+        verify(chatStore, never()).findMessages(any());
+    }
+
+    @Test
+    void sendMessage_RejectsArchivedSessions() {
+        // Given
+        SessionArchive sessionArchive = mock(SessionArchive.class);
+        ReflectionTestUtils.setField(chatService, "sessionArchive", sessionArchive);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(false);
+        when(sessionArchive.contains(SESSION_ID)).thenReturn(true);
+
+        // When & Then
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> chatService.sendMessage(SESSION_ID.toString(), "Hello", "John")
+        );
+
+        assertEquals("Session is archived and read-only: " + SESSION_ID, exception.getMessage());
+        verify(chatStore, never()).saveMessage(any(ChatMessage.class));
+    }
+
+    @Test
+    void sendMessage_RejectsSendersOverTheirRate() {
+        // Given: a sender allowed one message at a time, with a frozen clock
+        MessageRateLimiter rateLimiter = new MessageRateLimiter(new SimpleMeterRegistry(), 1, 1, 10, 10, 100, () -> 0L);
+        ReflectionTestUtils.setField(chatService, "rateLimiter", rateLimiter);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.saveMessage(any(ChatMessage.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        chatService.sendMessage(SESSION_ID.toString(), "Hello", "John");
+
+        // When & Then
+        RateLimitExceededException exception = assertThrows(
+                RateLimitExceededException.class,
+                () -> chatService.sendMessage(SESSION_ID.toString(), "Again", "John")
+        );
+
+        assertEquals(Duration.ofSeconds(1), exception.getRetryAfter());
+        verify(chatStore, times(1)).saveMessage(any(ChatMessage.class));
+        verify(sessionCache, times(1)).exists(SESSION_ID);
     }
 
     @Test
     void getSession_Found() {
         // Given
-        String sessionId = "test-session-id";
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.of(testSession));
+        String sessionId = SESSION_ID.toString();
+        when(chatStore.findSession(SESSION_ID)).thenReturn(Optional.of(testSession));
 
         // When
         var result = chatService.getSession(sessionId);
 
         // Then
         assertTrue(result.isPresent());
-        assertEquals(sessionId, result.get().getSessionId());
-        verify(sessionRepository).findById(sessionId);
+        assertEquals(SESSION_ID, result.get().getSessionId());
+        verify(chatStore).findSession(SESSION_ID);
     }
 
     @Test
     void getSession_NotFound() {
         // Given
-        String sessionId = "non-existent-session";
-        when(sessionRepository.findById(sessionId)).thenReturn(Optional.empty());
+        String sessionId = UNKNOWN_SESSION_ID.toString();
+        when(chatStore.findSession(UNKNOWN_SESSION_ID)).thenReturn(Optional.empty());
 
         // When
         var result = chatService.getSession(sessionId);
 
         // Then
         assertFalse(result.isPresent());
-        verify(sessionRepository).findById(sessionId);
+        verify(chatStore).findSession(UNKNOWN_SESSION_ID);
     }
 
     @Test
     void getSessionCount() {
         // Given
-        when(sessionRepository.count()).thenReturn(5L);
+        when(chatMetrics.sessionCount()).thenReturn(5L);
 
         // When
         int count = chatService.getSessionCount();
 
         // Then
         assertEquals(5, count);
-        verify(sessionRepository).count();
+        verifyNoInteractions(chatStore);
+    }
+
+    @Test
+    void getChatHistoryPage_FirstPageWithMore() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> rows = messagesAt(SESSION_ID, 3);
+
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findFirstPage(SESSION_ID, 3)).thenReturn(rows);
+
+        // When
+        ChatHistoryPage page = chatService.getChatHistoryPage(sessionId, 2, null, null, false);
+
+        // Then
+        assertEquals(2, page.getMessages().size());
+        assertEquals(messageId(0), page.getMessages().get(0).getMessageId());
+        assertEquals(messageId(1), page.getMessages().get(1).getMessageId());
+        assertTrue(page.isHasMore());
+        assertEquals(messageId(1), HistoryCursor.decode(page.getNextCursor()).messageId());
+        assertEquals(messageId(0), HistoryCursor.decode(page.getPrevCursor()).messageId());
+        verify(chatStore).findFirstPage(SESSION_ID, 3);
+    }
+
+    @Test
+    void getChatHistoryPage_AfterCursor() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> rows = messagesAt(SESSION_ID, 3);
+        HistoryCursor cursor = HistoryCursor.of(rows.get(0));
+
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findPageAfter(eq(SESSION_ID), eq(cursor.timestamp()), eq(messageId(0)), anyInt()))
+                .thenReturn(rows.subList(1, 3));
+
+        // When
+        ChatHistoryPage page = chatService.getChatHistoryPage(sessionId, 5, cursor.encode(), null, false);
+
+        // Then
+        assertEquals(2, page.getMessages().size());
+        assertEquals(messageId(1), page.getMessages().get(0).getMessageId());
+        assertFalse(page.isHasMore());
+    }
+
+    @Test
+    void getChatHistoryPage_LatestReturnsAscendingOrder() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> rows = messagesAt(SESSION_ID, 3);
+        List<ChatMessage> newestFirst = new ArrayList<>(List.of(rows.get(2), rows.get(1), rows.get(0)));
+
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findLatestPage(eq(SESSION_ID), anyInt())).thenReturn(newestFirst);
+
+        // When
+        ChatHistoryPage page = chatService.getChatHistoryPage(sessionId, 2, null, null, true);
+
+        // Then
+        assertEquals(2, page.getMessages().size());
+        assertEquals(messageId(1), page.getMessages().get(0).getMessageId());
+        assertEquals(messageId(2), page.getMessages().get(1).getMessageId());
+        assertTrue(page.isHasMore());
+    }
+
+    @Test
+    void getMessagesSince_ReturnsNewerMessagesWithMore() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> rows = messagesAt(SESSION_ID, 3);
+
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findMessagesSince(SESSION_ID, 7, 3)).thenReturn(rows);
+
+        // When
+        ChatHistoryPage page = chatService.getMessagesSince(sessionId, 7, 2);
+
+        // Then
+        assertEquals(2, page.getMessages().size());
+        assertEquals(messageId(0), page.getMessages().get(0).getMessageId());
+        assertTrue(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void getMessagesSince_RejectsNegativeSeq() {
+        // When & Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> chatService.getMessagesSince(SESSION_ID.toString(), -1, null));
+        assertEquals("'sinceSeq' must not be negative", exception.getMessage());
+        verifyNoInteractions(chatStore);
+    }
+
+    @Test
+    void getChatHistoryPage_RejectsBothCursors() {
+        String cursor = new HistoryCursor(LocalDateTime.now(), messageId(0)).encode();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> chatService.getChatHistoryPage(SESSION_ID.toString(), 10, cursor, cursor, false));
+        verifyNoInteractions(chatStore);
+    }
+
+    @Test
+    void getChatHistoryPage_RejectsInvalidCursor() {
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+
+        IllegalArgumentException exception = assertThrows(
+                IllegalArgumentException.class,
+                () -> chatService.getChatHistoryPage(SESSION_ID.toString(), 10, "not-a-cursor", null, false)
+        );
+
+        assertEquals("Invalid cursor: not-a-cursor", exception.getMessage());
+    }
+
+    @Test
+    void getChatHistoryPage_RejectsLimitOutOfRange() {
+        assertThrows(IllegalArgumentException.class,
+                () -> chatService.getChatHistoryPage(SESSION_ID.toString(), 0, null, null, false));
+        assertThrows(IllegalArgumentException.class,
+                () -> chatService.getChatHistoryPage(SESSION_ID.toString(), 501, null, null, false));
+    }
+
+    @Test
+    void exportChatHistory_StreamsEveryMessageToTheSink() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        List<ChatMessage> rows = messagesAt(SESSION_ID, 3);
+        List<ChatMessage> exported = new ArrayList<>();
+
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.exportMessages(eq(SESSION_ID), any())).thenAnswer(invocation -> {
+            Consumer<ChatMessage> sink = invocation.getArgument(1);
+            rows.forEach(sink);
+            return (long) rows.size();
+        });
+
+        // When
+        long count = chatService.exportChatHistory(sessionId, exported::add);
+
+        // Then
+        assertEquals(3, count);
+        assertEquals(rows, exported);
+    }
+
+    @Test
+    void exportChatHistory_SessionNotFound() {
+        // Given
+        String nonExistentSessionId = UNKNOWN_SESSION_ID.toString();
+        when(sessionCache.exists(UNKNOWN_SESSION_ID)).thenReturn(false);
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> chatService.exportChatHistory(nonExistentSessionId, message -> { }));
+        verify(chatStore, never()).exportMessages(any(), any());
+    }
+
+    @Test
+    void subscribe_ResumesFromLastEventId() {
+        // Given
+        String sessionId = SESSION_ID.toString();
+        ChatMessage lastSeen = messagesAt(SESSION_ID, 1).get(0);
+        MessageSubscriber subscriber = mock(MessageSubscriber.class);
+        MessageSubscription subscription = mock(MessageSubscription.class);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findMessage(messageId(0))).thenReturn(Optional.of(lastSeen));
+        when(broadcaster.subscribe(SESSION_ID, HistoryCursor.of(lastSeen), subscriber)).thenReturn(subscription);
+
+        // When
+        MessageSubscription result = chatService.subscribe(sessionId, messageId(0).toString(), subscriber);
+
+        // Then
+        assertSame(subscription, result);
+    }
+
+    @Test
+    void subscribe_RejectsLastEventIdFromAnotherSession() {
+        // Given
+        ChatMessage foreign = messagesAt(UNKNOWN_SESSION_ID, 1).get(0);
+        when(sessionCache.exists(SESSION_ID)).thenReturn(true);
+        when(chatStore.findMessage(messageId(0))).thenReturn(Optional.of(foreign));
+
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+                () -> chatService.subscribe(SESSION_ID.toString(), messageId(0).toString(),
+                        mock(MessageSubscriber.class)));
+        verifyNoInteractions(broadcaster);
+    }
+
+    private static List<ChatMessage> messagesAt(UUID sessionId, int count) {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 12, 0);
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatMessage message = new ChatMessage(sessionId, "Message " + i, "User");
+            message.setMessageId(messageId(i));
+            message.setTimestamp(base.plusSeconds(i));
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    private static UUID messageId(int i) {
+        return UUID.fromString(String.format("01900000-0000-7000-9000-%012d", i));
     }
 }
\ No newline at end of file
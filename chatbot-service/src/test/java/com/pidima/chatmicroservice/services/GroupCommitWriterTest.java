@@ -0,0 +1,171 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GroupCommitWriterTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+
+    @Mock
+    private ChatStore chatStore;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private GroupCommitWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        when(chatStore.writeGroups(anyList(), any())).thenCallRealMethod();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (writer != null && writer.isRunning()) {
+            writer.stop();
+        }
+    }
+
+    @Test
+    void write_GroupsConcurrentMessagesIntoOneCommit() {
+        // Given
+        writer = newWriter(100, 10, Duration.ofMillis(200));
+        when(chatStore.saveMessages(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        writer.start();
+
+        // When
+        List<CompletableFuture<ChatMessage>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(writer.submit(message("msg" + i)));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        // Then
+        verify(chatStore, times(1)).saveMessages(argThat(batch -> batch.size() == 5));
+        DistributionSummary batchSizes = meterRegistry.get("chat.ingestion.batch.size").summary();
+        assertEquals(1, batchSizes.count());
+        assertEquals(5, batchSizes.totalAmount());
+        assertEquals("msg3", futures.get(3).join().getContent());
+    }
+
+    @Test
+    void write_CapsBatchesAtMaxBatchSize() {
+        // Given
+        writer = newWriter(100, 2, Duration.ofMillis(200));
+        when(chatStore.saveMessages(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        writer.start();
+
+        // When
+        List<CompletableFuture<ChatMessage>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(writer.submit(message("msg" + i)));
+        }
+        futures.forEach(CompletableFuture::join);
+
+        // Then
+        assertEquals(5, meterRegistry.get("chat.ingestion.batch.size").summary().totalAmount());
+        assertTrue(meterRegistry.get("chat.ingestion.batch.size").summary().max() <= 2);
+    }
+
+    @Test
+    void write_FailedBatchIsRetriedPerMessage() {
+        // Given
+        writer = newWriter(100, 10, Duration.ofMillis(200));
+        when(chatStore.saveMessages(anyList()))
+                .thenThrow(new DataIntegrityViolationException("fk_chat_messages_session"));
+        when(chatStore.saveMessage(any(ChatMessage.class))).thenAnswer(invocation -> {
+            ChatMessage message = invocation.getArgument(0);
+            if ("bad".equals(message.getContent())) {
+                throw new DataIntegrityViolationException("fk_chat_messages_session");
+            }
+            return message;
+        });
+        writer.start();
+
+        // When
+        CompletableFuture<ChatMessage> good = writer.submit(message("good"));
+        CompletableFuture<ChatMessage> bad = writer.submit(message("bad"));
+
+        // Then
+        assertEquals("good", good.join().getContent());
+        CompletionException failure = assertThrows(CompletionException.class, bad::join);
+        assertInstanceOf(DataIntegrityViolationException.class, failure.getCause());
+        verify(chatStore, times(2)).saveMessage(any(ChatMessage.class));
+    }
+
+    @Test
+    void submit_RejectsWhenQueueIsFull() throws Exception {
+        // Given
+        writer = newWriter(1, 10, Duration.ZERO);
+        CountDownLatch commitStarted = new CountDownLatch(1);
+        CountDownLatch releaseCommit = new CountDownLatch(1);
+        when(chatStore.saveMessages(anyList())).thenAnswer(invocation -> {
+            commitStarted.countDown();
+            releaseCommit.await(5, TimeUnit.SECONDS);
+            return invocation.getArgument(0);
+        });
+        writer.start();
+
+        // When
+        CompletableFuture<ChatMessage> inFlight = writer.submit(message("in-flight"));
+        assertTrue(commitStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<ChatMessage> queued = writer.submit(message("queued"));
+
+        // Then
+        assertThrows(RejectedExecutionException.class, () -> writer.submit(message("rejected")));
+        assertEquals(1.0, meterRegistry.get("chat.ingestion.queue.depth").gauge().value());
+        releaseCommit.countDown();
+        inFlight.join();
+        queued.join();
+    }
+
+    @Test
+    void submit_RejectsWhenNotRunning() {
+        writer = newWriter(10, 10, Duration.ZERO);
+
+        assertThrows(RejectedExecutionException.class, () -> writer.submit(message("msg")));
+    }
+
+    private GroupCommitWriter newWriter(int capacity, int maxBatchSize, Duration maxLinger) {
+        return new GroupCommitWriter(chatStore, meterRegistry, new MockEnvironment(),
+                capacity, maxBatchSize, maxLinger, Duration.ofMillis(20));
+    }
+
+    // The label is carried in the content so assertions can tell messages apart
+    private static ChatMessage message(String label) {
+        ChatMessage message = new ChatMessage(SESSION_ID, label, "John");
+        message.setMessageId(UUID.randomUUID());
+        return message;
+    }
+}
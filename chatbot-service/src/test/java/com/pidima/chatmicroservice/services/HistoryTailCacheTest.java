@@ -0,0 +1,218 @@
+package com.pidima.chatmicroservice.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.InMemoryChatStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+class HistoryTailCacheTest {
+
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final IdGenerator idGenerator = new TimeOrderedIdGenerator();
+
+    private InMemoryChatStore chatStore;
+    private HistoryTailCache cache;
+
+    @BeforeEach
+    void setUp() {
+        chatStore = spy(new InMemoryChatStore());
+        chatStore.createSession(new ChatSession(SESSION_ID), null);
+        cache = new HistoryTailCache(chatStore, objectMapper, 3, DataSize.ofMegabytes(1), Duration.ofMinutes(10));
+    }
+
+    @Test
+    void fullHistory_LoadsOnceThenAppendsCommittedMessages() throws IOException {
+        // Given
+        store("one", 0);
+        store("two", 1);
+        HistoryTailCache.Snapshot first = cache.fullHistory(SESSION_ID);
+
+        // When
+        store("three", 2);
+        HistoryTailCache.Snapshot second = cache.fullHistory(SESSION_ID);
+
+        // Then: the new message is in the body and the ETag moved, without another query
+        assertEquals(List.of("one", "two"), contents(first.body()));
+        assertEquals(List.of("one", "two", "three"), contents(second.body()));
+        assertNotEquals(first.etag(), second.etag());
+        verify(chatStore, times(1)).findLatestPage(eq(SESSION_ID), anyInt());
+    }
+
+    @Test
+    void fullHistory_OnlyTagsHistoriesLongerThanTheTail() {
+        // Given
+        for (int i = 0; i < 4; i++) {
+            store("message " + i, i);
+        }
+
+        // When
+        HistoryTailCache.Snapshot snapshot = cache.fullHistory(SESSION_ID);
+
+        // Then
+        assertNull(snapshot.body());
+        assertNotNull(snapshot.etag());
+    }
+
+    @Test
+    void fullHistory_NewSessionNeedsNoQuery() {
+        // Given
+        UUID sessionId = idGenerator.newId();
+        ChatSession session = chatStore.createSession(new ChatSession(sessionId), null);
+        cache.onSessionCreated(new SessionCreatedEvent(session));
+
+        // When
+        HistoryTailCache.Snapshot snapshot = cache.fullHistory(sessionId);
+
+        // Then
+        assertEquals("[]", new String(snapshot.body()));
+        verify(chatStore, never()).findLatestPage(eq(sessionId), anyInt());
+    }
+
+    @Test
+    void latestPage_SlicesTheTailWithCursors() throws IOException {
+        // Given
+        List<ChatMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            messages.add(store("message " + i, i));
+        }
+
+        // When
+        HistoryTailCache.Snapshot page = cache.latestPage(SESSION_ID, 2);
+        HistoryTailCache.Snapshot tooLarge = cache.latestPage(SESSION_ID, 4);
+
+        // Then
+        assertEquals(List.of("message 3", "message 4"), contents(page.body()));
+        assertEquals(HistoryCursor.of(messages.get(3)).encode(), page.prevCursor());
+        assertEquals(HistoryCursor.of(messages.get(4)).encode(), page.nextCursor());
+        assertTrue(page.hasMore());
+        assertNull(tooLarge.body());
+        assertNotEquals(page.etag(), tooLarge.etag());
+    }
+
+    @Test
+    void latestPage_TrimsTheTailAsMessagesArrive() throws IOException {
+        // Given
+        store("one", 0);
+        cache.latestPage(SESSION_ID, 3);
+
+        // When
+        for (int i = 1; i <= 3; i++) {
+            store("message " + i, i);
+        }
+        HistoryTailCache.Snapshot page = cache.latestPage(SESSION_ID, 3);
+
+        // Then
+        assertEquals(List.of("message 1", "message 2", "message 3"), contents(page.body()));
+        assertTrue(page.hasMore());
+        assertNull(cache.fullHistory(SESSION_ID).body());
+    }
+
+    @Test
+    void onMessageCommitted_KeepsStoreOrderAndIgnoresDuplicates() throws IOException {
+        // Given
+        store("one", 0);
+        cache.fullHistory(SESSION_ID);
+        ChatMessage two = storeQuietly("two", 1);
+        ChatMessage three = storeQuietly("three", 2);
+
+        // When: the events arrive out of commit order, one of them twice
+        cache.onMessageCommitted(new MessageCommittedEvent(three));
+        cache.onMessageCommitted(new MessageCommittedEvent(two));
+        cache.onMessageCommitted(new MessageCommittedEvent(three));
+
+        // Then: the tail follows the store's ordering, not the arrival order
+        HistoryTailCache.Snapshot snapshot = cache.fullHistory(SESSION_ID);
+        assertEquals(List.of("one", "two", "three"), contents(snapshot.body()));
+        assertEquals(contents(objectMapper.writeValueAsBytes(chatStore.findMessages(SESSION_ID))),
+                     contents(snapshot.body()));
+    }
+
+    @Test
+    void onMessageCommitted_OlderMessageChangesTheEtag() {
+        // Given: a cached tail whose newest message committed before an older one
+        store("one", 0);
+        cache.fullHistory(SESSION_ID);
+        ChatMessage two = storeQuietly("two", 1);
+        ChatMessage three = storeQuietly("three", 2);
+        cache.onMessageCommitted(new MessageCommittedEvent(three));
+        HistoryTailCache.Snapshot before = cache.fullHistory(SESSION_ID);
+        HistoryTailCache.Snapshot pageBefore = cache.latestPage(SESSION_ID, 2);
+
+        // When
+        cache.onMessageCommitted(new MessageCommittedEvent(two));
+
+        // Then: the newest message is the same, the tags are not
+        assertNotEquals(before.etag(), cache.fullHistory(SESSION_ID).etag());
+        assertNotEquals(pageBefore.etag(), cache.latestPage(SESSION_ID, 2).etag());
+    }
+
+    @Test
+    void onMessageCommitted_AppendsAcrossManyTrimmedTails() throws IOException {
+        // Given
+        store("message 0", 0);
+        HistoryTailCache.Snapshot before = cache.latestPage(SESSION_ID, 3);
+
+        // When: enough appends to move the tail through several buffers
+        for (int i = 1; i < 200; i++) {
+            store("message " + i, i);
+        }
+
+        // Then: an earlier snapshot is unaffected and the newest three are served
+        assertEquals(List.of("message 0"), contents(before.body()));
+        assertEquals(List.of("message 197", "message 198", "message 199"),
+                     contents(cache.latestPage(SESSION_ID, 3).body()));
+        assertEquals(List.of("message 198", "message 199"), contents(cache.latestPage(SESSION_ID, 2).body()));
+        verify(chatStore, times(1)).findLatestPage(eq(SESSION_ID), anyInt());
+    }
+
+    @Test
+    void onMessageCommitted_IgnoresSessionsThatAreNotCached() {
+        // When
+        store("one", 0);
+
+        // Then
+        assertEquals(0, cache.stats().loadCount());
+        verify(chatStore, never()).findLatestPage(any(), anyInt());
+    }
+
+    // Stores the message and publishes its event, like ChatService does
+    private ChatMessage store(String content, int secondsAfterStart) {
+        ChatMessage message = storeQuietly(content, secondsAfterStart);
+        cache.onMessageCommitted(new MessageCommittedEvent(message));
+        return message;
+    }
+
+    private ChatMessage storeQuietly(String content, int secondsAfterStart) {
+        ChatMessage message = new ChatMessage(SESSION_ID, content, "user");
+        message.setMessageId(idGenerator.newId());
+        message.setTimestamp(START.plusSeconds(secondsAfterStart));
+        chatStore.saveMessage(message);
+        return message;
+    }
+
+    private List<String> contents(byte[] body) throws IOException {
+        List<String> contents = new ArrayList<>();
+        for (JsonNode message : objectMapper.readTree(body)) {
+            contents.add(message.get("content").asText());
+        }
+        return contents;
+    }
+}
@@ -0,0 +1,165 @@
+package com.pidima.chatmicroservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 12, 0);
+    private static final UUID SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID OTHER_SESSION_ID = UUID.fromString("01900000-0000-7000-8000-000000000002");
+
+    private final InvertedIndex index = new InvertedIndex();
+
+    @Test
+    void tokenize_SplitsOnAnythingButLettersAndDigits() {
+        assertEquals(List.of("where", "s", "my", "order", "42", "caf\u00e9"),
+                     InvertedIndex.tokenize("Where's my ORDER #42? Caf\u00c9!"));
+        assertEquals(List.of("ok"), InvertedIndex.tokenize("ok " + "x".repeat(InvertedIndex.MAX_TERM_LENGTH + 1)));
+    }
+
+    @Test
+    void search_MatchesOnlyMessagesWithEveryWord() {
+        // Given
+        UUID both = add(SESSION_ID, "john", BASE, "Refund for my order please");
+        add(SESSION_ID, "john", BASE, "Where is my order?");
+        add(SESSION_ID, "john", BASE, "Refund policy");
+
+        // When
+        InvertedIndex.Result result = index.search("ORDER refund", null, null, null, null, 10);
+
+        // Then
+        assertEquals(1, result.matches());
+        assertEquals(List.of(both), messageIds(result));
+        assertEquals(0, index.search("order shipping", null, null, null, null, 10).matches());
+    }
+
+    @Test
+    void search_RanksFrequentAndConciseMatchesFirst() {
+        // Given
+        UUID diluted = add(SESSION_ID, "john", BASE, "refund " + "filler words that say nothing ".repeat(5));
+        UUID repeated = add(SESSION_ID, "john", BASE, "refund refund refund");
+        UUID plain = add(SESSION_ID, "john", BASE, "refund now");
+        add(SESSION_ID, "john", BASE, "unrelated");
+
+        // When
+        InvertedIndex.Result result = index.search("refund", null, null, null, null, 10);
+
+        // Then
+        assertEquals(List.of(repeated, plain, diluted), messageIds(result));
+        assertTrue(result.hits().get(0).score() > result.hits().get(1).score());
+    }
+
+    @Test
+    void search_AppliesFiltersAndKeepsTheTopK() {
+        // Given
+        List<UUID> added = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            added.add(add(i % 2 == 0 ? SESSION_ID : OTHER_SESSION_ID, i % 5 == 0 ? "agent" : "john", BASE.plusMinutes(i),
+                "status update " + i));
+        }
+
+        // When & Then
+        assertEquals(25, index.search("status", SESSION_ID, null, null, null, 10).matches());
+        assertEquals(10, index.search("status", null, "agent", null, null, 10).matches());
+        assertEquals(10, index.search("status", null, null, BASE.plusMinutes(10), BASE.plusMinutes(20), 3).matches());
+        assertEquals(5, index.search("status", SESSION_ID, "agent", null, null, 10).matches());
+        assertEquals(0, index.search("status", UUID.randomUUID(), null, null, null, 10).matches());
+        // Equal scores: newest first
+        InvertedIndex.Result top = index.search("status", null, null, null, null, 3);
+        assertEquals(50, top.matches());
+        assertEquals(List.of(added.get(49), added.get(48), added.get(47)), messageIds(top));
+    }
+
+    @Test
+    void search_SkipsRemovedSessions() {
+        // Given
+        add(SESSION_ID, "john", BASE, "hello there");
+        UUID kept = add(OTHER_SESSION_ID, "john", BASE, "hello again");
+
+        // When
+        index.removeSessions(Set.of(SESSION_ID));
+        add(SESSION_ID, "john", BASE, "hello late");
+
+        // Then
+        assertEquals(List.of(kept), messageIds(index.search("hello", null, null, null, null, 10)));
+    }
+
+    @Test
+    void removeSessions_CompactsOnceRemovedSessionsPassTheThreshold() {
+        // Given: 3 of 8 sessions removed stays below the threshold of half the documents
+        InvertedIndex index = new InvertedIndex(0.5);
+        List<UUID> sessionIds = new ArrayList<>();
+        List<UUID> kept = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            UUID sessionId = new UUID(0, i + 1);
+            sessionIds.add(sessionId);
+            for (int j = 0; j < 10; j++) {
+                UUID messageId = UUID.randomUUID();
+                index.add(messageId, sessionId, "john", BASE.plusMinutes(j), "reply " + (i < 4 ? "gone" : "kept"));
+                if (i >= 4) {
+                    kept.add(messageId);
+                }
+            }
+        }
+        index.removeSessions(sessionIds.subList(0, 3));
+        assertEquals(80, index.documentCount());
+
+        // When
+        index.removeSessions(sessionIds.subList(3, 4));
+        index.add(UUID.randomUUID(), sessionIds.get(0), "john", BASE, "reply late");
+
+        // Then: the removed documents, their sessions and the terms only they used are gone
+        assertEquals(40, index.documentCount());
+        assertEquals(2, index.termCount());
+        assertEquals(0, index.search("gone", null, null, null, null, 10).matches());
+        InvertedIndex.Result all = index.search("reply", null, null, null, null, 100);
+        assertEquals(40, all.matches());
+        assertEquals(Set.copyOf(kept), Set.copyOf(messageIds(all)));
+        assertEquals(10, index.search("reply kept", sessionIds.get(5), null, BASE, BASE.plusMinutes(10), 100).matches());
+        assertEquals(0, index.search("reply", sessionIds.get(0), null, null, null, 10).matches());
+        // Documents added after the compaction follow the remapped ones
+        UUID newest = UUID.randomUUID();
+        index.add(newest, sessionIds.get(7), "john", BASE, "reply kept");
+        assertEquals(newest, messageIds(index.search("kept", null, null, null, null, 1)).get(0));
+    }
+
+    @Test
+    void postingLists_RoundTripLargeGapsAndFrequencies() {
+        // Given: a term in the first and every 1000th of 300,000 documents
+        for (int doc = 0; doc < 300_000; doc++) {
+            String content = doc % 1000 == 0 ? "rare " + "common ".repeat(200) : "common";
+            add(SESSION_ID, "john", BASE, content);
+        }
+
+        // When
+        InvertedIndex.Result rare = index.search("rare common", null, null, null, null, 1000);
+
+        // Then
+        assertEquals(300, rare.matches());
+        assertEquals(300_000, index.documentCount());
+        assertEquals(2, index.termCount());
+        // One byte per gap and per frequency below 128, two for the rare term's gaps of 1000, plus
+        // 36 bytes per document slot
+        long commonBytes = 300_000 * 2 + 300;
+        long rareBytes = 2 + 299 * 3;
+        assertEquals(commonBytes + rareBytes + 524_288L * 36, index.sizeInBytes());
+    }
+
+    private UUID add(UUID sessionId, String sender, LocalDateTime timestamp, String content) {
+        UUID messageId = UUID.randomUUID();
+        index.add(messageId, sessionId, sender, timestamp, content);
+        return messageId;
+    }
+
+    private static List<UUID> messageIds(InvertedIndex.Result result) {
+        return result.hits().stream().map(InvertedIndex.Hit::messageId).toList();
+    }
+}
@@ -0,0 +1,277 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MessageBroadcasterTest {
+
+    @Mock
+    private ChatStore chatStore;
+
+    private static final UUID SESSION_1 = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID SESSION_2 = UUID.fromString("01900000-0000-7000-8000-000000000002");
+
+    private final List<RecordingSubscriber> subscribers = new ArrayList<>();
+
+    private MessageBroadcaster broadcaster;
+
+    @AfterEach
+    void tearDown() {
+        if (broadcaster != null) {
+            broadcaster.shutdown();
+        }
+    }
+
+    @Test
+    void onMessageCommitted_DeliversOnlyToSubscribersOfTheSession() {
+        // Given
+        broadcaster = newBroadcaster(new SyncTaskExecutor(), 10);
+        subscribe(SESSION_1, null);
+        subscribe(SESSION_2, null);
+
+        ChatMessage committed = message(SESSION_1, 1);
+
+        // When
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(committed));
+
+        // Then
+        assertEquals(List.of("opened", "message:" + committed.getMessageId()), subscribers.get(0).events);
+        assertEquals(List.of("opened"), subscribers.get(1).events);
+    }
+
+    @Test
+    void subscribe_ReplaysMissedMessagesAndSkipsLiveDuplicates() {
+        // Given
+        ChatMessage lastSeen = message(SESSION_1, 1);
+        ChatMessage missed = message(SESSION_1, 2);
+        when(chatStore.findPageAfter(eq(SESSION_1), eq(lastSeen.getTimestamp()), eq(lastSeen.getMessageId()),
+                anyInt())).thenReturn(List.of(missed));
+        broadcaster = newBroadcaster(new SyncTaskExecutor(), 10);
+
+        // When
+        subscribe(SESSION_1, HistoryCursor.of(lastSeen));
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(missed));
+        ChatMessage live = message(SESSION_1, 3);
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(live));
+
+        // Then
+        assertEquals(List.of("opened", "message:" + missed.getMessageId(), "message:" + live.getMessageId()),
+                     subscribers.get(0).events);
+    }
+
+    @Test
+    void onMessageCommitted_DropsSubscriberThatFallsBehind() {
+        // Given: a drain that has not run yet, as if the client stopped reading
+        List<Runnable> stalled = new ArrayList<>();
+        broadcaster = newBroadcaster(stalled::add, 2);
+        subscribe(SESSION_1, null);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            broadcaster.onMessageCommitted(new MessageCommittedEvent(message(SESSION_1, i)));
+        }
+
+        // Then: unregistered at once, completed by the drain
+        assertEquals(0, broadcaster.subscriberCount(SESSION_1));
+        assertEquals(List.of(), subscribers.get(0).events);
+        stalled.get(0).run();
+        assertEquals(List.of("opened", "completed"), subscribers.get(0).events);
+    }
+
+    @Test
+    void onMessageCommitted_CompletesADroppedSubscriberAfterTheMessageBeingSent() {
+        // Given: messages published while the subscriber is still writing the first one
+        broadcaster = newBroadcaster(new SyncTaskExecutor(), 2);
+        subscribe(SESSION_1, null);
+        RecordingSubscriber subscriber = subscribers.get(0);
+        ChatMessage first = message(SESSION_1, 1);
+        subscriber.whileSending = () -> {
+            subscriber.whileSending = null;
+            for (int i = 2; i < 6; i++) {
+                broadcaster.onMessageCommitted(new MessageCommittedEvent(message(SESSION_1, i)));
+            }
+        };
+
+        // When
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(first));
+
+        // Then: the completion does not interleave with the write
+        assertEquals(List.of("opened", "message:" + first.getMessageId(), "completed"), subscriber.events);
+        assertEquals(0, broadcaster.subscriberCount(SESSION_1));
+    }
+
+    @Test
+    void onMessageCommitted_DropsSubscriberWhenTheSendQueueIsFull() {
+        // Given: a send pool that accepts the subscription and then rejects every drain
+        List<Runnable> accepted = new ArrayList<>();
+        broadcaster = newBroadcaster(task -> {
+            if (!accepted.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            accepted.add(task);
+        }, 10);
+        subscribe(SESSION_1, null);
+        accepted.get(0).run();
+
+        // When
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(message(SESSION_1, 1)));
+
+        // Then
+        assertEquals(List.of("opened", "completed"), subscribers.get(0).events);
+        assertEquals(0, broadcaster.subscriberCount(SESSION_1));
+    }
+
+    @Test
+    void cancel_StopsDeliveryAndUnregisters() {
+        // Given
+        broadcaster = newBroadcaster(new SyncTaskExecutor(), 10);
+        MessageSubscription subscription = subscribe(SESSION_1, null);
+
+        // When
+        subscription.cancel();
+        broadcaster.onMessageCommitted(new MessageCommittedEvent(message(SESSION_1, 1)));
+
+        // Then
+        assertEquals(List.of("opened"), subscribers.get(0).events);
+        assertEquals(0, broadcaster.subscriberCount(SESSION_1));
+    }
+
+    @Test
+    void subscribe_KeepsSubscriptionsRacingWithTheLastCancel() throws InterruptedException {
+        // Given
+        broadcaster = newBroadcaster(task -> { }, 10);
+
+        // When: one thread keeps emptying the session's set while another subscribes
+        List<MessageSubscription> kept = new ArrayList<>();
+        Thread churn = new Thread(() -> {
+            for (int i = 0; i < 10_000; i++) {
+                broadcaster.subscribe(SESSION_1, null, new RecordingSubscriber()).cancel();
+            }
+        });
+        churn.start();
+        for (int i = 0; i < 1_000; i++) {
+            kept.add(broadcaster.subscribe(SESSION_1, null, new RecordingSubscriber()));
+        }
+        churn.join();
+
+        // Then
+        assertEquals(kept.size(), broadcaster.subscriberCount(SESSION_1));
+    }
+
+    @Test
+    void sendHeartbeats_WritesKeepaliveToIdleSubscribers() {
+        // Given
+        broadcaster = newBroadcaster(new SyncTaskExecutor(), 10);
+        subscribe(SESSION_1, null);
+
+        // When
+        broadcaster.sendHeartbeats();
+
+        // Then
+        assertEquals(List.of("opened", "heartbeat"), subscribers.get(0).events);
+    }
+
+    @Test
+    void bounded_RejectsTasksBeyondTheCapacityUntilOneFinishes() {
+        // Given
+        List<Runnable> started = new ArrayList<>();
+        Executor bounded = MessageBroadcaster.bounded(started::add, 2);
+        List<Integer> ran = new ArrayList<>();
+        bounded.execute(() -> ran.add(1));
+        bounded.execute(() -> ran.add(2));
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> bounded.execute(() -> ran.add(3)));
+        started.get(0).run();
+        bounded.execute(() -> ran.add(4));
+        assertThrows(RejectedExecutionException.class, () -> bounded.execute(() -> ran.add(5)));
+        started.subList(1, 3).forEach(Runnable::run);
+        assertEquals(List.of(1, 2, 4), ran);
+    }
+
+    @Test
+    void bounded_FreesTheSlotOfATaskTheThreadsReject() {
+        // Given
+        Executor bounded = MessageBroadcaster.bounded(task -> {
+            throw new RejectedExecutionException("No threads");
+        }, 1);
+
+        // When & Then
+        assertThrows(RejectedExecutionException.class, () -> bounded.execute(() -> { }));
+        RejectedExecutionException again = assertThrows(RejectedExecutionException.class,
+                                                        () -> bounded.execute(() -> { }));
+        assertEquals("No threads", again.getMessage());
+    }
+
+    private MessageBroadcaster newBroadcaster(Executor executor, int maxPending) {
+        return new MessageBroadcaster(chatStore, executor, new SimpleMeterRegistry(), maxPending, 100,
+                Duration.ofHours(1));
+    }
+
+    private MessageSubscription subscribe(UUID sessionId, HistoryCursor resumeFrom) {
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        subscribers.add(subscriber);
+        return broadcaster.subscribe(sessionId, resumeFrom, subscriber);
+    }
+
+    private static ChatMessage message(UUID sessionId, int second) {
+        ChatMessage message = new ChatMessage(sessionId, "content", "user");
+        message.setMessageId(new UUID(0x7000L, second));
+        message.setTimestamp(LocalDateTime.of(2025, 1, 1, 12, 0, second));
+        return message;
+    }
+
+    private static class RecordingSubscriber implements MessageSubscriber {
+        private final List<String> events = new ArrayList<>();
+        private Runnable whileSending;
+
+        @Override
+        public void opened() {
+            events.add("opened");
+        }
+
+        @Override
+        public void message(ChatMessage message) {
+            if (whileSending != null) {
+                whileSending.run();
+            }
+            events.add("message:" + message.getMessageId());
+        }
+
+        @Override
+        public void heartbeat() {
+            events.add("heartbeat");
+        }
+
+        @Override
+        public void completed() {
+            events.add("completed");
+        }
+
+        @Override
+        public void failed(Exception error) {
+            events.add("failed");
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.dto.SearchResponse;
+import com.pidima.chatmicroservice.dto.SearchResult;
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.InMemoryChatStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageSearchTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InMemoryChatStore chatStore;
+
+    @BeforeEach
+    void setUp() {
+        chatStore = new InMemoryChatStore();
+    }
+
+    @Test
+    void start_IndexesEveryStoredMessage() {
+        // Given: messages stored before the index existed
+        UUID first = createSession();
+        UUID second = createSession();
+        store(first, "john", "My order never arrived", BASE);
+        store(second, "jane", "The order arrived damaged", BASE.plusSeconds(1));
+        store(second, "agent", "Sorry to hear that", BASE.plusSeconds(2));
+
+        // When
+        MessageSearch search = newSearch();
+        search.start();
+
+        // Then
+        SearchResponse response = search.search("order arrived", null, null, null, null, null);
+        assertEquals(2, response.getTotalHits());
+        assertEquals(Set.of("My order never arrived", "The order arrived damaged"),
+                     Set.copyOf(response.getResults().stream().map(SearchResult::getContent).toList()));
+        assertEquals(3.0, meterRegistry.get("chat.search.documents").gauge().value());
+    }
+
+    @Test
+    void onMessageCommitted_MakesMessagesSearchableAndFiltersApply() {
+        // Given
+        MessageSearch search = newSearch();
+        search.start();
+        UUID sessionId = createSession();
+        UUID otherSessionId = createSession();
+
+        // When
+        search.onMessageCommitted(new MessageCommittedEvent(store(sessionId, "john", "refund please", BASE)));
+        search.onMessageCommitted(new MessageCommittedEvent(store(sessionId, "agent", "refund issued", BASE.plusHours(1))));
+        search.onMessageCommitted(new MessageCommittedEvent(store(otherSessionId, "jane", "refund?", BASE)));
+
+        // Then
+        assertEquals(3, search.search("Refund", null, null, null, null, null).getTotalHits());
+        List<SearchResult> agent = search.search("refund", sessionId.toString(), "agent", null, null, null).getResults();
+        assertEquals(List.of("refund issued"), agent.stream().map(SearchResult::getContent).toList());
+        assertEquals(1, search.search("refund", null, null, BASE.plusMinutes(30), null, null).getTotalHits());
+        assertEquals(0, search.search("refund", "not-a-session", null, null, null, null).getTotalHits());
+        assertEquals(1, search.search("refund", null, null, null, null, 1).getResults().size());
+    }
+
+    @Test
+    void onSessionsRemoved_DropsTheSessionsMessages() {
+        // Given
+        UUID sessionId = createSession();
+        store(sessionId, "john", "Cancel my subscription", BASE);
+        MessageSearch search = newSearch();
+        search.start();
+
+        // When
+        chatStore.deleteSessions(chatStore.findRetentionCandidates(BASE.plusDays(1), null, 10));
+        search.onSessionsRemoved(new SessionsRemovedEvent(Set.of(sessionId), 1));
+
+        // Then
+        assertEquals(0, search.search("subscription", null, null, null, null, null).getTotalHits());
+    }
+
+    @Test
+    void search_RejectsQueriesWithoutWordsAndBadLimits() {
+        MessageSearch search = newSearch();
+
+        assertThrows(IllegalArgumentException.class, () -> search.search(" ", null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> search.search("?!", null, null, null, null, null));
+        assertThrows(IllegalArgumentException.class, () -> search.search("refund", null, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> search.search("refund", null, null, null, null, 101));
+    }
+
+    private MessageSearch newSearch() {
+        return new MessageSearch(chatStore, meterRegistry, 20, 100, true, 0.25);
+    }
+
+    private UUID createSession() {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        chatStore.createSession(session, null);
+        return session.getSessionId();
+    }
+
+    private ChatMessage store(UUID sessionId, String sender, String content, LocalDateTime timestamp) {
+        ChatMessage message = new ChatMessage(sessionId, content, sender);
+        message.setMessageId(UUID.randomUUID());
+        message.setTimestamp(timestamp);
+        return chatStore.saveMessage(message);
+    }
+}
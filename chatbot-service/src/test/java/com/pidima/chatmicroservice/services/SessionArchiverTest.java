@@ -0,0 +1,145 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.InMemoryChatStore;
+import com.pidima.chatmicroservice.repositories.SessionArchive;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class SessionArchiverTest {
+
+    private static final LocalDateTime LONG_AGO = LocalDateTime.now().minusDays(90).truncatedTo(ChronoUnit.MICROS);
+
+    @TempDir
+    Path directory;
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InMemoryChatStore chatStore;
+    private SessionArchive sessionArchive;
+    private SessionArchiver archiver;
+
+    @BeforeEach
+    void setUp() {
+        chatStore = new InMemoryChatStore();
+        sessionArchive = new SessionArchive(directory.toString(), DataSize.ofKilobytes(64), 1_000);
+        archiver = new SessionArchiver(chatStore, sessionArchive, eventPublisher, meterRegistry,
+                                       Duration.ofDays(30), Duration.ZERO, 2, Duration.ZERO);
+    }
+
+    @AfterEach
+    void tearDown() {
+        archiver.shutdown();
+        sessionArchive.close();
+    }
+
+    @Test
+    void archive_MovesIdleSessionsAndKeepsActiveOnes() {
+        // Given: three idle sessions, more than one batch, and one still in use
+        UUID first = session(LONG_AGO, "one", "two");
+        UUID second = session(LONG_AGO, "three");
+        UUID third = session(LONG_AGO);
+        UUID active = session(LONG_AGO, "old");
+        chatStore.saveMessage(message(active, "recent", LocalDateTime.now()));
+
+        // When
+        SessionArchiver.Result result = archiver.archive();
+
+        // Then
+        assertEquals(3, result.sessionsArchived());
+        assertEquals(3, result.messagesArchived());
+        assertTrue(result.bytesReclaimed() > 0);
+        assertEquals(sessionArchive.sizeInBytes(), result.bytesWritten());
+        for (UUID sessionId : List.of(first, second, third)) {
+            assertTrue(chatStore.findSession(sessionId).isEmpty());
+            assertTrue(sessionArchive.contains(sessionId));
+        }
+        assertEquals(List.of("one", "two"),
+                     sessionArchive.findMessages(first).stream().map(ChatMessage::getContent).toList());
+        assertTrue(chatStore.findSession(active).isPresent());
+        assertFalse(sessionArchive.contains(active));
+        assertEquals(3.0, meterRegistry.get("chat.archive.sessions.moved").counter().count());
+        ArgumentCaptor<SessionsRemovedEvent> events = ArgumentCaptor.forClass(SessionsRemovedEvent.class);
+        verify(eventPublisher, times(2)).publishEvent(events.capture());
+        assertEquals(Set.of(first, second, third), events.getAllValues().stream()
+                .flatMap(event -> event.sessionIds().stream()).collect(Collectors.toSet()));
+        assertEquals(3, events.getAllValues().stream().mapToLong(SessionsRemovedEvent::messages).sum());
+    }
+
+    @Test
+    void archive_DropsTheCopyOfSessionsWrittenToMeanwhile() {
+        // Given: a message lands between reading the session and deleting it
+        UUID sessionId = session(LONG_AGO, "old");
+        InMemoryChatStore racing = spy(chatStore);
+        doAnswer(invocation -> {
+            chatStore.saveMessage(message(sessionId, "late", LocalDateTime.now()));
+            return invocation.callRealMethod();
+        }).when(racing).deleteSessions(anyCollection());
+        archiver.shutdown();
+        archiver = new SessionArchiver(racing, sessionArchive, eventPublisher, meterRegistry,
+                                       Duration.ofDays(30), Duration.ZERO, 2, Duration.ZERO);
+
+        // When
+        SessionArchiver.Result result = archiver.archive();
+
+        // Then
+        assertEquals(0, result.sessionsArchived());
+        assertEquals(2, chatStore.findMessages(sessionId).size());
+        assertFalse(sessionArchive.contains(sessionId));
+    }
+
+    @Test
+    void archive_DoesNothingWithoutAPolicy() {
+        // Given
+        session(LONG_AGO, "old");
+        archiver.shutdown();
+        archiver = new SessionArchiver(chatStore, sessionArchive, eventPublisher, meterRegistry,
+                                       Duration.ZERO, Duration.ZERO, 2, Duration.ZERO);
+
+        // When
+        SessionArchiver.Result result = archiver.archive();
+
+        // Then
+        assertEquals(new SessionArchiver.Result(0, 0, 0, 0), result);
+        assertEquals(0, sessionArchive.sessionCount());
+        verifyNoInteractions(eventPublisher);
+    }
+
+    private UUID session(LocalDateTime createdAt, String... contents) {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(createdAt);
+        chatStore.createSession(session, null);
+        for (int i = 0; i < contents.length; i++) {
+            chatStore.saveMessage(message(session.getSessionId(), contents[i], createdAt.plusSeconds(i)));
+        }
+        return session.getSessionId();
+    }
+
+    private static ChatMessage message(UUID sessionId, String content, LocalDateTime timestamp) {
+        ChatMessage message = new ChatMessage(sessionId, content, "user");
+        message.setMessageId(UUID.randomUUID());
+        message.setTimestamp(timestamp);
+        return message;
+    }
+}
@@ -0,0 +1,107 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.repositories.ChatStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SessionExistenceCacheTest {
+
+    private static final UUID SESSION_1 = UUID.fromString("01900000-0000-7000-8000-000000000001");
+    private static final UUID SESSION_2 = UUID.fromString("01900000-0000-7000-8000-000000000002");
+    private static final UUID SESSION_3 = UUID.fromString("01900000-0000-7000-8000-000000000003");
+    private static final UUID MISSING = UUID.fromString("01900000-0000-7000-8000-0000000000ff");
+
+    @Mock
+    private ChatStore chatStore;
+
+    private SessionExistenceCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new SessionExistenceCache(chatStore, 100, Duration.ofMinutes(30), Duration.ofSeconds(5));
+    }
+
+    @Test
+    void exists_LoadsOnceThenServesFromCache() {
+        // Given
+        when(chatStore.sessionExists(SESSION_1)).thenReturn(true);
+
+        // When
+        boolean first = cache.exists(SESSION_1);
+        boolean second = cache.exists(SESSION_1);
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        verify(chatStore, times(1)).sessionExists(SESSION_1);
+        assertEquals(1, cache.stats().hitCount());
+        assertEquals(1, cache.stats().missCount());
+    }
+
+    @Test
+    void exists_CachesUnknownSessions() {
+        // Given
+        when(chatStore.sessionExists(MISSING)).thenReturn(false);
+
+        // When
+        boolean first = cache.exists(MISSING);
+        boolean second = cache.exists(MISSING);
+
+        // Then
+        assertFalse(first);
+        assertFalse(second);
+        verify(chatStore, times(1)).sessionExists(MISSING);
+    }
+
+    @Test
+    void markExists_OverridesNegativeEntry() {
+        // Given
+        when(chatStore.sessionExists(SESSION_2)).thenReturn(false);
+        cache.exists(SESSION_2);
+
+        // When
+        cache.markExists(SESSION_2);
+
+        // Then
+        assertTrue(cache.exists(SESSION_2));
+        verify(chatStore, times(1)).sessionExists(SESSION_2);
+    }
+
+    @Test
+    void invalidate_ForcesReload() {
+        // Given
+        when(chatStore.sessionExists(SESSION_3)).thenReturn(true, false);
+        cache.exists(SESSION_3);
+
+        // When
+        cache.invalidate(SESSION_3);
+
+        // Then
+        assertFalse(cache.exists(SESSION_3));
+        verify(chatStore, times(2)).sessionExists(SESSION_3);
+    }
+
+    @Test
+    void bindTo_PublishesCacheMetrics() {
+        // Given
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+        // When
+        cache.bindTo(registry);
+
+        // Then
+        assertNotNull(registry.find("cache.gets").tag("cache", SessionExistenceCache.CACHE_NAME).meter());
+        assertNotNull(registry.find("cache.evictions").tag("cache", SessionExistenceCache.CACHE_NAME).meter());
+    }
+}
@@ -0,0 +1,177 @@
+package com.pidima.chatmicroservice.services;
+
+import com.pidima.chatmicroservice.models.ChatMessage;
+import com.pidima.chatmicroservice.models.ChatSession;
+import com.pidima.chatmicroservice.repositories.InMemoryChatStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class SessionExpiryTest {
+
+    private static final Duration TTL = Duration.ofMinutes(30);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T12:00:00Z"));
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private InMemoryChatStore chatStore;
+    private SessionExpiry expiry;
+
+    @BeforeEach
+    void setUp() {
+        chatStore = spy(new InMemoryChatStore());
+        expiry = new SessionExpiry(chatStore, eventPublisher, meterRegistry, TTL, Duration.ofSeconds(1), 2,
+                                   Duration.ZERO, Duration.ofHours(1), clock);
+    }
+
+    @AfterEach
+    void tearDown() {
+        expiry.shutdown();
+    }
+
+    @Test
+    void expire_DeletesSessionsIdleForTheTtlInBatches() {
+        // Given: three sessions created together, more than one batch
+        UUID first = createSession();
+        UUID second = createSession();
+        UUID third = createSession();
+        store(first, "Hello");
+
+        // When
+        clock.advance(TTL.minusSeconds(1));
+        long early = expiry.expire();
+        clock.advance(Duration.ofSeconds(2));
+        long expired = expiry.expire();
+
+        // Then
+        assertEquals(0, early);
+        assertEquals(3, expired);
+        for (UUID sessionId : Set.of(first, second, third)) {
+            assertFalse(chatStore.sessionExists(sessionId));
+        }
+        assertEquals(0, chatStore.countMessages());
+        verify(chatStore, times(2)).deleteSessions(any());
+        assertEquals(3.0, meterRegistry.get("chat.expiry.sessions").counter().count());
+        assertEquals(1.0, meterRegistry.get("chat.expiry.messages").counter().count());
+        assertEquals(0.0, meterRegistry.get("chat.expiry.tracked").gauge().value());
+    }
+
+    @Test
+    void expire_KeepsSessionsWrittenToWithinTheTtl() {
+        // Given
+        UUID sessionId = createSession();
+        clock.advance(TTL.minusMinutes(5));
+        store(sessionId, "Still here");
+
+        // When: the session's first deadline passes
+        clock.advance(Duration.ofMinutes(10));
+        long expired = expiry.expire();
+
+        // Then: the timer moved to the new deadline instead
+        assertEquals(0, expired);
+        assertTrue(chatStore.sessionExists(sessionId));
+        verify(chatStore, never()).deleteSessions(any());
+        clock.advance(TTL);
+        assertEquals(1, expiry.expire());
+        assertFalse(chatStore.sessionExists(sessionId));
+    }
+
+    @Test
+    void expire_KeepsSessionsWithWritesItHasNotSeen() {
+        // Given: a message stored without its event reaching the expiry yet
+        UUID sessionId = createSession();
+        chatStore.saveMessage(message(sessionId, "Unseen"));
+
+        // When
+        clock.advance(TTL.plusSeconds(1));
+        long expired = expiry.expire();
+
+        // Then
+        assertEquals(0, expired);
+        assertTrue(chatStore.sessionExists(sessionId));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void sweep_DeletesIdleSessionsThisInstanceNeverSaw() {
+        // Given: sessions created before the expiry started tracking
+        ChatSession idle = new ChatSession(UUID.randomUUID());
+        idle.setCreatedAt(LocalDateTime.now(clock).minus(TTL).minusMinutes(1));
+        chatStore.createSession(idle, null);
+        ChatSession recent = new ChatSession(UUID.randomUUID());
+        recent.setCreatedAt(LocalDateTime.now(clock));
+        chatStore.createSession(recent, null);
+
+        // When
+        long expired = expiry.sweep();
+
+        // Then
+        assertEquals(1, expired);
+        assertFalse(chatStore.sessionExists(idle.getSessionId()));
+        assertTrue(chatStore.sessionExists(recent.getSessionId()));
+        verify(eventPublisher).publishEvent(new SessionsRemovedEvent(Set.of(idle.getSessionId()), 0));
+    }
+
+    // Creates the session and delivers its event, like ChatService does
+    private UUID createSession() {
+        ChatSession session = new ChatSession(UUID.randomUUID());
+        session.setCreatedAt(LocalDateTime.now(clock));
+        chatStore.createSession(session, null);
+        expiry.onSessionCreated(new SessionCreatedEvent(session));
+        return session.getSessionId();
+    }
+
+    private void store(UUID sessionId, String content) {
+        ChatMessage message = chatStore.saveMessage(message(sessionId, content));
+        expiry.onMessageCommitted(new MessageCommittedEvent(message));
+    }
+
+    private ChatMessage message(UUID sessionId, String content) {
+        ChatMessage message = new ChatMessage(sessionId, content, "user");
+        message.setMessageId(UUID.randomUUID());
+        message.setTimestamp(LocalDateTime.now(clock));
+        return message;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.systemDefault();
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.pidima.chatmicroservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T12:00:00Z");
+
+    @Test
+    void newId_IsVersion7WithRfcVariantAndTimestamp() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // When
+        UUID id = generator.newId();
+
+        // Then
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        assertEquals(NOW.toEpochMilli(), id.getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void newId_IncreasesWithinOneMillisecond() {
+        // Given
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(Clock.fixed(NOW, ZoneOffset.UTC));
+
+        // When: more IDs than the 12-bit counter holds, so the timestamp has to advance
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            ids.add(generator.newId());
+        }
+
+        // Then: strictly increasing in byte order, which is how the database orders the column
+        for (int i = 1; i < ids.size(); i++) {
+            assertTrue(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(),
+                                            ids.get(i).getMostSignificantBits()) < 0);
+        }
+        assertEquals(NOW.toEpochMilli() + 1, ids.get(ids.size() - 1).getMostSignificantBits() >>> 16);
+    }
+
+    @Test
+    void newId_DoesNotGoBackwardsWhenClockDoes() {
+        // Given
+        Instant[] now = {NOW};
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return now[0];
+            }
+        };
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(clock);
+        UUID first = generator.newId();
+
+        // When
+        now[0] = NOW.minusSeconds(5);
+        UUID second = generator.newId();
+
+        // Then
+        assertTrue(Long.compareUnsigned(first.getMostSignificantBits(), second.getMostSignificantBits()) < 0);
+    }
+
+    @Test
+    void parse_RejectsNonUuidStrings() {
+        assertTrue(IdGenerator.parse("01900000-0000-7000-8000-000000000001").isPresent());
+        assertTrue(IdGenerator.parse("not-a-uuid").isEmpty());
+        assertTrue(IdGenerator.parse("1-1-1-1-1").isEmpty());
+        assertTrue(IdGenerator.parse(null).isEmpty());
+    }
+}
@@ -0,0 +1,83 @@
+package com.pidima.chatmicroservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    void advance_FiresTimersInDeadlineOrderAndNotBefore() {
+        // Given
+        TimerWheel<String> wheel = new TimerWheel<>(10, START);
+        wheel.schedule("later", START + 95);
+        wheel.schedule("sooner", START + 30);
+        wheel.schedule("overdue", START - 500);
+        List<String> fired = new ArrayList<>();
+
+        // When & Then
+        assertEquals(1, wheel.advance(START + 10, fired::add));
+        assertEquals(List.of("overdue"), fired);
+        assertEquals(0, wheel.advance(START + 29, fired::add));
+        assertEquals(1, wheel.advance(START + 30, fired::add));
+        assertEquals(0, wheel.advance(START + 99, fired::add));
+        assertEquals(1, wheel.advance(START + 100, fired::add));
+        assertEquals(List.of("overdue", "sooner", "later"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advance_CascadesTimersFromEveryLevel() {
+        // Given: deadlines on each level, and one beyond the wheel's range
+        TimerWheel<Long> wheel = new TimerWheel<>(1, START);
+        long[] delays = {63, 64, 4_095, 4_096, 262_143, 262_144, 20_000_000, 40_000_000};
+        for (long delay : delays) {
+            wheel.schedule(delay, START + delay);
+        }
+        Map<Long, Long> firedAt = new HashMap<>();
+
+        // When: advancing in uneven steps
+        Random random = new Random(42);
+        long now = START;
+        while (now < START + 40_000_000) {
+            now += 1 + random.nextInt(50_000);
+            long at = now;
+            wheel.advance(now, delay -> firedAt.put(delay, at));
+        }
+
+        // Then: each fired on the first advance that reached its deadline
+        for (long delay : delays) {
+            long deadline = START + delay;
+            assertTrue(firedAt.get(delay) >= deadline, "early: " + delay);
+            assertTrue(firedAt.get(delay) - deadline <= 50_000, "late: " + delay);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void schedule_FromAnExpiryCallbackFiresLater() {
+        // Given
+        TimerWheel<String> wheel = new TimerWheel<>(10, START);
+        wheel.schedule("session", START + 50);
+        List<Long> firedAt = new ArrayList<>();
+
+        // When: the callback files the timer again, as SessionExpiry does for touched sessions
+        wheel.advance(START + 50, key -> {
+            firedAt.add(START + 50);
+            wheel.schedule(key, START + 200);
+        });
+        wheel.advance(START + 190, key -> firedAt.add(START + 190));
+        wheel.advance(START + 200, key -> firedAt.add(START + 200));
+
+        // Then
+        assertEquals(List.of(START + 50, START + 200), firedAt);
+    }
+}
@@ -0,0 +1,91 @@
+package com.pidima.chatmicroservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketLimiterTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    private final AtomicLong now = new AtomicLong(42 * SECOND);
+
+    @Test
+    void tryAcquire_AllowsABurstThenReportsTheWait() {
+        // Given: 2 tokens per second, up to 3 at once
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(2, 3, 100, now::get);
+
+        // When & Then
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("john"));
+        }
+        assertEquals(SECOND / 2, limiter.tryAcquire("john"));
+        now.addAndGet(SECOND / 4);
+        assertEquals(SECOND / 4, limiter.tryAcquire("john"));
+        now.addAndGet(SECOND / 4);
+        assertEquals(0, limiter.tryAcquire("john"));
+        assertTrue(limiter.tryAcquire("john") > 0);
+    }
+
+    @Test
+    void tryAcquire_RefillsUpToTheBurstOnly() {
+        // Given
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(10, 2, 100, now::get);
+        limiter.tryAcquire("john");
+
+        // When: idle for far longer than it takes to refill
+        now.addAndGet(60 * SECOND);
+
+        // Then
+        assertEquals(0, limiter.tryAcquire("john"));
+        assertEquals(0, limiter.tryAcquire("john"));
+        assertTrue(limiter.tryAcquire("john") > 0);
+    }
+
+    @Test
+    void tryAcquire_KeepsABucketPerKey() {
+        // Given
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(1, 1, 100, now::get);
+
+        // When & Then
+        assertEquals(0, limiter.tryAcquire("john"));
+        assertTrue(limiter.tryAcquire("john") > 0);
+        assertEquals(0, limiter.tryAcquire("jane"));
+        assertEquals(2, limiter.keyCount());
+    }
+
+    @Test
+    void tryAcquire_NeverAdmitsMoreThanTheBurstConcurrently() throws Exception {
+        // Given: a frozen clock, so exactly the burst may pass
+        TokenBucketLimiter<String> limiter = new TokenBucketLimiter<>(1, 100, 100, now::get);
+        AtomicInteger admitted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // When
+        for (int thread = 0; thread < 8; thread++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 1000; i++) {
+                    if (limiter.tryAcquire("john") == 0) {
+                        admitted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(100, admitted.get());
+    }
+}